@@ -0,0 +1,117 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.benchmark;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Forwards TCP connections on the loopback to the given target and delays every new connection before forwarding
+ * anything, so that the cost of the TCP and TLS handshakes with a remote server can be resembled locally. Requests on
+ * an established connection are not delayed.
+ */
+public class HandshakeDelayingProxy implements Closeable {
+
+    @Nonnull
+    private final InetSocketAddress target;
+    @Nonnull
+    private final Duration handshakeDelay;
+    @Nonnull
+    private final ServerSocket serverSocket;
+    @Nonnull
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        final var thread = new Thread(runnable, "handshake-delaying-proxy");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public HandshakeDelayingProxy(@Nonnull final InetSocketAddress target,
+                                  @Nonnull final Duration handshakeDelay) throws IOException {
+        this.target = target;
+        this.handshakeDelay = handshakeDelay;
+        this.serverSocket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress());
+        executor.execute(this::accept);
+    }
+
+    /**
+     * @return the address to connect to instead of the target
+     */
+    @Nonnull
+    public InetSocketAddress getAddress() {
+        return new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            final Socket client;
+            try {
+                client = serverSocket.accept();
+            } catch (final IOException exception) {
+                // Closed.
+                return;
+            }
+            executor.execute(() -> forward(client));
+        }
+    }
+
+    private void forward(@Nonnull final Socket client) {
+        try (client; final var server = new Socket()) {
+            Thread.sleep(handshakeDelay.toMillis());
+            server.connect(target);
+            client.setTcpNoDelay(true);
+            server.setTcpNoDelay(true);
+            final var upstream = executor.submit(() -> {
+                pump(client.getInputStream(), server.getOutputStream());
+                // Lets the target close the connection too.
+                server.shutdownOutput();
+                return null;
+            });
+            pump(server.getInputStream(), client.getOutputStream());
+            upstream.cancel(true);
+        } catch (final IOException | InterruptedException exception) {
+            // The connection is closed by either side.
+        }
+    }
+
+    private static void pump(@Nonnull final InputStream from,
+                             @Nonnull final OutputStream to) throws IOException {
+        final var buffer = new byte[8 * 1024];
+        int read;
+        while ((read = from.read(buffer)) != -1) {
+            to.write(buffer, 0, read);
+            to.flush();
+        }
+    }
+}
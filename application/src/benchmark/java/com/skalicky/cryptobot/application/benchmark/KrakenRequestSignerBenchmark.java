@@ -0,0 +1,92 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.benchmark;
+
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.signature.KrakenRequestSigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.annotation.Nonnull;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signatures per second of {@link KrakenRequestSigner} compared with the former path of
+ * {@link edu.self.kraken.api.KrakenApi}, which decoded the secret, looked up the {@link Mac} and {@link MessageDigest}
+ * and copied the HMAC message byte by byte for every request. Run by the jmhBenchmark task, whose GC profiler reports
+ * the bytes allocated per signature as gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KrakenRequestSignerBenchmark {
+
+    @Nonnull
+    private static final String SECRET = Base64.getEncoder().encodeToString(
+            "kraken-api-secret-used-only-in-benchmarks".getBytes(StandardCharsets.UTF_8));
+    @Nonnull
+    private static final String PATH = "/0/private/AddOrder";
+    @Nonnull
+    private static final String NONCE = "1588000000000000";
+    @Nonnull
+    private static final String POST_DATA = "pair=XXBTZEUR&type=buy&ordertype=limit&price=8900.1&volume=0.00561798"
+            + "&oflags=post&expiretm=%2B129600&nonce=" + NONCE + "&";
+
+    private KrakenRequestSigner signer;
+
+    @Setup
+    public void createSigner() throws Exception {
+        signer = new KrakenRequestSigner(SECRET);
+    }
+
+    @Benchmark
+    public String signer() {
+        return signer.sign(PATH, NONCE, POST_DATA);
+    }
+
+    @Benchmark
+    public String formerPath() throws Exception {
+        final var sha256 = MessageDigest.getInstance("SHA-256")
+                .digest((NONCE + POST_DATA).getBytes(StandardCharsets.UTF_8));
+        final var path = PATH.getBytes(StandardCharsets.UTF_8);
+        final var hmacKey = Base64.getDecoder().decode(SECRET);
+        final var hmacMessage = new byte[path.length + sha256.length];
+        for (int i = 0; i < hmacMessage.length; i++) {
+            hmacMessage[i] = i < path.length ? path[i] : sha256[i - path.length];
+        }
+        final var mac = Mac.getInstance("HmacSHA512");
+        mac.init(new SecretKeySpec(hmacKey, "HmacSHA512"));
+        return Base64.getEncoder().encodeToString(mac.doFinal(hmacMessage));
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenClosedOrderResultDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenResponseDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.logic.KrakenPrivateApiConnectorImpl;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.ratelimit.KrakenAccountTier;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.ratelimit.KrakenRateLimitGovernor;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.transport.HttpClientKrakenTransport;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.transport.KrakenTransportConfig;
+import edu.self.kraken.api.KrakenApi;
+
+import javax.annotation.Nonnull;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Measures the latency of retrieving a recorded response of closed orders of many megabytes from
+ * {@link KrakenStubServer} and the peak heap used meanwhile, via the streaming path of
+ * {@link KrakenPrivateApiConnectorImpl} compared with the former path, which read the whole response into a string
+ * first and parsed it afterwards.
+ * <p>
+ * Usage: &lt;closed orders per response&gt; &lt;concurrent requests&gt; &lt;requests per repetition&gt;
+ * &lt;repetitions&gt;
+ * <p>
+ * The peak of the heap still used after a garbage collection during a run approximates the memory held by the
+ * responses in flight. It depends on when the collections happen, hence small heaps (-Xmx) give more precise peaks.
+ * The first repetitions include class loading and the JIT compiler warming up.
+ */
+public class KrakenResponseReadingBenchmark {
+
+    @Nonnull
+    private static final String CLOSED_ORDERS_PATH = "/0/private/ClosedOrders";
+    @Nonnull
+    private static final TypeReference<KrakenResponseDto<KrakenClosedOrderResultDto>> CLOSED_ORDERS_RESPONSE_TYPE =
+            new TypeReference<>() {
+            };
+
+    public static void main(@Nonnull final String[] args) throws Exception {
+        if (args.length != 4) {
+            throw new IllegalArgumentException("Unexpected arguments " + Arrays.toString(args));
+        }
+        final var closedOrderCount = Integer.parseInt(args[0]);
+        final var concurrentRequestCount = Integer.parseInt(args[1]);
+        final var requestCount = Integer.parseInt(args[2]);
+        final var repetitions = Integer.parseInt(args[3]);
+
+        final var closedOrdersResponse = createClosedOrdersResponse(closedOrderCount);
+        try (final var stubServer = new KrakenStubServer(Duration.ZERO,
+                Map.of(CLOSED_ORDERS_PATH, closedOrdersResponse))) {
+            System.out.println(String.format("Closed orders response of %d orders and %.1f MB", closedOrderCount,
+                    closedOrdersResponse.getBytes(StandardCharsets.UTF_8).length / (1024.0 * 1024.0)));
+            final var transport = new HttpClientKrakenTransport(new KrakenTransportConfig(concurrentRequestCount,
+                    KrakenTransportConfig.DEFAULT.getConnectTimeout(), KrakenTransportConfig.DEFAULT.getReadTimeout()));
+            final var krakenApi = new KrakenApi(transport, stubServer.getApiUrl());
+            krakenApi.setKey("benchmark");
+            krakenApi.setSecret(Base64.getEncoder().encodeToString("benchmark".getBytes(StandardCharsets.UTF_8)));
+            final var objectMapper = new ObjectMapper();
+            final var readingThreads = Executors.newCachedThreadPool();
+            try {
+                for (int repetition = 1; repetition <= repetitions; repetition++) {
+                    run("String (former)", repetition, requestCount, concurrentRequestCount,
+                            () -> krakenApi.queryPrivateAsync(KrakenApi.Method.CLOSED_ORDERS, Map.of())
+                                    .thenApplyAsync(response -> {
+                                        try {
+                                            return objectMapper.readValue(response, CLOSED_ORDERS_RESPONSE_TYPE);
+                                        } catch (final IOException exception) {
+                                            throw new RuntimeException(exception);
+                                        }
+                                    }, readingThreads));
+                    // A new governor per request so that the rate limit does not add to the latency.
+                    run("Streaming", repetition, requestCount, concurrentRequestCount,
+                            () -> new KrakenPrivateApiConnectorImpl(krakenApi, objectMapper,
+                                    new KrakenRateLimitGovernor(KrakenAccountTier.PRO), 1, readingThreads)
+                                    .closedOrdersAsync(false, 0L));
+                }
+            } finally {
+                readingThreads.shutdownNow();
+            }
+        }
+    }
+
+    private static void run(@Nonnull final String path,
+                            final int repetition,
+                            final int requestCount,
+                            final int concurrentRequestCount,
+                            @Nonnull final Supplier<CompletableFuture<KrakenResponseDto<KrakenClosedOrderResultDto>>> request)
+            throws Exception {
+        System.gc();
+        final var peakHeapAfterGcInBytes = new AtomicLong();
+        final var gcCount = new AtomicLong();
+        final NotificationListener gcListener = (notification, handback) -> {
+            final var usedAfterGcInBytes = getHeapUsedAfterGc(notification);
+            gcCount.incrementAndGet();
+            peakHeapAfterGcInBytes.accumulateAndGet(usedAfterGcInBytes, Math::max);
+        };
+        for (final var gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) gcBean).addNotificationListener(gcListener, null, null);
+        }
+
+        final var latenciesInNanos = Collections.synchronizedList(new ArrayList<Long>(requestCount));
+        final var executor = Executors.newFixedThreadPool(concurrentRequestCount);
+        try {
+            final var tasks = new ArrayList<Callable<Void>>();
+            for (int thread = 0; thread < concurrentRequestCount; thread++) {
+                final var requestsOfThread = requestCount / concurrentRequestCount
+                        + (thread < requestCount % concurrentRequestCount ? 1 : 0);
+                tasks.add(() -> {
+                    for (int index = 0; index < requestsOfThread; index++) {
+                        final var startInNanos = System.nanoTime();
+                        final var response = request.get().join();
+                        latenciesInNanos.add(System.nanoTime() - startInNanos);
+                        if (response.getResult() == null || response.getResult().getClosed().isEmpty()) {
+                            throw new IllegalStateException("Unexpected response with errors " + response.getError());
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (final Future<Void> result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            for (final var gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+                ((NotificationEmitter) gcBean).removeNotificationListener(gcListener);
+            }
+        }
+        report(path, repetition, concurrentRequestCount, latenciesInNanos, gcCount.get(),
+                peakHeapAfterGcInBytes.get());
+    }
+
+    private static long getHeapUsedAfterGc(@Nonnull final Notification notification) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return 0;
+        }
+        final var gcInfo = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData())
+                .getGcInfo();
+        long usedInBytes = 0;
+        for (final var pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            final MemoryUsage usage = gcInfo.getMemoryUsageAfterGc().get(pool.getName());
+            if (usage != null && pool.getType() == MemoryType.HEAP) {
+                usedInBytes += usage.getUsed();
+            }
+        }
+        return usedInBytes;
+    }
+
+    private static void report(@Nonnull final String path,
+                               final int repetition,
+                               final int concurrentRequestCount,
+                               @Nonnull final List<Long> latenciesInNanos,
+                               final long gcCount,
+                               final long peakHeapAfterGcInBytes) {
+        final var sortedLatencies = new ArrayList<>(latenciesInNanos);
+        Collections.sort(sortedLatencies);
+        System.out.println(String.format("Repetition %d: %-15s %d requests, %d concurrently, latency median %d ms,"
+                        + " 99th percentile %d ms, %d GCs, peak heap after GC %d MB", repetition, path, sortedLatencies.size(),
+                concurrentRequestCount, toMillis(sortedLatencies.get(sortedLatencies.size() / 2)),
+                toMillis(sortedLatencies.get(Math.min(sortedLatencies.size() - 1, sortedLatencies.size() * 99 / 100))),
+                gcCount, peakHeapAfterGcInBytes / (1024 * 1024)));
+    }
+
+    private static long toMillis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * @return a response resembling the recorded responses of Kraken, every order having its own ID and numbers
+     */
+    @Nonnull
+    private static String createClosedOrdersResponse(final int closedOrderCount) {
+        final var response = new StringBuilder("{\"error\":[],\"result\":{\"closed\":{");
+        for (int index = 0; index < closedOrderCount; index++) {
+            if (index > 0) {
+                response.append(',');
+            }
+            final var price = 7000 + index % 3000 + "." + index % 10;
+            final var volume = "0.0" + (10000 + index % 90000);
+            response.append(String.format("\"O%05d-YYYY5-ZZZZZZ\":{\"refid\":null,\"userref\":0,\"status\":\"closed\","
+                            + "\"reason\":null,\"opentm\":%d.1067,\"closetm\":%d.4438,\"starttm\":0,\"expiretm\":%d,"
+                            + "\"descr\":{\"pair\":\"XBTEUR\",\"type\":\"buy\",\"ordertype\":\"limit\",\"price\":\"%s\","
+                            + "\"price2\":\"0\",\"leverage\":\"none\",\"order\":\"buy %s XBTEUR @ limit %s\","
+                            + "\"close\":\"\"},\"vol\":\"%s\",\"vol_exec\":\"%s\",\"cost\":\"49.9\",\"fee\":\"0.12\","
+                            + "\"price\":\"%s\",\"stopprice\":\"0.00000\",\"limitprice\":\"0.00000\",\"misc\":\"\","
+                            + "\"oflags\":\"fciq\"}", index, 1583703494L + index * 86400L,
+                    1583704373L + index * 86400L, 1583833094L + index * 86400L, price, volume, price, volume, volume,
+                    price));
+        }
+        return response.append("},\"count\":").append(closedOrderCount).append("}}").toString();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the Kraken API and for a Slack webhook answering every call of a run of the bot with a fixed
+ * response, so that the bot can be measured without the network and without real orders.
+ * <p>
+ * Responses can be delayed to resemble the latency of the real services. Delayed responses wait on a timer, not on
+ * a thread of the stub, so that the stub itself does not limit the number of requests in flight.
+ */
+public class KrakenStubServer implements Closeable {
+
+    @Nonnull
+    private static final String SLACK_WEBHOOK_PATH = "/slack";
+    @Nonnull
+    private static final Map<String, String> RESPONSES_BY_PATHS = Map.of(
+            "/0/private/Balance", "{\"error\":[],\"result\":{\"ZEUR\":\"1000.0000\",\"XXBT\":\"0.5000000000\"}}",
+            "/0/public/Ticker", "{\"error\":[],\"result\":{\"XXBTZEUR\":{\"a\":[\"9000.00000\",\"1\",\"1.000\"],"
+                    + "\"b\":[\"8990.00000\",\"1\",\"1.000\"],\"c\":[\"8995.00000\",\"0.01000000\"]}}}",
+            "/0/private/AddOrder", "{\"error\":[],\"result\":{\"descr\":{\"order\":\"buy 0.00561798 XBTEUR @ limit"
+                    + " 8900.1\"},\"txid\":[\"OUF4EM-FRGI2-MQMWZD\"]}}",
+            "/0/private/OpenOrders", "{\"error\":[],\"result\":{\"open\":{}}}",
+            "/0/private/ClosedOrders", "{\"error\":[],\"result\":{\"closed\":{},\"count\":0}}",
+            SLACK_WEBHOOK_PATH, "ok");
+    @Nonnull
+    private static final String UNKNOWN_METHOD_RESPONSE = "{\"error\":[\"EGeneral:Unknown method\"]}";
+    /**
+     * Fixed so that the threads of the stub do not distort thread counts of the measured bot.
+     */
+    private static final int THREAD_COUNT = 8;
+
+    @Nonnull
+    private final Map<String, byte[]> responsesByPaths = new HashMap<>();
+    @Nonnull
+    private final HttpServer server;
+    @Nonnull
+    private final ExecutorService executor;
+    @Nonnull
+    private final ScheduledExecutorService responseDelayer;
+    @Nonnull
+    private final Duration responseDelay;
+    /**
+     * {@link System#nanoTime()} of the first request since the last reset, 0 if none.
+     */
+    @Nonnull
+    private final AtomicLong firstRequestInNanos = new AtomicLong();
+    @Nonnull
+    private final AtomicLong requestCount = new AtomicLong();
+
+    public KrakenStubServer() throws IOException {
+        this(Duration.ZERO);
+    }
+
+    public KrakenStubServer(@Nonnull final Duration responseDelay) throws IOException {
+        this(responseDelay, Map.of());
+    }
+
+    /**
+     * @param responsesByPaths responses replacing the fixed ones, e.g. recorded responses of many megabytes
+     */
+    public KrakenStubServer(@Nonnull final Duration responseDelay,
+                            @Nonnull final Map<String, String> responsesByPaths) throws IOException {
+        RESPONSES_BY_PATHS.forEach((path, response) -> this.responsesByPaths.put(path,
+                response.getBytes(StandardCharsets.UTF_8)));
+        responsesByPaths.forEach((path, response) -> this.responsesByPaths.put(path,
+                response.getBytes(StandardCharsets.UTF_8)));
+        this.responseDelay = responseDelay;
+        this.responseDelayer = Executors.newSingleThreadScheduledExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    /**
+     * @return the URL to be passed to the bot as the trading platform API URL
+     */
+    @Nonnull
+    public String getApiUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    @Nonnull
+    public String getSlackWebhookUrl() {
+        return getApiUrl() + SLACK_WEBHOOK_PATH;
+    }
+
+    /**
+     * @return {@link System#nanoTime()} of the first request since the last reset, 0 if none
+     */
+    public long getFirstRequestInNanos() {
+        return firstRequestInNanos.get();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public void reset() {
+        firstRequestInNanos.set(0);
+        requestCount.set(0);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        responseDelayer.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private void handle(@Nonnull final HttpExchange exchange) throws IOException {
+        firstRequestInNanos.compareAndSet(0, System.nanoTime());
+        requestCount.incrementAndGet();
+        exchange.getRequestBody().readAllBytes();
+        if (responseDelay.isZero()) {
+            respond(exchange);
+        } else {
+            responseDelayer.schedule(() -> executor.submit(() -> {
+                respond(exchange);
+                return null;
+            }), responseDelay.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void respond(@Nonnull final HttpExchange exchange) throws IOException {
+        try {
+            final var path = exchange.getRequestURI().getPath();
+            final var response = responsesByPaths.getOrDefault(path,
+                    UNKNOWN_METHOD_RESPONSE.getBytes(StandardCharsets.UTF_8));
+            exchange.getResponseHeaders().set("Content-Type", SLACK_WEBHOOK_PATH.equals(path)
+                    ? "text/plain"
+                    : "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.benchmark;
+
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.transport.HttpClientKrakenTransport;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.transport.KrakenTransportConfig;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many requests per second reach {@link KrakenStubServer} through {@link HttpClientKrakenTransport}
+ * compared with the former path of {@link edu.self.kraken.api.KrakenApi}, which opened a new
+ * {@link HttpURLConnection} for every request and disconnected it afterwards. As the former path read every response
+ * to its end before disconnecting, the JDK kept its connection alive in its keep-alive cache, which is visible as the
+ * handshake delay being paid only once per thread and idle period.
+ * <p>
+ * Usage: &lt;requests per repetition&gt; &lt;threads&gt; &lt;handshake delay in ms&gt; &lt;repetitions&gt;
+ * <p>
+ * On the loopback, opening a connection costs next to nothing, hence every new connection is delayed by
+ * {@link HandshakeDelayingProxy} to resemble the round trips of the TCP and TLS handshakes with the real API. The first
+ * repetitions include class loading and the JIT compiler warming up.
+ */
+public class KrakenTransportBenchmark {
+
+    @Nonnull
+    private static final String TICKER_PATH = "/0/public/Ticker";
+    @Nonnull
+    private static final String TICKER_POST_DATA = "pair=XXBTZEUR";
+
+    public static void main(@Nonnull final String[] args) throws Exception {
+        if (args.length != 4) {
+            throw new IllegalArgumentException("Unexpected arguments " + Arrays.toString(args));
+        }
+        final var requestCount = Integer.parseInt(args[0]);
+        final var threadCount = Integer.parseInt(args[1]);
+        final var handshakeDelay = Duration.ofMillis(Long.parseLong(args[2]));
+        final var repetitions = Integer.parseInt(args[3]);
+
+        try (final var stubServer = new KrakenStubServer();
+             final var proxy = new HandshakeDelayingProxy(toAddress(URI.create(stubServer.getApiUrl())),
+                     handshakeDelay)) {
+            final var uri = URI.create("http://" + proxy.getAddress().getHostString() + ":"
+                    + proxy.getAddress().getPort() + TICKER_PATH);
+            System.out.println(String.format("New connections delayed by %d ms", handshakeDelay.toMillis()));
+            final var transport = new HttpClientKrakenTransport(new KrakenTransportConfig(threadCount,
+                    KrakenTransportConfig.DEFAULT.getConnectTimeout(), KrakenTransportConfig.DEFAULT.getReadTimeout()));
+            for (int repetition = 1; repetition <= repetitions; repetition++) {
+                report("HttpURLConnection (former)", repetition, requestCount, threadCount,
+                        run(requestCount, threadCount, () -> postWithNewConnection(uri)));
+                report("HttpClientKrakenTransport", repetition, requestCount, threadCount,
+                        run(requestCount, threadCount, () -> transport.post(uri, Map.of(), TICKER_POST_DATA)));
+            }
+        }
+    }
+
+    /**
+     * @return duration in nanoseconds of sending the given number of requests from the given number of threads
+     */
+    private static long run(final int requestCount,
+                            final int threadCount,
+                            @Nonnull final Callable<String> request) throws Exception {
+        final var executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            final var tasks = new ArrayList<Callable<Void>>();
+            for (int thread = 0; thread < threadCount; thread++) {
+                final var requestsOfThread = requestCount / threadCount + (thread < requestCount % threadCount ? 1 : 0);
+                tasks.add(() -> {
+                    for (int index = 0; index < requestsOfThread; index++) {
+                        request.call();
+                    }
+                    return null;
+                });
+            }
+            final var startInNanos = System.nanoTime();
+            for (final var result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+            return System.nanoTime() - startInNanos;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void report(@Nonnull final String path,
+                               final int repetition,
+                               final int requestCount,
+                               final int threadCount,
+                               final long durationInNanos) {
+        System.out.println(String.format("Repetition %d: %-26s %d requests on %d threads in %d ms, %.1f requests/s",
+                repetition, path, requestCount, threadCount, TimeUnit.NANOSECONDS.toMillis(durationInNanos),
+                requestCount * (double) TimeUnit.SECONDS.toNanos(1) / durationInNanos));
+    }
+
+    @Nonnull
+    private static InetSocketAddress toAddress(@Nonnull final URI uri) {
+        return new InetSocketAddress(uri.getHost(), uri.getPort());
+    }
+
+    /**
+     * The former path of {@link edu.self.kraken.api.KrakenApi}.
+     */
+    @Nonnull
+    private static String postWithNewConnection(@Nonnull final URI uri) throws IOException {
+        final var connection = (HttpURLConnection) uri.toURL().openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            try (final var out = new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8)) {
+                out.write(TICKER_POST_DATA);
+            }
+            try (final var in = connection.getInputStream()) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
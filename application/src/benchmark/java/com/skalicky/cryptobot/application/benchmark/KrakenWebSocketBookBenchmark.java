@@ -0,0 +1,164 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.logic.KrakenWebSocketPublicApiConnectorImpl;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.CurrencyPairBoToKrakenPairPrecisionConverter;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.CurrencyPairBoToKrakenWebSocketSymbolConverter;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.logic.KrakenWebSocketOrderBookFacadeImpl;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.orderbook.KrakenBookChecksum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.orderbook.L2OrderBook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order book updates per second from the text of a WebSocket message to a maintained order book with a verified
+ * checksum: {@link KrakenWebSocketPublicApiConnectorImpl} reads the levels of the BTC/EUR book token by token into
+ * fixed-point arrays and {@link KrakenWebSocketOrderBookFacadeImpl} applies them. The messages are handed over by
+ * {@link LoopbackWebSocketHttpClient}, hence no network is involved. Every update changes one bid and one ask, the
+ * updates are cycled and every second half restores the levels changed by the first one, so that the checksums
+ * computed in advance stay valid. Run by the jmhBenchmark task, whose GC profiler reports the bytes allocated per
+ * update as gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KrakenWebSocketBookBenchmark {
+
+    private static final int DEPTH = 10;
+    private static final int PRICE_SCALE = 1;
+    private static final int QUANTITY_SCALE = 8;
+    @Nonnull
+    private static final String SYMBOL = "BTC/EUR";
+    @Nonnull
+    private static final CurrencyPairBo CURRENCY_PAIR = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+
+    private LoopbackWebSocketHttpClient httpClient;
+    private KrakenWebSocketPublicApiConnectorImpl connector;
+    private KrakenWebSocketOrderBookFacadeImpl facade;
+    private String[] updates;
+    private int nextUpdate;
+
+    @Setup
+    public void subscribeBook() {
+        httpClient = new LoopbackWebSocketHttpClient();
+        connector = new KrakenWebSocketPublicApiConnectorImpl(httpClient,
+                KrakenWebSocketPublicApiConnectorImpl.DEFAULT_URI, new ObjectMapper());
+        facade = new KrakenWebSocketOrderBookFacadeImpl(connector, new CurrencyPairBoToKrakenWebSocketSymbolConverter(),
+                new CurrencyPairBoToKrakenPairPrecisionConverter(), DEPTH);
+        try {
+            facade.getOrderBook(CURRENCY_PAIR, DEPTH);
+        } catch (final IllegalStateException expected) {
+            // The first request subscribes the book.
+        }
+
+        final var bidPrices = new long[DEPTH];
+        final var bidQuantities = new long[DEPTH];
+        final var askPrices = new long[DEPTH];
+        final var askQuantities = new long[DEPTH];
+        for (int i = 0; i < DEPTH; i++) {
+            bidPrices[i] = 89_000 - 5 * i;
+            bidQuantities[i] = 10_000_000L * (i + 1);
+            askPrices[i] = 89_010 + 5 * i;
+            askQuantities[i] = 15_000_000L * (i + 1);
+        }
+        final var orderBook = new L2OrderBook(DEPTH, PRICE_SCALE, QUANTITY_SCALE);
+        final var checksum = new KrakenBookChecksum();
+        orderBook.applySnapshot(bidPrices, bidQuantities, DEPTH, askPrices, askQuantities, DEPTH);
+        httpClient.receive(createMessage("snapshot", bidPrices, bidQuantities, askPrices, askQuantities,
+                checksum.compute(orderBook)));
+
+        updates = new String[2 * DEPTH];
+        for (int i = 0; i < updates.length; i++) {
+            final var level = i % DEPTH;
+            final var restoring = i >= DEPTH;
+            final var bidPrice = new long[]{bidPrices[level]};
+            final var bidQuantity = new long[]{restoring ? bidQuantities[level] : bidQuantities[level] + 1_234_567};
+            final var askPrice = new long[]{askPrices[level]};
+            final var askQuantity = new long[]{restoring ? askQuantities[level] : askQuantities[level] + 7_654_321};
+            orderBook.applyUpdate(bidPrice, bidQuantity, 1, askPrice, askQuantity, 1);
+            updates[i] = createMessage("update", bidPrice, bidQuantity, askPrice, askQuantity,
+                    checksum.compute(orderBook));
+        }
+        for (final var update : updates) {
+            httpClient.receive(update);
+        }
+        // Fails if any checksum did not match, as the book would be resubscribed and not measured at all.
+        facade.getOrderBook(CURRENCY_PAIR, DEPTH);
+    }
+
+    @TearDown
+    public void checkBookAndClose() {
+        facade.getOrderBook(CURRENCY_PAIR, DEPTH);
+        connector.close();
+    }
+
+    @Benchmark
+    public void update() {
+        httpClient.receive(updates[nextUpdate]);
+        nextUpdate = nextUpdate + 1 == updates.length ? 0 : nextUpdate + 1;
+    }
+
+    @Nonnull
+    private static String createMessage(@Nonnull final String type,
+                                        @Nonnull final long[] bidPrices,
+                                        @Nonnull final long[] bidQuantities,
+                                        @Nonnull final long[] askPrices,
+                                        @Nonnull final long[] askQuantities,
+                                        final long checksum) {
+        return "{\"channel\":\"book\",\"type\":\"" + type + "\",\"data\":[{\"symbol\":\"" + SYMBOL + "\","
+                + "\"bids\":" + createLevels(bidPrices, bidQuantities) + ","
+                + "\"asks\":" + createLevels(askPrices, askQuantities) + ","
+                + "\"checksum\":" + checksum + ",\"timestamp\":\"2020-05-01T12:00:00.000000Z\"}]}";
+    }
+
+    @Nonnull
+    private static String createLevels(@Nonnull final long[] prices,
+                                       @Nonnull final long[] quantities) {
+        final var levels = new StringBuilder("[");
+        for (int i = 0; i < prices.length; i++) {
+            if (i > 0) {
+                levels.append(',');
+            }
+            levels.append("{\"price\":").append(BigDecimal.valueOf(prices[i], PRICE_SCALE).toPlainString())
+                    .append(",\"qty\":").append(BigDecimal.valueOf(quantities[i], QUANTITY_SCALE).toPlainString())
+                    .append('}');
+        }
+        return levels.append(']').toString();
+    }
+}
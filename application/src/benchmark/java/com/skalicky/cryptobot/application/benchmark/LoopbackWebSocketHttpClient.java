@@ -0,0 +1,236 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.benchmark;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.PushPromiseHandler;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Connects WebSockets without any network. The listener of the last built WebSocket is kept, so that messages can be
+ * handed to it on the calling thread, and everything sent to the WebSocket is dropped. HTTP requests are not
+ * supported.
+ */
+public class LoopbackWebSocketHttpClient extends HttpClient {
+
+    @Nonnull
+    private final WebSocket webSocket = new DroppingWebSocket();
+    @Nullable
+    private volatile WebSocket.Listener listener;
+
+    /**
+     * Hands the given message to the listener of the connected WebSocket as a single frame.
+     */
+    public void receive(@Nonnull final String message) {
+        final var currentListener = listener;
+        if (currentListener == null) {
+            throw new IllegalStateException("No WebSocket has been connected");
+        }
+        currentListener.onText(webSocket, message, true);
+    }
+
+    @Override
+    @Nonnull
+    public WebSocket.Builder newWebSocketBuilder() {
+        return new WebSocket.Builder() {
+            @Override
+            @Nonnull
+            public WebSocket.Builder header(@Nonnull final String name,
+                                            @Nonnull final String value) {
+                return this;
+            }
+
+            @Override
+            @Nonnull
+            public WebSocket.Builder connectTimeout(@Nonnull final Duration timeout) {
+                return this;
+            }
+
+            @Override
+            @Nonnull
+            public WebSocket.Builder subprotocols(@Nonnull final String mostPreferred,
+                                                  @Nonnull final String... lesserPreferred) {
+                return this;
+            }
+
+            @Override
+            @Nonnull
+            public CompletableFuture<WebSocket> buildAsync(@Nonnull final URI uri,
+                                                           @Nonnull final WebSocket.Listener webSocketListener) {
+                listener = webSocketListener;
+                webSocketListener.onOpen(webSocket);
+                return CompletableFuture.completedFuture(webSocket);
+            }
+        };
+    }
+
+    @Override
+    @Nonnull
+    public Optional<CookieHandler> cookieHandler() {
+        return Optional.empty();
+    }
+
+    @Override
+    @Nonnull
+    public Optional<Duration> connectTimeout() {
+        return Optional.empty();
+    }
+
+    @Override
+    @Nonnull
+    public Redirect followRedirects() {
+        return Redirect.NEVER;
+    }
+
+    @Override
+    @Nonnull
+    public Optional<ProxySelector> proxy() {
+        return Optional.empty();
+    }
+
+    @Override
+    @Nonnull
+    public SSLContext sslContext() {
+        throw new UnsupportedOperationException("No TLS without network");
+    }
+
+    @Override
+    @Nonnull
+    public SSLParameters sslParameters() {
+        return new SSLParameters();
+    }
+
+    @Override
+    @Nonnull
+    public Optional<Authenticator> authenticator() {
+        return Optional.empty();
+    }
+
+    @Override
+    @Nonnull
+    public Version version() {
+        return Version.HTTP_1_1;
+    }
+
+    @Override
+    @Nonnull
+    public Optional<Executor> executor() {
+        return Optional.empty();
+    }
+
+    @Override
+    @Nonnull
+    public <T> HttpResponse<T> send(@Nonnull final HttpRequest request,
+                                    @Nonnull final BodyHandler<T> responseBodyHandler) {
+        throw new UnsupportedOperationException("Only WebSockets are supported");
+    }
+
+    @Override
+    @Nonnull
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(@Nonnull final HttpRequest request,
+                                                            @Nonnull final BodyHandler<T> responseBodyHandler) {
+        throw new UnsupportedOperationException("Only WebSockets are supported");
+    }
+
+    @Override
+    @Nonnull
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(@Nonnull final HttpRequest request,
+                                                            @Nonnull final BodyHandler<T> responseBodyHandler,
+                                                            @Nullable final PushPromiseHandler<T> promiseHandler) {
+        throw new UnsupportedOperationException("Only WebSockets are supported");
+    }
+
+    private static final class DroppingWebSocket implements WebSocket {
+
+        @Override
+        @Nonnull
+        public CompletableFuture<WebSocket> sendText(@Nonnull final CharSequence data,
+                                                     final boolean last) {
+            return CompletableFuture.completedFuture(this);
+        }
+
+        @Override
+        @Nonnull
+        public CompletableFuture<WebSocket> sendBinary(@Nonnull final ByteBuffer data,
+                                                       final boolean last) {
+            return CompletableFuture.completedFuture(this);
+        }
+
+        @Override
+        @Nonnull
+        public CompletableFuture<WebSocket> sendPing(@Nonnull final ByteBuffer message) {
+            return CompletableFuture.completedFuture(this);
+        }
+
+        @Override
+        @Nonnull
+        public CompletableFuture<WebSocket> sendPong(@Nonnull final ByteBuffer message) {
+            return CompletableFuture.completedFuture(this);
+        }
+
+        @Override
+        @Nonnull
+        public CompletableFuture<WebSocket> sendClose(final int statusCode,
+                                                      @Nonnull final String reason) {
+            return CompletableFuture.completedFuture(this);
+        }
+
+        @Override
+        public void request(final long n) {
+            // Messages are handed over by receive, nothing to request.
+        }
+
+        @Override
+        @Nonnull
+        public String getSubprotocol() {
+            return "";
+        }
+
+        @Override
+        public boolean isOutputClosed() {
+            return false;
+        }
+
+        @Override
+        public boolean isInputClosed() {
+            return false;
+        }
+
+        @Override
+        public void abort() {
+            // Nothing to release.
+        }
+    }
+}
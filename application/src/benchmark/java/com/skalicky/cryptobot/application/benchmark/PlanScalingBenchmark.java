@@ -0,0 +1,121 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.benchmark;
+
+import com.skalicky.cryptobot.application.CryptoBotApplication;
+import com.skalicky.cryptobot.application.concurrent.ExecutorServices;
+
+import javax.annotation.Nonnull;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the application scales with the number of plans of different accounts when running them on platform
+ * threads and on virtual threads against {@link KrakenStubServer} delaying every response.
+ * <p>
+ * Usage: &lt;response delay in ms&gt; &lt;platform thread count&gt; &lt;comma separated plan counts&gt;
+ * <p>
+ * Every plan has its own account, hence all plans may run concurrently. Platform threads run as many plans at once as
+ * there are threads, virtual threads run all of them at once, limited only by the {@value #MAX_CONCURRENT_REQUESTS}
+ * requests in flight to the trading platform. The peak number of live platform threads is reported too, virtual
+ * threads are not counted. Virtual threads need Java 21, older Java measures platform threads twice.
+ */
+public class PlanScalingBenchmark {
+
+    private static final int MAX_CONCURRENT_REQUESTS = 256;
+    private static final int WARM_UP_PLAN_COUNT = 100;
+
+    public static void main(@Nonnull final String[] args) throws Exception {
+        if (args.length != 3) {
+            throw new IllegalArgumentException("Unexpected arguments " + Arrays.toString(args));
+        }
+        final var responseDelay = Duration.ofMillis(Long.parseLong(args[0]));
+        final var platformThreadCount = Integer.parseInt(args[1]);
+        final var planCounts = new ArrayList<Integer>();
+        for (final var planCount : args[2].split(",")) {
+            planCounts.add(Integer.parseInt(planCount.trim()));
+        }
+        final var virtualThreadsSupported = ExecutorServices.newVirtualThreadPerTaskExecutor() != null;
+        System.out.println(String.format("Java %s, virtual threads %s, responses delayed by %d ms",
+                System.getProperty("java.version"), virtualThreadsSupported ? "supported" : "not supported",
+                responseDelay.toMillis()));
+
+        try (final var stubServer = new KrakenStubServer(responseDelay)) {
+            run(stubServer, WARM_UP_PLAN_COUNT, platformThreadCount, false);
+            for (final var planCount : planCounts) {
+                for (final var virtualThreads : new boolean[]{false, true}) {
+                    final var result = run(stubServer, planCount, platformThreadCount, virtualThreads);
+                    System.out.println(String.format("%6d plans on %-25s %8d ms %9.1f plans/s %6d requests"
+                                    + " %6d peak platform threads", planCount,
+                            virtualThreads ? "virtual threads" : platformThreadCount + " platform threads",
+                            TimeUnit.NANOSECONDS.toMillis(result.durationInNanos),
+                            planCount * (double) TimeUnit.SECONDS.toNanos(1) / result.durationInNanos,
+                            stubServer.getRequestCount(), result.peakThreadCount));
+                }
+            }
+        }
+    }
+
+    @Nonnull
+    private static Result run(@Nonnull final KrakenStubServer stubServer,
+                              final int planCount,
+                              final int platformThreadCount,
+                              final boolean virtualThreads) throws Exception {
+        final var planConfigFile = Files.createTempFile("plans", ".json");
+        try {
+            Files.writeString(planConfigFile, PlanThroughputBenchmark.createPlanConfiguration(planCount, 1,
+                    stubServer.getSlackWebhookUrl()), StandardCharsets.UTF_8);
+            final var arguments = new ArrayList<>(Arrays.asList(
+                    "--planConfigFile", planConfigFile.toString(),
+                    "--tradingPlatformApiUrl", stubServer.getApiUrl(),
+                    "--tradingPlatformAccountTier", "pro",
+                    "--tradingPlatformMaxConcurrentRequests", String.valueOf(MAX_CONCURRENT_REQUESTS),
+                    "--platformThreadCount", String.valueOf(platformThreadCount)));
+            if (virtualThreads) {
+                arguments.add("--virtualThreads");
+            }
+            // Lets the HTTP clients of the previous runs and their threads go.
+            System.gc();
+            stubServer.reset();
+            final var threadMXBean = ManagementFactory.getThreadMXBean();
+            threadMXBean.resetPeakThreadCount();
+            final var startInNanos = System.nanoTime();
+            CryptoBotApplication.main(arguments.toArray(new String[0]));
+            return new Result(System.nanoTime() - startInNanos, threadMXBean.getPeakThreadCount());
+        } finally {
+            Files.delete(planConfigFile);
+        }
+    }
+
+    private static final class Result {
+        private final long durationInNanos;
+        private final int peakThreadCount;
+
+        private Result(final long durationInNanos,
+                       final int peakThreadCount) {
+            this.durationInNanos = durationInNanos;
+            this.peakThreadCount = peakThreadCount;
+        }
+    }
+}
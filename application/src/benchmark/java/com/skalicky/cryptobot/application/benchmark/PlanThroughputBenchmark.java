@@ -0,0 +1,95 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.benchmark;
+
+import com.skalicky.cryptobot.application.CryptoBotApplication;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many plans per second the application runs in one process against {@link KrakenStubServer}.
+ * <p>
+ * Usage: &lt;plan count&gt; &lt;plans per account&gt; &lt;repetitions&gt;
+ * <p>
+ * Every repetition starts the application with a plan configuration file and runs one cycle of all plans. The first
+ * repetition includes class loading and runs interpreted code, the later ones show the throughput of a long-running
+ * process. Plans of one account run one after another and their private calls are delayed by the rate limit of the
+ * account, hence more plans per account decrease the throughput.
+ */
+public class PlanThroughputBenchmark {
+
+    public static void main(@Nonnull final String[] args) throws Exception {
+        if (args.length != 3) {
+            throw new IllegalArgumentException("Unexpected arguments " + Arrays.toString(args));
+        }
+        final var planCount = Integer.parseInt(args[0]);
+        final var plansPerAccount = Integer.parseInt(args[1]);
+        final var repetitions = Integer.parseInt(args[2]);
+        final var accountCount = (planCount + plansPerAccount - 1) / plansPerAccount;
+
+        final var planConfigFile = Files.createTempFile("plans", ".json");
+        try (final var stubServer = new KrakenStubServer()) {
+            Files.writeString(planConfigFile, createPlanConfiguration(planCount, plansPerAccount,
+                    stubServer.getSlackWebhookUrl()), StandardCharsets.UTF_8);
+            for (int repetition = 1; repetition <= repetitions; repetition++) {
+                stubServer.reset();
+                final var startInNanos = System.nanoTime();
+                CryptoBotApplication.main(new String[]{
+                        "--planConfigFile", planConfigFile.toString(),
+                        "--tradingPlatformApiUrl", stubServer.getApiUrl(),
+                        "--tradingPlatformAccountTier", "pro"});
+                final var durationInNanos = System.nanoTime() - startInNanos;
+                System.out.println(String.format("Repetition %d: %d plans of %d accounts in %d ms, %.1f plans/s,"
+                                + " %d requests", repetition, planCount, accountCount,
+                        TimeUnit.NANOSECONDS.toMillis(durationInNanos),
+                        planCount * (double) TimeUnit.SECONDS.toNanos(1) / durationInNanos,
+                        stubServer.getRequestCount()));
+            }
+        } finally {
+            Files.delete(planConfigFile);
+        }
+    }
+
+    /**
+     * @return plan configuration of the given number of plans, every given number of plans sharing one API key
+     */
+    @Nonnull
+    static String createPlanConfiguration(final int planCount,
+                                                  final int plansPerAccount,
+                                                  @Nonnull final String slackWebhookUrl) {
+        final var configuration = new StringBuilder("{\"plans\": [");
+        for (int index = 0; index < planCount; index++) {
+            if (index > 0) {
+                configuration.append(',');
+            }
+            configuration.append("\n  {\"name\": \"plan-").append(index)
+                    .append("\", \"tradingPlatformName\": \"kraken\", \"tradingPlatformApiKey\": \"key-")
+                    .append(index / plansPerAccount)
+                    .append("\", \"tradingPlatformApiSecret\": \"c2VjcmV0\", \"baseCurrency\": \"EUR\",")
+                    .append(" \"quoteCurrency\": \"BTC\", \"volumeInBaseCurrencyToInvestPerRun\": 50,")
+                    .append(" \"offsetRatioOfLimitPriceToBidPriceInDecimal\": 0.01, \"slackWebhookUrl\": \"")
+                    .append(slackWebhookUrl).append("\"}");
+        }
+        return configuration.append("\n]}").toString();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.benchmark;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trains the class data sharing archive of the fast-start distribution and measures how quickly its launchers reach
+ * the first request, both against {@link KrakenStubServer}.
+ * <p>
+ * Usage:
+ * <pre>
+ *     train &lt;distribution directory&gt; &lt;class list file&gt; &lt;archive file&gt;
+ *     measure &lt;distribution directory&gt; &lt;run count&gt;
+ * </pre>
+ * The launchers pass JAVA_OPTS to the JVM, hence the training run and the dump use exactly the class path of the
+ * launchers, which class data sharing requires.
+ */
+public class StartupBenchmark {
+
+    @Nonnull
+    private static final String PLAIN_LAUNCHER = "crypto-bot";
+    @Nonnull
+    private static final String CDS_LAUNCHER = "crypto-bot-cds";
+    private static final long RUN_TIMEOUT_IN_SECONDS = 120;
+
+    public static void main(@Nonnull final String[] args) throws Exception {
+        if (args.length == 4 && "train".equals(args[0])) {
+            train(Path.of(args[1]), Path.of(args[2]), Path.of(args[3]));
+        } else if (args.length == 3 && "measure".equals(args[0])) {
+            measure(Path.of(args[1]), Integer.parseInt(args[2]));
+        } else {
+            throw new IllegalArgumentException("Unexpected arguments " + Arrays.toString(args));
+        }
+    }
+
+    private static void train(@Nonnull final Path distributionDirectory,
+                              @Nonnull final Path classListFile,
+                              @Nonnull final Path archiveFile) throws IOException, InterruptedException {
+        Files.createDirectories(archiveFile.getParent());
+        Files.deleteIfExists(archiveFile);
+        try (final var stubServer = new KrakenStubServer()) {
+            run(distributionDirectory, PLAIN_LAUNCHER, stubServer,
+                    "-Xshare:off -XX:DumpLoadedClassList=" + classListFile, true);
+            if (stubServer.getRequestCount() == 0) {
+                throw new IllegalStateException("Training run has not sent any request");
+            }
+            // The JVM exits right after dumping the archive, the bot itself is not run.
+            run(distributionDirectory, PLAIN_LAUNCHER, stubServer, "-Xshare:dump -XX:SharedClassListFile="
+                    + classListFile + " -XX:SharedArchiveFile=" + archiveFile, true);
+        }
+        System.out.println("Archive " + archiveFile + " of " + Files.size(archiveFile) + " bytes created from "
+                + Files.readAllLines(classListFile).size() + " classes");
+    }
+
+    private static void measure(@Nonnull final Path distributionDirectory,
+                                final int runCount) throws IOException, InterruptedException {
+        try (final var stubServer = new KrakenStubServer()) {
+            System.out.println(String.format("%-16s %24s %24s", "launcher",
+                    "first request min/median", "whole run min/median"));
+            for (final var launcher : List.of(PLAIN_LAUNCHER, CDS_LAUNCHER)) {
+                // Warms up the file system cache.
+                run(distributionDirectory, launcher, stubServer, "", false);
+                final var firstRequestDurations = new long[runCount];
+                final var runDurations = new long[runCount];
+                for (int i = 0; i < runCount; i++) {
+                    final var durations = run(distributionDirectory, launcher, stubServer, "", false);
+                    firstRequestDurations[i] = durations[0];
+                    runDurations[i] = durations[1];
+                }
+                System.out.println(String.format("%-16s %24s %24s", launcher,
+                        formatMinAndMedian(firstRequestDurations), formatMinAndMedian(runDurations)));
+            }
+        }
+    }
+
+    /**
+     * @return nanoseconds until the first request and until the end of the run
+     */
+    @Nonnull
+    private static long[] run(@Nonnull final Path distributionDirectory,
+                              @Nonnull final String launcher,
+                              @Nonnull final KrakenStubServer stubServer,
+                              @Nonnull final String javaOptions,
+                              final boolean showOutput) throws IOException, InterruptedException {
+        final var command = new ArrayList<>(List.of("sh",
+                distributionDirectory.resolve("bin").resolve(launcher).toString(),
+                "--baseCurrency", "EUR",
+                "--quoteCurrency", "BTC",
+                "--volumeInBaseCurrencyToInvestPerRun", "50",
+                "--tradingPlatformName", "kraken",
+                "--tradingPlatformApiKey", "key",
+                "--tradingPlatformApiSecret", "c2VjcmV0",
+                "--offsetRatioOfLimitPriceToBidPriceInDecimal", "0.01",
+                "--tradingPlatformApiUrl", stubServer.getApiUrl(),
+                "--slackWebhookUrl", stubServer.getSlackWebhookUrl()));
+        final var processBuilder = new ProcessBuilder(command);
+        processBuilder.environment().put("JAVA_OPTS", javaOptions);
+        if (showOutput) {
+            processBuilder.inheritIO();
+        } else {
+            processBuilder.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD);
+        }
+
+        stubServer.reset();
+        final var startInNanos = System.nanoTime();
+        final var process = processBuilder.start();
+        if (!process.waitFor(RUN_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new IllegalStateException(launcher + " has not finished within " + RUN_TIMEOUT_IN_SECONDS + " s");
+        }
+        final var endInNanos = System.nanoTime();
+        if (process.exitValue() != 0) {
+            throw new IllegalStateException(launcher + " has failed with the exit code " + process.exitValue());
+        }
+        final var firstRequestInNanos = stubServer.getFirstRequestInNanos();
+        return new long[]{
+                firstRequestInNanos == 0 ? endInNanos - startInNanos : firstRequestInNanos - startInNanos,
+                endInNanos - startInNanos};
+    }
+
+    @Nonnull
+    private static String formatMinAndMedian(@Nonnull final long[] durationsInNanos) {
+        final var sortedDurations = durationsInNanos.clone();
+        Arrays.sort(sortedDurations);
+        return TimeUnit.NANOSECONDS.toMillis(sortedDurations[0]) + " / "
+                + TimeUnit.NANOSECONDS.toMillis(sortedDurations[sortedDurations.length / 2]) + " ms";
+    }
+}
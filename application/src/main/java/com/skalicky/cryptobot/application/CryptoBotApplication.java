@@ -21,13 +21,31 @@ package com.skalicky.cryptobot.application;
 import com.beust.jcommander.JCommander;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
-import com.skalicky.cryptobot.businesslogic.impl.CryptoBotLogicImpl;
+import com.google.common.collect.ImmutableMap;
+import com.skalicky.cryptobot.application.concurrent.ExecutorServices;
+import com.skalicky.cryptobot.application.plan.PlanConfigurationReader;
+import com.skalicky.cryptobot.application.plan.PlanDto;
+import com.skalicky.cryptobot.application.plan.PlanExecutor;
+import com.skalicky.cryptobot.application.plan.PrivateApiFacadeFactory;
+import com.skalicky.cryptobot.application.schedule.CronExpression;
+import com.skalicky.cryptobot.application.schedule.CronScheduler;
 import com.skalicky.cryptobot.businesslogic.impl.datetime.LocalDateTimeProviderImpl;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.coalescing.CoalescingKrakenPublicApiConnector;
 import com.skalicky.cryptobot.exchange.kraken.connector.impl.logic.KrakenPrivateApiConnectorImpl;
 import com.skalicky.cryptobot.exchange.kraken.connector.impl.logic.KrakenPublicApiConnectorImpl;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.logic.KrakenWebSocketPublicApiConnectorImpl;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.nonce.KrakenNonceGenerator;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.nonce.MemoryMappedKrakenNonceGenerator;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.ratelimit.KrakenAccountTier;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.ratelimit.KrakenRateLimitGovernor;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.transport.HttpClientKrakenTransport;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.transport.KrakenTransport;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.transport.KrakenTransportConfig;
 import com.skalicky.cryptobot.exchange.kraken.connectorfacade.api.logic.KrakenPrivateApiFacade;
 import com.skalicky.cryptobot.exchange.kraken.connectorfacade.api.logic.KrakenPublicApiFacade;
 import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.CurrencyPairBoToKrakenMarketNameConverter;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.CurrencyPairBoToKrakenPairPrecisionConverter;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.CurrencyPairBoToKrakenWebSocketSymbolConverter;
 import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.KrakenCurrencyNameToCurrencyBoEnumConverter;
 import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.KrakenMapEntryToClosedOrderBoConverter;
 import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.KrakenMapEntryToOpenOrderBoConverter;
@@ -40,26 +58,75 @@ import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.Pai
 import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.PriceOrderTypeBoEnumToKrakenOrderTypeConverter;
 import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.logic.KrakenPrivateApiFacadeImpl;
 import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.logic.KrakenPublicApiFacadeImpl;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.logic.KrakenWebSocketPublicApiFacadeImpl;
 import com.skalicky.cryptobot.exchange.shared.connector.impl.logic.RestConnectorSupport;
+import com.skalicky.cryptobot.exchange.shared.connector.impl.logic.RestTransportConfig;
 import com.skalicky.cryptobot.exchange.shared.connectorfacade.api.converter.NonnullConverter;
 import com.skalicky.cryptobot.exchange.shared.connectorfacade.impl.converter.EpochSecondBigDecimalToLocalDateTimeConverter;
 import com.skalicky.cryptobot.exchange.shared.connectorfacade.impl.converter.LocalDateTimeToEpochSecondLongConverter;
+import com.skalicky.cryptobot.exchange.slack.connector.impl.batching.BatchingSlackConnector;
 import com.skalicky.cryptobot.exchange.slack.connector.impl.logic.SlackConnectorImpl;
-import com.skalicky.cryptobot.exchange.slack.connectorfacade.api.logic.SlackFacade;
 import com.skalicky.cryptobot.exchange.slack.connectorfacade.impl.logic.SlackFacadeImpl;
 import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
 import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.logic.TradingPlatformPrivateApiFacade;
 import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.logic.TradingPlatformPublicApiFacade;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.closedorder.ClosedOrderStore;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.journal.OrderJournal;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.logic.CachingTradingPlatformPublicApiFacade;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.logic.JournalingTradingPlatformPrivateApiFacade;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.logic.StoringTradingPlatformPrivateApiFacade;
 import edu.self.kraken.api.KrakenApi;
-import org.apache.commons.lang3.exception.ExceptionUtils;
 
 import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Locale;
+import java.util.concurrent.Executor;
 
 public class CryptoBotApplication {
 
     @Nonnull
     private static final String KRAKEN_TRADING_PLATFORM_NAME = "kraken";
+    /**
+     * How long plans asking for the same ticker may share one response. Limit prices are derived from the bid price,
+     * hence plans of a cycle running later than that retrieve the ticker again instead of using the prefetched one.
+     */
+    @Nonnull
+    private static final Duration TICKER_MAX_STALENESS = Duration.ofSeconds(1);
+    private static final int TICKER_CACHE_MAXIMUM_SIZE = 64;
+    private static final int ORDER_JOURNAL_SEGMENT_SIZE = 16 * 1024 * 1024;
+    /**
+     * Steps of a plan running at once at its beginning, i.e. retrievals of the account balance, the ticker and the
+     * closed orders.
+     */
+    private static final int CONCURRENT_STEPS_PER_PLAN = 3;
+    /**
+     * How long an ongoing run may take to finish when the process is asked to terminate.
+     */
+    @Nonnull
+    private static final Duration SCHEDULER_SHUTDOWN_TIMEOUT = Duration.ofMinutes(1);
+    /**
+     * Enough for the messages of all plans of a cycle, 4 per plan, to wait for a slow Slack.
+     */
+    private static final int SLACK_QUEUE_CAPACITY = 16 * 1024;
+    /**
+     * Joins the messages of a run, sent within milliseconds, into one post.
+     */
+    @Nonnull
+    private static final Duration SLACK_COALESCING_WINDOW = Duration.ofSeconds(1);
+    private static final int SLACK_MAX_ATTEMPTS = 5;
+    @Nonnull
+    private static final Duration SLACK_CLOSE_TIMEOUT = Duration.ofSeconds(30);
+    /**
+     * Slack answers just "ok", hence the body is not read. One sender thread needs one connection per webhook host.
+     */
+    @Nonnull
+    private static final RestTransportConfig SLACK_TRANSPORT_CONFIG = new RestTransportConfig(2,
+            Duration.ofSeconds(10), Duration.ofSeconds(30), false);
 
     public static void main(String[] args) {
         final var arguments = new CryptoBotArguments();
@@ -67,59 +134,185 @@ public class CryptoBotApplication {
                 .addObject(arguments)
                 .build()
                 .parse(args);
+        arguments.validate();
 
+        final var objectMapper = new ObjectMapper();
+        final var plans = arguments.getPlanConfigFile() == null
+                ? ImmutableList.of(createPlan(arguments))
+                : readPlans(objectMapper, arguments.getPlanConfigFile());
+
+        final var planThreads = ExecutorServices.newBlockingTaskExecutor(arguments.isVirtualThreads(),
+                arguments.getPlatformThreadCount(), "plan");
+        final var stepThreads = ExecutorServices.newBlockingTaskExecutor(arguments.isVirtualThreads(),
+                arguments.getPlatformThreadCount() * CONCURRENT_STEPS_PER_PLAN, "step");
+        final var krakenTransport = initializeKrakenTransport(arguments);
+        // Readers of responses wait for them to arrive, hence one thread per request in flight.
+        final var krakenResponseReadingThreads = ExecutorServices.newBlockingTaskExecutor(arguments.isVirtualThreads(),
+                getKrakenMaxConcurrentRequests(arguments), "kraken-response-reading");
         final var currencyPairBoEnumToKrakenMarketNameConverter = new CurrencyPairBoToKrakenMarketNameConverter();
         final var publicApiFacades = new ArrayList<TradingPlatformPublicApiFacade>();
-        final var privateApiFacades = new ArrayList<TradingPlatformPrivateApiFacade>();
-        if (KRAKEN_TRADING_PLATFORM_NAME.equals(arguments.getTradingPlatformName())) {
-            final var krakenApi = initializeKrakenApi(arguments);
-            final var objectMapper = new ObjectMapper();
-            publicApiFacades.add(initializeKrakenPublicApiFacade(krakenApi, objectMapper,
-                    currencyPairBoEnumToKrakenMarketNameConverter));
-            privateApiFacades.add(initializeKrakenPrivateApiFacade(krakenApi, objectMapper,
-                    currencyPairBoEnumToKrakenMarketNameConverter));
+        final var krakenUsed = plans.stream()
+                .anyMatch(plan -> KRAKEN_TRADING_PLATFORM_NAME.equals(plan.getTradingPlatformName()));
+        // Closed together with the other connectors, otherwise its reconnection thread outlives the runs.
+        final var krakenWebSocketPublicApiConnector = krakenUsed && arguments.isTradingPlatformWebSocket()
+                ? new KrakenWebSocketPublicApiConnectorImpl(HttpClient.newHttpClient(),
+                KrakenWebSocketPublicApiConnectorImpl.DEFAULT_URI, objectMapper)
+                : null;
+        if (krakenUsed) {
+            final var krakenRestPublicApiFacade = initializeKrakenPublicApiFacade(initializeKrakenApi(arguments, krakenTransport),
+                    objectMapper, krakenResponseReadingThreads, currencyPairBoEnumToKrakenMarketNameConverter);
+            final var krakenPublicApiFacade = krakenWebSocketPublicApiConnector == null
+                    ? krakenRestPublicApiFacade
+                    : initializeKrakenWebSocketPublicApiFacade(krakenWebSocketPublicApiConnector,
+                    krakenRestPublicApiFacade);
+            publicApiFacades.add(new CachingTradingPlatformPublicApiFacade(krakenPublicApiFacade, TICKER_MAX_STALENESS,
+                    ImmutableMap.of(), TICKER_CACHE_MAXIMUM_SIZE));
         }
-        final var slackFacade = initializeSlackFacade();
-        final var cryptoBotLogic = new CryptoBotLogicImpl(ImmutableList.copyOf(publicApiFacades),
-                ImmutableList.copyOf(privateApiFacades), slackFacade, new LocalDateTimeProviderImpl());
+        final var krakenNonceGenerator = arguments.getTradingPlatformNonceFile() == null
+                ? null
+                : initializeKrakenNonceGenerator(arguments.getTradingPlatformNonceFile());
+        final var orderJournal = arguments.getOrderJournalDirectory() == null
+                ? null
+                : initializeOrderJournal(arguments.getOrderJournalDirectory());
+        final PrivateApiFacadeFactory privateApiFacadeFactory = (tradingPlatformName, apiKey, apiSecret) -> {
+            if (!KRAKEN_TRADING_PLATFORM_NAME.equals(tradingPlatformName)) {
+                throw new IllegalArgumentException("Unsupported trading platform \"" + tradingPlatformName + "\"");
+            }
+            final var krakenApi = initializeKrakenApi(arguments, krakenTransport);
+            krakenApi.setKey(apiKey);
+            krakenApi.setSecret(apiSecret);
+            if (krakenNonceGenerator != null) {
+                krakenApi.setNonceGenerator(krakenNonceGenerator);
+            }
+            final var krakenRateLimitGovernor = new KrakenRateLimitGovernor(KrakenAccountTier.valueOf(
+                    arguments.getTradingPlatformAccountTier().toUpperCase(Locale.ROOT)));
+            TradingPlatformPrivateApiFacade krakenPrivateApiFacade = initializeKrakenPrivateApiFacade(krakenApi,
+                    objectMapper, krakenRateLimitGovernor, krakenResponseReadingThreads,
+                    currencyPairBoEnumToKrakenMarketNameConverter);
+            if (orderJournal != null) {
+                krakenPrivateApiFacade = new JournalingTradingPlatformPrivateApiFacade(krakenPrivateApiFacade,
+                        orderJournal);
+            }
+            // Only for a single account, see CryptoBotArguments#validate.
+            if (arguments.getClosedOrderStoreFile() != null) {
+                krakenPrivateApiFacade = new StoringTradingPlatformPrivateApiFacade(krakenPrivateApiFacade,
+                        new ClosedOrderStore(Path.of(arguments.getClosedOrderStoreFile())));
+            }
+            return krakenPrivateApiFacade;
+        };
+        final var restConnectorSupport = new RestConnectorSupport(SLACK_TRANSPORT_CONFIG);
+        final var slackConnector = initializeSlackConnector(restConnectorSupport);
+        final var planExecutor = new PlanExecutor(ImmutableList.copyOf(publicApiFacades), privateApiFacadeFactory,
+                new SlackFacadeImpl(slackConnector), new LocalDateTimeProviderImpl(), planThreads, stepThreads);
 
-        try {
-            cryptoBotLogic.placeBuyOrderIfEnoughAvailable(arguments.getTradingPlatformName(),
-                    arguments.getVolumeInBaseCurrencyToInvestPerRun(),
-                    arguments.getBaseCurrency(),
-                    arguments.getQuoteCurrency(),
-                    arguments.getOffsetRatioOfLimitPriceToBidPriceInDecimal(),
-                    arguments.getSlackWebhookUrl());
-            cryptoBotLogic.reportClosedOrders(arguments.getTradingPlatformName(), arguments.getSlackWebhookUrl());
-            cryptoBotLogic.reportOpenOrders(arguments.getTradingPlatformName(), arguments.getSlackWebhookUrl());
-
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            if (arguments.getSlackWebhookUrl() != null) {
-                final var stackTrace = ExceptionUtils.getStackTrace(ex);
-                final var maxLength = 512;
-                final var showDots = stackTrace.length() > maxLength;
-                slackFacade.sendMessage("Exception: "
-                                + stackTrace.substring(0, Math.min(maxLength, stackTrace.length()))
-                                + (showDots ? "..." : ""),
-                        arguments.getSlackWebhookUrl());
+        if (arguments.getSchedule() == null) {
+            planExecutor.runCycle(plans);
+            planExecutor.close();
+            if (krakenWebSocketPublicApiConnector != null) {
+                krakenWebSocketPublicApiConnector.close();
             }
+            slackConnector.close();
+            restConnectorSupport.close();
+        } else {
+            final var scheduler = new CronScheduler(Clock.systemDefaultZone(), SCHEDULER_SHUTDOWN_TIMEOUT);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                scheduler.close();
+                planExecutor.close();
+                if (krakenWebSocketPublicApiConnector != null) {
+                    krakenWebSocketPublicApiConnector.close();
+                }
+                slackConnector.close();
+                restConnectorSupport.close();
+            }, "cron-scheduler-shutdown"));
+            scheduler.schedule(plans.size() == 1 ? "plan " + plans.get(0).getName() : plans.size() + " plans",
+                    new CronExpression(arguments.getSchedule()), () -> planExecutor.runCycle(plans));
         }
     }
 
     @Nonnull
-    private static KrakenApi initializeKrakenApi(@Nonnull final CryptoBotArguments arguments) {
-        final var krakenApi = new KrakenApi();
-        krakenApi.setKey(arguments.getTradingPlatformKey());
-        krakenApi.setSecret(arguments.getTradingPlatformSecret());
-        return krakenApi;
+    private static PlanDto createPlan(@Nonnull final CryptoBotArguments arguments) {
+        final var plan = new PlanDto();
+        plan.setName(arguments.getTradingPlatformName() + " " + arguments.getBaseCurrency() + "/"
+                + arguments.getQuoteCurrency());
+        plan.setTradingPlatformName(arguments.getTradingPlatformName());
+        plan.setTradingPlatformApiKey(arguments.getTradingPlatformKey());
+        plan.setTradingPlatformApiSecret(arguments.getTradingPlatformSecret());
+        plan.setBaseCurrency(arguments.getBaseCurrency());
+        plan.setQuoteCurrency(arguments.getQuoteCurrency());
+        plan.setVolumeInBaseCurrencyToInvestPerRun(arguments.getVolumeInBaseCurrencyToInvestPerRun());
+        plan.setOffsetRatioOfLimitPriceToBidPriceInDecimal(arguments.getOffsetRatioOfLimitPriceToBidPriceInDecimal());
+        plan.setSlackWebhookUrl(arguments.getSlackWebhookUrl());
+        return plan;
+    }
+
+    @Nonnull
+    private static ImmutableList<PlanDto> readPlans(@Nonnull final ObjectMapper objectMapper,
+                                                    @Nonnull final String planConfigFile) {
+        try {
+            return new PlanConfigurationReader(objectMapper).read(Path.of(planConfigFile));
+        } catch (final IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    /**
+     * @return an API without any key, to be set for private calls
+     */
+    @Nonnull
+    private static KrakenTransport initializeKrakenTransport(@Nonnull final CryptoBotArguments arguments) {
+        if (arguments.getTradingPlatformMaxConcurrentRequests() == null && !arguments.isVirtualThreads()) {
+            return HttpClientKrakenTransport.shared();
+        }
+        final var defaultConfig = KrakenTransportConfig.DEFAULT;
+        final var maxConcurrentRequests = getKrakenMaxConcurrentRequests(arguments);
+        // Responses are then handled on virtual threads too. Null falls back to the default of HttpClient.
+        final var responseThreads = arguments.isVirtualThreads()
+                ? ExecutorServices.newVirtualThreadPerTaskExecutor()
+                : null;
+        return new HttpClientKrakenTransport(new KrakenTransportConfig(maxConcurrentRequests,
+                defaultConfig.getConnectTimeout(), defaultConfig.getReadTimeout()), responseThreads);
+    }
+
+    private static int getKrakenMaxConcurrentRequests(@Nonnull final CryptoBotArguments arguments) {
+        return arguments.getTradingPlatformMaxConcurrentRequests() == null
+                ? KrakenTransportConfig.DEFAULT.getMaxConcurrentRequests()
+                : arguments.getTradingPlatformMaxConcurrentRequests();
+    }
+
+    @Nonnull
+    private static KrakenApi initializeKrakenApi(@Nonnull final CryptoBotArguments arguments,
+                                                 @Nonnull final KrakenTransport krakenTransport) {
+        return arguments.getTradingPlatformApiUrl() == null
+                ? new KrakenApi(krakenTransport)
+                : new KrakenApi(krakenTransport, arguments.getTradingPlatformApiUrl());
+    }
+
+    @Nonnull
+    private static KrakenNonceGenerator initializeKrakenNonceGenerator(@Nonnull final String nonceFile) {
+        try {
+            return new MemoryMappedKrakenNonceGenerator(Path.of(nonceFile));
+        } catch (final IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    @Nonnull
+    private static OrderJournal initializeOrderJournal(@Nonnull final String orderJournalDirectory) {
+        try {
+            return new OrderJournal(Path.of(orderJournalDirectory), ORDER_JOURNAL_SEGMENT_SIZE);
+        } catch (final IOException exception) {
+            throw new RuntimeException(exception);
+        }
     }
 
     @Nonnull
     private static KrakenPrivateApiFacade initializeKrakenPrivateApiFacade(@Nonnull final KrakenApi krakenApi,
                                                                            @Nonnull final ObjectMapper objectMapper,
+                                                                           @Nonnull final KrakenRateLimitGovernor krakenRateLimitGovernor,
+                                                                           @Nonnull final Executor krakenResponseReadingExecutor,
                                                                            @Nonnull final NonnullConverter<CurrencyPairBo, String> currencyPairBoEnumToKrakenMarketNameConverter) {
-        final var krakenPrivateApiConnector = new KrakenPrivateApiConnectorImpl(krakenApi, objectMapper);
+        final var krakenPrivateApiConnector = new KrakenPrivateApiConnectorImpl(krakenApi, objectMapper,
+                krakenRateLimitGovernor, 1, krakenResponseReadingExecutor);
         final var orderTypeBoEnumToKrakenOrderTypeConverter = new OrderTypeBoEnumToKrakenOrderTypeConverter();
         final var priceOrderTypeBoEnumToKrakenOrderTypeConverter = new PriceOrderTypeBoEnumToKrakenOrderTypeConverter();
         final var krakenCurrencyNameToCurrencyBoEnumConverter = new KrakenCurrencyNameToCurrencyBoEnumConverter();
@@ -157,17 +350,34 @@ public class CryptoBotApplication {
     @Nonnull
     private static KrakenPublicApiFacade initializeKrakenPublicApiFacade(@Nonnull final KrakenApi krakenApi,
                                                                          @Nonnull final ObjectMapper objectMapper,
+                                                                         @Nonnull final Executor krakenResponseReadingExecutor,
                                                                          @Nonnull final NonnullConverter<CurrencyPairBo, String> currencyPairBoEnumToKrakenMarketNameConverter) {
-        final var krakenPublicApiConnector = new KrakenPublicApiConnectorImpl(krakenApi, objectMapper);
+        // Tickers are cached by CachingTradingPlatformPublicApiFacade, hence only requests in flight are shared here.
+        final var krakenPublicApiConnector = new CoalescingKrakenPublicApiConnector(
+                new KrakenPublicApiConnectorImpl(krakenApi, objectMapper, krakenResponseReadingExecutor),
+                ImmutableMap.of());
+        final var krakenMarketNameToCurrencyPairBoEnumConverter = new KrakenMarketNameToCurrencyPairBoEnumConverter();
         final var krakenMapEntryToTickerBoConverter = new KrakenMapEntryToTickerBoConverter();
         return new KrakenPublicApiFacadeImpl(krakenPublicApiConnector, currencyPairBoEnumToKrakenMarketNameConverter,
-                krakenMapEntryToTickerBoConverter);
+                krakenMarketNameToCurrencyPairBoEnumConverter, krakenMapEntryToTickerBoConverter,
+                new CurrencyPairBoToKrakenPairPrecisionConverter());
+    }
+
+    @Nonnull
+    private static KrakenPublicApiFacade initializeKrakenWebSocketPublicApiFacade(
+            @Nonnull final KrakenWebSocketPublicApiConnectorImpl krakenWebSocketPublicApiConnector,
+            @Nonnull final KrakenPublicApiFacade krakenRestPublicApiFacade) {
+        return new KrakenWebSocketPublicApiFacadeImpl(krakenWebSocketPublicApiConnector, krakenRestPublicApiFacade,
+                new CurrencyPairBoToKrakenWebSocketSymbolConverter());
     }
 
+    /**
+     * @return connector to be closed to send the queued messages
+     */
     @Nonnull
-    private static SlackFacade initializeSlackFacade() {
-        final var restConnectorSupport = new RestConnectorSupport();
-        final var slackConnector = new SlackConnectorImpl(restConnectorSupport);
-        return new SlackFacadeImpl(slackConnector);
+    private static BatchingSlackConnector initializeSlackConnector(
+            @Nonnull final RestConnectorSupport restConnectorSupport) {
+        return new BatchingSlackConnector(new SlackConnectorImpl(restConnectorSupport), SLACK_QUEUE_CAPACITY,
+                SLACK_COALESCING_WINDOW, SLACK_MAX_ATTEMPTS, SLACK_CLOSE_TIMEOUT);
     }
 }
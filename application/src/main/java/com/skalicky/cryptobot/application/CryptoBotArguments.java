@@ -23,6 +23,7 @@ import com.beust.jcommander.Parameter;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 
 public class CryptoBotArguments {
 
@@ -31,8 +32,7 @@ public class CryptoBotArguments {
      */
     @Nonnull
     @Parameter(names = {"--baseCurrency"},
-            description = "Currency to buy for",
-            required = true)
+            description = "Currency to buy for")
     private String baseCurrency = "";
 
     /**
@@ -40,26 +40,20 @@ public class CryptoBotArguments {
      */
     @Nonnull
     @Parameter(names = {"--quoteCurrency"},
-            description = "Currency to buy",
-            required = true)
+            description = "Currency to buy")
     private String quoteCurrency = "";
 
-    /**
-     * Initialized to avoid nullability.
-     */
-    @Nonnull
+    @Nullable
     @Parameter(names = {"--volumeInBaseCurrencyToInvestPerRun"},
-            description = "How much of the base currency will be intended to be invested into the market currency per run of this bot",
-            required = true)
-    private BigDecimal volumeInBaseCurrencyToInvestPerRun = BigDecimal.ZERO;
+            description = "How much of the base currency will be intended to be invested into the market currency per run of this bot")
+    private BigDecimal volumeInBaseCurrencyToInvestPerRun;
 
     /**
      * Initialized to avoid nullability.
      */
     @Nonnull
     @Parameter(names = {"--tradingPlatformName"},
-            description = "Name of trading platform. Currently supported: kraken",
-            required = true)
+            description = "Name of trading platform. Currently supported: kraken")
     private String tradingPlatformName = "";
 
     /**
@@ -67,8 +61,7 @@ public class CryptoBotArguments {
      */
     @Nonnull
     @Parameter(names = {"--tradingPlatformApiKey"},
-            description = "Key for private part of trading platform API",
-            required = true)
+            description = "Key for private part of trading platform API")
     private String tradingPlatformKey = "";
 
     /**
@@ -76,25 +69,127 @@ public class CryptoBotArguments {
      */
     @Nonnull
     @Parameter(names = {"--tradingPlatformApiSecret"},
-            description = "Secret for private part of trading platform API",
-            required = true)
+            description = "Secret for private part of trading platform API")
     private String tradingPlatformSecret = "";
 
-    /**
-     * Initialized to avoid nullability.
-     */
-    @Nonnull
+    @Nullable
     @Parameter(names = {"--offsetRatioOfLimitPriceToBidPriceInDecimal"},
             description = "Offset ratio of limit price to the bid price. In Decimal. Sample value: 0.01 (= limit" +
-                    " price 1% below the bid price)",
-            required = true)
-    private BigDecimal offsetRatioOfLimitPriceToBidPriceInDecimal = BigDecimal.ZERO;
+                    " price 1% below the bid price)")
+    private BigDecimal offsetRatioOfLimitPriceToBidPriceInDecimal;
 
     @Nullable
     @Parameter(names = {"--slackWebhookUrl"},
             description = "Slack Webhook to notify the user about placing of orders, open and closed orders, etc.")
     private String slackWebhookUrl;
 
+    /**
+     * Initialized to the lowest tier to be on the safe side.
+     */
+    @Nonnull
+    @Parameter(names = {"--tradingPlatformAccountTier"},
+            description = "Verification tier of the trading platform account determining the API rate limits." +
+                    " Currently supported for kraken: starter, intermediate, pro")
+    private String tradingPlatformAccountTier = "starter";
+
+    @Nullable
+    @Parameter(names = {"--tradingPlatformApiUrl"},
+            description = "URL of the trading platform API without any path. Only to be set to reach a local stub")
+    private String tradingPlatformApiUrl;
+
+    @Nullable
+    @Parameter(names = {"--tradingPlatformNonceFile"},
+            description = "File to share the last nonce of private API calls with other bots running on the same" +
+                    " machine with the same API key")
+    private String tradingPlatformNonceFile;
+
+    @Nullable
+    @Parameter(names = {"--closedOrderStoreFile"},
+            description = "File to keep closed orders in between runs so that only newly closed orders are retrieved" +
+                    " from the trading platform")
+    private String closedOrderStoreFile;
+
+    @Nullable
+    @Parameter(names = {"--orderJournalDirectory"},
+            description = "Directory of a journal recording every state of the orders retrieved from the trading" +
+                    " platform")
+    private String orderJournalDirectory;
+
+    @Nullable
+    @Parameter(names = {"--planConfigFile"},
+            description = "JSON file with plans to run instead of the single plan given by the other arguments, see" +
+                    " PlanConfigurationReader")
+    private String planConfigFile;
+
+    @Nullable
+    @Parameter(names = {"--schedule"},
+            description = "Cron expression, e.g. \"2 20 * * *\", to keep running and to trigger the bot by itself" +
+                    " instead of being triggered by an external tool")
+    private String schedule;
+
+    @Parameter(names = {"--tradingPlatformWebSocket"},
+            description = "Whether to keep tickers up to date via the WebSocket API of the trading platform instead" +
+                    " of polling them via its REST API")
+    private boolean tradingPlatformWebSocket;
+
+    @Nullable
+    @Parameter(names = {"--tradingPlatformMaxConcurrentRequests"},
+            description = "Maximum number of requests in flight to the trading platform API. To be raised together" +
+                    " with the number of concurrently running plans of different accounts")
+    private Integer tradingPlatformMaxConcurrentRequests;
+
+    @Parameter(names = {"--virtualThreads"},
+            description = "Whether to run plans and their calls of the trading platform and of Slack on virtual" +
+                    " threads. Needs Java 21, older Java falls back to --platformThreadCount threads")
+    private boolean virtualThreads;
+
+    @Parameter(names = {"--platformThreadCount"},
+            description = "Number of plans of different accounts running concurrently unless virtual threads are" +
+                    " used")
+    private int platformThreadCount = 32;
+
+    /**
+     * Checks the arguments of the single plan, which are mandatory unless plans are given by a file, and the number
+     * of threads.
+     */
+    public void validate() {
+        if (planConfigFile == null) {
+            final var missingArguments = new ArrayList<String>();
+            if (baseCurrency.isEmpty()) {
+                missingArguments.add("--baseCurrency");
+            }
+            if (quoteCurrency.isEmpty()) {
+                missingArguments.add("--quoteCurrency");
+            }
+            if (volumeInBaseCurrencyToInvestPerRun == null) {
+                missingArguments.add("--volumeInBaseCurrencyToInvestPerRun");
+            }
+            if (tradingPlatformName.isEmpty()) {
+                missingArguments.add("--tradingPlatformName");
+            }
+            if (tradingPlatformKey.isEmpty()) {
+                missingArguments.add("--tradingPlatformApiKey");
+            }
+            if (tradingPlatformSecret.isEmpty()) {
+                missingArguments.add("--tradingPlatformApiSecret");
+            }
+            if (offsetRatioOfLimitPriceToBidPriceInDecimal == null) {
+                missingArguments.add("--offsetRatioOfLimitPriceToBidPriceInDecimal");
+            }
+            if (!missingArguments.isEmpty()) {
+                throw new IllegalArgumentException("The following arguments are required unless --planConfigFile is"
+                        + " given: " + String.join(", ", missingArguments));
+            }
+        } else if (closedOrderStoreFile != null) {
+            throw new IllegalArgumentException("--closedOrderStoreFile keeps closed orders of a single account and"
+                    + " cannot be combined with --planConfigFile");
+        }
+        if (platformThreadCount < 1) {
+            throw new IllegalArgumentException("--platformThreadCount needs to be positive [" + platformThreadCount
+                    + "]");
+        }
+    }
+
     @Nonnull
     public String getBaseCurrency() {
         return baseCurrency;
@@ -105,7 +200,7 @@ public class CryptoBotArguments {
         return quoteCurrency;
     }
 
-    @Nonnull
+    @Nullable
     public BigDecimal getVolumeInBaseCurrencyToInvestPerRun() {
         return volumeInBaseCurrencyToInvestPerRun;
     }
@@ -125,7 +220,7 @@ public class CryptoBotArguments {
         return tradingPlatformSecret;
     }
 
-    @Nonnull
+    @Nullable
     public BigDecimal getOffsetRatioOfLimitPriceToBidPriceInDecimal() {
         return offsetRatioOfLimitPriceToBidPriceInDecimal;
     }
@@ -134,4 +229,56 @@ public class CryptoBotArguments {
     public String getSlackWebhookUrl() {
         return slackWebhookUrl;
     }
+
+    @Nonnull
+    public String getTradingPlatformAccountTier() {
+        return tradingPlatformAccountTier;
+    }
+
+    @Nullable
+    public String getTradingPlatformApiUrl() {
+        return tradingPlatformApiUrl;
+    }
+
+    @Nullable
+    public String getTradingPlatformNonceFile() {
+        return tradingPlatformNonceFile;
+    }
+
+    public boolean isTradingPlatformWebSocket() {
+        return tradingPlatformWebSocket;
+    }
+
+    @Nullable
+    public Integer getTradingPlatformMaxConcurrentRequests() {
+        return tradingPlatformMaxConcurrentRequests;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public int getPlatformThreadCount() {
+        return platformThreadCount;
+    }
+
+    @Nullable
+    public String getClosedOrderStoreFile() {
+        return closedOrderStoreFile;
+    }
+
+    @Nullable
+    public String getOrderJournalDirectory() {
+        return orderJournalDirectory;
+    }
+
+    @Nullable
+    public String getSchedule() {
+        return schedule;
+    }
+
+    @Nullable
+    public String getPlanConfigFile() {
+        return planConfigFile;
+    }
 }
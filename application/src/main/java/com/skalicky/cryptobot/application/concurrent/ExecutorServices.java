@@ -0,0 +1,88 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.concurrent;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates executor services for blocking work, i.e. work waiting for the trading platform or for Slack most of the
+ * time.
+ * <p>
+ * The code is compiled for Java 11, hence virtual threads of Java 21 are reached via reflection. A virtual thread
+ * parked in a blocking call costs only its stack of a few kilobytes on the heap, while a platform thread reserves
+ * a stack of about a megabyte, so that only a bounded number of platform threads is used instead.
+ */
+public final class ExecutorServices {
+
+    @Nonnull
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorServices.class);
+
+    private ExecutorServices() {
+    }
+
+    /**
+     * @return an executor service starting a new virtual thread per task, null if the running Java does not support
+     * virtual threads
+     */
+    @Nullable
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException | UnsupportedOperationException exception) {
+            // Before Java 19 the method does not exist, in Java 19 and 20 it fails unless preview features are on.
+            logger.debug("Virtual threads are not supported by Java {}", System.getProperty("java.version"),
+                    exception);
+            return null;
+        }
+    }
+
+    /**
+     * @param virtualThreads      whether to prefer a virtual thread per task
+     * @param platformThreadCount number of platform threads used unless virtual threads are preferred and supported
+     * @param threadNamePrefix    prefix of the names of the platform threads
+     */
+    @Nonnull
+    public static ExecutorService newBlockingTaskExecutor(final boolean virtualThreads,
+                                                          final int platformThreadCount,
+                                                          @Nonnull final String threadNamePrefix) {
+        if (virtualThreads) {
+            final var virtualThreadPerTaskExecutor = newVirtualThreadPerTaskExecutor();
+            if (virtualThreadPerTaskExecutor != null) {
+                logger.info("Running {} tasks on virtual threads", threadNamePrefix);
+                return virtualThreadPerTaskExecutor;
+            }
+            logger.warn("Virtual threads need Java 21, but Java {} is running. Running {} tasks on {} platform"
+                    + " threads instead", System.getProperty("java.version"), threadNamePrefix, platformThreadCount);
+        } else {
+            logger.info("Running {} tasks on {} platform threads", threadNamePrefix, platformThreadCount);
+        }
+        // Daemon threads so that a forgotten shutdown does not keep the process running.
+        return Executors.newFixedThreadPool(platformThreadCount, new ThreadFactoryBuilder()
+                .setNameFormat(threadNamePrefix + "-%d")
+                .setDaemon(true)
+                .build());
+    }
+}
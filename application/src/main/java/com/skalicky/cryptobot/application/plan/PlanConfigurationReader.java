@@ -0,0 +1,86 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.plan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads plans from a JSON file of the following structure and checks that every plan has all mandatory fields.
+ *
+ * <pre>
+ * {"plans": [
+ *   {"name": "weekly bitcoin", "tradingPlatformName": "kraken", "tradingPlatformApiKey": "...",
+ *    "tradingPlatformApiSecret": "...", "baseCurrency": "EUR", "quoteCurrency": "BTC",
+ *    "volumeInBaseCurrencyToInvestPerRun": 50, "offsetRatioOfLimitPriceToBidPriceInDecimal": 0.01,
+ *    "slackWebhookUrl": "..."}
+ * ]}
+ * </pre>
+ * The name and the Slack webhook URL are optional.
+ */
+public class PlanConfigurationReader {
+
+    @Nonnull
+    private final ObjectMapper objectMapper;
+
+    public PlanConfigurationReader(@Nonnull final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Nonnull
+    public ImmutableList<PlanDto> read(@Nonnull final Path file) throws IOException {
+        final PlanConfigurationDto configuration;
+        try (final var inputStream = Files.newInputStream(file)) {
+            configuration = objectMapper.readValue(inputStream, PlanConfigurationDto.class);
+        }
+        if (configuration.getPlans() == null || configuration.getPlans().isEmpty()) {
+            throw new IllegalArgumentException("No plans in " + file);
+        }
+        final var plans = ImmutableList.copyOf(configuration.getPlans());
+        for (int index = 0; index < plans.size(); index++) {
+            final var plan = plans.get(index);
+            if (plan.getName() == null) {
+                plan.setName("#" + (index + 1));
+            }
+            checkMandatory(plan.getTradingPlatformName(), "tradingPlatformName", plan);
+            checkMandatory(plan.getTradingPlatformApiKey(), "tradingPlatformApiKey", plan);
+            checkMandatory(plan.getTradingPlatformApiSecret(), "tradingPlatformApiSecret", plan);
+            checkMandatory(plan.getBaseCurrency(), "baseCurrency", plan);
+            checkMandatory(plan.getQuoteCurrency(), "quoteCurrency", plan);
+            checkMandatory(plan.getVolumeInBaseCurrencyToInvestPerRun(), "volumeInBaseCurrencyToInvestPerRun", plan);
+            checkMandatory(plan.getOffsetRatioOfLimitPriceToBidPriceInDecimal(),
+                    "offsetRatioOfLimitPriceToBidPriceInDecimal", plan);
+        }
+        return plans;
+    }
+
+    private static void checkMandatory(@Nullable final Object value,
+                                       @Nonnull final String fieldName,
+                                       @Nonnull final PlanDto plan) {
+        if (value == null || value.toString().isEmpty()) {
+            throw new IllegalArgumentException("Plan " + plan.getName() + " has no " + fieldName);
+        }
+    }
+}
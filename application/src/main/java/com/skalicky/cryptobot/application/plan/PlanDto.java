@@ -0,0 +1,128 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.plan;
+
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+
+/**
+ * One dollar-cost averaging plan, i.e. what to buy with what on which account per run. The fields have the same
+ * meaning as the command line arguments of the same names.
+ */
+public class PlanDto {
+    @Nullable
+    private String name;
+    @Nullable
+    private String tradingPlatformName;
+    @Nullable
+    private String tradingPlatformApiKey;
+    @Nullable
+    private String tradingPlatformApiSecret;
+    @Nullable
+    private String baseCurrency;
+    @Nullable
+    private String quoteCurrency;
+    @Nullable
+    private BigDecimal volumeInBaseCurrencyToInvestPerRun;
+    @Nullable
+    private BigDecimal offsetRatioOfLimitPriceToBidPriceInDecimal;
+    @Nullable
+    private String slackWebhookUrl;
+
+    @Nullable
+    public String getName() {
+        return name;
+    }
+
+    public void setName(@Nullable final String name) {
+        this.name = name;
+    }
+
+    @Nullable
+    public String getTradingPlatformName() {
+        return tradingPlatformName;
+    }
+
+    public void setTradingPlatformName(@Nullable final String tradingPlatformName) {
+        this.tradingPlatformName = tradingPlatformName;
+    }
+
+    @Nullable
+    public String getTradingPlatformApiKey() {
+        return tradingPlatformApiKey;
+    }
+
+    public void setTradingPlatformApiKey(@Nullable final String tradingPlatformApiKey) {
+        this.tradingPlatformApiKey = tradingPlatformApiKey;
+    }
+
+    @Nullable
+    public String getTradingPlatformApiSecret() {
+        return tradingPlatformApiSecret;
+    }
+
+    public void setTradingPlatformApiSecret(@Nullable final String tradingPlatformApiSecret) {
+        this.tradingPlatformApiSecret = tradingPlatformApiSecret;
+    }
+
+    @Nullable
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    public void setBaseCurrency(@Nullable final String baseCurrency) {
+        this.baseCurrency = baseCurrency;
+    }
+
+    @Nullable
+    public String getQuoteCurrency() {
+        return quoteCurrency;
+    }
+
+    public void setQuoteCurrency(@Nullable final String quoteCurrency) {
+        this.quoteCurrency = quoteCurrency;
+    }
+
+    @Nullable
+    public BigDecimal getVolumeInBaseCurrencyToInvestPerRun() {
+        return volumeInBaseCurrencyToInvestPerRun;
+    }
+
+    public void setVolumeInBaseCurrencyToInvestPerRun(@Nullable final BigDecimal volumeInBaseCurrencyToInvestPerRun) {
+        this.volumeInBaseCurrencyToInvestPerRun = volumeInBaseCurrencyToInvestPerRun;
+    }
+
+    @Nullable
+    public BigDecimal getOffsetRatioOfLimitPriceToBidPriceInDecimal() {
+        return offsetRatioOfLimitPriceToBidPriceInDecimal;
+    }
+
+    public void setOffsetRatioOfLimitPriceToBidPriceInDecimal(@Nullable final BigDecimal offsetRatioOfLimitPriceToBidPriceInDecimal) {
+        this.offsetRatioOfLimitPriceToBidPriceInDecimal = offsetRatioOfLimitPriceToBidPriceInDecimal;
+    }
+
+    @Nullable
+    public String getSlackWebhookUrl() {
+        return slackWebhookUrl;
+    }
+
+    public void setSlackWebhookUrl(@Nullable final String slackWebhookUrl) {
+        this.slackWebhookUrl = slackWebhookUrl;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.plan;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.skalicky.cryptobot.businesslogic.api.CryptoBotLogic;
+import com.skalicky.cryptobot.businesslogic.impl.CryptoBotLogicImpl;
+import com.skalicky.cryptobot.businesslogic.impl.datetime.LocalDateTimeProvider;
+import com.skalicky.cryptobot.exchange.slack.connectorfacade.api.logic.SlackFacade;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.logic.TradingPlatformPublicApiFacade;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.logic.TradingPlatformDesignated;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs many plans in one process. A cycle runs every given plan once.
+ * <p>
+ * Tickers of all currency pairs of the cycle are retrieved at its beginning in one call per trading platform, so
+ * that the public API facades, which are expected to cache them, answer the plans without further calls. Every
+ * account, i.e. API key, has its own queue running its plans one after another, hence plans of one key do not
+ * compete for nonces. The plans of an account share the state of the account retrieved by the first of them in the
+ * cycle, later ones retrieve only the balance and the open orders changed by the orders placed before. Plans of
+ * different accounts run concurrently on the threads of the given executor service. A queue occupies a thread only
+ * while it has a plan to run, hence the number of accounts is not limited by the number of threads. Independent
+ * steps of a plan, e.g. its reports of open and closed orders, run concurrently on the threads of another executor
+ * service.
+ */
+public class PlanExecutor implements Closeable {
+
+    @Nonnull
+    private static final Logger logger = LoggerFactory.getLogger(PlanExecutor.class);
+    private static final int MAX_SLACK_STACK_TRACE_LENGTH = 512;
+
+    @Nonnull
+    private final ImmutableList<TradingPlatformPublicApiFacade> publicApiFacades;
+    @Nonnull
+    private final ImmutableMap<String, TradingPlatformPublicApiFacade> publicApiFacadesByPlatformNames;
+    @Nonnull
+    private final PrivateApiFacadeFactory privateApiFacadeFactory;
+    @Nonnull
+    private final SlackFacade slackFacade;
+    @Nonnull
+    private final LocalDateTimeProvider localDateTimeProvider;
+    @Nonnull
+    private final ExecutorService planThreads;
+    @Nonnull
+    private final ExecutorService stepThreads;
+    @Nonnull
+    private final ConcurrentHashMap<String, Account> accountsByKeys = new ConcurrentHashMap<>();
+
+    /**
+     * @param planThreads runs the plans, shut down by {@link #close()}
+     * @param stepThreads runs the steps of the plans, shut down by {@link #close()}. Separate from the plan threads
+     *                    as plans wait for their steps.
+     */
+    public PlanExecutor(@Nonnull final ImmutableList<TradingPlatformPublicApiFacade> publicApiFacades,
+                        @Nonnull final PrivateApiFacadeFactory privateApiFacadeFactory,
+                        @Nonnull final SlackFacade slackFacade,
+                        @Nonnull final LocalDateTimeProvider localDateTimeProvider,
+                        @Nonnull final ExecutorService planThreads,
+                        @Nonnull final ExecutorService stepThreads) {
+        this.publicApiFacades = publicApiFacades;
+        this.publicApiFacadesByPlatformNames = publicApiFacades.stream()
+                .collect(ImmutableMap.toImmutableMap(TradingPlatformDesignated::getTradingPlatform,
+                        Function.identity()));
+        this.privateApiFacadeFactory = privateApiFacadeFactory;
+        this.slackFacade = slackFacade;
+        this.localDateTimeProvider = localDateTimeProvider;
+        this.planThreads = planThreads;
+        this.stepThreads = stepThreads;
+    }
+
+    /**
+     * Runs every given plan once and waits until all have finished. A failure of one plan is reported and does not
+     * affect the other plans.
+     */
+    public void runCycle(@Nonnull final ImmutableList<PlanDto> plans) {
+        final var startInNanos = System.nanoTime();
+        prefetchTickers(plans);
+        accountsByKeys.values().forEach(account -> account.cryptoBotLogic.invalidateAccountSnapshots());
+        final var planRuns = new ArrayList<CompletableFuture<Void>>(plans.size());
+        for (final var plan : plans) {
+            final Account account;
+            try {
+                account = getAccount(plan);
+            } catch (final RuntimeException exception) {
+                reportFailure(plan, exception);
+                continue;
+            }
+            planRuns.add(CompletableFuture.runAsync(() -> runPlan(plan, account.cryptoBotLogic), account.queue));
+        }
+        CompletableFuture.allOf(planRuns.toArray(new CompletableFuture[0])).join();
+        final var durationInNanos = System.nanoTime() - startInNanos;
+        logger.info("Cycle of {} plans of {} accounts took {} ms, i.e. {} plans per second", plans.size(),
+                accountsByKeys.size(), TimeUnit.NANOSECONDS.toMillis(durationInNanos),
+                String.format("%.1f", plans.size() * (double) TimeUnit.SECONDS.toNanos(1) / durationInNanos));
+    }
+
+    /**
+     * Waits until the queues finish the plans they have already accepted.
+     */
+    @Override
+    public void close() {
+        planThreads.shutdown();
+        try {
+            planThreads.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stepThreads.shutdown();
+        }
+    }
+
+    private void prefetchTickers(@Nonnull final ImmutableList<PlanDto> plans) {
+        final var currencyPairsByPlatformNames = new HashMap<String, Set<CurrencyPairBo>>();
+        for (final var plan : plans) {
+            try {
+                currencyPairsByPlatformNames.computeIfAbsent(plan.getTradingPlatformName(), name -> new HashSet<>())
+                        .add(new CurrencyPairBo(CurrencyBoEnum.getByLabel(plan.getQuoteCurrency()),
+                                CurrencyBoEnum.getByLabel(plan.getBaseCurrency())));
+            } catch (final IllegalArgumentException exception) {
+                // Reported by the run of the plan.
+                logger.debug("No ticker prefetched for the plan {}", plan.getName(), exception);
+            }
+        }
+        currencyPairsByPlatformNames.forEach((tradingPlatformName, currencyPairs) -> {
+            final var publicApiFacade = publicApiFacadesByPlatformNames.get(tradingPlatformName);
+            if (publicApiFacade == null) {
+                return;
+            }
+            try {
+                publicApiFacade.getTickers(currencyPairs);
+            } catch (final RuntimeException exception) {
+                // Every plan retrieves its ticker on demand then.
+                logger.warn("Prefetching of {} tickers on {} failed", currencyPairs.size(), tradingPlatformName,
+                        exception);
+            }
+        });
+    }
+
+    @Nonnull
+    private Account getAccount(@Nonnull final PlanDto plan) {
+        final var tradingPlatformName = plan.getTradingPlatformName();
+        final var apiKey = plan.getTradingPlatformApiKey();
+        final var apiSecret = plan.getTradingPlatformApiSecret();
+        if (tradingPlatformName == null || apiKey == null || apiSecret == null) {
+            throw new IllegalArgumentException("Plan " + plan.getName() + " has no trading platform account");
+        }
+        return accountsByKeys.computeIfAbsent(tradingPlatformName + ":" + apiKey, key -> {
+            final var privateApiFacade = privateApiFacadeFactory.create(tradingPlatformName, apiKey, apiSecret);
+            final var cryptoBotLogic = new CryptoBotLogicImpl(publicApiFacades, ImmutableList.of(privateApiFacade),
+                    slackFacade, localDateTimeProvider, stepThreads);
+            return new Account(cryptoBotLogic, MoreExecutors.newSequentialExecutor(planThreads));
+        });
+    }
+
+    private void runPlan(@Nonnull final PlanDto plan,
+                         @Nonnull final CryptoBotLogic cryptoBotLogic) {
+        try {
+            final var tradingPlatformName = plan.getTradingPlatformName();
+            if (tradingPlatformName == null || plan.getVolumeInBaseCurrencyToInvestPerRun() == null
+                    || plan.getBaseCurrency() == null || plan.getQuoteCurrency() == null
+                    || plan.getOffsetRatioOfLimitPriceToBidPriceInDecimal() == null) {
+                throw new IllegalArgumentException("Plan " + plan.getName() + " is incomplete");
+            }
+            cryptoBotLogic.placeBuyOrderAndReportOrders(tradingPlatformName,
+                    plan.getVolumeInBaseCurrencyToInvestPerRun(),
+                    plan.getBaseCurrency(),
+                    plan.getQuoteCurrency(),
+                    plan.getOffsetRatioOfLimitPriceToBidPriceInDecimal(),
+                    plan.getSlackWebhookUrl());
+        } catch (final Exception exception) {
+            reportFailure(plan, exception);
+        }
+    }
+
+    private void reportFailure(@Nonnull final PlanDto plan,
+                               @Nonnull final Exception exception) {
+        logger.error("Run of the plan {} failed", plan.getName(), exception);
+        if (plan.getSlackWebhookUrl() != null) {
+            final var stackTrace = ExceptionUtils.getStackTrace(exception);
+            final var showDots = stackTrace.length() > MAX_SLACK_STACK_TRACE_LENGTH;
+            try {
+                slackFacade.sendMessage("Exception: "
+                                + stackTrace.substring(0, Math.min(MAX_SLACK_STACK_TRACE_LENGTH, stackTrace.length()))
+                                + (showDots ? "..." : ""),
+                        plan.getSlackWebhookUrl());
+            } catch (final RuntimeException slackException) {
+                logger.error("Reporting of the failure of the plan {} to Slack failed", plan.getName(),
+                        slackException);
+            }
+        }
+    }
+
+    private static final class Account {
+        @Nonnull
+        private final CryptoBotLogic cryptoBotLogic;
+        @Nonnull
+        private final Executor queue;
+
+        private Account(@Nonnull final CryptoBotLogic cryptoBotLogic,
+                        @Nonnull final Executor queue) {
+            this.cryptoBotLogic = cryptoBotLogic;
+            this.queue = queue;
+        }
+    }
+}
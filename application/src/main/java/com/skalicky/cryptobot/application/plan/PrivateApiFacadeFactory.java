@@ -0,0 +1,38 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.plan;
+
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.logic.TradingPlatformPrivateApiFacade;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Creates the private API facade of one account. Called once per account and process.
+ */
+@FunctionalInterface
+public interface PrivateApiFacadeFactory {
+
+    /**
+     * @throws IllegalArgumentException if the trading platform is not supported
+     */
+    @Nonnull
+    TradingPlatformPrivateApiFacade create(@Nonnull String tradingPlatformName,
+                                           @Nonnull String apiKey,
+                                           @Nonnull String apiSecret);
+}
@@ -0,0 +1,169 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.schedule;
+
+import javax.annotation.Nonnull;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+
+/**
+ * Expression in the format of crontab with the five fields minute, hour, day of month, month and day of week, e.g.
+ * "2 20 * * *". Every field is "*" or a comma-separated list of values and ranges, each optionally followed by a step,
+ * e.g. "0-30/10,45". Day of week 0 as well as 7 is Sunday.
+ * <p>
+ * As in crontab, if both the day of month and the day of week are restricted, a day matching either of them matches.
+ */
+public class CronExpression {
+
+    /**
+     * The expression "29 2 * *" is satisfied once in 4 years, hence there is no need to search further.
+     */
+    private static final int MAX_SEARCHED_YEARS = 5;
+
+    @Nonnull
+    private final String expression;
+    @Nonnull
+    private final BitSet minutes;
+    @Nonnull
+    private final BitSet hours;
+    @Nonnull
+    private final BitSet daysOfMonth;
+    @Nonnull
+    private final BitSet months;
+    @Nonnull
+    private final BitSet daysOfWeek;
+    private final boolean dayOfMonthRestricted;
+    private final boolean dayOfWeekRestricted;
+
+    public CronExpression(@Nonnull final String expression) {
+        final var fields = expression.trim().split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Cron expression needs to have 5 fields, but is \"" + expression + "\"");
+        }
+        this.expression = expression;
+        this.minutes = parseField(fields[0], 0, 59, expression);
+        this.hours = parseField(fields[1], 0, 23, expression);
+        this.daysOfMonth = parseField(fields[2], 1, 31, expression);
+        this.months = parseField(fields[3], 1, 12, expression);
+        this.daysOfWeek = parseField(fields[4], 0, 7, expression);
+        if (daysOfWeek.get(7)) {
+            daysOfWeek.set(0);
+        }
+        this.dayOfMonthRestricted = !fields[2].startsWith("*");
+        this.dayOfWeekRestricted = !fields[4].startsWith("*");
+    }
+
+    /**
+     * @return the first whole minute strictly after the given date time which satisfies this expression
+     */
+    @Nonnull
+    public ZonedDateTime next(@Nonnull final ZonedDateTime after) {
+        final var searchEnd = after.plusYears(MAX_SEARCHED_YEARS);
+        var candidate = after.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        while (candidate.isBefore(searchEnd)) {
+            if (!months.get(candidate.getMonthValue())) {
+                candidate = candidate.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1).plusMonths(1);
+            } else if (!matchesDay(candidate)) {
+                candidate = candidate.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+            } else if (!hours.get(candidate.getHour())) {
+                candidate = candidate.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            } else if (!minutes.get(candidate.getMinute())) {
+                candidate = candidate.plusMinutes(1);
+            } else {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("Cron expression \"" + expression + "\" is not satisfied in "
+                + MAX_SEARCHED_YEARS + " years after " + after);
+    }
+
+    @Override
+    @Nonnull
+    public String toString() {
+        return expression;
+    }
+
+    private boolean matchesDay(@Nonnull final ZonedDateTime candidate) {
+        final var dayOfMonthMatches = daysOfMonth.get(candidate.getDayOfMonth());
+        // DayOfWeek counts from Monday = 1 to Sunday = 7, Sunday is hence mapped to 0 by the modulo.
+        final var dayOfWeekMatches = daysOfWeek.get(candidate.getDayOfWeek().getValue() % 7);
+        if (dayOfMonthRestricted && dayOfWeekRestricted) {
+            return dayOfMonthMatches || dayOfWeekMatches;
+        }
+        return dayOfMonthMatches && dayOfWeekMatches;
+    }
+
+    @Nonnull
+    private static BitSet parseField(@Nonnull final String field,
+                                     final int min,
+                                     final int max,
+                                     @Nonnull final String expression) {
+        final var values = new BitSet(max + 1);
+        for (final var part : field.split(",")) {
+            final var stepSeparatorIndex = part.indexOf('/');
+            final var range = stepSeparatorIndex < 0 ? part : part.substring(0, stepSeparatorIndex);
+            final var step = stepSeparatorIndex < 0
+                    ? 1
+                    : parseValue(part.substring(stepSeparatorIndex + 1), 1, max, expression);
+            final int from;
+            final int to;
+            if ("*".equals(range)) {
+                from = min;
+                to = max;
+            } else {
+                final var rangeSeparatorIndex = range.indexOf('-');
+                if (rangeSeparatorIndex < 0) {
+                    from = parseValue(range, min, max, expression);
+                    // "5/15" means every 15th value starting with 5 as in other crontab implementations.
+                    to = stepSeparatorIndex < 0 ? from : max;
+                } else {
+                    from = parseValue(range.substring(0, rangeSeparatorIndex), min, max, expression);
+                    to = parseValue(range.substring(rangeSeparatorIndex + 1), min, max, expression);
+                }
+            }
+            if (from > to) {
+                throw new IllegalArgumentException("Range \"" + range + "\" of cron expression \"" + expression
+                        + "\" is empty");
+            }
+            for (int value = from; value <= to; value += step) {
+                values.set(value);
+            }
+        }
+        return values;
+    }
+
+    private static int parseValue(@Nonnull final String value,
+                                  final int min,
+                                  final int max,
+                                  @Nonnull final String expression) {
+        final int parsedValue;
+        try {
+            parsedValue = Integer.parseInt(value);
+        } catch (final NumberFormatException exception) {
+            throw new IllegalArgumentException("Value \"" + value + "\" of cron expression \"" + expression
+                    + "\" is not a number", exception);
+        }
+        if (parsedValue < min || parsedValue > max) {
+            throw new IllegalArgumentException("Value " + parsedValue + " of cron expression \"" + expression
+                    + "\" needs to be between " + min + " and " + max);
+        }
+        return parsedValue;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.schedule;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs jobs in the current process at the times given by their cron expressions, so that connections, caches and
+ * compiled code survive from one run to the next.
+ * <p>
+ * Jobs are run one after another by a single thread. The next run of a job is planned after its previous run has
+ * finished, hence points in time passed during a long run are skipped instead of being caught up on. Duration of every
+ * run is logged. The first run is logged together with the time which the JVM took to start until the scheduler was
+ * created, as their sum is roughly what every run costs when the bot is started by an external tool like crontab.
+ */
+public class CronScheduler implements Closeable {
+
+    @Nonnull
+    private static final Logger logger = LoggerFactory.getLogger(CronScheduler.class);
+
+    @Nonnull
+    private final Clock clock;
+    @Nonnull
+    private final Duration shutdownTimeout;
+    @Nonnull
+    private final ScheduledThreadPoolExecutor executor;
+    private final long startupDurationInMillis;
+    private volatile boolean closed;
+
+    public CronScheduler(@Nonnull final Clock clock,
+                         @Nonnull final Duration shutdownTimeout) {
+        this.clock = clock;
+        this.shutdownTimeout = shutdownTimeout;
+        this.executor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setNameFormat("cron-scheduler-%d")
+                .build());
+        // Planned runs are dropped on closing, only the ongoing run is let finish.
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.startupDurationInMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    public void schedule(@Nonnull final String jobName,
+                         @Nonnull final CronExpression cronExpression,
+                         @Nonnull final Runnable job) {
+        planNextRun(new ScheduledJob(jobName, cronExpression, job));
+    }
+
+    /**
+     * Stops planning further runs and waits until the ongoing run, if any, finishes.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                logger.warn("Ongoing run has not finished within {}, interrupting it", shutdownTimeout);
+                executor.shutdownNow();
+            }
+        } catch (final InterruptedException exception) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void planNextRun(@Nonnull final ScheduledJob scheduledJob) {
+        if (closed) {
+            return;
+        }
+        final var now = ZonedDateTime.now(clock);
+        final var nextRun = scheduledJob.cronExpression.next(now);
+        logger.info("Next run of {} at {}", scheduledJob.name, nextRun);
+        try {
+            executor.schedule(() -> run(scheduledJob), Duration.between(now, nextRun).toMillis(),
+                    TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException exception) {
+            logger.debug("Next run of {} not planned since the scheduler is being closed", scheduledJob.name);
+        }
+    }
+
+    private void run(@Nonnull final ScheduledJob scheduledJob) {
+        final var startInNanos = System.nanoTime();
+        try {
+            scheduledJob.job.run();
+        } catch (final RuntimeException exception) {
+            logger.error("Run of {} failed", scheduledJob.name, exception);
+        } finally {
+            scheduledJob.recordRun(System.nanoTime() - startInNanos, startupDurationInMillis);
+            planNextRun(scheduledJob);
+        }
+    }
+
+    private static final class ScheduledJob {
+        @Nonnull
+        private final String name;
+        @Nonnull
+        private final CronExpression cronExpression;
+        @Nonnull
+        private final Runnable job;
+        private long runCount;
+        private long totalDurationInNanos;
+        private long minDurationInNanos = Long.MAX_VALUE;
+        private long maxDurationInNanos;
+
+        private ScheduledJob(@Nonnull final String name,
+                             @Nonnull final CronExpression cronExpression,
+                             @Nonnull final Runnable job) {
+            this.name = name;
+            this.cronExpression = cronExpression;
+            this.job = job;
+        }
+
+        /**
+         * Called only by the single thread of the scheduler.
+         */
+        private void recordRun(final long durationInNanos,
+                               final long startupDurationInMillis) {
+            runCount++;
+            totalDurationInNanos += durationInNanos;
+            minDurationInNanos = Math.min(minDurationInNanos, durationInNanos);
+            maxDurationInNanos = Math.max(maxDurationInNanos, durationInNanos);
+            if (runCount == 1) {
+                final var durationInMillis = TimeUnit.NANOSECONDS.toMillis(durationInNanos);
+                logger.info("Run 1 of {} took {} ms, together with the start of the JVM {} ms, which is about what"
+                                + " every run costs when started by an external tool", name, durationInMillis,
+                        startupDurationInMillis + durationInMillis);
+            } else {
+                logger.info("Run {} of {} took {} ms (min {} ms, mean {} ms, max {} ms)", runCount, name,
+                        TimeUnit.NANOSECONDS.toMillis(durationInNanos),
+                        TimeUnit.NANOSECONDS.toMillis(minDurationInNanos),
+                        TimeUnit.NANOSECONDS.toMillis(totalDurationInNanos / runCount),
+                        TimeUnit.NANOSECONDS.toMillis(maxDurationInNanos));
+            }
+        }
+    }
+}
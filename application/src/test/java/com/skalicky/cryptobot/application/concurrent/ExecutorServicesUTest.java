@@ -0,0 +1,67 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExecutorServicesUTest {
+
+    @Test
+    public void test_newBlockingTaskExecutor_when_virtualThreadsNotPreferred_then_daemonPlatformThreadsWithPrefix()
+            throws ExecutionException, InterruptedException {
+        final var executorService = ExecutorServices.newBlockingTaskExecutor(false, 2, "test");
+        try {
+            final var thread = executorService.submit(Thread::currentThread).get();
+
+            assertThat(thread.getName()).isEqualTo("test-0");
+            assertThat(thread.isDaemon()).isTrue();
+            assertThat(isVirtual(thread)).isFalse();
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void test_newBlockingTaskExecutor_when_virtualThreadsPreferred_then_virtualThreadsIfSupported()
+            throws Exception {
+        final var virtualThreadsSupported = ExecutorServices.newVirtualThreadPerTaskExecutor() != null;
+        final var executorService = ExecutorServices.newBlockingTaskExecutor(true, 2, "test");
+        try {
+            final var thread = executorService.submit(Thread::currentThread).get();
+
+            assertThat(isVirtual(thread)).isEqualTo(virtualThreadsSupported);
+        } finally {
+            executorService.shutdown();
+            assertThat(executorService.awaitTermination(1, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    private static boolean isVirtual(final Thread thread) {
+        try {
+            return (boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (final ReflectiveOperationException exception) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.plan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PlanConfigurationReaderUTest {
+
+    private final PlanConfigurationReader reader = new PlanConfigurationReader(new ObjectMapper());
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        file = Files.createTempFile("plans", ".json");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void test_read_when_completePlans_then_plansWithDecimalsAsWritten() throws IOException {
+        Files.writeString(file, "{\"plans\": ["
+                + "{\"name\": \"weekly\", \"tradingPlatformName\": \"kraken\", \"tradingPlatformApiKey\": \"key\","
+                + " \"tradingPlatformApiSecret\": \"secret\", \"baseCurrency\": \"EUR\", \"quoteCurrency\": \"BTC\","
+                + " \"volumeInBaseCurrencyToInvestPerRun\": 50.10, \"offsetRatioOfLimitPriceToBidPriceInDecimal\": 0.01,"
+                + " \"slackWebhookUrl\": \"https://hooks.slack.com/services/x\"},"
+                + "{\"tradingPlatformName\": \"kraken\", \"tradingPlatformApiKey\": \"key\","
+                + " \"tradingPlatformApiSecret\": \"secret\", \"baseCurrency\": \"EUR\", \"quoteCurrency\": \"BTC\","
+                + " \"volumeInBaseCurrencyToInvestPerRun\": 20, \"offsetRatioOfLimitPriceToBidPriceInDecimal\": 0}"
+                + "]}", StandardCharsets.UTF_8);
+
+        final var plans = reader.read(file);
+
+        assertThat(plans).hasSize(2);
+        assertThat(plans.get(0).getName()).isEqualTo("weekly");
+        assertThat(plans.get(0).getVolumeInBaseCurrencyToInvestPerRun()).isEqualTo(new BigDecimal("50.10"));
+        assertThat(plans.get(0).getOffsetRatioOfLimitPriceToBidPriceInDecimal()).isEqualTo(new BigDecimal("0.01"));
+        assertThat(plans.get(0).getSlackWebhookUrl()).isEqualTo("https://hooks.slack.com/services/x");
+        assertThat(plans.get(1).getName()).isEqualTo("#2");
+        assertThat(plans.get(1).getSlackWebhookUrl()).isNull();
+    }
+
+    @Test
+    public void test_read_when_mandatoryFieldMissing_then_exception() throws IOException {
+        Files.writeString(file, "{\"plans\": ["
+                + "{\"name\": \"weekly\", \"tradingPlatformName\": \"kraken\", \"tradingPlatformApiKey\": \"key\","
+                + " \"tradingPlatformApiSecret\": \"secret\", \"baseCurrency\": \"EUR\","
+                + " \"volumeInBaseCurrencyToInvestPerRun\": 50, \"offsetRatioOfLimitPriceToBidPriceInDecimal\": 0.01}"
+                + "]}", StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> reader.read(file))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Plan weekly has no quoteCurrency");
+    }
+
+    @Test
+    public void test_read_when_noPlans_then_exception() throws IOException {
+        Files.writeString(file, "{\"plans\": []}", StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> reader.read(file))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("No plans in " + file);
+    }
+}
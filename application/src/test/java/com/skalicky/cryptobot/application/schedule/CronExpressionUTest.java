@@ -0,0 +1,93 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.application.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CronExpressionUTest {
+
+    @Test
+    public void test_next_when_dailyExpressionAndTimeLaterToday_then_today() {
+        final var cronExpression = new CronExpression("2 20 * * *");
+
+        final var next = cronExpression.next(ZonedDateTime.of(2020, 5, 10, 19, 59, 30, 0, ZoneOffset.UTC));
+
+        assertThat(next).isEqualTo(ZonedDateTime.of(2020, 5, 10, 20, 2, 0, 0, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void test_next_when_dailyExpressionAndTimeExactlyNow_then_tomorrow() {
+        final var cronExpression = new CronExpression("2 20 * * *");
+
+        final var next = cronExpression.next(ZonedDateTime.of(2020, 12, 31, 20, 2, 0, 0, ZoneOffset.UTC));
+
+        assertThat(next).isEqualTo(ZonedDateTime.of(2021, 1, 1, 20, 2, 0, 0, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void test_next_when_listsRangesAndSteps_then_firstMatchingMinute() {
+        final var cronExpression = new CronExpression("10-30/10,45 */6 * * *");
+
+        final var next = cronExpression.next(ZonedDateTime.of(2020, 5, 10, 6, 31, 0, 0, ZoneOffset.UTC));
+
+        assertThat(next).isEqualTo(ZonedDateTime.of(2020, 5, 10, 6, 45, 0, 0, ZoneOffset.UTC));
+        assertThat(cronExpression.next(next)).isEqualTo(ZonedDateTime.of(2020, 5, 10, 12, 10, 0, 0, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void test_next_when_dayOfMonthAndDayOfWeekRestricted_then_eitherMatches() {
+        // 2020-05-10 is a Sunday, the 15th is a Friday.
+        final var cronExpression = new CronExpression("0 8 15 * 1");
+
+        final var next = cronExpression.next(ZonedDateTime.of(2020, 5, 10, 9, 0, 0, 0, ZoneOffset.UTC));
+
+        assertThat(next).isEqualTo(ZonedDateTime.of(2020, 5, 11, 8, 0, 0, 0, ZoneOffset.UTC));
+        assertThat(cronExpression.next(ZonedDateTime.of(2020, 5, 12, 9, 0, 0, 0, ZoneOffset.UTC)))
+                .isEqualTo(ZonedDateTime.of(2020, 5, 15, 8, 0, 0, 0, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void test_next_when_sundayAsSeven_then_sunday() {
+        final var cronExpression = new CronExpression("0 0 * 2 7");
+
+        final var next = cronExpression.next(ZonedDateTime.of(2020, 5, 10, 0, 0, 0, 0, ZoneOffset.UTC));
+
+        assertThat(next).isEqualTo(ZonedDateTime.of(2021, 2, 7, 0, 0, 0, 0, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void test_new_when_valueOutOfRange_then_exception() {
+        assertThatThrownBy(() -> new CronExpression("0 24 * * *"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Value 24 of cron expression \"0 24 * * *\" needs to be between 0 and 23");
+    }
+
+    @Test
+    public void test_new_when_wrongFieldCount_then_exception() {
+        assertThatThrownBy(() -> new CronExpression("0 20 * *"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cron expression needs to have 5 fields, but is \"0 20 * *\"");
+    }
+}
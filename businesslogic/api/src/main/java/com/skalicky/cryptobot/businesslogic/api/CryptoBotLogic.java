@@ -36,4 +36,22 @@ public interface CryptoBotLogic {
                                         @Nonnull String quoteCurrencyLabel,
                                         @Nonnull BigDecimal offsetRatioOfLimitPriceToBidPriceInDecimal,
                                         @Nullable String slackWebhookUrl);
+
+    /**
+     * Does the same as {@link #placeBuyOrderIfEnoughAvailable}, {@link #reportClosedOrders} and
+     * {@link #reportOpenOrders} one after another, but runs independent parts concurrently. A failed part does not
+     * prevent the parts independent of it.
+     */
+    void placeBuyOrderAndReportOrders(@Nonnull String tradingPlatformName,
+                                      @Nonnull BigDecimal volumeInBaseCurrencyToInvestPerRun,
+                                      @Nonnull String baseCurrencyLabel,
+                                      @Nonnull String quoteCurrencyLabel,
+                                      @Nonnull BigDecimal offsetRatioOfLimitPriceToBidPriceInDecimal,
+                                      @Nullable String slackWebhookUrl);
+
+    /**
+     * Makes the next {@link #placeBuyOrderAndReportOrders} retrieve the state of the accounts again instead of
+     * reading the state retrieved by the previous ones. Called at the beginning of every cycle of runs.
+     */
+    void invalidateAccountSnapshots();
 }
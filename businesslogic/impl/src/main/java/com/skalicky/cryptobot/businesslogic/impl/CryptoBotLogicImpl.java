@@ -20,12 +20,16 @@ package com.skalicky.cryptobot.businesslogic.impl;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.skalicky.cryptobot.businesslogic.api.CryptoBotLogic;
 import com.skalicky.cryptobot.businesslogic.impl.datetime.LocalDateTimeProvider;
+import com.skalicky.cryptobot.businesslogic.impl.snapshot.AccountSnapshotService;
+import com.skalicky.cryptobot.businesslogic.impl.step.StepGraph;
 import com.skalicky.cryptobot.exchange.slack.connectorfacade.api.logic.SlackFacade;
 import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.ClosedOrderBo;
 import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
 import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.OpenOrderBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.TickerBo;
 import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
 import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.OrderStateBoEnum;
 import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.OrderTypeBoEnum;
@@ -40,8 +44,13 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class CryptoBotLogicImpl implements CryptoBotLogic {
@@ -55,22 +64,46 @@ public class CryptoBotLogicImpl implements CryptoBotLogic {
     @Nonnull
     private final ImmutableMap<String, TradingPlatformPrivateApiFacade> privateApiFacadesByPlatformNames;
     @Nonnull
+    private final ImmutableMap<String, AccountSnapshotService> accountSnapshotServicesByPlatformNames;
+    @Nonnull
     private final SlackFacade slackFacade;
     @Nonnull
     private final LocalDateTimeProvider localDateTimeProvider;
+    @Nonnull
+    private final Executor stepExecutor;
+    @Nonnull
+    private final Lock privateApiLock = new ReentrantLock();
 
+    /**
+     * Runs the steps of {@link #placeBuyOrderAndReportOrders} one after another in the calling thread.
+     */
     public CryptoBotLogicImpl(@Nonnull final ImmutableList<TradingPlatformPublicApiFacade> publicApiFacades,
                               @Nonnull final ImmutableList<TradingPlatformPrivateApiFacade> privateApiFacades,
                               @Nonnull final SlackFacade slackFacade,
                               @Nonnull final LocalDateTimeProvider localDateTimeProvider) {
+        this(publicApiFacades, privateApiFacades, slackFacade, localDateTimeProvider, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * @param stepExecutor runs the steps of {@link #placeBuyOrderAndReportOrders}, see {@link StepGraph#run}
+     */
+    public CryptoBotLogicImpl(@Nonnull final ImmutableList<TradingPlatformPublicApiFacade> publicApiFacades,
+                              @Nonnull final ImmutableList<TradingPlatformPrivateApiFacade> privateApiFacades,
+                              @Nonnull final SlackFacade slackFacade,
+                              @Nonnull final LocalDateTimeProvider localDateTimeProvider,
+                              @Nonnull final Executor stepExecutor) {
         this.publicApiFacadesByPlatformNames = ImmutableMap.copyOf(publicApiFacades.stream()
                 .collect(Collectors.toUnmodifiableMap(
                         TradingPlatformDesignated::getTradingPlatform, Function.identity())));
         this.privateApiFacadesByPlatformNames = ImmutableMap.copyOf(privateApiFacades.stream()
                 .collect(Collectors.toUnmodifiableMap(
                         TradingPlatformDesignated::getTradingPlatform, Function.identity())));
+        this.accountSnapshotServicesByPlatformNames = ImmutableMap.copyOf(privateApiFacades.stream()
+                .collect(Collectors.toUnmodifiableMap(
+                        TradingPlatformDesignated::getTradingPlatform, AccountSnapshotService::new)));
         this.slackFacade = slackFacade;
         this.localDateTimeProvider = localDateTimeProvider;
+        this.stepExecutor = stepExecutor;
     }
 
     @Override
@@ -82,7 +115,115 @@ public class CryptoBotLogicImpl implements CryptoBotLogic {
                     + tradingPlatformName + "\"");
         }
 
-        final var openOrders = facade.getOpenOrders(true);
+        final var openOrders = callPrivateApi(() -> facade.getOpenOrders(true));
+        reportOpenOrders(tradingPlatformName, openOrders, slackWebhookUrl);
+    }
+
+    @Override
+    public void reportClosedOrders(@Nonnull final String tradingPlatformName,
+                                   @Nullable final String slackWebhookUrl) {
+        final var facade = privateApiFacadesByPlatformNames.get(tradingPlatformName);
+        if (facade == null) {
+            throw new IllegalArgumentException("No private API facade for the trading platform \""
+                    + tradingPlatformName + "\"");
+        }
+
+        final var from = localDateTimeProvider.now().minusDays(3);
+        final var closedOrders = callPrivateApi(() -> facade.getClosedOrders(true, from));
+        reportClosedOrders(tradingPlatformName, from, closedOrders, slackWebhookUrl);
+    }
+
+    @Override
+    public void placeBuyOrderIfEnoughAvailable(@Nonnull final String tradingPlatformName,
+                                               @Nonnull final BigDecimal volumeInBaseCurrencyToInvestPerRun,
+                                               @Nonnull final String baseCurrencyLabel,
+                                               @Nonnull final String quoteCurrencyLabel,
+                                               @Nonnull final BigDecimal offsetRatioOfLimitPriceToBidPriceInDecimal,
+                                               @Nullable final String slackWebhookUrl) {
+        final var privateApiFacade = privateApiFacadesByPlatformNames.get(tradingPlatformName);
+        if (privateApiFacade == null) {
+            throw new IllegalArgumentException("No private API facade for the trading platform \""
+                    + tradingPlatformName + "\"");
+        }
+        final var publicApiFacade = publicApiFacadesByPlatformNames.get(tradingPlatformName);
+        if (publicApiFacade == null) {
+            throw new IllegalArgumentException("No public API facade for the trading platform \""
+                    + tradingPlatformName + "\"");
+        }
+
+        final var accountBalance = callPrivateApi(privateApiFacade::getAccountBalance);
+        placeBuyOrderIfEnoughAvailable(privateApiFacade::placeOrder, accountBalance, publicApiFacade::getTicker, false,
+                tradingPlatformName, volumeInBaseCurrencyToInvestPerRun, baseCurrencyLabel, quoteCurrencyLabel,
+                offsetRatioOfLimitPriceToBidPriceInDecimal, slackWebhookUrl);
+    }
+
+    /**
+     * Runs the steps of the other methods as a {@link StepGraph}. The account balance and the orders are read from
+     * the account snapshot shared by all runs since {@link #invalidateAccountSnapshots()}, the ticker is retrieved
+     * concurrently with it, hence also when too little base currency turns out to be available. The closed orders are
+     * reported while the buy order is being placed. Open orders are read from the snapshot after the buy order to
+     * include it. The buy order is not placed while a snapshot is being retrieved, so that it does not compete with
+     * the retrieval for nonces.
+     */
+    @Override
+    public void placeBuyOrderAndReportOrders(@Nonnull final String tradingPlatformName,
+                                             @Nonnull final BigDecimal volumeInBaseCurrencyToInvestPerRun,
+                                             @Nonnull final String baseCurrencyLabel,
+                                             @Nonnull final String quoteCurrencyLabel,
+                                             @Nonnull final BigDecimal offsetRatioOfLimitPriceToBidPriceInDecimal,
+                                             @Nullable final String slackWebhookUrl) {
+        final var privateApiFacade = privateApiFacadesByPlatformNames.get(tradingPlatformName);
+        if (privateApiFacade == null) {
+            throw new IllegalArgumentException("No private API facade for the trading platform \""
+                    + tradingPlatformName + "\"");
+        }
+        final var publicApiFacade = publicApiFacadesByPlatformNames.get(tradingPlatformName);
+        if (publicApiFacade == null) {
+            throw new IllegalArgumentException("No public API facade for the trading platform \""
+                    + tradingPlatformName + "\"");
+        }
+        final var accountSnapshotService = accountSnapshotServicesByPlatformNames.get(tradingPlatformName);
+        final var closedOrdersFrom = localDateTimeProvider.now().minusDays(3);
+
+        final var graph = new StepGraph("Run of " + quoteCurrencyLabel + "/" + baseCurrencyLabel + " on "
+                + tradingPlatformName);
+        final var accountSnapshot = graph.add("accountSnapshot",
+                inputs -> callPrivateApi(() -> accountSnapshotService.get(closedOrdersFrom)));
+        final var ticker = graph.add("ticker",
+                inputs -> publicApiFacade.getTicker(new CurrencyPairBo(CurrencyBoEnum.getByLabel(quoteCurrencyLabel),
+                        CurrencyBoEnum.getByLabel(baseCurrencyLabel))));
+        final var buyOrder = graph.add("buyOrder", inputs -> {
+            placeBuyOrderIfEnoughAvailable(accountSnapshotService::placeOrder,
+                    inputs.get(accountSnapshot).getAccountBalance(), currencyPair -> inputs.get(ticker), true,
+                    tradingPlatformName, volumeInBaseCurrencyToInvestPerRun, baseCurrencyLabel, quoteCurrencyLabel,
+                    offsetRatioOfLimitPriceToBidPriceInDecimal, slackWebhookUrl);
+            return null;
+        }, accountSnapshot, ticker);
+        graph.add("closedOrderReport", inputs -> {
+            reportClosedOrders(tradingPlatformName, closedOrdersFrom, inputs.get(accountSnapshot).getClosedOrders(),
+                    slackWebhookUrl);
+            return null;
+        }, accountSnapshot);
+        final var openOrders = graph.add("openOrders",
+                inputs -> callPrivateApi(accountSnapshotService::getOpenOrders), buyOrder);
+        graph.add("openOrderReport", inputs -> {
+            reportOpenOrders(tradingPlatformName, inputs.get(openOrders), slackWebhookUrl);
+            return null;
+        }, openOrders);
+
+        final var run = graph.run(stepExecutor);
+        logger.info("{}", run);
+        run.throwIfFailed();
+    }
+
+    @Override
+    public void invalidateAccountSnapshots() {
+        accountSnapshotServicesByPlatformNames.values().forEach(AccountSnapshotService::invalidate);
+    }
+
+    private void reportOpenOrders(@Nonnull final String tradingPlatformName,
+                                  @Nonnull final ImmutableList<OpenOrderBo> openOrders,
+                                  @Nullable final String slackWebhookUrl) {
         final var messageBuilder = new StringBuilder("Open orders on ")
                 .append(tradingPlatformName).append(": ");
         if (openOrders.isEmpty()) {
@@ -98,17 +239,11 @@ public class CryptoBotLogicImpl implements CryptoBotLogic {
         }
     }
 
-    @Override
-    public void reportClosedOrders(@Nonnull final String tradingPlatformName,
-                                   @Nullable final String slackWebhookUrl) {
-        final var facade = privateApiFacadesByPlatformNames.get(tradingPlatformName);
-        if (facade == null) {
-            throw new IllegalArgumentException("No private API facade for the trading platform \""
-                    + tradingPlatformName + "\"");
-        }
-
-        final var from = localDateTimeProvider.now().minusDays(3);
-        final var closedOrdersWithTrades = facade.getClosedOrders(true, from).stream() //
+    private void reportClosedOrders(@Nonnull final String tradingPlatformName,
+                                    @Nonnull final LocalDateTime from,
+                                    @Nonnull final ImmutableList<ClosedOrderBo> closedOrders,
+                                    @Nullable final String slackWebhookUrl) {
+        final var closedOrdersWithTrades = closedOrders.stream() //
                 .filter(o -> !o.getTradeIds().isEmpty()) //
                 .collect(Collectors.toList());
         final var messageBuilder = new StringBuilder("Closed orders since ")
@@ -127,29 +262,29 @@ public class CryptoBotLogicImpl implements CryptoBotLogic {
         }
     }
 
-    @Override
-    public void placeBuyOrderIfEnoughAvailable(@Nonnull final String tradingPlatformName,
-                                               @Nonnull final BigDecimal volumeInBaseCurrencyToInvestPerRun,
-                                               @Nonnull final String baseCurrencyLabel,
-                                               @Nonnull final String quoteCurrencyLabel,
-                                               @Nonnull final BigDecimal offsetRatioOfLimitPriceToBidPriceInDecimal,
-                                               @Nullable final String slackWebhookUrl) {
-        final var privateApiFacade = privateApiFacadesByPlatformNames.get(tradingPlatformName);
-        if (privateApiFacade == null) {
-            throw new IllegalArgumentException("No private API facade for the trading platform \""
-                    + tradingPlatformName + "\"");
-        }
-        final var publicApiFacade = publicApiFacadesByPlatformNames.get(tradingPlatformName);
-        if (publicApiFacade == null) {
-            throw new IllegalArgumentException("No public API facade for the trading platform \""
-                    + tradingPlatformName + "\"");
-        }
-
+    /**
+     * @param orderPlacer               places the buy order, called only if enough base currency is available
+     * @param tickerProvider            called only if enough base currency is available, either retrieves the ticker
+     *                                  or returns the one retrieved beforehand
+     * @param tickerRetrievedBeforehand whether the ticker provider returns the ticker retrieved beforehand
+     */
+    private void placeBuyOrderIfEnoughAvailable(@Nonnull final OrderPlacer orderPlacer,
+                                                @Nonnull final ImmutableMap<CurrencyBoEnum, BigDecimal> accountBalance,
+                                                @Nonnull final Function<CurrencyPairBo, TickerBo> tickerProvider,
+                                                final boolean tickerRetrievedBeforehand,
+                                                @Nonnull final String tradingPlatformName,
+                                                @Nonnull final BigDecimal volumeInBaseCurrencyToInvestPerRun,
+                                                @Nonnull final String baseCurrencyLabel,
+                                                @Nonnull final String quoteCurrencyLabel,
+                                                @Nonnull final BigDecimal offsetRatioOfLimitPriceToBidPriceInDecimal,
+                                                @Nullable final String slackWebhookUrl) {
         final var baseCurrency = CurrencyBoEnum.getByLabel(baseCurrencyLabel);
-        final var baseCurrencyAmount = privateApiFacade.getAccountBalance().get(baseCurrency);
+        final var baseCurrencyAmount = accountBalance.get(baseCurrency);
         if (baseCurrencyAmount.compareTo(volumeInBaseCurrencyToInvestPerRun) >= 0) {
-            final var tickerMessage = "Going to retrieve a ticker for currencies quote " + quoteCurrencyLabel
-                    + " and base " + baseCurrencyLabel + " on " + tradingPlatformName + ".";
+            final var tickerMessage = (tickerRetrievedBeforehand
+                    ? "Going to derive a limit price from the ticker for currencies quote "
+                    : "Going to retrieve a ticker for currencies quote ")
+                    + quoteCurrencyLabel + " and base " + baseCurrencyLabel + " on " + tradingPlatformName + ".";
             logger.info(tickerMessage);
             if (slackWebhookUrl != null) {
                 slackFacade.sendMessage(tickerMessage, slackWebhookUrl);
@@ -157,7 +292,7 @@ public class CryptoBotLogicImpl implements CryptoBotLogic {
 
             final var quoteCurrency = CurrencyBoEnum.getByLabel(quoteCurrencyLabel);
             final var currencyPair = new CurrencyPairBo(quoteCurrency, baseCurrency);
-            final var ticker = publicApiFacade.getTicker(currencyPair);
+            final var ticker = tickerProvider.apply(currencyPair);
 
             final var price = ticker.getBidPrice().multiply(BigDecimal.ONE.subtract(
                     offsetRatioOfLimitPriceToBidPriceInDecimal));
@@ -175,8 +310,11 @@ public class CryptoBotLogicImpl implements CryptoBotLogic {
                     + ". Order expiration is in " + orderExpirationInSecondsFromNow + " seconds from now.";
             logger.info(orderMessage);
 
-            privateApiFacade.placeOrder(orderType, priceOrderType, currencyPair,
-                    volumeInQuoteCurrency, price, true, orderExpirationInSecondsFromNow);
+            callPrivateApi(() -> {
+                orderPlacer.placeOrder(orderType, priceOrderType, currencyPair,
+                        volumeInQuoteCurrency, price, true, orderExpirationInSecondsFromNow);
+                return null;
+            });
 
             final var orderPlacedMessage = priceOrderType.getLabel() + " order to "
                     + orderType.getLabel() + " " + volumeInQuoteCurrency + " " + quoteCurrencyLabel + " for "
@@ -200,6 +338,18 @@ public class CryptoBotLogicImpl implements CryptoBotLogic {
         }
     }
 
+    /**
+     * Makes the given call of a private API while no other call of a private API of this instance is in progress.
+     */
+    private <T> T callPrivateApi(@Nonnull final Supplier<T> call) {
+        privateApiLock.lock();
+        try {
+            return call.get();
+        } finally {
+            privateApiLock.unlock();
+        }
+    }
+
     private String toStringForNotificationPurposes(@Nonnull final OpenOrderBo order) {
         final var currencyPair = order.getCurrencyPair();
         final var quoteCurrency = currencyPair.getQuoteCurrency();
@@ -249,4 +399,19 @@ public class CryptoBotLogicImpl implements CryptoBotLogic {
                 + order.getCloseDateTime().format(ORDER_NOTIFICATION_DATE_TIME_FORMATTER) + " @ "
                 + order.getTradeIds().size() + " " + tradesString;
     }
+
+    /**
+     * Places an order either directly via the private API facade or via the {@link AccountSnapshotService}, which
+     * then retrieves the changed part of its snapshot again.
+     */
+    @FunctionalInterface
+    private interface OrderPlacer {
+        void placeOrder(@Nonnull OrderTypeBoEnum orderType,
+                        @Nonnull PriceOrderTypeBoEnum priceOrderType,
+                        @Nonnull CurrencyPairBo currencyPair,
+                        @Nonnull BigDecimal volumeInQuoteCurrency,
+                        @Nonnull BigDecimal price,
+                        boolean preferFeeInQuoteCurrency,
+                        long orderExpirationInSecondsFromNow);
+    }
 }
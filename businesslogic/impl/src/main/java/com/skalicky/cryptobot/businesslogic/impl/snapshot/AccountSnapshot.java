@@ -0,0 +1,105 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.businesslogic.impl.snapshot;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.ClosedOrderBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.OpenOrderBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * State of one trading platform account at one point in time. Orders include their trades.
+ */
+public final class AccountSnapshot {
+
+    @Nonnull
+    private final ImmutableMap<CurrencyBoEnum, BigDecimal> accountBalance;
+    @Nonnull
+    private final ImmutableList<OpenOrderBo> openOrders;
+    @Nonnull
+    private final ImmutableList<ClosedOrderBo> closedOrders;
+    @Nonnull
+    private final LocalDateTime closedOrdersFrom;
+
+    public AccountSnapshot(@Nonnull final ImmutableMap<CurrencyBoEnum, BigDecimal> accountBalance,
+                           @Nonnull final ImmutableList<OpenOrderBo> openOrders,
+                           @Nonnull final ImmutableList<ClosedOrderBo> closedOrders,
+                           @Nonnull final LocalDateTime closedOrdersFrom) {
+        this.accountBalance = accountBalance;
+        this.openOrders = openOrders;
+        this.closedOrders = closedOrders;
+        this.closedOrdersFrom = closedOrdersFrom;
+    }
+
+    @Nonnull
+    public ImmutableMap<CurrencyBoEnum, BigDecimal> getAccountBalance() {
+        return accountBalance;
+    }
+
+    @Nonnull
+    public ImmutableList<OpenOrderBo> getOpenOrders() {
+        return openOrders;
+    }
+
+    /**
+     * @return orders closed since {@link #getClosedOrdersFrom()}
+     */
+    @Nonnull
+    public ImmutableList<ClosedOrderBo> getClosedOrders() {
+        return closedOrders;
+    }
+
+    @Nonnull
+    public LocalDateTime getClosedOrdersFrom() {
+        return closedOrdersFrom;
+    }
+
+    /**
+     * @param from not before {@link #getClosedOrdersFrom()}
+     * @return this snapshot with only the orders closed since the given time
+     */
+    @Nonnull
+    public AccountSnapshot withClosedOrdersFrom(@Nonnull final LocalDateTime from) {
+        if (from.isBefore(closedOrdersFrom)) {
+            throw new IllegalArgumentException("Closed orders are known only since " + closedOrdersFrom
+                    + ", not since " + from);
+        }
+        if (from.equals(closedOrdersFrom)) {
+            return this;
+        }
+        return new AccountSnapshot(accountBalance, openOrders, closedOrders.stream()
+                .filter(order -> !order.getCloseDateTime().isBefore(from))
+                .collect(ImmutableList.toImmutableList()), from);
+    }
+
+    @Override
+    public String toString() {
+        return "AccountSnapshot{" +
+                "accountBalance=" + accountBalance +
+                ", openOrders=" + openOrders.size() +
+                ", closedOrders=" + closedOrders.size() +
+                ", closedOrdersFrom=" + closedOrdersFrom +
+                '}';
+    }
+}
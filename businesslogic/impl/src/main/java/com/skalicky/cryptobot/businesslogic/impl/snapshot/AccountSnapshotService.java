@@ -0,0 +1,187 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.businesslogic.impl.snapshot;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.ClosedOrderBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.OpenOrderBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.OrderTypeBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.PriceOrderTypeBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.logic.TradingPlatformPrivateApiFacade;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Provides the {@link AccountSnapshot} of one account for a cycle of runs, so that all runs of the cycle read the
+ * same state instead of each retrieving it again.
+ * <p>
+ * The first request of a cycle retrieves the account balance and the open and closed orders. Each retrieval starts
+ * only after the previous one has finished, so that the nonces of the private calls reach the trading platform in
+ * increasing order. Concurrent requests share that retrieval, later requests get its result. Placing an order via
+ * this service changes the balance and the open orders, hence these two are retrieved again when requested next,
+ * while the closed orders are kept. A failed retrieval is not kept.
+ */
+public class AccountSnapshotService {
+
+    @Nonnull
+    private final TradingPlatformPrivateApiFacade privateApiFacade;
+    /**
+     * Guarded by this, as the other retrievals. Null if not requested since the last invalidation.
+     */
+    @Nullable
+    private CompletableFuture<ImmutableMap<CurrencyBoEnum, BigDecimal>> accountBalance;
+    @Nullable
+    private CompletableFuture<ImmutableList<OpenOrderBo>> openOrders;
+    @Nullable
+    private CompletableFuture<ImmutableList<ClosedOrderBo>> closedOrders;
+    @Nullable
+    private LocalDateTime closedOrdersFrom;
+    /**
+     * Guarded by this. The retrieval started last, which the next one waits for.
+     */
+    @Nonnull
+    private CompletableFuture<?> lastRetrieval = CompletableFuture.completedFuture(null);
+
+    public AccountSnapshotService(@Nonnull final TradingPlatformPrivateApiFacade privateApiFacade) {
+        this.privateApiFacade = privateApiFacade;
+    }
+
+    /**
+     * @param from earliest close time of closed orders of the snapshot. An earlier time than the one of the kept
+     *             closed orders retrieves them again.
+     */
+    @Nonnull
+    public AccountSnapshot get(@Nonnull final LocalDateTime from) {
+        return join(getAsync(from));
+    }
+
+    @Nonnull
+    public CompletableFuture<AccountSnapshot> getAsync(@Nonnull final LocalDateTime from) {
+        final CompletableFuture<ImmutableMap<CurrencyBoEnum, BigDecimal>> currentAccountBalance;
+        final CompletableFuture<ImmutableList<OpenOrderBo>> currentOpenOrders;
+        final CompletableFuture<ImmutableList<ClosedOrderBo>> currentClosedOrders;
+        final LocalDateTime currentClosedOrdersFrom;
+        synchronized (this) {
+            if (isMissing(accountBalance)) {
+                accountBalance = retrieveAfterLastRetrieval(privateApiFacade::getAccountBalanceAsync);
+            }
+            if (isMissing(openOrders)) {
+                openOrders = retrieveAfterLastRetrieval(() -> privateApiFacade.getOpenOrdersAsync(true));
+            }
+            if (isMissing(closedOrders) || closedOrdersFrom == null || closedOrdersFrom.isAfter(from)) {
+                closedOrders = retrieveAfterLastRetrieval(() -> privateApiFacade.getClosedOrdersAsync(true, from));
+                closedOrdersFrom = from;
+            }
+            currentAccountBalance = accountBalance;
+            currentOpenOrders = openOrders;
+            currentClosedOrders = closedOrders;
+            currentClosedOrdersFrom = closedOrdersFrom;
+        }
+        return CompletableFuture.allOf(currentAccountBalance, currentOpenOrders, currentClosedOrders)
+                .thenApply(allRetrieved -> new AccountSnapshot(currentAccountBalance.join(), currentOpenOrders.join(),
+                        currentClosedOrders.join(), currentClosedOrdersFrom).withClosedOrdersFrom(from));
+    }
+
+    /**
+     * @return open orders of the snapshot without retrieving its other parts
+     */
+    @Nonnull
+    public ImmutableList<OpenOrderBo> getOpenOrders() {
+        final CompletableFuture<ImmutableList<OpenOrderBo>> currentOpenOrders;
+        synchronized (this) {
+            if (isMissing(openOrders)) {
+                openOrders = retrieveAfterLastRetrieval(() -> privateApiFacade.getOpenOrdersAsync(true));
+            }
+            currentOpenOrders = openOrders;
+        }
+        return join(currentOpenOrders);
+    }
+
+    /**
+     * Places the order via the facade and makes the next requests retrieve the balance and the open orders again.
+     */
+    public void placeOrder(@Nonnull final OrderTypeBoEnum orderType,
+                           @Nonnull final PriceOrderTypeBoEnum priceOrderType,
+                           @Nonnull final CurrencyPairBo currencyPair,
+                           @Nonnull final BigDecimal volumeInQuoteCurrency,
+                           @Nonnull final BigDecimal price,
+                           final boolean preferFeeInQuoteCurrency,
+                           final long orderExpirationInSecondsFromNow) {
+        try {
+            privateApiFacade.placeOrder(orderType, priceOrderType, currencyPair, volumeInQuoteCurrency, price,
+                    preferFeeInQuoteCurrency, orderExpirationInSecondsFromNow);
+        } finally {
+            // Even a failed placement might have reached the trading platform.
+            synchronized (this) {
+                accountBalance = null;
+                openOrders = null;
+            }
+        }
+    }
+
+    /**
+     * Makes the next requests retrieve the whole snapshot again, e.g. at the beginning of a cycle.
+     */
+    public synchronized void invalidate() {
+        accountBalance = null;
+        openOrders = null;
+        closedOrders = null;
+        closedOrdersFrom = null;
+    }
+
+    /**
+     * Called while holding the lock of this.
+     *
+     * @param retrieval started once the last retrieval has finished, whether successfully or not
+     */
+    @Nonnull
+    private <T> CompletableFuture<T> retrieveAfterLastRetrieval(
+            @Nonnull final Supplier<CompletableFuture<T>> retrieval) {
+        final var next = lastRetrieval
+                .handle((result, exception) -> null)
+                .thenCompose(lastFinished -> retrieval.get());
+        lastRetrieval = next;
+        return next;
+    }
+
+    private static boolean isMissing(@Nullable final CompletableFuture<?> retrieval) {
+        return retrieval == null || retrieval.isCompletedExceptionally();
+    }
+
+    @Nonnull
+    private static <T> T join(@Nonnull final CompletableFuture<T> retrieval) {
+        try {
+            return retrieval.join();
+        } catch (final CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw exception;
+        }
+    }
+}
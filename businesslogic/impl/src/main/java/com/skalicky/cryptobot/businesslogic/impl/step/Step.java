@@ -0,0 +1,64 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.businesslogic.impl.step;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Step of a {@link StepGraph}. Identifies its result for the steps depending on it.
+ */
+public final class Step<T> {
+
+    @Nonnull
+    private final String name;
+    @Nonnull
+    private final StepFunction<T> function;
+    @Nonnull
+    private final ImmutableList<Step<?>> inputs;
+
+    Step(@Nonnull final String name,
+         @Nonnull final StepFunction<T> function,
+         @Nonnull final ImmutableList<Step<?>> inputs) {
+        this.name = name;
+        this.function = function;
+        this.inputs = inputs;
+    }
+
+    @Nonnull
+    public String getName() {
+        return name;
+    }
+
+    @Nonnull
+    StepFunction<T> getFunction() {
+        return function;
+    }
+
+    @Nonnull
+    ImmutableList<Step<?>> getInputs() {
+        return inputs;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
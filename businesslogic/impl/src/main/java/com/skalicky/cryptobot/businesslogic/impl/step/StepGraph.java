@@ -0,0 +1,162 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.businesslogic.impl.step;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Steps of one run, each declaring the steps whose results it needs. A run starts every step as soon as its inputs
+ * are available, hence independent steps run concurrently. Every step runs once per run however many steps depend on
+ * it, so that steps needing the same data share one fetch.
+ * <p>
+ * A failed step skips the steps depending on it, independent steps still run. Steps can only depend on steps added
+ * before, hence the graph has no cycles. Not thread-safe, steps are expected to be added by one thread.
+ */
+public class StepGraph {
+
+    @Nonnull
+    private final String name;
+    @Nonnull
+    private final List<Step<?>> steps = new ArrayList<>();
+
+    public StepGraph(@Nonnull final String name) {
+        this.name = name;
+    }
+
+    /**
+     * @throws IllegalArgumentException if an input is not a step of this graph
+     */
+    @Nonnull
+    public <T> Step<T> add(@Nonnull final String stepName,
+                           @Nonnull final StepFunction<T> function,
+                           @Nonnull final Step<?>... inputs) {
+        for (final var input : inputs) {
+            if (!steps.contains(input)) {
+                throw new IllegalArgumentException("Step " + input + " is not a step of " + name);
+            }
+        }
+        final var step = new Step<>(stepName, function, ImmutableList.copyOf(inputs));
+        steps.add(step);
+        return step;
+    }
+
+    /**
+     * Runs all steps and waits until they have finished or were skipped. A step rejected by the executor fails with
+     * the {@link RejectedExecutionException}.
+     *
+     * @param executor runs the steps. Must not be the executor running the calling thread if it is bounded, as the
+     *                 calling thread waits for the steps.
+     */
+    @Nonnull
+    public StepGraphRun run(@Nonnull final Executor executor) {
+        final var startInNanos = System.nanoTime();
+        final var resultsBySteps = new ConcurrentHashMap<Step<?>, CompletableFuture<Object>>();
+        final var timingsBySteps = new ConcurrentHashMap<Step<?>, StepGraphRun.StepTiming>();
+        final var failuresBySteps = new ConcurrentHashMap<Step<?>, RuntimeException>();
+        for (final var step : steps) {
+            final var inputResults = step.getInputs().stream()
+                    .map(resultsBySteps::get)
+                    .toArray(CompletableFuture<?>[]::new);
+            final var result = new CompletableFuture<Object>();
+            resultsBySteps.put(step, result);
+            CompletableFuture.allOf(inputResults).whenComplete((ignored, inputFailure) -> {
+                if (inputFailure != null) {
+                    result.completeExceptionally(inputFailure);
+                    return;
+                }
+                try {
+                    executor.execute(() -> {
+                        try {
+                            result.complete(runStep(step, resultsBySteps, timingsBySteps, failuresBySteps));
+                        } catch (final RuntimeException exception) {
+                            result.completeExceptionally(exception);
+                        }
+                    });
+                } catch (final RejectedExecutionException exception) {
+                    // The step would never run, hence its dependents would wait forever.
+                    failuresBySteps.put(step, exception);
+                    result.completeExceptionally(exception);
+                }
+            });
+        }
+        CompletableFuture.allOf(resultsBySteps.values().toArray(new CompletableFuture<?>[0]))
+                .handle((result, exception) -> null)
+                .join();
+        final var durationInNanos = System.nanoTime() - startInNanos;
+
+        final var failures = steps.stream()
+                .filter(failuresBySteps::containsKey)
+                .map(failuresBySteps::get)
+                .collect(ImmutableList.toImmutableList());
+        return new StepGraphRun(name, durationInNanos, findCriticalPath(timingsBySteps), failures);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static Object runStep(@Nonnull final Step<?> step,
+                                  @Nonnull final Map<Step<?>, CompletableFuture<Object>> resultsBySteps,
+                                  @Nonnull final Map<Step<?>, StepGraphRun.StepTiming> timingsBySteps,
+                                  @Nonnull final Map<Step<?>, RuntimeException> failuresBySteps) {
+        final var startInNanos = System.nanoTime();
+        try {
+            return step.getFunction().run(new StepInputs(step, resultsBySteps));
+        } catch (final RuntimeException exception) {
+            failuresBySteps.put(step, exception);
+            throw exception;
+        } finally {
+            timingsBySteps.put(step, new StepGraphRun.StepTiming(step.getName(), startInNanos, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Walks back from the step finished last, always to the input finished last, i.e. to the input the step waited
+     * for the longest.
+     */
+    @Nonnull
+    private ImmutableList<StepGraphRun.StepTiming> findCriticalPath(
+            @Nonnull final Map<Step<?>, StepGraphRun.StepTiming> timingsBySteps) {
+        final Comparator<Step<?>> byEnd = Comparator.comparingLong(step -> timingsBySteps.get(step).getEndInNanos());
+        var current = steps.stream()
+                .filter(timingsBySteps::containsKey)
+                .max(byEnd)
+                .orElse(null);
+        final var criticalPath = new ArrayList<StepGraphRun.StepTiming>();
+        while (current != null) {
+            criticalPath.add(0, timingsBySteps.get(current));
+            // Inputs of a run step have run too.
+            current = current.getInputs().stream()
+                    .max(byEnd)
+                    .orElse(null);
+        }
+        return ImmutableList.copyOf(criticalPath);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.businesslogic.impl.step;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Outcome of one run of a {@link StepGraph}.
+ * <p>
+ * The critical path is the chain of steps which determined the duration of the run. Its latency is the sum of the
+ * durations of its steps. The rest of the duration of the run was spent waiting for threads or locks.
+ */
+public class StepGraphRun {
+
+    @Nonnull
+    private final String graphName;
+    private final long durationInNanos;
+    @Nonnull
+    private final ImmutableList<StepTiming> criticalPath;
+    @Nonnull
+    private final ImmutableList<RuntimeException> failures;
+
+    StepGraphRun(@Nonnull final String graphName,
+                 final long durationInNanos,
+                 @Nonnull final ImmutableList<StepTiming> criticalPath,
+                 @Nonnull final ImmutableList<RuntimeException> failures) {
+        this.graphName = graphName;
+        this.durationInNanos = durationInNanos;
+        this.criticalPath = criticalPath;
+        this.failures = failures;
+    }
+
+    public long getDurationInNanos() {
+        return durationInNanos;
+    }
+
+    /**
+     * @return steps of the critical path, the first started first
+     */
+    @Nonnull
+    public ImmutableList<StepTiming> getCriticalPath() {
+        return criticalPath;
+    }
+
+    public long getCriticalPathInNanos() {
+        return criticalPath.stream()
+                .mapToLong(StepTiming::getDurationInNanos)
+                .sum();
+    }
+
+    /**
+     * @return failures of steps in the order the steps were added
+     */
+    @Nonnull
+    public ImmutableList<RuntimeException> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Throws the failure of the first failed step with the failures of the other failed steps suppressed.
+     */
+    public void throwIfFailed() {
+        if (failures.isEmpty()) {
+            return;
+        }
+        final var firstFailure = failures.get(0);
+        failures.stream()
+                .skip(1)
+                .filter(failure -> failure != firstFailure)
+                .forEach(firstFailure::addSuppressed);
+        throw firstFailure;
+    }
+
+    @Override
+    public String toString() {
+        return graphName + " took " + TimeUnit.NANOSECONDS.toMillis(durationInNanos) + " ms, critical path of "
+                + TimeUnit.NANOSECONDS.toMillis(getCriticalPathInNanos()) + " ms: "
+                + criticalPath.stream()
+                .map(timing -> timing.getStepName() + " "
+                        + TimeUnit.NANOSECONDS.toMillis(timing.getDurationInNanos()) + " ms")
+                .collect(Collectors.joining(", "));
+    }
+
+    public static final class StepTiming {
+        @Nonnull
+        private final String stepName;
+        private final long startInNanos;
+        private final long endInNanos;
+
+        StepTiming(@Nonnull final String stepName,
+                   final long startInNanos,
+                   final long endInNanos) {
+            this.stepName = stepName;
+            this.startInNanos = startInNanos;
+            this.endInNanos = endInNanos;
+        }
+
+        @Nonnull
+        public String getStepName() {
+            return stepName;
+        }
+
+        public long getStartInNanos() {
+            return startInNanos;
+        }
+
+        public long getEndInNanos() {
+            return endInNanos;
+        }
+
+        public long getDurationInNanos() {
+            return endInNanos - startInNanos;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.businesslogic.impl.step;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Results of the inputs of a running step. All of them are available when the step starts.
+ */
+public final class StepInputs {
+
+    @Nonnull
+    private final Step<?> step;
+    @Nonnull
+    private final Map<Step<?>, CompletableFuture<Object>> resultsBySteps;
+
+    StepInputs(@Nonnull final Step<?> step,
+               @Nonnull final Map<Step<?>, CompletableFuture<Object>> resultsBySteps) {
+        this.step = step;
+        this.resultsBySteps = resultsBySteps;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the given step is not declared as an input of the running step
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(@Nonnull final Step<T> input) {
+        if (!step.getInputs().contains(input)) {
+            throw new IllegalArgumentException("Step " + input + " is not an input of the step " + step);
+        }
+        return (T) resultsBySteps.get(input).join();
+    }
+}
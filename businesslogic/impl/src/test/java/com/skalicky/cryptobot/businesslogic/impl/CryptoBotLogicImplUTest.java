@@ -42,9 +42,11 @@ import org.mockito.Mockito;
 import javax.annotation.Nonnull;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -332,6 +334,81 @@ public class CryptoBotLogicImplUTest {
                 slackUrl);
     }
 
+    @Test
+    public void test_placeBuyOrderAndReportOrders_when_enoughBaseCurrency_and_slackUrl_then_purchase_and_reports() {
+        final var fromDateTime = LocalDateTime.of(2020, 3, 8, 10, 30);
+        fixableLocalDateTimeProvider.fix(fromDateTime.plusDays(3));
+        final var includeTrades = true;
+        when(privateApiFacade.getAccountBalanceAsync()).thenReturn(
+                CompletableFuture.completedFuture(ImmutableMap.of(CurrencyBoEnum.EUR, new BigDecimal(30))));
+        final var ticker = new TickerBo("XXBTZEUR", BigDecimal.TEN, new BigDecimal(9));
+        final var currencyPair = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+        when(publicApiFacade.getTicker(currencyPair)).thenReturn(ticker);
+        when(privateApiFacade.getClosedOrdersAsync(includeTrades, fromDateTime))
+                .thenReturn(CompletableFuture.completedFuture(ImmutableList.<ClosedOrderBo>builder().build()));
+        when(privateApiFacade.getOpenOrdersAsync(includeTrades))
+                .thenReturn(CompletableFuture.completedFuture(ImmutableList.<OpenOrderBo>builder().build()));
+        final var slackUrl = "http://slack_url";
+
+        cryptoBotLogicImpl.placeBuyOrderAndReportOrders(
+                KRAKEN_TRADING_PLATFORM_NAME, new BigDecimal(20), "EUR",
+                "BTC", new BigDecimal("0.001"), slackUrl);
+
+        verify(publicApiFacade).getTradingPlatform();
+        verify(publicApiFacade).getTicker(currencyPair);
+        verify(privateApiFacade).getTradingPlatform();
+        verify(privateApiFacade).getAccountBalanceAsync();
+        verify(privateApiFacade).placeOrder(OrderTypeBoEnum.BUY, PriceOrderTypeBoEnum.LIMIT, currencyPair,
+                new BigDecimal("2.2244466689"), new BigDecimal("8.991"),
+                true, 129_600);
+        verify(privateApiFacade).getClosedOrdersAsync(includeTrades, fromDateTime);
+        verify(privateApiFacade, times(2)).getOpenOrdersAsync(includeTrades);
+        verify(slackFacade).sendMessage(
+                "Going to derive a limit price from the ticker for currencies quote BTC and base EUR on kraken.",
+                slackUrl);
+        verify(slackFacade).sendMessage(
+                "limit order to buy 2.2244466689 BTC for 20 EUR successfully placed on kraken." +
+                        " Limit price of 1 BTC = 8.991 EUR." +
+                        " Order expiration is in 129600 seconds from now.",
+                slackUrl);
+        verify(slackFacade).sendMessage("Closed orders since 08.03. 10:30 on kraken: none", slackUrl);
+        verify(slackFacade).sendMessage("Open orders on kraken: none", slackUrl);
+    }
+
+    @Test
+    public void test_placeBuyOrderAndReportOrders_when_placeOrderFails_then_closedOrdersReported_and_exception() {
+        final var fromDateTime = LocalDateTime.of(2020, 3, 8, 10, 30);
+        fixableLocalDateTimeProvider.fix(fromDateTime.plusDays(3));
+        final var includeTrades = true;
+        when(privateApiFacade.getAccountBalanceAsync()).thenReturn(
+                CompletableFuture.completedFuture(ImmutableMap.of(CurrencyBoEnum.EUR, new BigDecimal(30))));
+        final var ticker = new TickerBo("XXBTZEUR", BigDecimal.TEN, new BigDecimal(9));
+        final var currencyPair = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+        when(publicApiFacade.getTicker(currencyPair)).thenReturn(ticker);
+        final var failure = new IllegalStateException("EOrder:Insufficient funds");
+        Mockito.doThrow(failure).when(privateApiFacade).placeOrder(OrderTypeBoEnum.BUY, PriceOrderTypeBoEnum.LIMIT,
+                currencyPair, new BigDecimal("2.2244466689"), new BigDecimal("8.991"), true, 129_600);
+        when(privateApiFacade.getOpenOrdersAsync(includeTrades))
+                .thenReturn(CompletableFuture.completedFuture(ImmutableList.<OpenOrderBo>builder().build()));
+        when(privateApiFacade.getClosedOrdersAsync(includeTrades, fromDateTime))
+                .thenReturn(CompletableFuture.completedFuture(ImmutableList.<ClosedOrderBo>builder().build()));
+
+        assertThatThrownBy(() -> cryptoBotLogicImpl.placeBuyOrderAndReportOrders(
+                KRAKEN_TRADING_PLATFORM_NAME, new BigDecimal(20), "EUR",
+                "BTC", new BigDecimal("0.001"), null))
+                .isSameAs(failure);
+
+        verify(publicApiFacade).getTradingPlatform();
+        verify(publicApiFacade).getTicker(currencyPair);
+        verify(privateApiFacade).getTradingPlatform();
+        verify(privateApiFacade).getAccountBalanceAsync();
+        verify(privateApiFacade).placeOrder(OrderTypeBoEnum.BUY, PriceOrderTypeBoEnum.LIMIT, currencyPair,
+                new BigDecimal("2.2244466689"), new BigDecimal("8.991"),
+                true, 129_600);
+        verify(privateApiFacade).getClosedOrdersAsync(includeTrades, fromDateTime);
+        verify(privateApiFacade).getOpenOrdersAsync(includeTrades);
+    }
+
     private TradingPlatformPublicApiFacade createKrakenPublicApiFacadeMock() {
         final var facade = mock(TradingPlatformPublicApiFacade.class);
         when(facade.getTradingPlatform()).thenReturn(KRAKEN_TRADING_PLATFORM_NAME);
@@ -0,0 +1,221 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.businesslogic.impl.snapshot;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.ClosedOrderBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.ClosedOrderBoBuilder;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.OpenOrderBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.OrderStateBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.OrderTypeBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.PriceOrderTypeBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.logic.TradingPlatformPrivateApiFacade;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AccountSnapshotServiceUTest {
+
+    @Nonnull
+    private static final LocalDateTime FROM = LocalDateTime.of(2020, 3, 8, 10, 30);
+    @Nonnull
+    private static final ImmutableMap<CurrencyBoEnum, BigDecimal> ACCOUNT_BALANCE =
+            ImmutableMap.of(CurrencyBoEnum.EUR, new BigDecimal(30));
+    @Nonnull
+    private final TradingPlatformPrivateApiFacade privateApiFacade = mock(TradingPlatformPrivateApiFacade.class);
+    @Nonnull
+    private final AccountSnapshotService accountSnapshotService = new AccountSnapshotService(privateApiFacade);
+    @Nonnull
+    private final ClosedOrderBo closedOrder = createClosedOrder(FROM.plusDays(1));
+
+    @BeforeEach
+    public void setUp() {
+        when(privateApiFacade.getAccountBalanceAsync()).thenReturn(CompletableFuture.completedFuture(ACCOUNT_BALANCE));
+        when(privateApiFacade.getOpenOrdersAsync(true))
+                .thenReturn(CompletableFuture.completedFuture(ImmutableList.<OpenOrderBo>builder().build()));
+        when(privateApiFacade.getClosedOrdersAsync(true, FROM))
+                .thenReturn(CompletableFuture.completedFuture(ImmutableList.of(closedOrder)));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Mockito.verifyNoMoreInteractions(privateApiFacade);
+    }
+
+    @Test
+    public void test_get_when_calledTwice_then_retrievedOnce() {
+        accountSnapshotService.get(FROM);
+        final var snapshot = accountSnapshotService.get(FROM);
+
+        assertThat(snapshot.getAccountBalance()).isEqualTo(ACCOUNT_BALANCE);
+        assertThat(snapshot.getOpenOrders()).isEmpty();
+        assertThat(snapshot.getClosedOrders()).containsExactly(closedOrder);
+        verify(privateApiFacade).getAccountBalanceAsync();
+        verify(privateApiFacade).getOpenOrdersAsync(true);
+        verify(privateApiFacade).getClosedOrdersAsync(true, FROM);
+    }
+
+    @Test
+    public void test_getAsync_then_eachRetrievalStartedAfterPreviousFinished() {
+        final var accountBalance = new CompletableFuture<ImmutableMap<CurrencyBoEnum, BigDecimal>>();
+        final var openOrders = new CompletableFuture<ImmutableList<OpenOrderBo>>();
+        when(privateApiFacade.getAccountBalanceAsync()).thenReturn(accountBalance);
+        when(privateApiFacade.getOpenOrdersAsync(true)).thenReturn(openOrders);
+        final var inOrder = Mockito.inOrder(privateApiFacade);
+
+        final var snapshot = accountSnapshotService.getAsync(FROM);
+
+        inOrder.verify(privateApiFacade).getAccountBalanceAsync();
+        verify(privateApiFacade, never()).getOpenOrdersAsync(true);
+        accountBalance.complete(ACCOUNT_BALANCE);
+        inOrder.verify(privateApiFacade).getOpenOrdersAsync(true);
+        verify(privateApiFacade, never()).getClosedOrdersAsync(true, FROM);
+        openOrders.complete(ImmutableList.of());
+        inOrder.verify(privateApiFacade).getClosedOrdersAsync(true, FROM);
+        assertThat(snapshot.join().getClosedOrders()).containsExactly(closedOrder);
+    }
+
+    @Test
+    public void test_get_when_laterFrom_then_closedOrdersFilteredWithoutRetrieval() {
+        accountSnapshotService.get(FROM);
+
+        final var snapshot = accountSnapshotService.get(FROM.plusDays(2));
+
+        assertThat(snapshot.getClosedOrders()).isEmpty();
+        assertThat(snapshot.getClosedOrdersFrom()).isEqualTo(FROM.plusDays(2));
+        verify(privateApiFacade).getAccountBalanceAsync();
+        verify(privateApiFacade).getOpenOrdersAsync(true);
+        verify(privateApiFacade).getClosedOrdersAsync(true, FROM);
+    }
+
+    @Test
+    public void test_get_when_earlierFrom_then_retrievedAgain() {
+        when(privateApiFacade.getClosedOrdersAsync(true, FROM.plusDays(1)))
+                .thenReturn(CompletableFuture.completedFuture(ImmutableList.of()));
+        accountSnapshotService.get(FROM.plusDays(1));
+        final var earlierFrom = FROM.minusDays(1);
+        when(privateApiFacade.getClosedOrdersAsync(true, earlierFrom))
+                .thenReturn(CompletableFuture.completedFuture(ImmutableList.of(closedOrder)));
+
+        final var snapshot = accountSnapshotService.get(earlierFrom);
+
+        assertThat(snapshot.getClosedOrders()).containsExactly(closedOrder);
+        verify(privateApiFacade, times(2)).getAccountBalanceAsync();
+        verify(privateApiFacade, times(2)).getOpenOrdersAsync(true);
+        verify(privateApiFacade).getClosedOrdersAsync(true, FROM.plusDays(1));
+        verify(privateApiFacade).getClosedOrdersAsync(true, earlierFrom);
+    }
+
+    @Test
+    public void test_get_when_orderPlaced_then_balanceAndOpenOrdersRetrievedAgain() {
+        accountSnapshotService.get(FROM);
+        final var currencyPair = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+        accountSnapshotService.placeOrder(OrderTypeBoEnum.BUY, PriceOrderTypeBoEnum.LIMIT, currencyPair,
+                BigDecimal.ONE, BigDecimal.TEN, true, 60);
+        final var accountBalanceAfterOrder = ImmutableMap.of(CurrencyBoEnum.EUR, new BigDecimal(20));
+        when(privateApiFacade.getAccountBalanceAsync())
+                .thenReturn(CompletableFuture.completedFuture(accountBalanceAfterOrder));
+
+        final var snapshot = accountSnapshotService.get(FROM);
+
+        assertThat(snapshot.getAccountBalance()).isEqualTo(accountBalanceAfterOrder);
+        assertThat(snapshot.getClosedOrders()).containsExactly(closedOrder);
+        verify(privateApiFacade).placeOrder(OrderTypeBoEnum.BUY, PriceOrderTypeBoEnum.LIMIT, currencyPair,
+                BigDecimal.ONE, BigDecimal.TEN, true, 60);
+        verify(privateApiFacade, times(2)).getAccountBalanceAsync();
+        verify(privateApiFacade, times(2)).getOpenOrdersAsync(true);
+        verify(privateApiFacade).getClosedOrdersAsync(true, FROM);
+    }
+
+    @Test
+    public void test_getOpenOrders_when_orderPlaced_then_onlyOpenOrdersRetrievedAgain() {
+        accountSnapshotService.get(FROM);
+        final var currencyPair = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+        accountSnapshotService.placeOrder(OrderTypeBoEnum.BUY, PriceOrderTypeBoEnum.LIMIT, currencyPair,
+                BigDecimal.ONE, BigDecimal.TEN, true, 60);
+
+        assertThat(accountSnapshotService.getOpenOrders()).isEmpty();
+
+        verify(privateApiFacade).placeOrder(OrderTypeBoEnum.BUY, PriceOrderTypeBoEnum.LIMIT, currencyPair,
+                BigDecimal.ONE, BigDecimal.TEN, true, 60);
+        verify(privateApiFacade).getAccountBalanceAsync();
+        verify(privateApiFacade, times(2)).getOpenOrdersAsync(true);
+        verify(privateApiFacade).getClosedOrdersAsync(true, FROM);
+    }
+
+    @Test
+    public void test_get_when_retrievalFailed_then_exception_and_onlyFailedPartRetrievedAgain() {
+        final var failure = new IllegalStateException("EAPI:Invalid nonce");
+        when(privateApiFacade.getAccountBalanceAsync()).thenReturn(CompletableFuture.failedFuture(failure))
+                .thenReturn(CompletableFuture.completedFuture(ACCOUNT_BALANCE));
+
+        assertThatThrownBy(() -> accountSnapshotService.get(FROM)).isSameAs(failure);
+        assertThat(accountSnapshotService.get(FROM).getAccountBalance()).isEqualTo(ACCOUNT_BALANCE);
+
+        verify(privateApiFacade, times(2)).getAccountBalanceAsync();
+        verify(privateApiFacade).getOpenOrdersAsync(true);
+        verify(privateApiFacade).getClosedOrdersAsync(true, FROM);
+    }
+
+    @Test
+    public void test_invalidate_then_retrievedAgain() {
+        accountSnapshotService.get(FROM);
+
+        accountSnapshotService.invalidate();
+        accountSnapshotService.get(FROM);
+
+        verify(privateApiFacade, times(2)).getAccountBalanceAsync();
+        verify(privateApiFacade, times(2)).getOpenOrdersAsync(true);
+        verify(privateApiFacade, times(2)).getClosedOrdersAsync(true, FROM);
+    }
+
+    @Nonnull
+    private static ClosedOrderBo createClosedOrder(@Nonnull final LocalDateTime closeDateTime) {
+        return ClosedOrderBoBuilder.aClosedOrderBo()
+                .withOrderType(OrderTypeBoEnum.BUY)
+                .withDesiredVolumeInQuoteCurrency(new BigDecimal("0.65"))
+                .withCurrencyPair(new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR))
+                .withTotalExecutedVolumeInQuoteCurrency(new BigDecimal("0.65"))
+                .withPriceOrderType(PriceOrderTypeBoEnum.LIMIT)
+                .withDesiredPrice(BigDecimal.valueOf(5650))
+                .withAverageActualPrice(BigDecimal.valueOf(5650))
+                .withActualFeeInQuoteCurrency(BigDecimal.ZERO)
+                .withStatus(OrderStateBoEnum.FULLY_EXECUTED)
+                .withOpenDateTime(closeDateTime.minusMinutes(2))
+                .withCloseDateTime(closeDateTime)
+                .withTradeIds(ImmutableList.of("tradeId1")).build();
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.businesslogic.impl.step;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StepGraphUTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void test_run_when_independentSteps_then_runConcurrently() {
+        final var bothStarted = new CountDownLatch(2);
+        final var graph = new StepGraph("test");
+        final var first = graph.add("first", inputs -> awaitOther(bothStarted));
+        final var second = graph.add("second", inputs -> awaitOther(bothStarted));
+        final var sum = graph.add("sum", inputs -> inputs.get(first) + inputs.get(second), first, second);
+
+        final var run = graph.run(executor);
+
+        run.throwIfFailed();
+        assertThat(run.getFailures()).isEmpty();
+        assertThat(run.getCriticalPath()).extracting(StepGraphRun.StepTiming::getStepName)
+                .hasSize(2)
+                .endsWith(sum.getName());
+    }
+
+    @Test
+    public void test_run_when_stepIsInputOfTwoSteps_then_runOnce() {
+        final var fetchCount = new AtomicInteger();
+        final var graph = new StepGraph("test");
+        final var fetch = graph.add("fetch", inputs -> fetchCount.incrementAndGet());
+        final var first = graph.add("first", inputs -> inputs.get(fetch) * 10, fetch);
+        final var second = graph.add("second", inputs -> inputs.get(fetch) * 100, fetch);
+        final var results = new int[2];
+        graph.add("collect", inputs -> {
+            results[0] = inputs.get(first);
+            results[1] = inputs.get(second);
+            return null;
+        }, first, second);
+
+        graph.run(executor).throwIfFailed();
+
+        assertThat(fetchCount.get()).isEqualTo(1);
+        assertThat(results).containsExactly(10, 100);
+    }
+
+    @Test
+    public void test_run_when_stepFails_then_dependentStepsSkipped_and_independentStepsRun_and_failureThrown() {
+        final var failure = new IllegalStateException("fetch failed");
+        final var dependentRuns = new AtomicInteger();
+        final var independentRuns = new AtomicInteger();
+        final var graph = new StepGraph("test");
+        final Step<Integer> fetch = graph.add("fetch", inputs -> {
+            throw failure;
+        });
+        graph.add("dependent", inputs -> dependentRuns.incrementAndGet(), fetch);
+        graph.add("independent", inputs -> independentRuns.incrementAndGet());
+
+        final var run = graph.run(executor);
+
+        assertThat(dependentRuns.get()).isZero();
+        assertThat(independentRuns.get()).isEqualTo(1);
+        assertThat(run.getFailures()).containsExactly(failure);
+        assertThatThrownBy(run::throwIfFailed).isSameAs(failure);
+    }
+
+    @Test
+    public void test_run_when_stepRejectedByExecutor_then_stepFailed_and_dependentStepsSkipped() throws Exception {
+        final var rejection = new RejectedExecutionException("queue full");
+        final var submittedCount = new AtomicInteger();
+        // Rejects the second step, which is submitted when the first one has finished.
+        final Executor rejectingExecutor = command -> {
+            if (submittedCount.incrementAndGet() == 2) {
+                throw rejection;
+            }
+            executor.execute(command);
+        };
+        final var reportRuns = new AtomicInteger();
+        final var graph = new StepGraph("test");
+        final var fetch = graph.add("fetch", inputs -> 1);
+        final var buy = graph.add("buy", inputs -> inputs.get(fetch) + 1, fetch);
+        graph.add("report", inputs -> reportRuns.addAndGet(inputs.get(buy)), buy);
+
+        final var run = CompletableFuture.supplyAsync(() -> graph.run(rejectingExecutor)).get(5, TimeUnit.SECONDS);
+
+        assertThat(reportRuns.get()).isZero();
+        assertThat(run.getFailures()).containsExactly(rejection);
+        assertThatThrownBy(run::throwIfFailed).isSameAs(rejection);
+    }
+
+    @Test
+    public void test_run_when_directExecutor_then_stepsRunInOrderOfAdding() {
+        final var order = new StringBuilder();
+        final var graph = new StepGraph("test");
+        final var first = graph.add("first", inputs -> order.append("1"));
+        graph.add("second", inputs -> order.append("2"));
+        graph.add("third", inputs -> order.append("3"), first);
+
+        graph.run(MoreExecutors.directExecutor()).throwIfFailed();
+
+        assertThat(order.toString()).isEqualTo("123");
+    }
+
+    @Test
+    public void test_run_when_slowChain_then_criticalPathFollowsSlowChain() {
+        final var graph = new StepGraph("test");
+        final var slow = graph.add("slow", inputs -> sleep(50));
+        final var fast = graph.add("fast", inputs -> 0);
+        final var afterSlow = graph.add("afterSlow", inputs -> sleep(20), slow);
+        graph.add("last", inputs -> 0, afterSlow, fast);
+
+        final var run = graph.run(executor);
+
+        assertThat(run.getCriticalPath()).extracting(StepGraphRun.StepTiming::getStepName)
+                .containsExactly("slow", "afterSlow", "last");
+        assertThat(run.getCriticalPathInNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(70));
+        assertThat(run.getDurationInNanos()).isGreaterThanOrEqualTo(run.getCriticalPathInNanos());
+        assertThat(run.toString()).startsWith("test took ").contains("critical path of ");
+    }
+
+    @Test
+    public void test_add_when_inputOfOtherGraph_then_exception() {
+        final var otherStep = new StepGraph("other").add("step", inputs -> 0);
+
+        assertThatThrownBy(() -> new StepGraph("test").add("step", inputs -> 0, otherStep))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Step step is not a step of test");
+    }
+
+    @Test
+    public void test_get_when_stepNotDeclaredAsInput_then_failure() {
+        final var graph = new StepGraph("test");
+        final var first = graph.add("first", inputs -> 1);
+        graph.add("second", inputs -> inputs.get(first));
+
+        final var run = graph.run(executor);
+
+        assertThat(run.getFailures()).hasSize(1);
+        assertThat(run.getFailures().get(0)).hasMessage("Step first is not an input of the step second");
+    }
+
+    private static int awaitOther(final CountDownLatch bothStarted) {
+        bothStarted.countDown();
+        try {
+            if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("The other step has not started");
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
+        }
+        return 1;
+    }
+
+    private static int sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
+        }
+        return 0;
+    }
+}
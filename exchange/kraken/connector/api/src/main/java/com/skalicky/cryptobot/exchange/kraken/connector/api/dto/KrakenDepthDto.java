@@ -0,0 +1,89 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.api.dto;
+
+import javax.annotation.Nullable;
+
+/**
+ * Order book of one market as returned by the Depth method. Prices and volumes are fixed-point numbers, i.e. scaled by
+ * the numbers of decimal places requested, in parallel arrays of the length of the number of levels.
+ */
+public class KrakenDepthDto {
+    @Nullable
+    private String marketName;
+    /**
+     * Best, i.e. highest, bid first.
+     */
+    @Nullable
+    private long[] bidPrices;
+    @Nullable
+    private long[] bidVolumes;
+    /**
+     * Best, i.e. lowest, ask first.
+     */
+    @Nullable
+    private long[] askPrices;
+    @Nullable
+    private long[] askVolumes;
+
+    @Nullable
+    public String getMarketName() {
+        return marketName;
+    }
+
+    public void setMarketName(@Nullable final String marketName) {
+        this.marketName = marketName;
+    }
+
+    @Nullable
+    public long[] getBidPrices() {
+        return bidPrices;
+    }
+
+    public void setBidPrices(@Nullable final long[] bidPrices) {
+        this.bidPrices = bidPrices;
+    }
+
+    @Nullable
+    public long[] getBidVolumes() {
+        return bidVolumes;
+    }
+
+    public void setBidVolumes(@Nullable final long[] bidVolumes) {
+        this.bidVolumes = bidVolumes;
+    }
+
+    @Nullable
+    public long[] getAskPrices() {
+        return askPrices;
+    }
+
+    public void setAskPrices(@Nullable final long[] askPrices) {
+        this.askPrices = askPrices;
+    }
+
+    @Nullable
+    public long[] getAskVolumes() {
+        return askVolumes;
+    }
+
+    public void setAskVolumes(@Nullable final long[] askVolumes) {
+        this.askVolumes = askVolumes;
+    }
+}
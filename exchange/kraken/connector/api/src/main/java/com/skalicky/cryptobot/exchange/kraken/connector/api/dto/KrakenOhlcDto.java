@@ -0,0 +1,123 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.api.dto;
+
+import javax.annotation.Nullable;
+
+/**
+ * Candles of one market as returned by the OHLC method, oldest first. Prices and volumes are fixed-point numbers,
+ * i.e. scaled by the numbers of decimal places requested, in parallel arrays of the length of the number of candles.
+ */
+public class KrakenOhlcDto {
+    @Nullable
+    private String marketName;
+    /**
+     * Opening times in epoch seconds, the oldest first.
+     */
+    @Nullable
+    private long[] times;
+    @Nullable
+    private long[] opens;
+    @Nullable
+    private long[] highs;
+    @Nullable
+    private long[] lows;
+    @Nullable
+    private long[] closes;
+    @Nullable
+    private long[] volumes;
+    /**
+     * Cursor to be passed as since to retrieve only newer candles, which also returns the last candle of this
+     * response again as it is still in progress.
+     */
+    @Nullable
+    private Long last;
+
+    @Nullable
+    public String getMarketName() {
+        return marketName;
+    }
+
+    public void setMarketName(@Nullable final String marketName) {
+        this.marketName = marketName;
+    }
+
+    @Nullable
+    public long[] getTimes() {
+        return times;
+    }
+
+    public void setTimes(@Nullable final long[] times) {
+        this.times = times;
+    }
+
+    @Nullable
+    public long[] getOpens() {
+        return opens;
+    }
+
+    public void setOpens(@Nullable final long[] opens) {
+        this.opens = opens;
+    }
+
+    @Nullable
+    public long[] getHighs() {
+        return highs;
+    }
+
+    public void setHighs(@Nullable final long[] highs) {
+        this.highs = highs;
+    }
+
+    @Nullable
+    public long[] getLows() {
+        return lows;
+    }
+
+    public void setLows(@Nullable final long[] lows) {
+        this.lows = lows;
+    }
+
+    @Nullable
+    public long[] getCloses() {
+        return closes;
+    }
+
+    public void setCloses(@Nullable final long[] closes) {
+        this.closes = closes;
+    }
+
+    @Nullable
+    public long[] getVolumes() {
+        return volumes;
+    }
+
+    public void setVolumes(@Nullable final long[] volumes) {
+        this.volumes = volumes;
+    }
+
+    @Nullable
+    public Long getLast() {
+        return last;
+    }
+
+    public void setLast(@Nullable final Long last) {
+        this.last = last;
+    }
+}
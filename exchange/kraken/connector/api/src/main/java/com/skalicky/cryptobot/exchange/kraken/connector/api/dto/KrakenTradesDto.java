@@ -0,0 +1,103 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.api.dto;
+
+import javax.annotation.Nullable;
+
+/**
+ * Trades of one market as returned by the Trades method, oldest first. Prices and volumes are fixed-point numbers,
+ * i.e. scaled by the numbers of decimal places requested, in parallel arrays of the length of the number of trades.
+ */
+public class KrakenTradesDto {
+    @Nullable
+    private String marketName;
+    /**
+     * Times in epoch nanoseconds, the oldest first.
+     */
+    @Nullable
+    private long[] times;
+    @Nullable
+    private long[] prices;
+    @Nullable
+    private long[] volumes;
+    /**
+     * True if the taker bought, false if the taker sold.
+     */
+    @Nullable
+    private boolean[] buys;
+    /**
+     * Cursor to be passed as since to retrieve only newer trades.
+     */
+    @Nullable
+    private String last;
+
+    @Nullable
+    public String getMarketName() {
+        return marketName;
+    }
+
+    public void setMarketName(@Nullable final String marketName) {
+        this.marketName = marketName;
+    }
+
+    @Nullable
+    public long[] getTimes() {
+        return times;
+    }
+
+    public void setTimes(@Nullable final long[] times) {
+        this.times = times;
+    }
+
+    @Nullable
+    public long[] getPrices() {
+        return prices;
+    }
+
+    public void setPrices(@Nullable final long[] prices) {
+        this.prices = prices;
+    }
+
+    @Nullable
+    public long[] getVolumes() {
+        return volumes;
+    }
+
+    public void setVolumes(@Nullable final long[] volumes) {
+        this.volumes = volumes;
+    }
+
+    @Nullable
+    public boolean[] getBuys() {
+        return buys;
+    }
+
+    public void setBuys(@Nullable final boolean[] buys) {
+        this.buys = buys;
+    }
+
+    @Nullable
+    public String getLast() {
+        return last;
+    }
+
+    public void setLast(@Nullable final String last) {
+        this.last = last;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.api.dto;
+
+import javax.annotation.Nullable;
+
+/**
+ * Snapshot or update of the order book of one pair as pushed by the "book" channel of the Kraken WebSocket API v2.
+ * Prices and quantities are fixed-point numbers, i.e. scaled by the numbers of decimal places subscribed, in parallel
+ * arrays of the length of the number of levels. A quantity of zero removes the level of its price.
+ */
+public class KrakenWebSocketBookDto {
+    /**
+     * In the format of the WebSocket API, e.g. "BTC/EUR".
+     */
+    @Nullable
+    private String symbol;
+    /**
+     * True if the levels replace the whole book, false if they update it.
+     */
+    private boolean snapshot;
+    @Nullable
+    private long[] bidPrices;
+    @Nullable
+    private long[] bidQuantities;
+    @Nullable
+    private long[] askPrices;
+    @Nullable
+    private long[] askQuantities;
+    /**
+     * CRC32 of the top 10 levels per side of the book after applying this message.
+     */
+    private long checksum;
+
+    @Nullable
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(@Nullable final String symbol) {
+        this.symbol = symbol;
+    }
+
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(final boolean snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    @Nullable
+    public long[] getBidPrices() {
+        return bidPrices;
+    }
+
+    public void setBidPrices(@Nullable final long[] bidPrices) {
+        this.bidPrices = bidPrices;
+    }
+
+    @Nullable
+    public long[] getBidQuantities() {
+        return bidQuantities;
+    }
+
+    public void setBidQuantities(@Nullable final long[] bidQuantities) {
+        this.bidQuantities = bidQuantities;
+    }
+
+    @Nullable
+    public long[] getAskPrices() {
+        return askPrices;
+    }
+
+    public void setAskPrices(@Nullable final long[] askPrices) {
+        this.askPrices = askPrices;
+    }
+
+    @Nullable
+    public long[] getAskQuantities() {
+        return askQuantities;
+    }
+
+    public void setAskQuantities(@Nullable final long[] askQuantities) {
+        this.askQuantities = askQuantities;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(final long checksum) {
+        this.checksum = checksum;
+    }
+}
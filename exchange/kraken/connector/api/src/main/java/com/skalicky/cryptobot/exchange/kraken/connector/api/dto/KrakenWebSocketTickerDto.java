@@ -0,0 +1,64 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.api.dto;
+
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+
+/**
+ * Ticker of one pair as pushed by the "ticker" channel of the Kraken WebSocket API v2.
+ */
+public class KrakenWebSocketTickerDto {
+    /**
+     * In the format of the WebSocket API, e.g. "BTC/EUR".
+     */
+    @Nullable
+    private String symbol;
+    @Nullable
+    private BigDecimal ask;
+    @Nullable
+    private BigDecimal bid;
+
+    @Nullable
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(@Nullable final String symbol) {
+        this.symbol = symbol;
+    }
+
+    @Nullable
+    public BigDecimal getAsk() {
+        return ask;
+    }
+
+    public void setAsk(@Nullable final BigDecimal ask) {
+        this.ask = ask;
+    }
+
+    @Nullable
+    public BigDecimal getBid() {
+        return bid;
+    }
+
+    public void setBid(@Nullable final BigDecimal bid) {
+        this.bid = bid;
+    }
+}
@@ -20,26 +20,56 @@ package com.skalicky.cryptobot.exchange.kraken.connector.api.logic;
 
 import com.google.common.collect.ImmutableList;
 import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenAddOrderResultDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenClosedOrderDto;
 import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenClosedOrderResultDto;
 import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenOpenOrderResultDto;
 import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenResponseDto;
 
 import javax.annotation.Nonnull;
 import java.math.BigDecimal;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface KrakenPrivateApiConnector {
 
     @Nonnull
     KrakenResponseDto<KrakenOpenOrderResultDto> openOrders(boolean includeTrades);
 
+    @Nonnull
+    CompletableFuture<KrakenResponseDto<KrakenOpenOrderResultDto>> openOrdersAsync(boolean includeTrades);
+
+    /**
+     * Retrieves all pages of closed orders one after another.
+     */
     @Nonnull
     KrakenResponseDto<KrakenClosedOrderResultDto> closedOrders(boolean includeTrades,
                                                                @Nonnull Long fromInEpochSeconds);
 
+    /**
+     * Retrieves all pages of closed orders one after another.
+     */
+    @Nonnull
+    CompletableFuture<KrakenResponseDto<KrakenClosedOrderResultDto>> closedOrdersAsync(boolean includeTrades,
+                                                                                      @Nonnull Long fromInEpochSeconds);
+
+    /**
+     * Retrieves the pages of closed orders lazily while iterating, more pages ahead only if the connector is set up
+     * for an API key with a nonce window.
+     *
+     * @return the closed orders by their IDs, the most recently closed first; throws {@link IllegalStateException} if
+     * a page has errors
+     */
+    @Nonnull
+    Iterator<Map.Entry<String, KrakenClosedOrderDto>> closedOrdersIterator(boolean includeTrades,
+                                                                           @Nonnull Long fromInEpochSeconds);
+
     @Nonnull
     KrakenResponseDto<Map<String, BigDecimal>> balance();
 
+    @Nonnull
+    CompletableFuture<KrakenResponseDto<Map<String, BigDecimal>>> balanceAsync();
+
     @Nonnull
     KrakenResponseDto<KrakenAddOrderResultDto> addOrder(@Nonnull String krakenMarketName,
                                                         @Nonnull String krakenOrderType,
@@ -48,4 +78,13 @@ public interface KrakenPrivateApiConnector {
                                                         @Nonnull BigDecimal volumeInQuoteCurrency,
                                                         @Nonnull ImmutableList<String> orderFlags,
                                                         long orderExpirationInSecondsFromNow);
+
+    @Nonnull
+    CompletableFuture<KrakenResponseDto<KrakenAddOrderResultDto>> addOrderAsync(@Nonnull String krakenMarketName,
+                                                                               @Nonnull String krakenOrderType,
+                                                                               @Nonnull String krakenPriceOrderType,
+                                                                               @Nonnull BigDecimal price,
+                                                                               @Nonnull BigDecimal volumeInQuoteCurrency,
+                                                                               @Nonnull ImmutableList<String> orderFlags,
+                                                                               long orderExpirationInSecondsFromNow);
 }
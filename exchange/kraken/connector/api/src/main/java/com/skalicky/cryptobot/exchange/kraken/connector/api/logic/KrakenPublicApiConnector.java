@@ -19,13 +19,76 @@
 package com.skalicky.cryptobot.exchange.kraken.connector.api.logic;
 
 import com.google.common.collect.ImmutableList;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenDepthDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenOhlcDto;
 import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenResponseDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenTradesDto;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface KrakenPublicApiConnector {
 
     @Nonnull
     KrakenResponseDto<Map<String, Map<String, Object>>> ticker(@Nonnull ImmutableList<String> marketNames);
+
+    @Nonnull
+    CompletableFuture<KrakenResponseDto<Map<String, Map<String, Object>>>> tickerAsync(@Nonnull ImmutableList<String> marketNames);
+
+    /**
+     * Retrieves the order book of the given market. Prices and volumes are read from the response directly into
+     * fixed-point numbers with the given numbers of decimal places.
+     *
+     * @param count       maximum number of levels per side
+     * @param priceScale  number of decimal places of prices, a price with more non-zero decimal places is an error
+     * @param volumeScale number of decimal places of volumes, a volume with more non-zero decimal places is an error
+     */
+    @Nonnull
+    KrakenResponseDto<KrakenDepthDto> depth(@Nonnull String marketName,
+                                            int count,
+                                            int priceScale,
+                                            int volumeScale);
+
+    @Nonnull
+    CompletableFuture<KrakenResponseDto<KrakenDepthDto>> depthAsync(@Nonnull String marketName,
+                                                                    int count,
+                                                                    int priceScale,
+                                                                    int volumeScale);
+
+    /**
+     * Retrieves the candles of the given market. Prices and volumes are read from the response directly into
+     * fixed-point numbers with the given numbers of decimal places.
+     *
+     * @param intervalInMinutes length of one candle
+     * @param since             cursor returned by the previous call to retrieve only newer candles, null to retrieve
+     *                          the most recent candles Kraken keeps
+     */
+    @Nonnull
+    KrakenResponseDto<KrakenOhlcDto> ohlc(@Nonnull String marketName,
+                                          int intervalInMinutes,
+                                          @Nullable Long since,
+                                          int priceScale,
+                                          int volumeScale);
+
+    @Nonnull
+    CompletableFuture<KrakenResponseDto<KrakenOhlcDto>> ohlcAsync(@Nonnull String marketName,
+                                                                  int intervalInMinutes,
+                                                                  @Nullable Long since,
+                                                                  int priceScale,
+                                                                  int volumeScale);
+
+    /**
+     * Retrieves the public trades of the given market. Prices and volumes are read from the response directly into
+     * fixed-point numbers with the given numbers of decimal places.
+     *
+     * @param since cursor returned by the previous call to retrieve only newer trades, null to retrieve the most
+     *              recent trades
+     */
+    @Nonnull
+    KrakenResponseDto<KrakenTradesDto> trades(@Nonnull String marketName,
+                                              @Nullable String since,
+                                              int priceScale,
+                                              int volumeScale);
 }
@@ -0,0 +1,45 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.api.logic;
+
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenWebSocketBookDto;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Receives order books of {@link KrakenWebSocketPublicApiConnector}. Called on the receiving thread of the
+ * connector, hence implementations must not block.
+ */
+public interface KrakenWebSocketBookListener {
+
+    void onBook(@Nonnull KrakenWebSocketBookDto book);
+
+    /**
+     * Called instead of {@link #onBook(KrakenWebSocketBookDto)} when a message of the book of the given symbol could
+     * not be read, e.g. because of a price with more decimal places than subscribed. The book misses the message,
+     * hence cannot be kept up to date until a new snapshot.
+     */
+    void onUnreadableBook(@Nonnull String symbol);
+
+    /**
+     * Called when the connection has been lost. A new snapshot is pushed once the connector has reconnected and
+     * resubscribed, until then the book cannot be kept up to date.
+     */
+    void onDisconnected();
+}
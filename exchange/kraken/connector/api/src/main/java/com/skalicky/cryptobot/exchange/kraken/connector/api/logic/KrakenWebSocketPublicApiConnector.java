@@ -0,0 +1,64 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.api.logic;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Connector to the public part of the Kraken WebSocket API v2. Keeps one connection, re-establishes it when lost and
+ * renews all subscriptions on it.
+ */
+public interface KrakenWebSocketPublicApiConnector extends AutoCloseable {
+
+    /**
+     * Subscribes to the tickers of the given symbols, e.g. "BTC/EUR", and passes them to the given listener.
+     * Connects if not connected yet.
+     */
+    void subscribeTickers(@Nonnull ImmutableList<String> symbols,
+                          @Nonnull KrakenWebSocketTickerListener listener);
+
+    /**
+     * Subscribes to the order books of the given symbols and passes their snapshots and updates to the given
+     * listener. Connects if not connected yet.
+     *
+     * @param depth         number of levels per side, one of 10, 25, 100, 500 and 1000
+     * @param priceScale    number of decimal places of the prices of the symbols, the fixed-point prices of the
+     *                      levels are scaled by
+     * @param quantityScale number of decimal places of the quantities of the symbols, the fixed-point quantities of
+     *                      the levels are scaled by
+     */
+    void subscribeBooks(@Nonnull ImmutableList<String> symbols,
+                        int depth,
+                        int priceScale,
+                        int quantityScale,
+                        @Nonnull KrakenWebSocketBookListener listener);
+
+    /**
+     * Unsubscribes from and subscribes to the order book of the given symbol again in order to receive a new
+     * snapshot, e.g. after a checksum mismatch.
+     */
+    void resubscribeBook(@Nonnull String symbol);
+
+    boolean isConnected();
+
+    @Override
+    void close();
+}
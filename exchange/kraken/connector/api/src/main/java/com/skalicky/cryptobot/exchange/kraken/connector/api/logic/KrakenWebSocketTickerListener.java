@@ -0,0 +1,38 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.api.logic;
+
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenWebSocketTickerDto;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Receives market data of {@link KrakenWebSocketPublicApiConnector}. Called on the receiving thread of the connector,
+ * hence implementations must not block.
+ */
+public interface KrakenWebSocketTickerListener {
+
+    void onTicker(@Nonnull KrakenWebSocketTickerDto ticker);
+
+    /**
+     * Called when the connection has been lost. No tickers are received until the connector has reconnected and
+     * resubscribed, hence the last received tickers get stale.
+     */
+    void onDisconnected();
+}
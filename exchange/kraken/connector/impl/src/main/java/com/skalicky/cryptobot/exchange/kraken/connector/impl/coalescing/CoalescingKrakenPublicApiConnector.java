@@ -0,0 +1,276 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.coalescing;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenDepthDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenOhlcDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenResponseDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenTradesDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenPublicApiConnector;
+import edu.self.kraken.api.KrakenApi;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Decorates a {@link KrakenPublicApiConnector} so that identical requests, i.e. of the same method with the same
+ * parameters, issued while one of them is in flight share its response instead of sending their own. A completed
+ * response keeps being shared for the maximum staleness configured for its method, by default not at all. Responses
+ * older than that are removed whenever a request is sent upstream, so that requests which are never repeated, e.g. of
+ * OHLC data since a given time, do not accumulate.
+ * <p>
+ * Failed responses are never shared beyond the callers which were already waiting for them. Shared responses must not
+ * be modified by their callers.
+ */
+public class CoalescingKrakenPublicApiConnector implements KrakenPublicApiConnector {
+
+    @Nonnull
+    private final KrakenPublicApiConnector delegate;
+    @Nonnull
+    private final ImmutableMap<KrakenApi.Method, Duration> maxStalenessPerMethod;
+    @Nonnull
+    private final LongSupplier nanoTime;
+    @Nonnull
+    private final ConcurrentHashMap<RequestKey, SharedResponse<?>> sharedResponses = new ConcurrentHashMap<>();
+
+    public CoalescingKrakenPublicApiConnector(@Nonnull final KrakenPublicApiConnector delegate,
+                                              @Nonnull final ImmutableMap<KrakenApi.Method, Duration> maxStalenessPerMethod) {
+        this(delegate, maxStalenessPerMethod, System::nanoTime);
+    }
+
+    CoalescingKrakenPublicApiConnector(@Nonnull final KrakenPublicApiConnector delegate,
+                                       @Nonnull final ImmutableMap<KrakenApi.Method, Duration> maxStalenessPerMethod,
+                                       @Nonnull final LongSupplier nanoTime) {
+        this.delegate = delegate;
+        this.maxStalenessPerMethod = maxStalenessPerMethod;
+        this.nanoTime = nanoTime;
+    }
+
+    @Override
+    @Nonnull
+    public KrakenResponseDto<Map<String, Map<String, Object>>> ticker(@Nonnull final ImmutableList<String> marketNames) {
+        return join(coalesce(KrakenApi.Method.TICKER, marketNames, () -> callSynchronously(() -> delegate.ticker(marketNames))));
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<KrakenResponseDto<Map<String, Map<String, Object>>>> tickerAsync(@Nonnull final ImmutableList<String> marketNames) {
+        // A copy so that a caller cancelling or completing its future does not affect the other callers.
+        return coalesce(KrakenApi.Method.TICKER, marketNames, () -> delegate.tickerAsync(marketNames)).copy();
+    }
+
+    @Override
+    @Nonnull
+    public KrakenResponseDto<KrakenDepthDto> depth(@Nonnull final String marketName,
+                                                   final int count,
+                                                   final int priceScale,
+                                                   final int volumeScale) {
+        final var parameters = List.of(marketName, count, priceScale, volumeScale);
+        return join(coalesce(KrakenApi.Method.DEPTH, parameters,
+                () -> callSynchronously(() -> delegate.depth(marketName, count, priceScale, volumeScale))));
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<KrakenResponseDto<KrakenDepthDto>> depthAsync(@Nonnull final String marketName,
+                                                                           final int count,
+                                                                           final int priceScale,
+                                                                           final int volumeScale) {
+        final var parameters = List.of(marketName, count, priceScale, volumeScale);
+        return coalesce(KrakenApi.Method.DEPTH, parameters,
+                () -> delegate.depthAsync(marketName, count, priceScale, volumeScale)).copy();
+    }
+
+    @Override
+    @Nonnull
+    public KrakenResponseDto<KrakenOhlcDto> ohlc(@Nonnull final String marketName,
+                                                 final int intervalInMinutes,
+                                                 @Nullable final Long since,
+                                                 final int priceScale,
+                                                 final int volumeScale) {
+        // Arrays.asList as since is nullable.
+        final var parameters = Arrays.asList(marketName, intervalInMinutes, since, priceScale, volumeScale);
+        return join(coalesce(KrakenApi.Method.OHLC, parameters, () -> callSynchronously(
+                () -> delegate.ohlc(marketName, intervalInMinutes, since, priceScale, volumeScale))));
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<KrakenResponseDto<KrakenOhlcDto>> ohlcAsync(@Nonnull final String marketName,
+                                                                         final int intervalInMinutes,
+                                                                         @Nullable final Long since,
+                                                                         final int priceScale,
+                                                                         final int volumeScale) {
+        final var parameters = Arrays.asList(marketName, intervalInMinutes, since, priceScale, volumeScale);
+        return coalesce(KrakenApi.Method.OHLC, parameters,
+                () -> delegate.ohlcAsync(marketName, intervalInMinutes, since, priceScale, volumeScale)).copy();
+    }
+
+    @Override
+    @Nonnull
+    public KrakenResponseDto<KrakenTradesDto> trades(@Nonnull final String marketName,
+                                                     @Nullable final String since,
+                                                     final int priceScale,
+                                                     final int volumeScale) {
+        final var parameters = Arrays.asList(marketName, since, priceScale, volumeScale);
+        return join(coalesce(KrakenApi.Method.TRADES, parameters,
+                () -> callSynchronously(() -> delegate.trades(marketName, since, priceScale, volumeScale))));
+    }
+
+    /**
+     * @param upstreamCall sends the request, invoked only if there is no shareable response of an identical request
+     */
+    @Nonnull
+    private <T> CompletableFuture<T> coalesce(@Nonnull final KrakenApi.Method method,
+                                              @Nonnull final Object parameters,
+                                              @Nonnull final Supplier<CompletableFuture<T>> upstreamCall) {
+        final var key = new RequestKey(method, parameters);
+        final var maxStalenessInNanos = maxStalenessPerMethod.getOrDefault(method, Duration.ZERO).toNanos();
+        while (true) {
+            @SuppressWarnings("unchecked") final var existing = (SharedResponse<T>) sharedResponses.get(key);
+            if (existing != null && existing.isShareable(nanoTime.getAsLong(), maxStalenessInNanos)) {
+                return existing.future;
+            }
+            final var created = new SharedResponse<T>();
+            final var registered = existing == null
+                    ? sharedResponses.putIfAbsent(key, created) == null
+                    : sharedResponses.replace(key, existing, created);
+            if (registered) {
+                removeExpired();
+                // Sent outside of any map operation as the synchronous call blocks the current thread.
+                final CompletableFuture<T> upstreamResponse;
+                try {
+                    upstreamResponse = upstreamCall.get();
+                } catch (final RuntimeException exception) {
+                    sharedResponses.remove(key, created);
+                    created.future.completeExceptionally(exception);
+                    throw exception;
+                }
+                upstreamResponse.whenComplete((response, throwable) -> {
+                    if (throwable == null && maxStalenessInNanos > 0) {
+                        created.completedAtInNanos = nanoTime.getAsLong();
+                    } else {
+                        sharedResponses.remove(key, created);
+                    }
+                    if (throwable == null) {
+                        created.future.complete(response);
+                    } else {
+                        created.future.completeExceptionally(throwable);
+                    }
+                });
+                return created.future;
+            }
+        }
+    }
+
+    /**
+     * @return the number of responses in flight or shared, for tests
+     */
+    int getSharedResponseCount() {
+        return sharedResponses.size();
+    }
+
+    private void removeExpired() {
+        final var nowInNanos = nanoTime.getAsLong();
+        sharedResponses.forEach((key, sharedResponse) -> {
+            final var maxStalenessInNanos = maxStalenessPerMethod.getOrDefault(key.method, Duration.ZERO).toNanos();
+            if (!sharedResponse.isShareable(nowInNanos, maxStalenessInNanos)) {
+                sharedResponses.remove(key, sharedResponse);
+            }
+        });
+    }
+
+    @Nonnull
+    private static <T> CompletableFuture<T> callSynchronously(@Nonnull final Supplier<T> call) {
+        try {
+            return CompletableFuture.completedFuture(call.get());
+        } catch (final RuntimeException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+
+    /**
+     * Waits for the response and rethrows its failure as thrown by the delegate.
+     */
+    @Nonnull
+    private static <T> T join(@Nonnull final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (final CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw exception;
+        }
+    }
+
+    private static final class RequestKey {
+        @Nonnull
+        private final KrakenApi.Method method;
+        @Nonnull
+        private final Object parameters;
+
+        private RequestKey(@Nonnull final KrakenApi.Method method,
+                           @Nonnull final Object parameters) {
+            this.method = method;
+            this.parameters = parameters;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (other == null || getClass() != other.getClass()) {
+                return false;
+            }
+            final var that = (RequestKey) other;
+            return method == that.method && parameters.equals(that.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(method, parameters);
+        }
+    }
+
+    private static final class SharedResponse<T> {
+        @Nonnull
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private volatile long completedAtInNanos;
+
+        private boolean isShareable(final long nowInNanos,
+                                    final long maxStalenessInNanos) {
+            // Completed responses which are not to be shared are removed on completion, see coalesce(...).
+            return !future.isDone() || nowInNanos - completedAtInNanos <= maxStalenessInNanos;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.logic;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenDepthDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenResponseDto;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads responses of the Depth method token by token, converting the decimal strings of prices and volumes directly
+ * into fixed-point longs. Neither a tree nor a string nor a {@link java.math.BigDecimal} is created per level.
+ * <p>
+ * A response looks like {"error":[],"result":{"XXBTZEUR":{"asks":[["8903.30000","1.250",1580000000],...],"bids":[...]}}}.
+ */
+final class KrakenDepthResponseReader {
+
+    @Nonnull
+    private final JsonFactory jsonFactory;
+
+    KrakenDepthResponseReader(@Nonnull final JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Reads the response while it is being received and closes its stream.
+     *
+     * @param expectedCount expected number of levels per side, the arrays grow if exceeded
+     */
+    @Nonnull
+    KrakenResponseDto<KrakenDepthDto> read(@Nonnull final InputStream responseStream,
+                                           final int expectedCount,
+                                           final int priceScale,
+                                           final int volumeScale) throws IOException {
+        KrakenJsonReading.checkScale(priceScale);
+        KrakenJsonReading.checkScale(volumeScale);
+        try (responseStream; final var parser = jsonFactory.createParser(responseStream)) {
+            KrakenJsonReading.expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            final var response = new KrakenResponseDto<KrakenDepthDto>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final var fieldName = parser.getCurrentName();
+                final var valueToken = parser.nextToken();
+                if ("error".equals(fieldName) && valueToken == JsonToken.START_ARRAY) {
+                    response.setError(KrakenJsonReading.readErrors(parser));
+                } else if ("result".equals(fieldName) && valueToken == JsonToken.START_OBJECT) {
+                    response.setResult(readResult(parser, expectedCount, priceScale, volumeScale));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return response;
+        }
+    }
+
+    /**
+     * @return the order book of the market of the result, null if there is none
+     */
+    @Nullable
+    private static KrakenDepthDto readResult(@Nonnull final JsonParser parser,
+                                             final int expectedCount,
+                                             final int priceScale,
+                                             final int volumeScale) throws IOException {
+        KrakenDepthDto depth = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final var marketName = parser.getCurrentName();
+            KrakenJsonReading.expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            if (depth != null) {
+                throw new JsonParseException(parser, "More than one market in the result");
+            }
+            depth = readMarket(parser, marketName, expectedCount, priceScale, volumeScale);
+        }
+        return depth;
+    }
+
+    @Nonnull
+    private static KrakenDepthDto readMarket(@Nonnull final JsonParser parser,
+                                             @Nonnull final String marketName,
+                                             final int expectedCount,
+                                             final int priceScale,
+                                             final int volumeScale) throws IOException {
+        final var depth = new KrakenDepthDto();
+        depth.setMarketName(marketName);
+        depth.setBidPrices(new long[0]);
+        depth.setBidVolumes(new long[0]);
+        depth.setAskPrices(new long[0]);
+        depth.setAskVolumes(new long[0]);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final var side = parser.getCurrentName();
+            final var valueToken = parser.nextToken();
+            if (("bids".equals(side) || "asks".equals(side)) && valueToken == JsonToken.START_ARRAY) {
+                final var levels = new Levels(expectedCount);
+                readLevels(parser, levels, priceScale, volumeScale);
+                if ("bids".equals(side)) {
+                    depth.setBidPrices(levels.trimmedPrices());
+                    depth.setBidVolumes(levels.trimmedVolumes());
+                } else {
+                    depth.setAskPrices(levels.trimmedPrices());
+                    depth.setAskVolumes(levels.trimmedVolumes());
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return depth;
+    }
+
+    private static void readLevels(@Nonnull final JsonParser parser,
+                                   @Nonnull final Levels levels,
+                                   final int priceScale,
+                                   final int volumeScale) throws IOException {
+        while (parser.nextToken() == JsonToken.START_ARRAY) {
+            final var price = KrakenJsonReading.readFixedPoint(parser, parser.nextToken(), priceScale);
+            final var volume = KrakenJsonReading.readFixedPoint(parser, parser.nextToken(), volumeScale);
+            // Skips the timestamp and any further element.
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                parser.skipChildren();
+            }
+            levels.add(price, volume);
+        }
+        KrakenJsonReading.expect(parser, parser.currentToken(), JsonToken.END_ARRAY);
+    }
+
+    private static final class Levels {
+        @Nonnull
+        private long[] prices;
+        @Nonnull
+        private long[] volumes;
+        private int count;
+
+        private Levels(final int expectedCount) {
+            this.prices = new long[expectedCount];
+            this.volumes = new long[expectedCount];
+        }
+
+        private void add(final long price,
+                         final long volume) {
+            if (count == prices.length) {
+                final var newLength = Math.max(16, prices.length * 2);
+                prices = Arrays.copyOf(prices, newLength);
+                volumes = Arrays.copyOf(volumes, newLength);
+            }
+            prices[count] = price;
+            volumes[count] = volume;
+            count++;
+        }
+
+        @Nonnull
+        private long[] trimmedPrices() {
+            return count == prices.length ? prices : Arrays.copyOf(prices, count);
+        }
+
+        @Nonnull
+        private long[] trimmedVolumes() {
+            return count == volumes.length ? volumes : Arrays.copyOf(volumes, count);
+        }
+    }
+}
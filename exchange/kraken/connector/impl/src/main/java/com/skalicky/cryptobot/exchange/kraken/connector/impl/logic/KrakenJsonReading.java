@@ -0,0 +1,122 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.logic;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Helpers for reading responses token by token.
+ */
+final class KrakenJsonReading {
+
+    @Nonnull
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L,
+            10_000_000L, 100_000_000L, 1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L,
+            10_000_000_000_000L, 100_000_000_000_000L, 1_000_000_000_000_000L, 10_000_000_000_000_000L,
+            100_000_000_000_000_000L, 1_000_000_000_000_000_000L};
+
+    private KrakenJsonReading() {
+    }
+
+    /**
+     * Converts a decimal like "8903.30000" to a long scaled by the given number of decimal places, e.g. 89033 for one
+     * decimal place, directly from the characters of the parser. Trailing zeros beyond the scale are ignored, other
+     * digits beyond it are an error rather than being rounded.
+     *
+     * @param token current token of the parser, a string or a number
+     */
+    static long readFixedPoint(@Nonnull final JsonParser parser,
+                               @Nullable final JsonToken token,
+                               final int scale) throws IOException {
+        if (token != JsonToken.VALUE_STRING && token != JsonToken.VALUE_NUMBER_INT
+                && token != JsonToken.VALUE_NUMBER_FLOAT) {
+            throw new JsonParseException(parser, "Expected a decimal, but got " + token);
+        }
+        final var characters = parser.getTextCharacters();
+        final var offset = parser.getTextOffset();
+        final var end = offset + parser.getTextLength();
+        long value = 0;
+        int decimalPlaces = -1;
+        for (int i = offset; i < end; i++) {
+            final var character = characters[i];
+            if (character == '.' && decimalPlaces < 0) {
+                decimalPlaces = 0;
+            } else if (character >= '0' && character <= '9') {
+                if (decimalPlaces >= scale) {
+                    if (character != '0') {
+                        throw new JsonParseException(parser, "Decimal " + parser.getText()
+                                + " has more than " + scale + " decimal places");
+                    }
+                    continue;
+                }
+                if (decimalPlaces >= 0) {
+                    decimalPlaces++;
+                }
+                try {
+                    value = Math.addExact(Math.multiplyExact(value, 10), character - '0');
+                } catch (final ArithmeticException exception) {
+                    throw new JsonParseException(parser, "Decimal " + parser.getText() + " is out of range");
+                }
+            } else {
+                throw new JsonParseException(parser, "Invalid decimal " + parser.getText());
+            }
+        }
+        if (end == offset || (decimalPlaces == 0 && end - offset == 1)) {
+            throw new JsonParseException(parser, "Invalid decimal " + parser.getText());
+        }
+        try {
+            return Math.multiplyExact(value, POWERS_OF_TEN[scale - Math.max(decimalPlaces, 0)]);
+        } catch (final ArithmeticException exception) {
+            throw new JsonParseException(parser, "Decimal " + parser.getText() + " is out of range");
+        }
+    }
+
+    /**
+     * @param parser positioned at the start of the error array
+     */
+    @Nonnull
+    static ArrayList<String> readErrors(@Nonnull final JsonParser parser) throws IOException {
+        final var errors = new ArrayList<String>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            errors.add(parser.getValueAsString());
+        }
+        return errors;
+    }
+
+    static void expect(@Nonnull final JsonParser parser,
+                       @Nullable final JsonToken actual,
+                       @Nonnull final JsonToken expected) throws JsonParseException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + ", but got " + actual);
+        }
+    }
+
+    static void checkScale(final int scale) {
+        if (scale < 0 || scale >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Unsupported number of decimal places [" + scale + "]");
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.logic;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenOhlcDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenResponseDto;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads responses of the OHLC method token by token into parallel arrays of fixed-point longs, see {@link
+ * KrakenDepthResponseReader}.
+ * <p>
+ * A response looks like {"error":[],"result":{"XXBTZEUR":[[1688671200,"30306.1","30306.2","30305.7","30305.7",
+ * "30306.1","3.39243896",23],...],"last":1688672160}}, where the elements of a candle are its time, open, high, low,
+ * close, volume weighted average price, volume and number of trades.
+ */
+final class KrakenOhlcResponseReader {
+
+    /**
+     * Kraken returns at most 720 candles.
+     */
+    private static final int EXPECTED_COUNT = 720;
+
+    @Nonnull
+    private final JsonFactory jsonFactory;
+
+    KrakenOhlcResponseReader(@Nonnull final JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Reads the response while it is being received and closes its stream.
+     */
+    @Nonnull
+    KrakenResponseDto<KrakenOhlcDto> read(@Nonnull final InputStream responseStream,
+                                          final int priceScale,
+                                          final int volumeScale) throws IOException {
+        KrakenJsonReading.checkScale(priceScale);
+        KrakenJsonReading.checkScale(volumeScale);
+        try (responseStream; final var parser = jsonFactory.createParser(responseStream)) {
+            KrakenJsonReading.expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            final var response = new KrakenResponseDto<KrakenOhlcDto>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final var fieldName = parser.getCurrentName();
+                final var valueToken = parser.nextToken();
+                if ("error".equals(fieldName) && valueToken == JsonToken.START_ARRAY) {
+                    response.setError(KrakenJsonReading.readErrors(parser));
+                } else if ("result".equals(fieldName) && valueToken == JsonToken.START_OBJECT) {
+                    response.setResult(readResult(parser, priceScale, volumeScale));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return response;
+        }
+    }
+
+    @Nullable
+    private static KrakenOhlcDto readResult(@Nonnull final JsonParser parser,
+                                            final int priceScale,
+                                            final int volumeScale) throws IOException {
+        KrakenOhlcDto ohlc = null;
+        Long last = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final var fieldName = parser.getCurrentName();
+            final var valueToken = parser.nextToken();
+            if ("last".equals(fieldName)) {
+                last = parser.getValueAsLong();
+            } else {
+                KrakenJsonReading.expect(parser, valueToken, JsonToken.START_ARRAY);
+                if (ohlc != null) {
+                    throw new JsonParseException(parser, "More than one market in the result");
+                }
+                ohlc = readCandles(parser, fieldName, priceScale, volumeScale);
+            }
+        }
+        if (ohlc != null) {
+            ohlc.setLast(last);
+        }
+        return ohlc;
+    }
+
+    @Nonnull
+    private static KrakenOhlcDto readCandles(@Nonnull final JsonParser parser,
+                                             @Nonnull final String marketName,
+                                             final int priceScale,
+                                             final int volumeScale) throws IOException {
+        final var candles = new Candles();
+        while (parser.nextToken() == JsonToken.START_ARRAY) {
+            KrakenJsonReading.expect(parser, parser.nextToken(), JsonToken.VALUE_NUMBER_INT);
+            final var time = parser.getLongValue();
+            final var open = KrakenJsonReading.readFixedPoint(parser, parser.nextToken(), priceScale);
+            final var high = KrakenJsonReading.readFixedPoint(parser, parser.nextToken(), priceScale);
+            final var low = KrakenJsonReading.readFixedPoint(parser, parser.nextToken(), priceScale);
+            final var close = KrakenJsonReading.readFixedPoint(parser, parser.nextToken(), priceScale);
+            // Skips the volume weighted average price which may have more decimal places than the pair.
+            parser.nextToken();
+            final var volume = KrakenJsonReading.readFixedPoint(parser, parser.nextToken(), volumeScale);
+            // Skips the number of trades and any further element.
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                parser.skipChildren();
+            }
+            candles.add(time, open, high, low, close, volume);
+        }
+        KrakenJsonReading.expect(parser, parser.currentToken(), JsonToken.END_ARRAY);
+
+        final var ohlc = new KrakenOhlcDto();
+        ohlc.setMarketName(marketName);
+        ohlc.setTimes(Arrays.copyOf(candles.times, candles.count));
+        ohlc.setOpens(Arrays.copyOf(candles.opens, candles.count));
+        ohlc.setHighs(Arrays.copyOf(candles.highs, candles.count));
+        ohlc.setLows(Arrays.copyOf(candles.lows, candles.count));
+        ohlc.setCloses(Arrays.copyOf(candles.closes, candles.count));
+        ohlc.setVolumes(Arrays.copyOf(candles.volumes, candles.count));
+        return ohlc;
+    }
+
+    private static final class Candles {
+        @Nonnull
+        private long[] times = new long[EXPECTED_COUNT];
+        @Nonnull
+        private long[] opens = new long[EXPECTED_COUNT];
+        @Nonnull
+        private long[] highs = new long[EXPECTED_COUNT];
+        @Nonnull
+        private long[] lows = new long[EXPECTED_COUNT];
+        @Nonnull
+        private long[] closes = new long[EXPECTED_COUNT];
+        @Nonnull
+        private long[] volumes = new long[EXPECTED_COUNT];
+        private int count;
+
+        private void add(final long time,
+                         final long open,
+                         final long high,
+                         final long low,
+                         final long close,
+                         final long volume) {
+            if (count == times.length) {
+                final var newLength = times.length * 2;
+                times = Arrays.copyOf(times, newLength);
+                opens = Arrays.copyOf(opens, newLength);
+                highs = Arrays.copyOf(highs, newLength);
+                lows = Arrays.copyOf(lows, newLength);
+                closes = Arrays.copyOf(closes, newLength);
+                volumes = Arrays.copyOf(volumes, newLength);
+            }
+            times[count] = time;
+            opens[count] = open;
+            highs[count] = high;
+            lows[count] = low;
+            closes[count] = close;
+            volumes[count] = volume;
+            count++;
+        }
+    }
+}
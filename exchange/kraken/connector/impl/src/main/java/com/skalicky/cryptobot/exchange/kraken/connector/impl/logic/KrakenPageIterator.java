@@ -0,0 +1,143 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.logic;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntFunction;
+
+/**
+ * Iterates over the entries of all pages of a paginated method, e.g. ClosedOrders, in the order of the pages.
+ * <p>
+ * The first page is retrieved when the iterator is first used and tells the total count of entries and the size of a
+ * page. Subsequent pages are retrieved ahead, at most the given number of them at once and more than one only while
+ * the rate limit budget allows it without waiting. Hence only the pages in flight are kept in memory, not the whole
+ * history. Pages of a private method may be retrieved concurrently only with an API key having a nonce window, else
+ * the maximum needs to be one. Not thread-safe.
+ */
+final class KrakenPageIterator<E> implements Iterator<E> {
+
+    @Nonnull
+    private final IntFunction<CompletableFuture<Page<E>>> pageRetrieval;
+    @Nonnull
+    private final DoubleSupplier availableBudget;
+    private final int maxPagesInFlight;
+    @Nonnull
+    private final Deque<CompletableFuture<Page<E>>> pagesInFlight = new ArrayDeque<>();
+    @Nonnull
+    private Iterator<E> currentPage = Collections.emptyIterator();
+    private boolean started;
+    private int pageSize;
+    private long totalCount;
+    private long nextOffset;
+
+    /**
+     * @param pageRetrieval   retrieves the page starting at the given offset
+     * @param availableBudget how much of the rate limit counter can be spent without waiting
+     */
+    KrakenPageIterator(@Nonnull final IntFunction<CompletableFuture<Page<E>>> pageRetrieval,
+                       @Nonnull final DoubleSupplier availableBudget,
+                       final int maxPagesInFlight) {
+        if (maxPagesInFlight < 1) {
+            throw new IllegalArgumentException("Maximum pages in flight need to be positive, but are "
+                    + maxPagesInFlight);
+        }
+        this.pageRetrieval = pageRetrieval;
+        this.availableBudget = availableBudget;
+        this.maxPagesInFlight = maxPagesInFlight;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!started) {
+            started = true;
+            final var firstPage = join(pageRetrieval.apply(0));
+            pageSize = firstPage.entries.size();
+            totalCount = firstPage.count;
+            nextOffset = pageSize;
+            currentPage = firstPage.entries.iterator();
+            retrieveAhead();
+        }
+        while (!currentPage.hasNext()) {
+            final var nextPage = pagesInFlight.pollFirst();
+            if (nextPage == null) {
+                return false;
+            }
+            currentPage = join(nextPage).entries.iterator();
+            retrieveAhead();
+        }
+        return true;
+    }
+
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentPage.next();
+    }
+
+    private void retrieveAhead() {
+        // An empty page would not advance the offset.
+        if (pageSize == 0) {
+            return;
+        }
+        while (nextOffset < totalCount && pagesInFlight.size() < maxPagesInFlight
+                && (pagesInFlight.isEmpty() || availableBudget.getAsDouble() >= 1)) {
+            pagesInFlight.addLast(pageRetrieval.apply(Math.toIntExact(nextOffset)));
+            nextOffset += pageSize;
+        }
+    }
+
+    @Nonnull
+    private static <E> Page<E> join(@Nonnull final CompletableFuture<Page<E>> page) {
+        try {
+            return page.join();
+        } catch (final CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw exception;
+        }
+    }
+
+    static final class Page<E> {
+        @Nonnull
+        private final ImmutableList<E> entries;
+        /**
+         * Total count of entries of all pages.
+         */
+        private final long count;
+
+        Page(@Nonnull final ImmutableList<E> entries,
+             final long count) {
+            this.entries = entries;
+            this.count = count;
+        }
+    }
+}
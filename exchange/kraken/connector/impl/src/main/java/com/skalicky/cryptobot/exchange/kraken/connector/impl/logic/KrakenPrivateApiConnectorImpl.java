@@ -22,72 +22,157 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
 import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenAddOrderResultDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenClosedOrderDto;
 import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenClosedOrderResultDto;
 import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenOpenOrderResultDto;
 import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenResponseDto;
 import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenPrivateApiConnector;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.ratelimit.KrakenRateLimitGovernor;
 import edu.self.kraken.api.KrakenApi;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 public class KrakenPrivateApiConnectorImpl implements KrakenPrivateApiConnector {
+    /**
+     * Parameter of the pair of an order, by which Kraken limits the rate of orders.
+     */
+    @Nonnull
+    private static final String PAIR = "pair";
+    @Nonnull
+    private static final TypeReference<KrakenResponseDto<KrakenOpenOrderResultDto>> OPEN_ORDERS_RESPONSE_TYPE =
+            new TypeReference<>() {
+            };
+    @Nonnull
+    private static final TypeReference<KrakenResponseDto<KrakenClosedOrderResultDto>> CLOSED_ORDERS_RESPONSE_TYPE =
+            new TypeReference<>() {
+            };
+    @Nonnull
+    private static final TypeReference<KrakenResponseDto<Map<String, BigDecimal>>> BALANCE_RESPONSE_TYPE =
+            new TypeReference<>() {
+            };
+    @Nonnull
+    private static final TypeReference<KrakenResponseDto<KrakenAddOrderResultDto>> ADD_ORDER_RESPONSE_TYPE =
+            new TypeReference<>() {
+            };
+
     @Nonnull
     private final KrakenApi krakenApi;
     @Nonnull
     private final ObjectMapper objectMapper;
+    @Nonnull
+    private final KrakenRateLimitGovernor rateLimitGovernor;
+    private final int maxClosedOrderPagesInFlight;
+    @Nonnull
+    private final Executor responseReadingExecutor;
+
+    /**
+     * Creates a connector retrieving the pages of closed orders one after another, which suits an API key without a
+     * nonce window.
+     */
+    public KrakenPrivateApiConnectorImpl(@Nonnull final KrakenApi krakenApi,
+                                         @Nonnull final ObjectMapper objectMapper,
+                                         @Nonnull final KrakenRateLimitGovernor rateLimitGovernor) {
+        this(krakenApi, objectMapper, rateLimitGovernor, 1, KrakenResponseReadingThreads.shared());
+    }
 
+    /**
+     * @param maxClosedOrderPagesInFlight pages of closed orders retrieved ahead by iterators, each page has 50 entries;
+     *                                    more than one can be used only with an API key having a nonce window because
+     *                                    the requests of concurrent pages can arrive out of the order of their nonces
+     * @param responseReadingExecutor     reads the responses of asynchronous requests while they arrive, which blocks,
+     *                                    hence not on the threads of the HTTP client completing the requests
+     */
     public KrakenPrivateApiConnectorImpl(@Nonnull final KrakenApi krakenApi,
-                                         @Nonnull final ObjectMapper objectMapper) {
+                                         @Nonnull final ObjectMapper objectMapper,
+                                         @Nonnull final KrakenRateLimitGovernor rateLimitGovernor,
+                                         final int maxClosedOrderPagesInFlight,
+                                         @Nonnull final Executor responseReadingExecutor) {
+        if (maxClosedOrderPagesInFlight < 1) {
+            throw new IllegalArgumentException("Maximum closed order pages in flight need to be positive, but are "
+                    + maxClosedOrderPagesInFlight);
+        }
         this.krakenApi = krakenApi;
         this.objectMapper = objectMapper;
+        this.rateLimitGovernor = rateLimitGovernor;
+        this.maxClosedOrderPagesInFlight = maxClosedOrderPagesInFlight;
+        this.responseReadingExecutor = responseReadingExecutor;
     }
 
     @Nonnull
     @Override
     public KrakenResponseDto<KrakenOpenOrderResultDto> openOrders(final boolean includeTrades) {
-        final var parameters = Collections.singletonMap(
-                "trades", String.valueOf(includeTrades));
-        try {
-            final var responseString = krakenApi.queryPrivate(KrakenApi.Method.OPEN_ORDERS, parameters);
-            return objectMapper.readValue(responseString, new TypeReference<>() {
-            });
-        } catch (final IOException | InvalidKeyException | NoSuchAlgorithmException exception) {
-            throw new RuntimeException(exception);
-        }
+        return queryPrivate(KrakenApi.Method.OPEN_ORDERS, createOpenOrdersParameters(includeTrades),
+                OPEN_ORDERS_RESPONSE_TYPE);
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<KrakenResponseDto<KrakenOpenOrderResultDto>> openOrdersAsync(final boolean includeTrades) {
+        return queryPrivateAsync(KrakenApi.Method.OPEN_ORDERS, createOpenOrdersParameters(includeTrades),
+                OPEN_ORDERS_RESPONSE_TYPE);
     }
 
     @Nonnull
     @Override
     public KrakenResponseDto<KrakenClosedOrderResultDto> closedOrders(final boolean includeTrades,
                                                                       @Nonnull final Long fromInEpochSeconds) {
-        final var parameters = Collections.unmodifiableMap(Map.of(
-                "trades", String.valueOf(includeTrades),
-                "start", String.valueOf(fromInEpochSeconds)));
+        final var firstPage = queryPrivate(KrakenApi.Method.CLOSED_ORDERS,
+                createClosedOrdersParameters(includeTrades, fromInEpochSeconds, 0), CLOSED_ORDERS_RESPONSE_TYPE);
         try {
-            final var responseString = krakenApi.queryPrivate(KrakenApi.Method.CLOSED_ORDERS, parameters);
-            return objectMapper.readValue(responseString, new TypeReference<>() {
-            });
-        } catch (final IOException | InvalidKeyException | NoSuchAlgorithmException exception) {
-            throw new RuntimeException(exception);
+            return retrieveRemainingClosedOrderPages(includeTrades, fromInEpochSeconds, firstPage).join();
+        } catch (final CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw exception;
         }
     }
 
+    @Nonnull
+    @Override
+    public CompletableFuture<KrakenResponseDto<KrakenClosedOrderResultDto>> closedOrdersAsync(final boolean includeTrades,
+                                                                                             @Nonnull final Long fromInEpochSeconds) {
+        return closedOrderPageAsync(includeTrades, fromInEpochSeconds, 0)
+                .thenCompose(firstPage -> retrieveRemainingClosedOrderPages(includeTrades, fromInEpochSeconds,
+                        firstPage));
+    }
+
+    @Nonnull
+    @Override
+    public Iterator<Map.Entry<String, KrakenClosedOrderDto>> closedOrdersIterator(final boolean includeTrades,
+                                                                                  @Nonnull final Long fromInEpochSeconds) {
+        return new KrakenPageIterator<>(
+                offset -> closedOrderPageAsync(includeTrades, fromInEpochSeconds, offset)
+                        .thenApply(KrakenPrivateApiConnectorImpl::toPage),
+                rateLimitGovernor::getAvailableApiBudget,
+                maxClosedOrderPagesInFlight);
+    }
+
     @Nonnull
     @Override
     public KrakenResponseDto<Map<String, BigDecimal>> balance() {
-        try {
-            final var responseString = krakenApi.queryPrivate(KrakenApi.Method.BALANCE);
-            return objectMapper.readValue(responseString, new TypeReference<>() {
-            });
-        } catch (final IOException | InvalidKeyException | NoSuchAlgorithmException exception) {
-            throw new RuntimeException(exception);
-        }
+        return queryPrivate(KrakenApi.Method.BALANCE, Collections.emptyMap(), BALANCE_RESPONSE_TYPE);
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<KrakenResponseDto<Map<String, BigDecimal>>> balanceAsync() {
+        return queryPrivateAsync(KrakenApi.Method.BALANCE, Collections.emptyMap(), BALANCE_RESPONSE_TYPE);
     }
 
     @Nonnull
@@ -99,8 +184,152 @@ public class KrakenPrivateApiConnectorImpl implements KrakenPrivateApiConnector
                                                                @Nonnull final BigDecimal volumeInQuoteCurrency,
                                                                @Nonnull final ImmutableList<String> orderFlags,
                                                                final long orderExpirationInSecondsFromNow) {
-        final var parameters = Collections.unmodifiableMap(Map.of(
-                "pair", krakenMarketName,
+        final var parameters = createAddOrderParameters(krakenMarketName, krakenOrderType, krakenPriceOrderType,
+                price, volumeInQuoteCurrency, orderFlags, orderExpirationInSecondsFromNow);
+        return queryPrivate(KrakenApi.Method.ADD_ORDER, parameters, ADD_ORDER_RESPONSE_TYPE);
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<KrakenResponseDto<KrakenAddOrderResultDto>> addOrderAsync(@Nonnull final String krakenMarketName,
+                                                                                      @Nonnull final String krakenOrderType,
+                                                                                      @Nonnull final String krakenPriceOrderType,
+                                                                                      @Nonnull final BigDecimal price,
+                                                                                      @Nonnull final BigDecimal volumeInQuoteCurrency,
+                                                                                      @Nonnull final ImmutableList<String> orderFlags,
+                                                                                      final long orderExpirationInSecondsFromNow) {
+        final var parameters = createAddOrderParameters(krakenMarketName, krakenOrderType, krakenPriceOrderType,
+                price, volumeInQuoteCurrency, orderFlags, orderExpirationInSecondsFromNow);
+        return queryPrivateAsync(KrakenApi.Method.ADD_ORDER, parameters, ADD_ORDER_RESPONSE_TYPE);
+    }
+
+    @Nonnull
+    private <T> KrakenResponseDto<T> queryPrivate(@Nonnull final KrakenApi.Method method,
+                                                  @Nonnull final Map<String, String> parameters,
+                                                  @Nonnull final TypeReference<KrakenResponseDto<T>> responseType) {
+        try {
+            rateLimitGovernor.acquire(method, parameters.get(PAIR));
+            final var responseStream = krakenApi.queryPrivateAsStream(method, parameters);
+            return readResponse(method, parameters.get(PAIR), responseStream, responseType);
+        } catch (final IOException | InvalidKeyException | NoSuchAlgorithmException exception) {
+            throw new RuntimeException(exception);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(exception);
+        }
+    }
+
+    @Nonnull
+    private <T> CompletableFuture<KrakenResponseDto<T>> queryPrivateAsync(@Nonnull final KrakenApi.Method method,
+                                                                          @Nonnull final Map<String, String> parameters,
+                                                                          @Nonnull final TypeReference<KrakenResponseDto<T>> responseType) {
+        return rateLimitGovernor.acquireAsync(method, parameters.get(PAIR))
+                .thenCompose(permitted -> krakenApi.queryPrivateAsStreamAsync(method, parameters))
+                .thenApplyAsync(responseStream -> readResponse(method, parameters.get(PAIR), responseStream,
+                        responseType),
+                        responseReadingExecutor);
+    }
+
+    @Nonnull
+    private CompletableFuture<KrakenResponseDto<KrakenClosedOrderResultDto>> closedOrderPageAsync(final boolean includeTrades,
+                                                                                                 @Nonnull final Long fromInEpochSeconds,
+                                                                                                 final int offset) {
+        return queryPrivateAsync(KrakenApi.Method.CLOSED_ORDERS,
+                createClosedOrdersParameters(includeTrades, fromInEpochSeconds, offset), CLOSED_ORDERS_RESPONSE_TYPE);
+    }
+
+    /**
+     * Retrieves the pages after the given first page one after another, so that the nonces of their requests arrive
+     * in the order they were generated, and merges them in their order. Errors of all pages are merged too.
+     */
+    @Nonnull
+    private CompletableFuture<KrakenResponseDto<KrakenClosedOrderResultDto>> retrieveRemainingClosedOrderPages(
+            final boolean includeTrades,
+            @Nonnull final Long fromInEpochSeconds,
+            @Nonnull final KrakenResponseDto<KrakenClosedOrderResultDto> firstPage) {
+        final var firstResult = firstPage.getResult();
+        if ((firstPage.getError() != null && !firstPage.getError().isEmpty()) || firstResult == null
+                || firstResult.getClosed() == null || firstResult.getClosed().isEmpty()
+                || firstResult.getCount() == null || firstResult.getCount() <= firstResult.getClosed().size()) {
+            return CompletableFuture.completedFuture(firstPage);
+        }
+
+        final var pageSize = firstResult.getClosed().size();
+        final var closed = new LinkedHashMap<>(firstResult.getClosed());
+        final var errors = new ArrayList<String>();
+        var remainingPages = CompletableFuture.<Void>completedFuture(null);
+        for (long offset = pageSize; offset < firstResult.getCount(); offset += pageSize) {
+            final var pageOffset = Math.toIntExact(offset);
+            remainingPages = remainingPages
+                    .thenCompose(previousMerged -> closedOrderPageAsync(includeTrades, fromInEpochSeconds, pageOffset))
+                    .thenAccept(response -> {
+                        if (response.getError() != null) {
+                            errors.addAll(response.getError());
+                        }
+                        if (response.getResult() != null && response.getResult().getClosed() != null) {
+                            // A page can repeat orders of the previous page if orders were closed in the meantime.
+                            response.getResult().getClosed().forEach(closed::putIfAbsent);
+                        }
+                    });
+        }
+        return remainingPages
+                .thenApply(allMerged -> {
+                    final var result = new KrakenClosedOrderResultDto();
+                    result.setClosed(closed);
+                    result.setCount(firstResult.getCount());
+                    final var merged = new KrakenResponseDto<KrakenClosedOrderResultDto>();
+                    merged.setError(errors);
+                    merged.setResult(result);
+                    return merged;
+                });
+    }
+
+    @Nonnull
+    private static KrakenPageIterator.Page<Map.Entry<String, KrakenClosedOrderDto>> toPage(
+            @Nonnull final KrakenResponseDto<KrakenClosedOrderResultDto> response) {
+        if (response.getError() != null && !response.getError().isEmpty()) {
+            throw new IllegalStateException(response.getError().toString());
+        }
+        final var result = response.getResult();
+        if (result == null || result.getClosed() == null || result.getCount() == null) {
+            return new KrakenPageIterator.Page<>(ImmutableList.of(), 0);
+        }
+        return new KrakenPageIterator.Page<>(ImmutableList.copyOf(result.getClosed().entrySet()),
+                result.getCount());
+    }
+
+    @Nonnull
+    private static Map<String, String> createOpenOrdersParameters(final boolean includeTrades) {
+        return Collections.singletonMap(
+                "trades", String.valueOf(includeTrades));
+    }
+
+    /**
+     * @param offset index of the first order of the page, omitted if 0
+     */
+    @Nonnull
+    private static Map<String, String> createClosedOrdersParameters(final boolean includeTrades,
+                                                                    @Nonnull final Long fromInEpochSeconds,
+                                                                    final int offset) {
+        final var parameters = new HashMap<String, String>();
+        parameters.put("trades", String.valueOf(includeTrades));
+        parameters.put("start", String.valueOf(fromInEpochSeconds));
+        if (offset > 0) {
+            parameters.put("ofs", String.valueOf(offset));
+        }
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    @Nonnull
+    private static Map<String, String> createAddOrderParameters(@Nonnull final String krakenMarketName,
+                                                                @Nonnull final String krakenOrderType,
+                                                                @Nonnull final String krakenPriceOrderType,
+                                                                @Nonnull final BigDecimal price,
+                                                                @Nonnull final BigDecimal volumeInQuoteCurrency,
+                                                                @Nonnull final ImmutableList<String> orderFlags,
+                                                                final long orderExpirationInSecondsFromNow) {
+        return Collections.unmodifiableMap(Map.of(
+                PAIR, krakenMarketName,
                 "type", krakenOrderType,
                 "ordertype", krakenPriceOrderType,
                 "price", price.toPlainString(),
@@ -108,11 +337,22 @@ public class KrakenPrivateApiConnectorImpl implements KrakenPrivateApiConnector
                 "oflags", String.join(",", orderFlags),
                 "expiretm", "+" + orderExpirationInSecondsFromNow
         ));
-        try {
-            final var responseString = krakenApi.queryPrivate(KrakenApi.Method.ADD_ORDER, parameters);
-            return objectMapper.readValue(responseString, new TypeReference<>() {
-            });
-        } catch (final IOException | InvalidKeyException | NoSuchAlgorithmException exception) {
+    }
+
+    /**
+     * Deserializes the response while it is being received, closes its stream and lets the rate limit governor learn
+     * from it.
+     */
+    @Nonnull
+    private <T> KrakenResponseDto<T> readResponse(@Nonnull final KrakenApi.Method method,
+                                                  @Nullable final String krakenMarketName,
+                                                  @Nonnull final InputStream responseStream,
+                                                  @Nonnull final TypeReference<KrakenResponseDto<T>> responseType) {
+        try (responseStream) {
+            final var response = objectMapper.readValue(responseStream, responseType);
+            rateLimitGovernor.onResponse(method, krakenMarketName, response);
+            return response;
+        } catch (final IOException exception) {
             throw new RuntimeException(exception);
         }
     }
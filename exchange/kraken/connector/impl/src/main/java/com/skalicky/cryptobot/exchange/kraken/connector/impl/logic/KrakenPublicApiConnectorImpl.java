@@ -21,39 +21,208 @@ package com.skalicky.cryptobot.exchange.kraken.connector.impl.logic;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenDepthDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenOhlcDto;
 import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenResponseDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenTradesDto;
 import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenPublicApiConnector;
 import edu.self.kraken.api.KrakenApi;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class KrakenPublicApiConnectorImpl implements KrakenPublicApiConnector {
+    @Nonnull
+    private static final TypeReference<KrakenResponseDto<Map<String, Map<String, Object>>>> TICKER_RESPONSE_TYPE =
+            new TypeReference<>() {
+            };
+
     @Nonnull
     private final KrakenApi krakenApi;
     @Nonnull
     private final ObjectMapper objectMapper;
+    @Nonnull
+    private final KrakenDepthResponseReader depthResponseReader;
+    @Nonnull
+    private final KrakenOhlcResponseReader ohlcResponseReader;
+    @Nonnull
+    private final KrakenTradesResponseReader tradesResponseReader;
+    @Nonnull
+    private final Executor responseReadingExecutor;
 
     public KrakenPublicApiConnectorImpl(@Nonnull final KrakenApi krakenApi,
                                         @Nonnull final ObjectMapper objectMapper) {
+        this(krakenApi, objectMapper, KrakenResponseReadingThreads.shared());
+    }
+
+    /**
+     * @param responseReadingExecutor reads the responses of asynchronous requests while they arrive, which blocks,
+     *                                hence not on the threads of the HTTP client completing the requests
+     */
+    public KrakenPublicApiConnectorImpl(@Nonnull final KrakenApi krakenApi,
+                                        @Nonnull final ObjectMapper objectMapper,
+                                        @Nonnull final Executor responseReadingExecutor) {
         this.krakenApi = krakenApi;
         this.objectMapper = objectMapper;
+        this.responseReadingExecutor = responseReadingExecutor;
+        this.depthResponseReader = new KrakenDepthResponseReader(objectMapper.getFactory());
+        this.ohlcResponseReader = new KrakenOhlcResponseReader(objectMapper.getFactory());
+        this.tradesResponseReader = new KrakenTradesResponseReader(objectMapper.getFactory());
     }
 
     @Override
     @Nonnull
     public KrakenResponseDto<Map<String, Map<String, Object>>> ticker(@Nonnull final ImmutableList<String> marketNames) {
+        final var parameters = createTickerParameters(marketNames);
+        try {
+            final var responseStream = krakenApi.queryPublicAsStream(KrakenApi.Method.TICKER, parameters);
+            return readResponse(responseStream, TICKER_RESPONSE_TYPE);
+        } catch (final IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<KrakenResponseDto<Map<String, Map<String, Object>>>> tickerAsync(@Nonnull final ImmutableList<String> marketNames) {
+        final var parameters = createTickerParameters(marketNames);
+        return krakenApi.queryPublicAsStreamAsync(KrakenApi.Method.TICKER, parameters)
+                .thenApplyAsync(responseStream -> readResponse(responseStream, TICKER_RESPONSE_TYPE),
+                        responseReadingExecutor);
+    }
+
+    @Override
+    @Nonnull
+    public KrakenResponseDto<KrakenDepthDto> depth(@Nonnull final String marketName,
+                                                   final int count,
+                                                   final int priceScale,
+                                                   final int volumeScale) {
+        final var parameters = createDepthParameters(marketName, count);
+        try {
+            final var responseStream = krakenApi.queryPublicAsStream(KrakenApi.Method.DEPTH, parameters);
+            return depthResponseReader.read(responseStream, count, priceScale, volumeScale);
+        } catch (final IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<KrakenResponseDto<KrakenDepthDto>> depthAsync(@Nonnull final String marketName,
+                                                                           final int count,
+                                                                           final int priceScale,
+                                                                           final int volumeScale) {
+        final var parameters = createDepthParameters(marketName, count);
+        return krakenApi.queryPublicAsStreamAsync(KrakenApi.Method.DEPTH, parameters)
+                .thenApplyAsync(responseStream -> {
+                    try {
+                        return depthResponseReader.read(responseStream, count, priceScale, volumeScale);
+                    } catch (final IOException exception) {
+                        throw new RuntimeException(exception);
+                    }
+                }, responseReadingExecutor);
+    }
+
+    @Override
+    @Nonnull
+    public KrakenResponseDto<KrakenOhlcDto> ohlc(@Nonnull final String marketName,
+                                                 final int intervalInMinutes,
+                                                 @Nullable final Long since,
+                                                 final int priceScale,
+                                                 final int volumeScale) {
+        final var parameters = createOhlcParameters(marketName, intervalInMinutes, since);
+        try {
+            final var responseStream = krakenApi.queryPublicAsStream(KrakenApi.Method.OHLC, parameters);
+            return ohlcResponseReader.read(responseStream, priceScale, volumeScale);
+        } catch (final IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<KrakenResponseDto<KrakenOhlcDto>> ohlcAsync(@Nonnull final String marketName,
+                                                                         final int intervalInMinutes,
+                                                                         @Nullable final Long since,
+                                                                         final int priceScale,
+                                                                         final int volumeScale) {
+        final var parameters = createOhlcParameters(marketName, intervalInMinutes, since);
+        return krakenApi.queryPublicAsStreamAsync(KrakenApi.Method.OHLC, parameters)
+                .thenApplyAsync(responseStream -> {
+                    try {
+                        return ohlcResponseReader.read(responseStream, priceScale, volumeScale);
+                    } catch (final IOException exception) {
+                        throw new RuntimeException(exception);
+                    }
+                }, responseReadingExecutor);
+    }
+
+    @Override
+    @Nonnull
+    public KrakenResponseDto<KrakenTradesDto> trades(@Nonnull final String marketName,
+                                                     @Nullable final String since,
+                                                     final int priceScale,
+                                                     final int volumeScale) {
+        final var parameters = new HashMap<String, String>();
+        parameters.put("pair", marketName);
+        if (since != null) {
+            parameters.put("since", since);
+        }
+        try {
+            final var responseStream = krakenApi.queryPublicAsStream(KrakenApi.Method.TRADES, parameters);
+            return tradesResponseReader.read(responseStream, priceScale, volumeScale);
+        } catch (final IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    @Nonnull
+    private static Map<String, String> createOhlcParameters(@Nonnull final String marketName,
+                                                            final int intervalInMinutes,
+                                                            @Nullable final Long since) {
+        final var parameters = new HashMap<String, String>();
+        parameters.put("pair", marketName);
+        parameters.put("interval", String.valueOf(intervalInMinutes));
+        if (since != null) {
+            parameters.put("since", since.toString());
+        }
+        return parameters;
+    }
+
+    @Nonnull
+    private static Map<String, String> createDepthParameters(@Nonnull final String marketName,
+                                                             final int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Count needs to be positive, but is " + count);
+        }
+
+        return Map.of("pair", marketName, "count", String.valueOf(count));
+    }
+
+    @Nonnull
+    private static Map<String, String> createTickerParameters(@Nonnull final ImmutableList<String> marketNames) {
         if (marketNames.isEmpty()) {
             throw new IllegalArgumentException("Market names are mandatory and at least one name needs to be provided");
         }
 
-        final var parameters = Collections.singletonMap("pair", String.join(",", marketNames));
-        try {
-            final var responseString = krakenApi.queryPublic(KrakenApi.Method.TICKER, parameters);
-            return objectMapper.readValue(responseString, new TypeReference<>() {
-            });
+        return Collections.singletonMap("pair", String.join(",", marketNames));
+    }
+
+    /**
+     * Deserializes the response while it is being received and closes its stream.
+     */
+    @Nonnull
+    private <T> T readResponse(@Nonnull final InputStream responseStream,
+                               @Nonnull final TypeReference<T> responseType) {
+        try (responseStream) {
+            return objectMapper.readValue(responseStream, responseType);
         } catch (final IOException exception) {
             throw new RuntimeException(exception);
         }
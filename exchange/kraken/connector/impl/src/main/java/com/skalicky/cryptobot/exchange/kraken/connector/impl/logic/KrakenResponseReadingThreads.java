@@ -0,0 +1,50 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.logic;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Threads reading the responses of asynchronous requests for connectors which were not given an executor. A response
+ * is read while it arrives, hence a reading thread blocks and must not be a thread of {@link java.net.http.HttpClient}.
+ * Readers are bounded by the requests in flight of the transport, so that the threads are not bounded here.
+ */
+final class KrakenResponseReadingThreads {
+
+    private KrakenResponseReadingThreads() {
+    }
+
+    @Nonnull
+    static Executor shared() {
+        return SharedInstanceHolder.INSTANCE;
+    }
+
+    private static final class SharedInstanceHolder {
+        // Daemon threads so that the process does not wait for idle readers to time out.
+        @Nonnull
+        private static final Executor INSTANCE = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setNameFormat("kraken-response-reading-%d")
+                .setDaemon(true)
+                .build());
+    }
+}
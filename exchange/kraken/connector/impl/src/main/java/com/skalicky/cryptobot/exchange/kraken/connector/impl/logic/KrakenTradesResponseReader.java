@@ -0,0 +1,147 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.logic;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenResponseDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenTradesDto;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads responses of the Trades method token by token into parallel arrays of fixed-point longs, see {@link
+ * KrakenDepthResponseReader}.
+ * <p>
+ * A response looks like {"error":[],"result":{"XXBTZEUR":[["8903.30000","0.01000000",1688671200.1234,"b","l","",
+ * 12345],...],"last":"1688671200123400000"}}, where the elements of a trade are its price, volume, time in epoch
+ * seconds, side of the taker, order type, miscellaneous info and ID.
+ */
+final class KrakenTradesResponseReader {
+
+    /**
+     * Kraken returns at most 1000 trades.
+     */
+    private static final int EXPECTED_COUNT = 1000;
+    private static final int NANOSECOND_DECIMALS = 9;
+
+    @Nonnull
+    private final JsonFactory jsonFactory;
+
+    KrakenTradesResponseReader(@Nonnull final JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Reads the response while it is being received and closes its stream.
+     */
+    @Nonnull
+    KrakenResponseDto<KrakenTradesDto> read(@Nonnull final InputStream responseStream,
+                                            final int priceScale,
+                                            final int volumeScale) throws IOException {
+        KrakenJsonReading.checkScale(priceScale);
+        KrakenJsonReading.checkScale(volumeScale);
+        try (responseStream; final var parser = jsonFactory.createParser(responseStream)) {
+            KrakenJsonReading.expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            final var response = new KrakenResponseDto<KrakenTradesDto>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final var fieldName = parser.getCurrentName();
+                final var valueToken = parser.nextToken();
+                if ("error".equals(fieldName) && valueToken == JsonToken.START_ARRAY) {
+                    response.setError(KrakenJsonReading.readErrors(parser));
+                } else if ("result".equals(fieldName) && valueToken == JsonToken.START_OBJECT) {
+                    response.setResult(readResult(parser, priceScale, volumeScale));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return response;
+        }
+    }
+
+    @Nullable
+    private static KrakenTradesDto readResult(@Nonnull final JsonParser parser,
+                                              final int priceScale,
+                                              final int volumeScale) throws IOException {
+        KrakenTradesDto trades = null;
+        String last = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final var fieldName = parser.getCurrentName();
+            final var valueToken = parser.nextToken();
+            if ("last".equals(fieldName)) {
+                last = parser.getValueAsString();
+            } else {
+                KrakenJsonReading.expect(parser, valueToken, JsonToken.START_ARRAY);
+                if (trades != null) {
+                    throw new JsonParseException(parser, "More than one market in the result");
+                }
+                trades = readTrades(parser, fieldName, priceScale, volumeScale);
+            }
+        }
+        if (trades != null) {
+            trades.setLast(last);
+        }
+        return trades;
+    }
+
+    @Nonnull
+    private static KrakenTradesDto readTrades(@Nonnull final JsonParser parser,
+                                              @Nonnull final String marketName,
+                                              final int priceScale,
+                                              final int volumeScale) throws IOException {
+        var times = new long[EXPECTED_COUNT];
+        var prices = new long[EXPECTED_COUNT];
+        var volumes = new long[EXPECTED_COUNT];
+        var buys = new boolean[EXPECTED_COUNT];
+        var count = 0;
+        while (parser.nextToken() == JsonToken.START_ARRAY) {
+            if (count == times.length) {
+                times = Arrays.copyOf(times, count * 2);
+                prices = Arrays.copyOf(prices, count * 2);
+                volumes = Arrays.copyOf(volumes, count * 2);
+                buys = Arrays.copyOf(buys, count * 2);
+            }
+            prices[count] = KrakenJsonReading.readFixedPoint(parser, parser.nextToken(), priceScale);
+            volumes[count] = KrakenJsonReading.readFixedPoint(parser, parser.nextToken(), volumeScale);
+            times[count] = KrakenJsonReading.readFixedPoint(parser, parser.nextToken(), NANOSECOND_DECIMALS);
+            KrakenJsonReading.expect(parser, parser.nextToken(), JsonToken.VALUE_STRING);
+            buys[count] = "b".equals(parser.getText());
+            // Skips the order type, the miscellaneous info, the ID and any further element.
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                parser.skipChildren();
+            }
+            count++;
+        }
+        KrakenJsonReading.expect(parser, parser.currentToken(), JsonToken.END_ARRAY);
+
+        final var trades = new KrakenTradesDto();
+        trades.setMarketName(marketName);
+        trades.setTimes(Arrays.copyOf(times, count));
+        trades.setPrices(Arrays.copyOf(prices, count));
+        trades.setVolumes(Arrays.copyOf(volumes, count));
+        trades.setBuys(Arrays.copyOf(buys, count));
+        return trades;
+    }
+}
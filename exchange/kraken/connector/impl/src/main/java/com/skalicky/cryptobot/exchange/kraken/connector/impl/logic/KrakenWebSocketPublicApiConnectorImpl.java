@@ -0,0 +1,641 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.logic;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenWebSocketBookDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenWebSocketTickerDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenWebSocketBookListener;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenWebSocketPublicApiConnector;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenWebSocketTickerListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Subscribes to the "ticker" channel of the Kraken WebSocket API v2 with updates on every change of the best bid or
+ * ask, and to the "book" channel.
+ * <p>
+ * The levels of books are read token by token directly into fixed-point numbers, without intermediate objects per
+ * level, as books are updated many times per second.
+ * <p>
+ * A lost connection is re-established after a delay doubling with every failed attempt up to
+ * {@link #MAX_RECONNECT_DELAY}, and all symbols subscribed so far are subscribed again on the new connection.
+ */
+public class KrakenWebSocketPublicApiConnectorImpl implements KrakenWebSocketPublicApiConnector {
+
+    @Nonnull
+    public static final URI DEFAULT_URI = URI.create("wss://ws.kraken.com/v2");
+    @Nonnull
+    private static final Duration INITIAL_RECONNECT_DELAY = Duration.ofSeconds(1);
+    @Nonnull
+    private static final Duration MAX_RECONNECT_DELAY = Duration.ofSeconds(30);
+    @Nonnull
+    private static final String SUBSCRIBE = "subscribe";
+    @Nonnull
+    private static final String UNSUBSCRIBE = "unsubscribe";
+    @Nonnull
+    private static final String TICKER_CHANNEL = "ticker";
+    @Nonnull
+    private static final String BOOK_CHANNEL = "book";
+    @Nonnull
+    private static final Logger logger = LoggerFactory.getLogger(KrakenWebSocketPublicApiConnectorImpl.class);
+
+    @Nonnull
+    private final HttpClient httpClient;
+    @Nonnull
+    private final URI uri;
+    @Nonnull
+    private final ObjectMapper objectMapper;
+    @Nonnull
+    private final JsonFactory jsonFactory;
+    /**
+     * Reads prices of tickers as {@link java.math.BigDecimal} without a detour via double.
+     */
+    @Nonnull
+    private final ObjectReader messageReader;
+    @Nonnull
+    private final Duration initialReconnectDelay;
+    @Nonnull
+    private final ScheduledExecutorService reconnectScheduler;
+    @Nonnull
+    private final CopyOnWriteArrayList<KrakenWebSocketTickerListener> tickerListeners = new CopyOnWriteArrayList<>();
+    @Nonnull
+    private final CopyOnWriteArrayList<KrakenWebSocketBookListener> bookListeners = new CopyOnWriteArrayList<>();
+    /**
+     * Modified with the lock of this held, read without it by the receiving thread.
+     */
+    @Nonnull
+    private final ConcurrentHashMap<String, BookSubscription> bookSubscriptionsBySymbols = new ConcurrentHashMap<>();
+    /**
+     * Buffers for reading the levels of one side of a book, used only by the receiving thread.
+     */
+    @Nonnull
+    private long[] levelPrices = new long[16];
+    @Nonnull
+    private long[] levelQuantities = new long[16];
+
+    // Guarded by this.
+    @Nonnull
+    private final Set<String> tickerSymbols = new LinkedHashSet<>();
+    @Nullable
+    private WebSocket webSocket;
+    private boolean connecting;
+    private boolean closed;
+    @Nonnull
+    private Duration reconnectDelay;
+    /**
+     * WebSocket does not allow to send a message before the previous one has been sent.
+     */
+    @Nonnull
+    private CompletableFuture<?> lastSend = CompletableFuture.completedFuture(null);
+
+    public KrakenWebSocketPublicApiConnectorImpl(@Nonnull final HttpClient httpClient,
+                                                 @Nonnull final URI uri,
+                                                 @Nonnull final ObjectMapper objectMapper) {
+        this(httpClient, uri, objectMapper, INITIAL_RECONNECT_DELAY);
+    }
+
+    KrakenWebSocketPublicApiConnectorImpl(@Nonnull final HttpClient httpClient,
+                                          @Nonnull final URI uri,
+                                          @Nonnull final ObjectMapper objectMapper,
+                                          @Nonnull final Duration initialReconnectDelay) {
+        this.httpClient = httpClient;
+        this.uri = uri;
+        this.objectMapper = objectMapper;
+        this.jsonFactory = objectMapper.getFactory();
+        this.messageReader = objectMapper.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        this.initialReconnectDelay = initialReconnectDelay;
+        this.reconnectDelay = initialReconnectDelay;
+        this.reconnectScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final var thread = new Thread(runnable, "kraken-websocket-reconnect");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void subscribeTickers(@Nonnull final ImmutableList<String> symbols,
+                                 @Nonnull final KrakenWebSocketTickerListener listener) {
+        if (symbols.isEmpty()) {
+            throw new IllegalArgumentException("Symbols are mandatory and at least one symbol needs to be provided");
+        }
+        tickerListeners.addIfAbsent(listener);
+        synchronized (this) {
+            checkNotClosed();
+            tickerSymbols.addAll(symbols);
+            if (webSocket != null) {
+                sendTickerSubscription(webSocket, symbols);
+            } else {
+                connectIfNotConnecting();
+            }
+        }
+    }
+
+    @Override
+    public void subscribeBooks(@Nonnull final ImmutableList<String> symbols,
+                               final int depth,
+                               final int priceScale,
+                               final int quantityScale,
+                               @Nonnull final KrakenWebSocketBookListener listener) {
+        if (symbols.isEmpty()) {
+            throw new IllegalArgumentException("Symbols are mandatory and at least one symbol needs to be provided");
+        }
+        KrakenJsonReading.checkScale(priceScale);
+        KrakenJsonReading.checkScale(quantityScale);
+        bookListeners.addIfAbsent(listener);
+        synchronized (this) {
+            checkNotClosed();
+            final var subscription = new BookSubscription(depth, priceScale, quantityScale);
+            symbols.forEach(symbol -> bookSubscriptionsBySymbols.put(symbol, subscription));
+            if (webSocket != null) {
+                sendBookSubscription(webSocket, SUBSCRIBE, symbols, depth);
+            } else {
+                connectIfNotConnecting();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void resubscribeBook(@Nonnull final String symbol) {
+        final var subscription = bookSubscriptionsBySymbols.get(symbol);
+        if (subscription == null) {
+            throw new IllegalArgumentException("Book of " + symbol + " is not subscribed");
+        }
+        if (webSocket != null) {
+            // If not connected, the book is subscribed once reconnected anyway.
+            sendBookSubscription(webSocket, UNSUBSCRIBE, ImmutableList.of(symbol), subscription.depth);
+            sendBookSubscription(webSocket, SUBSCRIBE, ImmutableList.of(symbol), subscription.depth);
+        }
+    }
+
+    @Override
+    public synchronized boolean isConnected() {
+        return webSocket != null;
+    }
+
+    @Override
+    public void close() {
+        final WebSocket webSocketToClose;
+        synchronized (this) {
+            closed = true;
+            webSocketToClose = webSocket;
+            webSocket = null;
+        }
+        reconnectScheduler.shutdownNow();
+        if (webSocketToClose != null) {
+            webSocketToClose.sendClose(WebSocket.NORMAL_CLOSURE, "");
+        }
+    }
+
+    /**
+     * Called with the lock of this held.
+     */
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("Connector has been closed");
+        }
+    }
+
+    /**
+     * Called with the lock of this held. All subscriptions are sent once connected.
+     */
+    private void connectIfNotConnecting() {
+        if (!connecting) {
+            connect();
+        }
+    }
+
+    private synchronized void connect() {
+        if (closed) {
+            return;
+        }
+        connecting = true;
+        httpClient.newWebSocketBuilder()
+                .buildAsync(uri, new MessageListener())
+                .whenComplete((connectedWebSocket, throwable) -> {
+                    if (throwable != null) {
+                        logger.warn("Connecting to {} failed", uri, throwable);
+                        synchronized (this) {
+                            connecting = false;
+                            scheduleReconnect();
+                        }
+                    } else {
+                        onConnected(connectedWebSocket);
+                    }
+                });
+    }
+
+    private synchronized void onConnected(@Nonnull final WebSocket connectedWebSocket) {
+        connecting = false;
+        if (closed) {
+            connectedWebSocket.sendClose(WebSocket.NORMAL_CLOSURE, "");
+            return;
+        }
+        if (connectedWebSocket.isInputClosed()) {
+            // Closed by the server before the connection has been handed over.
+            scheduleReconnect();
+            return;
+        }
+        logger.info("Connected to {}", uri);
+        webSocket = connectedWebSocket;
+        reconnectDelay = initialReconnectDelay;
+        lastSend = CompletableFuture.completedFuture(null);
+        if (!tickerSymbols.isEmpty()) {
+            sendTickerSubscription(connectedWebSocket, tickerSymbols);
+        }
+        bookSubscriptionsBySymbols.entrySet().stream()
+                .collect(Collectors.groupingBy(entry -> entry.getValue().depth, LinkedHashMap::new,
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toList())))
+                .forEach((depth, symbols) -> sendBookSubscription(connectedWebSocket, SUBSCRIBE, symbols, depth));
+    }
+
+    private synchronized void onDisconnected(@Nonnull final WebSocket disconnectedWebSocket) {
+        if (webSocket != disconnectedWebSocket) {
+            // Already handled, e.g. onError after onClose, or closed on purpose.
+            return;
+        }
+        webSocket = null;
+        tickerListeners.forEach(KrakenWebSocketTickerListener::onDisconnected);
+        bookListeners.forEach(KrakenWebSocketBookListener::onDisconnected);
+        scheduleReconnect();
+    }
+
+    /**
+     * Called with the lock of this held.
+     */
+    private void scheduleReconnect() {
+        if (closed) {
+            return;
+        }
+        logger.info("Reconnecting to {} in {} ms", uri, reconnectDelay.toMillis());
+        connecting = true;
+        reconnectScheduler.schedule(this::connect, reconnectDelay.toMillis(), TimeUnit.MILLISECONDS);
+        final var doubledDelay = reconnectDelay.multipliedBy(2);
+        reconnectDelay = doubledDelay.compareTo(MAX_RECONNECT_DELAY) > 0 ? MAX_RECONNECT_DELAY : doubledDelay;
+    }
+
+    /**
+     * Called with the lock of this held.
+     */
+    private void sendTickerSubscription(@Nonnull final WebSocket target,
+                                        @Nonnull final Collection<String> symbols) {
+        final var message = createMessage(SUBSCRIBE, TICKER_CHANNEL, symbols);
+        ((ObjectNode) message.get("params")).put("event_trigger", "bbo");
+        send(target, message);
+    }
+
+    /**
+     * Called with the lock of this held.
+     */
+    private void sendBookSubscription(@Nonnull final WebSocket target,
+                                      @Nonnull final String method,
+                                      @Nonnull final Collection<String> symbols,
+                                      final int depth) {
+        final var message = createMessage(method, BOOK_CHANNEL, symbols);
+        ((ObjectNode) message.get("params")).put("depth", depth);
+        send(target, message);
+    }
+
+    @Nonnull
+    private ObjectNode createMessage(@Nonnull final String method,
+                                     @Nonnull final String channel,
+                                     @Nonnull final Collection<String> symbols) {
+        final var message = objectMapper.createObjectNode();
+        message.put("method", method);
+        final var params = message.putObject("params");
+        params.put("channel", channel);
+        final var symbolArray = params.putArray("symbol");
+        symbols.forEach(symbolArray::add);
+        return message;
+    }
+
+    /**
+     * Called with the lock of this held.
+     */
+    private void send(@Nonnull final WebSocket target,
+                      @Nonnull final ObjectNode message) {
+        final var text = message.toString();
+        lastSend = lastSend.handle((ignoredResult, ignoredThrowable) -> null)
+                .thenCompose(ignored -> target.sendText(text, true));
+    }
+
+    private void onMessage(@Nonnull final String text) {
+        String method = null;
+        var success = false;
+        String error = null;
+        String channel = null;
+        String type = null;
+        JsonNode data = null;
+        List<KrakenWebSocketBookDto> books = null;
+        final var unreadableBookSymbols = new ArrayList<String>();
+        try (final var parser = jsonFactory.createParser(text)) {
+            KrakenJsonReading.expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final var fieldName = parser.getCurrentName();
+                final var token = parser.nextToken();
+                switch (fieldName) {
+                    case "method":
+                        method = parser.getValueAsString();
+                        break;
+                    case "success":
+                        success = token == JsonToken.VALUE_TRUE;
+                        break;
+                    case "error":
+                        error = parser.getValueAsString();
+                        break;
+                    case "channel":
+                        channel = parser.getValueAsString();
+                        break;
+                    case "type":
+                        type = parser.getValueAsString();
+                        break;
+                    case "data":
+                        if (BOOK_CHANNEL.equals(channel)) {
+                            books = readBooks(parser, unreadableBookSymbols);
+                        } else {
+                            data = messageReader.readTree(parser);
+                        }
+                        break;
+                    default:
+                        // Timestamps, results of requests, etc.
+                }
+                parser.skipChildren();
+            }
+            if (BOOK_CHANNEL.equals(channel) && books == null && data != null) {
+                // The channel came after the data.
+                books = readBooks(text, unreadableBookSymbols);
+            }
+        } catch (final IOException exception) {
+            logger.warn("Ignoring malformed message {}", text, exception);
+            return;
+        }
+        if (method != null) {
+            if (!success) {
+                logger.error("Request {} failed: {}", method, error);
+            }
+            return;
+        }
+        if (TICKER_CHANNEL.equals(channel) && data != null) {
+            onTickerData(data);
+        } else if (BOOK_CHANNEL.equals(channel) && books != null) {
+            final var snapshot = "snapshot".equals(type);
+            for (final var book : books) {
+                book.setSnapshot(snapshot);
+                bookListeners.forEach(listener -> listener.onBook(book));
+            }
+            for (final var symbol : unreadableBookSymbols) {
+                logger.warn("Ignoring unreadable message of the book of {}: {}", symbol, text);
+                bookListeners.forEach(listener -> listener.onUnreadableBook(symbol));
+            }
+        }
+        // Else heartbeats, status messages, etc.
+    }
+
+    private void onTickerData(@Nonnull final JsonNode data) {
+        for (final var tickerData : data) {
+            if (!tickerData.hasNonNull("ask") || !tickerData.hasNonNull("bid")) {
+                continue;
+            }
+            final var ticker = new KrakenWebSocketTickerDto();
+            ticker.setSymbol(tickerData.path("symbol").asText());
+            ticker.setAsk(tickerData.path("ask").decimalValue());
+            ticker.setBid(tickerData.path("bid").decimalValue());
+            tickerListeners.forEach(listener -> listener.onTicker(ticker));
+        }
+    }
+
+    /**
+     * Reads the data of the given message once more, now that it is known to be of the book channel.
+     */
+    @Nonnull
+    private List<KrakenWebSocketBookDto> readBooks(@Nonnull final String text,
+                                                   @Nonnull final List<String> unreadableSymbols) throws IOException {
+        try (final var parser = jsonFactory.createParser(text)) {
+            KrakenJsonReading.expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final var fieldName = parser.getCurrentName();
+                parser.nextToken();
+                if ("data".equals(fieldName)) {
+                    return readBooks(parser, unreadableSymbols);
+                }
+                parser.skipChildren();
+            }
+            throw new JsonParseException(parser, "Book message without data");
+        }
+    }
+
+    /**
+     * @param parser            positioned at the start of the data array
+     * @param unreadableSymbols collects the symbols of subscribed books with levels which could not be read
+     * @return the books of the subscribed symbols which could be read
+     */
+    @Nonnull
+    private List<KrakenWebSocketBookDto> readBooks(@Nonnull final JsonParser parser,
+                                                   @Nonnull final List<String> unreadableSymbols) throws IOException {
+        KrakenJsonReading.expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+        final var books = new ArrayList<KrakenWebSocketBookDto>(1);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            final var book = new KrakenWebSocketBookDto();
+            BookSubscription subscription = null;
+            var readable = true;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final var fieldName = parser.getCurrentName();
+                parser.nextToken();
+                switch (fieldName) {
+                    case "symbol":
+                        book.setSymbol(parser.getValueAsString());
+                        subscription = bookSubscriptionsBySymbols.get(book.getSymbol());
+                        break;
+                    case "bids":
+                    case "asks":
+                        if (book.getSymbol() == null) {
+                            // Scales are known only per symbol. Kraken sends the symbol first.
+                            throw new JsonParseException(parser, "Expected the symbol before the levels");
+                        }
+                        if (subscription == null) {
+                            break;
+                        }
+                        final var bids = "bids".equals(fieldName);
+                        final var levelCount = readLevels(parser, subscription);
+                        if (levelCount < 0) {
+                            readable = false;
+                        } else if (bids) {
+                            book.setBidPrices(Arrays.copyOf(levelPrices, levelCount));
+                            book.setBidQuantities(Arrays.copyOf(levelQuantities, levelCount));
+                        } else {
+                            book.setAskPrices(Arrays.copyOf(levelPrices, levelCount));
+                            book.setAskQuantities(Arrays.copyOf(levelQuantities, levelCount));
+                        }
+                        break;
+                    case "checksum":
+                        book.setChecksum(parser.getValueAsLong());
+                        break;
+                    default:
+                        // Timestamp
+                }
+                parser.skipChildren();
+            }
+            if (subscription == null) {
+                // Not subscribed (any more).
+                continue;
+            }
+            if (readable) {
+                books.add(book);
+            } else {
+                unreadableSymbols.add(book.getSymbol());
+            }
+        }
+        KrakenJsonReading.expect(parser, parser.currentToken(), JsonToken.END_ARRAY);
+        return books;
+    }
+
+    /**
+     * Reads the levels of one side of a book into {@link #levelPrices} and {@link #levelQuantities}.
+     *
+     * @param parser positioned at the start of the array of the levels
+     * @return number of levels read, -1 if a price or a quantity does not fit the scales of the subscription
+     */
+    private int readLevels(@Nonnull final JsonParser parser,
+                           @Nonnull final BookSubscription subscription) throws IOException {
+        KrakenJsonReading.expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+        var levelCount = 0;
+        var readable = true;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            if (levelCount == levelPrices.length) {
+                levelPrices = Arrays.copyOf(levelPrices, levelCount * 2);
+                levelQuantities = Arrays.copyOf(levelQuantities, levelCount * 2);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final var fieldName = parser.getCurrentName();
+                final var token = parser.nextToken();
+                try {
+                    if ("price".equals(fieldName)) {
+                        levelPrices[levelCount] = KrakenJsonReading.readFixedPoint(parser, token,
+                                subscription.priceScale);
+                    } else if ("qty".equals(fieldName)) {
+                        levelQuantities[levelCount] = KrakenJsonReading.readFixedPoint(parser, token,
+                                subscription.quantityScale);
+                    } else {
+                        parser.skipChildren();
+                    }
+                } catch (final JsonParseException exception) {
+                    // E.g. more decimal places than subscribed. The rest is read to keep the parser in the message.
+                    logger.debug("Unreadable level", exception);
+                    readable = false;
+                    parser.skipChildren();
+                }
+            }
+            levelCount++;
+        }
+        KrakenJsonReading.expect(parser, parser.currentToken(), JsonToken.END_ARRAY);
+        return readable ? levelCount : -1;
+    }
+
+    private static final class BookSubscription {
+        private final int depth;
+        private final int priceScale;
+        private final int quantityScale;
+
+        private BookSubscription(final int depth,
+                                 final int priceScale,
+                                 final int quantityScale) {
+            this.depth = depth;
+            this.priceScale = priceScale;
+            this.quantityScale = quantityScale;
+        }
+    }
+
+    private final class MessageListener implements WebSocket.Listener {
+        /**
+         * Collects the parts of a message received in several frames.
+         */
+        @Nonnull
+        private final StringBuilder messageBuilder = new StringBuilder();
+
+        @Override
+        @Nullable
+        public CompletionStage<?> onText(@Nonnull final WebSocket source,
+                                         @Nonnull final CharSequence data,
+                                         final boolean last) {
+            messageBuilder.append(data);
+            if (last) {
+                final var text = messageBuilder.toString();
+                messageBuilder.setLength(0);
+                try {
+                    onMessage(text);
+                } catch (final RuntimeException exception) {
+                    // A failing listener must not stop the reception of further messages.
+                    logger.error("Processing of message {} failed", text, exception);
+                }
+            }
+            source.request(1);
+            return null;
+        }
+
+        @Override
+        @Nullable
+        public CompletionStage<?> onClose(@Nonnull final WebSocket source,
+                                          final int statusCode,
+                                          @Nonnull final String reason) {
+            logger.warn("Connection closed by {} with status {} and reason \"{}\"", uri, statusCode, reason);
+            onDisconnected(source);
+            return null;
+        }
+
+        @Override
+        public void onError(@Nonnull final WebSocket source,
+                            @Nonnull final Throwable error) {
+            logger.warn("Connection to {} failed", uri, error);
+            onDisconnected(source);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.nonce;
+
+import javax.annotation.Nonnull;
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free {@link KrakenNonceGenerator} for requests sent from one process. Nonces follow the clock in microseconds
+ * since the epoch, requests within the same microsecond get the following values.
+ */
+public class AtomicKrakenNonceGenerator implements KrakenNonceGenerator {
+
+    @Nonnull
+    private final Clock clock;
+    @Nonnull
+    private final AtomicLong lastNonce = new AtomicLong();
+
+    public AtomicKrakenNonceGenerator() {
+        this(Clock.systemUTC());
+    }
+
+    public AtomicKrakenNonceGenerator(@Nonnull final Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public long nextNonce() {
+        final var nonceFromClock = NonceUtil.nonceFromClock(clock);
+        return lastNonce.accumulateAndGet(nonceFromClock, NonceUtil::nextNonce);
+    }
+}
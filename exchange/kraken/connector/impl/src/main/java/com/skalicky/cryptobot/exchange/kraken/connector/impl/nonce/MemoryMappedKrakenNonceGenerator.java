@@ -0,0 +1,74 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.nonce;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+
+/**
+ * {@link KrakenNonceGenerator} shared by all processes on one machine which use the same file, e.g. several bots
+ * trading with the same API key. The last nonce is kept in the memory mapped file and advanced by compare-and-set,
+ * hence without any lock even across processes.
+ */
+public class MemoryMappedKrakenNonceGenerator implements KrakenNonceGenerator {
+
+    @Nonnull
+    private static final VarHandle LONG_VIEW = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.nativeOrder());
+    private static final int LAST_NONCE_INDEX = 0;
+
+    @Nonnull
+    private final Clock clock;
+    @Nonnull
+    private final MappedByteBuffer lastNonceBuffer;
+
+    public MemoryMappedKrakenNonceGenerator(@Nonnull final Path file) throws IOException {
+        this(file, Clock.systemUTC());
+    }
+
+    public MemoryMappedKrakenNonceGenerator(@Nonnull final Path file,
+                                            @Nonnull final Clock clock) throws IOException {
+        this.clock = clock;
+        // The mapping stays valid after the channel is closed.
+        try (final var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            this.lastNonceBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+        }
+    }
+
+    @Override
+    public long nextNonce() {
+        final var nonceFromClock = NonceUtil.nonceFromClock(clock);
+        long lastNonce;
+        long nextNonce;
+        do {
+            lastNonce = (long) LONG_VIEW.getVolatile(lastNonceBuffer, LAST_NONCE_INDEX);
+            nextNonce = NonceUtil.nextNonce(lastNonce, nonceFromClock);
+        } while (!LONG_VIEW.compareAndSet(lastNonceBuffer, LAST_NONCE_INDEX, lastNonce, nextNonce));
+        return nextNonce;
+    }
+}
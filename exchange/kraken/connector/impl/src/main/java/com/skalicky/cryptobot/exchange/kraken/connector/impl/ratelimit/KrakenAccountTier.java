@@ -0,0 +1,61 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.ratelimit;
+
+/**
+ * Verification tiers of Kraken accounts with their API rate limits. Every private call increases the API counter of
+ * the key, orders are counted by a separate counter of the trading engine. Both counters decrease continuously.
+ */
+public enum KrakenAccountTier {
+
+    STARTER(15, 0.33, 60, 1),
+    INTERMEDIATE(20, 0.5, 125, 2.34),
+    PRO(20, 1, 180, 3.75);
+
+    private final int maxApiCounter;
+    private final double apiCounterDecayPerSecond;
+    private final int maxOrderCounter;
+    private final double orderCounterDecayPerSecond;
+
+    KrakenAccountTier(final int maxApiCounter,
+                      final double apiCounterDecayPerSecond,
+                      final int maxOrderCounter,
+                      final double orderCounterDecayPerSecond) {
+        this.maxApiCounter = maxApiCounter;
+        this.apiCounterDecayPerSecond = apiCounterDecayPerSecond;
+        this.maxOrderCounter = maxOrderCounter;
+        this.orderCounterDecayPerSecond = orderCounterDecayPerSecond;
+    }
+
+    public int getMaxApiCounter() {
+        return maxApiCounter;
+    }
+
+    public double getApiCounterDecayPerSecond() {
+        return apiCounterDecayPerSecond;
+    }
+
+    public int getMaxOrderCounter() {
+        return maxOrderCounter;
+    }
+
+    public double getOrderCounterDecayPerSecond() {
+        return orderCounterDecayPerSecond;
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.ratelimit;
+
+import com.google.common.collect.ImmutableMap;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenResponseDto;
+import edu.self.kraken.api.KrakenApi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps private calls of one API key within the rate limits of Kraken by modelling its decaying call counters.
+ * <p>
+ * Every call reserves its cost on the counter of its method when acquired. A call which would push the counter over
+ * its maximum is delayed until the counter has decreased enough, hence waiting calls are let through in the order in
+ * which they were acquired and at the maximum sustainable rate. If Kraken reports an exceeded rate limit anyway, e.g.
+ * because the key is used by another process too, the counter is considered full.
+ * <p>
+ * Kraken keeps one counter for the other private calls and one counter of order placements and cancellations per
+ * currency pair. The budget left on each counter can be queried, e.g. by a metrics hook, and is logged on every
+ * acquisition if the debug log is enabled.
+ * <p>
+ * Public calls are limited per IP address instead of per key and are not governed.
+ */
+public class KrakenRateLimitGovernor {
+
+    @Nonnull
+    private static final Logger logger = LoggerFactory.getLogger(KrakenRateLimitGovernor.class);
+    /**
+     * Contained in "EAPI:Rate limit exceeded" as well as in "EOrder:Rate limit exceeded".
+     */
+    @Nonnull
+    private static final String RATE_LIMIT_EXCEEDED = "Rate limit exceeded";
+
+    @Nonnull
+    private final DecayingCounter apiCounter;
+    /**
+     * Created with the first order of a pair, as a new counter is empty.
+     */
+    @Nonnull
+    private final ConcurrentMap<String, DecayingCounter> orderCountersByMarketNames = new ConcurrentHashMap<>();
+    @Nonnull
+    private final KrakenAccountTier accountTier;
+    @Nonnull
+    private final LongSupplier nanoTime;
+
+    public KrakenRateLimitGovernor(@Nonnull final KrakenAccountTier accountTier) {
+        this(accountTier, System::nanoTime);
+    }
+
+    KrakenRateLimitGovernor(@Nonnull final KrakenAccountTier accountTier,
+                            @Nonnull final LongSupplier nanoTime) {
+        this.accountTier = accountTier;
+        this.nanoTime = nanoTime;
+        this.apiCounter = new DecayingCounter(accountTier.getMaxApiCounter(),
+                accountTier.getApiCounterDecayPerSecond(), nanoTime.getAsLong());
+    }
+
+    /**
+     * Blocks until the given method can be called without exceeding the rate limit.
+     *
+     * @param krakenMarketName pair of the order of the given method, mandatory for orders only
+     */
+    public void acquire(@Nonnull final KrakenApi.Method method,
+                        @Nullable final String krakenMarketName) throws InterruptedException {
+        final var waitInNanos = reserve(method, krakenMarketName);
+        if (waitInNanos > 0) {
+            logger.debug("Delaying {} by {} ms due to the rate limit", method, TimeUnit.NANOSECONDS.toMillis(waitInNanos));
+            TimeUnit.NANOSECONDS.sleep(waitInNanos);
+        }
+    }
+
+    /**
+     * @param krakenMarketName pair of the order of the given method, mandatory for orders only
+     * @return a future completed once the given method can be called without exceeding the rate limit
+     */
+    @Nonnull
+    public CompletableFuture<Void> acquireAsync(@Nonnull final KrakenApi.Method method,
+                                                @Nullable final String krakenMarketName) {
+        final var waitInNanos = reserve(method, krakenMarketName);
+        if (waitInNanos == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        logger.debug("Delaying {} by {} ms due to the rate limit", method, TimeUnit.NANOSECONDS.toMillis(waitInNanos));
+        return CompletableFuture.runAsync(() -> {
+        }, CompletableFuture.delayedExecutor(waitInNanos, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Learns from the errors of the given response of the given method.
+     *
+     * @param krakenMarketName pair of the order of the given method, mandatory for orders only
+     */
+    public void onResponse(@Nonnull final KrakenApi.Method method,
+                           @Nullable final String krakenMarketName,
+                           @Nonnull final KrakenResponseDto<?> response) {
+        final var counter = counterOf(method, krakenMarketName);
+        if (counter == null || response.getError() == null) {
+            return;
+        }
+        if (response.getError().stream().anyMatch(error -> error.contains(RATE_LIMIT_EXCEEDED))) {
+            logger.warn("Rate limit exceeded by {}, the counter of the key is used by someone else or the account" +
+                    " tier is configured higher than it is", method);
+            counter.saturate(nanoTime.getAsLong());
+        }
+    }
+
+    /**
+     * @return how much of the counter of all private calls except orders can be spent without waiting, negative if
+     * calls are waiting for the counter to decrease
+     */
+    public double getAvailableApiBudget() {
+        return apiCounter.available(nanoTime.getAsLong());
+    }
+
+    /**
+     * @return how much of the order counter of the given pair can be spent without waiting, negative if orders are
+     * waiting for the counter to decrease
+     */
+    public double getAvailableOrderBudget(@Nonnull final String krakenMarketName) {
+        final var counter = orderCountersByMarketNames.get(krakenMarketName);
+        return counter == null ? accountTier.getMaxOrderCounter() : counter.available(nanoTime.getAsLong());
+    }
+
+    /**
+     * @return {@link #getAvailableOrderBudget(String)} of every pair with an order so far, by pair
+     */
+    @Nonnull
+    public ImmutableMap<String, Double> getAvailableOrderBudgets() {
+        final var nowInNanos = nanoTime.getAsLong();
+        final var budgets = ImmutableMap.<String, Double>builder();
+        orderCountersByMarketNames.forEach((krakenMarketName, counter) ->
+                budgets.put(krakenMarketName, counter.available(nowInNanos)));
+        return budgets.build();
+    }
+
+    /**
+     * Logs the budget left after the reservation if the debug log is enabled.
+     *
+     * @return how long the call needs to wait in nanoseconds
+     */
+    long reserve(@Nonnull final KrakenApi.Method method,
+                 @Nullable final String krakenMarketName) {
+        final var counter = counterOf(method, krakenMarketName);
+        if (counter == null) {
+            return 0;
+        }
+        final var nowInNanos = nanoTime.getAsLong();
+        final var waitInNanos = counter.reserve(costOf(method), nowInNanos);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Acquired {}{}, available rate limit budget is {}", method,
+                    isOrder(method) ? " of " + krakenMarketName : "",
+                    String.format("%.2f", counter.available(nowInNanos)));
+        }
+        return waitInNanos;
+    }
+
+    @Nullable
+    private DecayingCounter counterOf(@Nonnull final KrakenApi.Method method,
+                                      @Nullable final String krakenMarketName) {
+        if (method.isPublic) {
+            return null;
+        }
+        if (!isOrder(method)) {
+            return apiCounter;
+        }
+        if (krakenMarketName == null) {
+            throw new IllegalArgumentException("Market name is mandatory for " + method);
+        }
+        return orderCountersByMarketNames.computeIfAbsent(krakenMarketName,
+                name -> new DecayingCounter(accountTier.getMaxOrderCounter(),
+                        accountTier.getOrderCounterDecayPerSecond(), nanoTime.getAsLong()));
+    }
+
+    private static boolean isOrder(@Nonnull final KrakenApi.Method method) {
+        return method == KrakenApi.Method.ADD_ORDER || method == KrakenApi.Method.CANCEL_ORDER;
+    }
+
+    private static int costOf(@Nonnull final KrakenApi.Method method) {
+        switch (method) {
+            case TRADES_HISTORY:
+            case QUERY_TRADES:
+            case LEDGERS:
+            case QUERY_LEDGERS:
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
+    private static final class DecayingCounter {
+        private final double maxValue;
+        private final double decayPerNano;
+        /**
+         * Includes the costs of all reserved calls, even of those still waiting.
+         */
+        private double value;
+        private long lastUpdateInNanos;
+
+        private DecayingCounter(final double maxValue,
+                                final double decayPerSecond,
+                                final long nowInNanos) {
+            this.maxValue = maxValue;
+            this.decayPerNano = decayPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.lastUpdateInNanos = nowInNanos;
+        }
+
+        private synchronized long reserve(final int cost,
+                                          final long nowInNanos) {
+            decay(nowInNanos);
+            final var excess = value + cost - maxValue;
+            value += cost;
+            return excess <= 0 ? 0 : (long) Math.ceil(excess / decayPerNano);
+        }
+
+        private synchronized void saturate(final long nowInNanos) {
+            decay(nowInNanos);
+            value = Math.max(value, maxValue);
+        }
+
+        private synchronized double available(final long nowInNanos) {
+            decay(nowInNanos);
+            return maxValue - value;
+        }
+
+        private void decay(final long nowInNanos) {
+            value = Math.max(0, value - (nowInNanos - lastUpdateInNanos) * decayPerNano);
+            lastUpdateInNanos = nowInNanos;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.signature;
+
+import javax.annotation.Nonnull;
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Computes the API-Sign header of private Kraken requests, i.e. base64 of HMAC-SHA512 of the URI path followed by
+ * SHA-256 of the nonce and the POST data, keyed with the base64 decoded API secret.
+ * <p>
+ * The secret is decoded once per signer. A signature takes a keyed {@link Mac}, {@link MessageDigest} and buffers
+ * from a small pool of idle ones and returns them afterwards, hence the only allocation per signature is the
+ * resulting string (as long as the request fits into the buffer grown by previous requests). The pool is shared by
+ * all threads instead of being per thread, so that callers running every request on a new virtual thread reuse them
+ * too. Signing never blocks, hence no more signatures run at once than there are processors and the pool is sized
+ * accordingly, a signature finding the pool empty creates new ones.
+ */
+public class KrakenRequestSigner {
+
+    @Nonnull
+    private static final String SHA256 = "SHA-256";
+    @Nonnull
+    private static final String HMAC_SHA512 = "HmacSHA512";
+    private static final int SHA256_LENGTH = 32;
+    private static final int HMAC_SHA512_LENGTH = 64;
+    private static final int INITIAL_MESSAGE_BUFFER_LENGTH = 512;
+
+    @Nonnull
+    private final SecretKeySpec hmacKey;
+    /**
+     * Null slots are free, idle contexts are taken and returned by compare-and-set without any lock.
+     */
+    @Nonnull
+    private final AtomicReferenceArray<SigningContext> idleContexts =
+            new AtomicReferenceArray<>(Runtime.getRuntime().availableProcessors());
+    @Nonnull
+    private final AtomicInteger createdContextCount = new AtomicInteger();
+
+    /**
+     * @param base64Secret the API secret as provided by Kraken
+     * @throws NoSuchAlgorithmException if the SHA-256 or HmacSHA512 algorithm is not available
+     * @throws InvalidKeyException      if the decoded secret is not a valid HMAC key
+     */
+    public KrakenRequestSigner(@Nonnull final String base64Secret) throws NoSuchAlgorithmException, InvalidKeyException {
+        this.hmacKey = new SecretKeySpec(Base64.getDecoder().decode(base64Secret), HMAC_SHA512);
+        // Fails fast on a missing algorithm or an invalid key instead of on the first signature.
+        this.idleContexts.set(0, new SigningContext(hmacKey));
+        this.createdContextCount.incrementAndGet();
+    }
+
+    /**
+     * @param path     URI path of the request, e.g. "/0/private/Balance"
+     * @param nonce    nonce of the request, needs to be contained in the POST data as well
+     * @param postData URL encoded form data of the request
+     * @return the base64 encoded signature
+     */
+    @Nonnull
+    public String sign(@Nonnull final String path,
+                       @Nonnull final String nonce,
+                       @Nonnull final CharSequence postData) {
+        final var context = takeContext();
+        try {
+            final var nonceAndPostDataLength = context.encode(nonce, 0);
+            final var messageLength = context.encode(postData, nonceAndPostDataLength);
+            context.sha256.update(context.messageBuffer, 0, messageLength);
+            context.sha256.digest(context.sha256Buffer, 0, SHA256_LENGTH);
+
+            final var pathLength = context.encode(path, 0);
+            context.hmacSha512.update(context.messageBuffer, 0, pathLength);
+            context.hmacSha512.update(context.sha256Buffer, 0, SHA256_LENGTH);
+            context.hmacSha512.doFinal(context.hmacBuffer, 0);
+        } catch (final DigestException | ShortBufferException exception) {
+            // Cannot happen, the buffers have the exact digest lengths.
+            throw new IllegalStateException(exception);
+        }
+        final var signatureLength = Base64.getEncoder().encode(context.hmacBuffer, context.signatureBuffer);
+        final var signature = new String(context.signatureBuffer, 0, signatureLength, StandardCharsets.ISO_8859_1);
+        returnContext(context);
+        return signature;
+    }
+
+    /**
+     * @return the number of contexts created so far, for tests
+     */
+    int getCreatedContextCount() {
+        return createdContextCount.get();
+    }
+
+    @Nonnull
+    private SigningContext takeContext() {
+        for (int slot = 0; slot < idleContexts.length(); slot++) {
+            final var context = idleContexts.get(slot);
+            if (context != null && idleContexts.compareAndSet(slot, context, null)) {
+                return context;
+            }
+        }
+        try {
+            final var context = new SigningContext(hmacKey);
+            createdContextCount.incrementAndGet();
+            return context;
+        } catch (final NoSuchAlgorithmException | InvalidKeyException exception) {
+            // Cannot happen, the constructor created a context already.
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private void returnContext(@Nonnull final SigningContext context) {
+        for (int slot = 0; slot < idleContexts.length(); slot++) {
+            if (idleContexts.get(slot) == null && idleContexts.compareAndSet(slot, null, context)) {
+                return;
+            }
+        }
+        // The pool is full, the context is left to the garbage collector.
+    }
+
+    private static final class SigningContext {
+        @Nonnull
+        private final MessageDigest sha256;
+        @Nonnull
+        private final Mac hmacSha512;
+        @Nonnull
+        private final byte[] sha256Buffer = new byte[SHA256_LENGTH];
+        @Nonnull
+        private final byte[] hmacBuffer = new byte[HMAC_SHA512_LENGTH];
+        @Nonnull
+        private final byte[] signatureBuffer = new byte[4 * ((HMAC_SHA512_LENGTH + 2) / 3)];
+        @Nonnull
+        private byte[] messageBuffer = new byte[INITIAL_MESSAGE_BUFFER_LENGTH];
+
+        private SigningContext(@Nonnull final SecretKeySpec hmacKey) throws NoSuchAlgorithmException, InvalidKeyException {
+            this.sha256 = MessageDigest.getInstance(SHA256);
+            this.hmacSha512 = Mac.getInstance(HMAC_SHA512);
+            this.hmacSha512.init(hmacKey);
+        }
+
+        /**
+         * Writes the UTF-8 bytes of the given text to {@link #messageBuffer} starting at the given offset, growing
+         * the buffer if needed.
+         *
+         * @return the offset after the last written byte
+         */
+        private int encode(@Nonnull final CharSequence text,
+                           final int offset) {
+            final var length = text.length();
+            ensureCapacity(offset + length);
+            for (int i = 0; i < length; i++) {
+                final var character = text.charAt(i);
+                if (character >= 0x80) {
+                    // Kraken requests are URL encoded, hence ASCII. Anything else takes the slow path.
+                    return encodeNonAscii(text.subSequence(i, length).toString(), offset + i);
+                }
+                messageBuffer[offset + i] = (byte) character;
+            }
+            return offset + length;
+        }
+
+        private int encodeNonAscii(@Nonnull final String text,
+                                   final int offset) {
+            final var bytes = text.getBytes(StandardCharsets.UTF_8);
+            ensureCapacity(offset + bytes.length);
+            System.arraycopy(bytes, 0, messageBuffer, offset, bytes.length);
+            return offset + bytes.length;
+        }
+
+        private void ensureCapacity(final int capacity) {
+            if (messageBuffer.length < capacity) {
+                final var grownBuffer = new byte[Math.max(capacity, 2 * messageBuffer.length)];
+                System.arraycopy(messageBuffer, 0, grownBuffer, 0, messageBuffer.length);
+                messageBuffer = grownBuffer;
+            }
+        }
+    }
+}
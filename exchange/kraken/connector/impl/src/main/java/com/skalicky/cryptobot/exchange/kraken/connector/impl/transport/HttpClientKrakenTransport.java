@@ -0,0 +1,273 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.transport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Default {@link KrakenTransport} based on {@link HttpClient}. Connections are kept alive and reused by all requests
+ * going through the same instance, HTTP/2 is used when the server supports it.
+ * <p>
+ * The number of requests in flight is limited by permits, requests over the limit wait in a queue without blocking
+ * any thread. The connections themselves are kept by the connection pool of the JDK, which is shared by the whole JVM
+ * and cannot be configured per client. Its eviction of idle connections and its size are configured only by the JVM
+ * options {@code -Djdk.httpclient.keepalive.timeout} (seconds an idle connection is kept open) and
+ * {@code -Djdk.httpclient.connectionPoolSize}, which are read once when the first {@link HttpClient} is created.
+ * <p>
+ * Streamed responses are requested gzip compressed and hold their permit until the stream is closed.
+ */
+public class HttpClientKrakenTransport implements KrakenTransport {
+
+    @Nonnull
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientKrakenTransport.class);
+    @Nonnull
+    private static final String CONTENT_TYPE = "Content-Type";
+    @Nonnull
+    private static final String FORM_URL_ENCODED = "application/x-www-form-urlencoded";
+    @Nonnull
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+    @Nonnull
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+    @Nonnull
+    private static final String GZIP = "gzip";
+
+    @Nonnull
+    private final KrakenTransportConfig config;
+    @Nonnull
+    private final HttpClient httpClient;
+    @Nonnull
+    private final Queue<CompletableFuture<Void>> requestsWaitingForPermit = new ArrayDeque<>();
+    /**
+     * Guarded by {@link #requestsWaitingForPermit}.
+     */
+    private int availablePermits;
+
+    public HttpClientKrakenTransport(@Nonnull final KrakenTransportConfig config) {
+        this(config, null);
+    }
+
+    /**
+     * @param executor runs the handling of responses and the completions of the returned futures, null for the
+     *                 default of {@link HttpClient}, which starts platform threads as needed
+     */
+    public HttpClientKrakenTransport(@Nonnull final KrakenTransportConfig config,
+                                     @Nullable final Executor executor) {
+        this.config = config;
+        final var httpClientBuilder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(config.getConnectTimeout());
+        if (executor != null) {
+            httpClientBuilder.executor(executor);
+        }
+        this.httpClient = httpClientBuilder.build();
+        this.availablePermits = config.getMaxConcurrentRequests();
+        logger.debug("Created with {}", config);
+    }
+
+    /**
+     * @return the transport shared by all {@link edu.self.kraken.api.KrakenApi} instances which were not given
+     * a transport explicitly
+     */
+    @Nonnull
+    public static HttpClientKrakenTransport shared() {
+        return SharedInstanceHolder.INSTANCE;
+    }
+
+    @Nonnull
+    @Override
+    public String post(@Nonnull final URI uri,
+                       @Nonnull final Map<String, String> headers,
+                       @Nullable final String postData) throws IOException {
+        return awaitResponse(postAsync(uri, headers, postData), uri);
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<String> postAsync(@Nonnull final URI uri,
+                                               @Nonnull final Map<String, String> headers,
+                                               @Nullable final String postData) {
+        final var request = createRequest(uri, headers, postData).build();
+        return acquirePermit()
+                .thenCompose(permit -> httpClient.sendAsync(request,
+                        HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)))
+                .whenComplete((response, exception) -> releasePermit())
+                .thenApply(response -> {
+                    if (response.statusCode() >= 400) {
+                        throw new CompletionException(new IOException(
+                                "Unexpected response status [" + response.statusCode() + "] from " + uri));
+                    }
+                    return response.body();
+                });
+    }
+
+    @Nonnull
+    @Override
+    public InputStream postForStream(@Nonnull final URI uri,
+                                     @Nonnull final Map<String, String> headers,
+                                     @Nullable final String postData) throws IOException {
+        return awaitResponse(postForStreamAsync(uri, headers, postData), uri);
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<InputStream> postForStreamAsync(@Nonnull final URI uri,
+                                                             @Nonnull final Map<String, String> headers,
+                                                             @Nullable final String postData) {
+        final var request = createRequest(uri, headers, postData)
+                .header(ACCEPT_ENCODING, GZIP)
+                .build();
+        return acquirePermit()
+                .thenCompose(permit -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream()))
+                .whenComplete((response, exception) -> {
+                    if (exception != null) {
+                        releasePermit();
+                    }
+                })
+                .thenApply(response -> {
+                    final var body = new PermitReleasingInputStream(response.body());
+                    try {
+                        if (response.statusCode() >= 400) {
+                            throw new IOException("Unexpected response status [" + response.statusCode() + "] from " + uri);
+                        }
+                        final var gzipped = response.headers().firstValue(CONTENT_ENCODING)
+                                .map(GZIP::equalsIgnoreCase)
+                                .orElse(false);
+                        return gzipped ? new GZIPInputStream(body) : body;
+                    } catch (final IOException exception) {
+                        closeQuietly(body);
+                        throw new CompletionException(exception);
+                    }
+                });
+    }
+
+    @Nonnull
+    private static <T> T awaitResponse(@Nonnull final CompletableFuture<T> response,
+                                       @Nonnull final URI uri) throws IOException {
+        try {
+            return response.get();
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + uri);
+        } catch (final ExecutionException exception) {
+            if (exception.getCause() instanceof IOException) {
+                throw (IOException) exception.getCause();
+            }
+            throw new IOException(exception.getCause());
+        }
+    }
+
+    @Nonnull
+    private CompletableFuture<Void> acquirePermit() {
+        synchronized (requestsWaitingForPermit) {
+            if (availablePermits > 0) {
+                availablePermits--;
+                return CompletableFuture.completedFuture(null);
+            }
+            final var waitingRequest = new CompletableFuture<Void>();
+            requestsWaitingForPermit.add(waitingRequest);
+            return waitingRequest;
+        }
+    }
+
+    private void releasePermit() {
+        final CompletableFuture<Void> nextRequest;
+        synchronized (requestsWaitingForPermit) {
+            nextRequest = requestsWaitingForPermit.poll();
+            if (nextRequest == null) {
+                availablePermits++;
+                return;
+            }
+        }
+        // The permit is handed over directly, outside of the lock as the completion runs the next request.
+        nextRequest.complete(null);
+    }
+
+    @Nonnull
+    private HttpRequest.Builder createRequest(@Nonnull final URI uri,
+                                      @Nonnull final Map<String, String> headers,
+                                      @Nullable final String postData) {
+        final var bodyPublisher = postData == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(postData, StandardCharsets.UTF_8);
+        final var requestBuilder = HttpRequest.newBuilder(uri)
+                .timeout(config.getReadTimeout())
+                .header(CONTENT_TYPE, FORM_URL_ENCODED)
+                .POST(bodyPublisher);
+        headers.forEach(requestBuilder::header);
+        return requestBuilder;
+    }
+
+    private static void closeQuietly(@Nonnull final InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (final IOException exception) {
+            logger.debug("Failed to close a response stream", exception);
+        }
+    }
+
+    /**
+     * Releases the permit of its request once closed, i.e. once the connection can serve another request.
+     */
+    private final class PermitReleasingInputStream extends FilterInputStream {
+        @Nonnull
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private PermitReleasingInputStream(@Nonnull final InputStream inputStream) {
+            super(inputStream);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (closed.compareAndSet(false, true)) {
+                    releasePermit();
+                }
+            }
+        }
+    }
+
+    private static final class SharedInstanceHolder {
+        @Nonnull
+        private static final HttpClientKrakenTransport INSTANCE = new HttpClientKrakenTransport(KrakenTransportConfig.DEFAULT);
+    }
+}
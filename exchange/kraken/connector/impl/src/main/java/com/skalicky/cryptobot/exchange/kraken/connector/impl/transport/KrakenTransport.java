@@ -0,0 +1,73 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.transport;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends HTTP requests to the Kraken API on behalf of {@link edu.self.kraken.api.KrakenApi}. Implementations are
+ * expected to be thread-safe and to reuse connections across requests.
+ */
+public interface KrakenTransport {
+
+    /**
+     * @param uri      target of the request
+     * @param headers  request headers, e.g. API key and signature of private methods
+     * @param postData URL encoded form data, null if the request has no body
+     * @return the response body
+     * @throws IOException if the request could not be sent or the response status is not successful
+     */
+    @Nonnull
+    String post(@Nonnull URI uri,
+                @Nonnull Map<String, String> headers,
+                @Nullable String postData) throws IOException;
+
+    /**
+     * Non-blocking variant of {@link #post(URI, Map, String)}. The returned future fails with an {@link IOException}
+     * in the same cases in which {@link #post(URI, Map, String)} throws it.
+     */
+    @Nonnull
+    CompletableFuture<String> postAsync(@Nonnull URI uri,
+                                        @Nonnull Map<String, String> headers,
+                                        @Nullable String postData);
+
+    /**
+     * Variant of {@link #post(URI, Map, String)} handing over the response body as it arrives, decompressed if
+     * the server sent it compressed. The caller needs to close the returned stream.
+     */
+    @Nonnull
+    InputStream postForStream(@Nonnull URI uri,
+                              @Nonnull Map<String, String> headers,
+                              @Nullable String postData) throws IOException;
+
+    /**
+     * Non-blocking variant of {@link #postForStream(URI, Map, String)}, the future completes once the response
+     * headers have been received.
+     */
+    @Nonnull
+    CompletableFuture<InputStream> postForStreamAsync(@Nonnull URI uri,
+                                                      @Nonnull Map<String, String> headers,
+                                                      @Nullable String postData);
+}
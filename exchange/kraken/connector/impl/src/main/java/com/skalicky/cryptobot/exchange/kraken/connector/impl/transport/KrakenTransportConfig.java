@@ -0,0 +1,77 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.transport;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+
+public final class KrakenTransportConfig {
+
+    @Nonnull
+    public static final KrakenTransportConfig DEFAULT = new KrakenTransportConfig(
+            8, Duration.ofSeconds(10), Duration.ofSeconds(30));
+
+    /**
+     * Maximum number of requests in flight to the Kraken API. This is not the size of a connection pool, connections
+     * are kept by the pool of the JVM, see {@link HttpClientKrakenTransport}.
+     */
+    private final int maxConcurrentRequests;
+    @Nonnull
+    private final Duration connectTimeout;
+    /**
+     * How long to wait for the response of a sent request.
+     */
+    @Nonnull
+    private final Duration readTimeout;
+
+    public KrakenTransportConfig(final int maxConcurrentRequests,
+                                 @Nonnull final Duration connectTimeout,
+                                 @Nonnull final Duration readTimeout) {
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("Maximum concurrent requests need to be positive ["
+                    + maxConcurrentRequests + "]");
+        }
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    @Nonnull
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    @Nonnull
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    @Override
+    public String toString() {
+        return "KrakenTransportConfig{" +
+                "maxConcurrentRequests=" + maxConcurrentRequests +
+                ", connectTimeout=" + connectTimeout +
+                ", readTimeout=" + readTimeout +
+                '}';
+    }
+}
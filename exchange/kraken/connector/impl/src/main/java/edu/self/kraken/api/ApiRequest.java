@@ -16,20 +16,21 @@
 
 package edu.self.kraken.api;
 
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.transport.KrakenTransport;
 import edu.self.kraken.api.KrakenApi.Method;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.net.ssl.HttpsURLConnection;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Represents an HTTPS request for querying the Kraken API.
@@ -50,14 +51,23 @@ class ApiRequest {
     private static final String REQUEST_API_SIGN = "API-Sign";
     private static final String REQUEST_API_KEY = "API-Key";
     private static final String REQUEST_USER_AGENT = "User-Agent";
-    private static final String REQUEST_POST = "POST";
 
-    private static final String PUBLIC_URL = "https://api.kraken.com/0/public/";
-    private static final String PRIVATE_URL = "https://api.kraken.com/0/private/";
+    private static final String PUBLIC_PATH = "/0/public/";
+    private static final String PRIVATE_PATH = "/0/private/";
 
     private static final String AMPERSAND = "&";
     private static final String EQUAL_SIGN = "=";
 
+    /**
+     * The transport sending the request.
+     */
+    private final KrakenTransport transport;
+
+    /**
+     * The URL of the API without any path, e.g. https://api.kraken.com
+     */
+    private final String baseUrl;
+
     /**
      * The request URL.
      */
@@ -83,60 +93,103 @@ class ApiRequest {
      */
     private boolean isPublic;
 
+    ApiRequest(KrakenTransport transport,
+               String baseUrl) {
+        this.transport = transport;
+        this.baseUrl = baseUrl;
+    }
+
     /**
      * Executes the request and returns its response.
      *
      * @return the request's response
-     * @throws IOException if the underlying {@link HttpsURLConnection} could
-     *                     not be set up or executed
+     * @throws IOException if the request could not be sent by the transport
      */
     public String execute() throws IOException {
         logger.debug("At the beginning of execution: " + this);
 
-        HttpsURLConnection connection = null;
         try {
-            connection = (HttpsURLConnection) url.openConnection();
-            connection.setRequestMethod(REQUEST_POST);
-            connection.addRequestProperty(REQUEST_USER_AGENT, GITHUB_NYG);
-
-            // set key & signature is method is private
-            if (!isPublic) {
+            String responseString = transport.post(url.toURI(), createHeaders(), getPostDataString());
+            logger.debug("At the end of execution: response=" + responseString);
+            return responseString;
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
 
-                if (key == null || signature == null || postData == null) {
-                    throw new IllegalStateException(ERROR_INCOMPLETE_PRIVATE_METHOD);
-                }
+    /**
+     * Executes the request without blocking the calling thread.
+     *
+     * @return the future of the request's response, failing with an
+     * {@link IOException} if the request could not be sent by the transport
+     */
+    public CompletableFuture<String> executeAsync() {
+        logger.debug("At the beginning of asynchronous execution: " + this);
 
-                connection.addRequestProperty(REQUEST_API_KEY, key);
-                connection.addRequestProperty(REQUEST_API_SIGN, signature);
-            }
+        try {
+            return transport.postAsync(url.toURI(), createHeaders(), getPostDataString())
+                    .thenApply(responseString -> {
+                        logger.debug("At the end of asynchronous execution: response=" + responseString);
+                        return responseString;
+                    });
+        } catch (URISyntaxException e) {
+            return CompletableFuture.failedFuture(new IOException(e));
+        }
+    }
 
-            // write POST data to request
-            if (postData != null && !postData.toString().isEmpty()) {
+    /**
+     * Executes the request and hands over the response body as it arrives.
+     *
+     * @return the stream of the request's response, to be closed by the
+     * caller
+     * @throws IOException if the request could not be sent by the transport
+     */
+    public InputStream executeForStream() throws IOException {
+        logger.debug("At the beginning of streamed execution: " + this);
 
-                connection.setDoOutput(true);
+        try {
+            return transport.postForStream(url.toURI(), createHeaders(), getPostDataString());
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
 
-                try (OutputStreamWriter out = new OutputStreamWriter(connection.getOutputStream())) {
-                    out.write(postData.toString());
-                }
-            }
+    /**
+     * Executes the request without blocking the calling thread and hands
+     * over the response body as it arrives.
+     *
+     * @return the future of the request's response stream, failing with an
+     * {@link IOException} if the request could not be sent by the transport
+     */
+    public CompletableFuture<InputStream> executeForStreamAsync() {
+        logger.debug("At the beginning of asynchronous streamed execution: " + this);
 
-            // execute request and read response
-            try (BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+        try {
+            return transport.postForStreamAsync(url.toURI(), createHeaders(), getPostDataString());
+        } catch (URISyntaxException e) {
+            return CompletableFuture.failedFuture(new IOException(e));
+        }
+    }
 
-                StringBuilder response = new StringBuilder();
-                String line;
+    private Map<String, String> createHeaders() {
+        Map<String, String> headers = new HashMap<>();
+        headers.put(REQUEST_USER_AGENT, GITHUB_NYG);
 
-                while ((line = in.readLine()) != null) {
-                    response.append(line);
-                }
+        // set key & signature is method is private
+        if (!isPublic) {
 
-                final String responseString = response.toString();
-                logger.debug("At the end of execution: response=" + responseString);
-                return responseString;
+            if (key == null || signature == null || postData == null) {
+                throw new IllegalStateException(ERROR_INCOMPLETE_PRIVATE_METHOD);
             }
-        } finally {
-            connection.disconnect();
+
+            headers.put(REQUEST_API_KEY, key);
+            headers.put(REQUEST_API_SIGN, signature);
         }
+        return headers;
+    }
+
+    private String getPostDataString() {
+        return postData == null || postData.length() == 0 ? null : postData.toString();
     }
 
     /**
@@ -154,7 +207,7 @@ class ApiRequest {
         }
 
         isPublic = method.isPublic;
-        url = new URL((isPublic ? PUBLIC_URL : PRIVATE_URL) + method.name);
+        url = new URL(baseUrl + (isPublic ? PUBLIC_PATH : PRIVATE_PATH) + method.name);
         return url.getPath();
     }
 
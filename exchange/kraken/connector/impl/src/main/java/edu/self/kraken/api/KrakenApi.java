@@ -16,11 +16,19 @@
 
 package edu.self.kraken.api;
 
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.nonce.AtomicKrakenNonceGenerator;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.nonce.KrakenNonceGenerator;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.signature.KrakenRequestSigner;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.transport.HttpClientKrakenTransport;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.transport.KrakenTransport;
+
 import java.io.IOException;
+import java.io.InputStream;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A KrakenApi instance allows querying the Kraken API.
@@ -31,7 +39,24 @@ public class KrakenApi {
 
     private static final String OTP = "otp";
     private static final String NONCE = "nonce";
-    private static final String MICRO_SECONDS = "000";
+
+    /**
+     * Shared by all instances so that nonces never repeat within the process,
+     * even for instances using the same API key.
+     */
+    private static final KrakenNonceGenerator DEFAULT_NONCE_GENERATOR = new AtomicKrakenNonceGenerator();
+
+    private static final String DEFAULT_BASE_URL = "https://api.kraken.com";
+
+    /**
+     * The transport sending the requests.
+     */
+    private final KrakenTransport transport;
+
+    /**
+     * The URL of the API without any path.
+     */
+    private final String baseUrl;
 
     /**
      * The API key.
@@ -43,6 +68,44 @@ public class KrakenApi {
      */
     private String secret;
 
+    /**
+     * The signer keyed with the API secret, created on the first private
+     * query.
+     */
+    private volatile KrakenRequestSigner signer;
+
+    /**
+     * The source of nonces of private queries.
+     */
+    private volatile KrakenNonceGenerator nonceGenerator = DEFAULT_NONCE_GENERATOR;
+
+    /**
+     * Creates an instance querying the production API via the shared pooled
+     * transport.
+     */
+    public KrakenApi() {
+        this(HttpClientKrakenTransport.shared(), DEFAULT_BASE_URL);
+    }
+
+    /**
+     * Creates an instance querying the production API.
+     *
+     * @param transport the transport sending the requests
+     */
+    public KrakenApi(KrakenTransport transport) {
+        this(transport, DEFAULT_BASE_URL);
+    }
+
+    /**
+     * @param transport the transport sending the requests
+     * @param baseUrl   the URL of the API without any path, e.g. a local stub
+     */
+    public KrakenApi(KrakenTransport transport,
+                     String baseUrl) {
+        this.transport = transport;
+        this.baseUrl = baseUrl;
+    }
+
     /**
      * Query a public method of the API with the given parameters.
      *
@@ -54,15 +117,39 @@ public class KrakenApi {
      */
     public String queryPublic(Method method,
                               Map<String, String> parameters) throws IOException {
+        return createPublicRequest(method, parameters).execute();
+    }
 
-        ApiRequest request = new ApiRequest();
+    /**
+     * Query a public method of the API with the given parameters without
+     * blocking the calling thread.
+     *
+     * @param method     the API method
+     * @param parameters the method parameters
+     * @return the future of the API response, failing with an
+     * {@link IOException} if the request could not be created or executed
+     * @throws IllegalArgumentException if the API method is null
+     */
+    public CompletableFuture<String> queryPublicAsync(Method method,
+                                                      Map<String, String> parameters) {
+        try {
+            return createPublicRequest(method, parameters).executeAsync();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private ApiRequest createPublicRequest(Method method,
+                                           Map<String, String> parameters) throws IOException {
+
+        ApiRequest request = new ApiRequest(transport, baseUrl);
         request.setMethod(method);
 
         if (parameters != null) {
             request.setParameters(parameters);
         }
 
-        return request.execute();
+        return request;
     }
 
     /**
@@ -91,8 +178,37 @@ public class KrakenApi {
     public String queryPrivate(Method method,
                                String otp,
                                Map<String, String> parameters) throws IOException, NoSuchAlgorithmException, InvalidKeyException {
+        return createPrivateRequest(method, otp, parameters).execute();
+    }
 
-        ApiRequest request = new ApiRequest();
+    /**
+     * Query a private method of the API with the given parameters without
+     * blocking the calling thread.
+     *
+     * @param method     the private API method
+     * @param otp        the one-time password
+     * @param parameters the method parameters
+     * @return the future of the API response, failing with an
+     * {@link IOException} if the request could not be created or executed,
+     * with a {@link NoSuchAlgorithmException} if the SHA-256 or HmacSha512
+     * algorithm could not be found or with an {@link InvalidKeyException} if
+     * the HMAC key is invalid
+     */
+    public CompletableFuture<String> queryPrivateAsync(Method method,
+                                                       String otp,
+                                                       Map<String, String> parameters) {
+        try {
+            return createPrivateRequest(method, otp, parameters).executeAsync();
+        } catch (IOException | NoSuchAlgorithmException | InvalidKeyException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private ApiRequest createPrivateRequest(Method method,
+                                            String otp,
+                                            Map<String, String> parameters) throws IOException, NoSuchAlgorithmException, InvalidKeyException {
+
+        ApiRequest request = new ApiRequest(transport, baseUrl);
         request.setKey(key);
 
         // clone parameter map
@@ -104,29 +220,30 @@ public class KrakenApi {
         }
 
         // generate nonce
-        String nonce = String.valueOf(System.currentTimeMillis()) + MICRO_SECONDS;
+        String nonce = String.valueOf(nonceGenerator.nextNonce());
         parameters.put(NONCE, nonce);
 
         // set the parameters and retrieve the POST data
         String postData = request.setParameters(parameters);
 
-        // create SHA-256 hash of the nonce and the POST data
-        byte[] sha256 = KrakenUtils.sha256(nonce + postData);
-
         // set the API method and retrieve the path
-        byte[] path = KrakenUtils.stringToBytes(request.setMethod(method));
-
-        // decode the API secret, it's the HMAC key
-        byte[] hmacKey = KrakenUtils.base64Decode(secret);
+        String path = request.setMethod(method);
 
-        // create the HMAC message from the path and the previous hash
-        byte[] hmacMessage = KrakenUtils.concatArrays(path, sha256);
-
-        // create the HMAC-SHA512 digest, encode it and set it as the request signature
-        String hmacDigest = KrakenUtils.base64Encode(KrakenUtils.hmacSha512(hmacKey, hmacMessage));
+        // sign the path, the nonce and the POST data
+        String hmacDigest = getSigner().sign(path, nonce, postData);
         request.setSignature(hmacDigest);
 
-        return request.execute();
+        return request;
+    }
+
+    private KrakenRequestSigner getSigner() throws NoSuchAlgorithmException, InvalidKeyException {
+        KrakenRequestSigner currentSigner = signer;
+        if (currentSigner == null) {
+            // concurrent first calls may create more signers, all of them equal
+            currentSigner = new KrakenRequestSigner(secret);
+            signer = currentSigner;
+        }
+        return currentSigner;
     }
 
     /**
@@ -152,6 +269,121 @@ public class KrakenApi {
         return queryPrivate(method, null, parameters);
     }
 
+    /**
+     * @see #queryPrivateAsync(Method, String, Map)
+     */
+    public CompletableFuture<String> queryPrivateAsync(Method method) {
+        return queryPrivateAsync(method, null, null);
+    }
+
+    /**
+     * @see #queryPrivateAsync(Method, String, Map)
+     */
+    public CompletableFuture<String> queryPrivateAsync(Method method,
+                                                       Map<String, String> parameters) {
+        return queryPrivateAsync(method, null, parameters);
+    }
+
+    /**
+     * Query a public method of the API with the given parameters and hand
+     * over the response as it arrives, e.g. to a streaming JSON parser.
+     *
+     * @param method     the API method
+     * @param parameters the method parameters
+     * @return the stream of the API response, to be closed by the caller
+     * @throws IllegalArgumentException if the API method is null
+     * @throws IOException              if the request could not be created or executed
+     */
+    public InputStream queryPublicAsStream(Method method,
+                                           Map<String, String> parameters) throws IOException {
+        return createPublicRequest(method, parameters).executeForStream();
+    }
+
+    /**
+     * Non-blocking variant of {@link #queryPublicAsStream(Method, Map)}.
+     *
+     * @param method     the API method
+     * @param parameters the method parameters
+     * @return the future of the API response stream, failing with an
+     * {@link IOException} if the request could not be created or executed
+     */
+    public CompletableFuture<InputStream> queryPublicAsStreamAsync(Method method,
+                                                                   Map<String, String> parameters) {
+        try {
+            return createPublicRequest(method, parameters).executeForStreamAsync();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Query a private method of the API with the given parameters and hand
+     * over the response as it arrives, e.g. to a streaming JSON parser.
+     *
+     * @param method     the private API method
+     * @param otp        the one-time password
+     * @param parameters the method parameters
+     * @return the stream of the API response, to be closed by the caller
+     * @throws IOException              if the request could not be created or executed
+     * @throws NoSuchAlgorithmException if the SHA-256 or HmacSha512 algorithm
+     *                                  could not be found
+     * @throws InvalidKeyException      if the HMAC key is invalid
+     */
+    public InputStream queryPrivateAsStream(Method method,
+                                            String otp,
+                                            Map<String, String> parameters) throws IOException, NoSuchAlgorithmException, InvalidKeyException {
+        return createPrivateRequest(method, otp, parameters).executeForStream();
+    }
+
+    /**
+     * Non-blocking variant of {@link #queryPrivateAsStream(Method, String, Map)}.
+     *
+     * @param method     the private API method
+     * @param otp        the one-time password
+     * @param parameters the method parameters
+     * @return the future of the API response stream, failing with the
+     * exceptions thrown by {@link #queryPrivateAsStream(Method, String, Map)}
+     */
+    public CompletableFuture<InputStream> queryPrivateAsStreamAsync(Method method,
+                                                                    String otp,
+                                                                    Map<String, String> parameters) {
+        try {
+            return createPrivateRequest(method, otp, parameters).executeForStreamAsync();
+        } catch (IOException | NoSuchAlgorithmException | InvalidKeyException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * @see #queryPrivateAsStream(Method, String, Map)
+     */
+    public InputStream queryPrivateAsStream(Method method) throws IOException, InvalidKeyException, NoSuchAlgorithmException {
+        return queryPrivateAsStream(method, null, null);
+    }
+
+    /**
+     * @see #queryPrivateAsStream(Method, String, Map)
+     */
+    public InputStream queryPrivateAsStream(Method method,
+                                            Map<String, String> parameters) throws IOException, InvalidKeyException, NoSuchAlgorithmException {
+        return queryPrivateAsStream(method, null, parameters);
+    }
+
+    /**
+     * @see #queryPrivateAsStreamAsync(Method, String, Map)
+     */
+    public CompletableFuture<InputStream> queryPrivateAsStreamAsync(Method method) {
+        return queryPrivateAsStreamAsync(method, null, null);
+    }
+
+    /**
+     * @see #queryPrivateAsStreamAsync(Method, String, Map)
+     */
+    public CompletableFuture<InputStream> queryPrivateAsStreamAsync(Method method,
+                                                                    Map<String, String> parameters) {
+        return queryPrivateAsStreamAsync(method, null, parameters);
+    }
+
     /**
      * Sets the API key.
      *
@@ -168,6 +400,17 @@ public class KrakenApi {
      */
     public void setSecret(String secret) {
         this.secret = secret;
+        this.signer = null;
+    }
+
+    /**
+     * Sets the source of nonces of private queries, e.g. one shared with
+     * other processes using the same API key.
+     *
+     * @param nonceGenerator the nonce generator
+     */
+    public void setNonceGenerator(KrakenNonceGenerator nonceGenerator) {
+        this.nonceGenerator = nonceGenerator;
     }
 
     /**
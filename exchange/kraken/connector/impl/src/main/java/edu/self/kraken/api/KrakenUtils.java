@@ -60,9 +60,8 @@ final class KrakenUtils {
         }
 
         byte[] concat = new byte[a.length + b.length];
-        for (int i = 0; i < concat.length; i++) {
-            concat[i] = i < a.length ? a[i] : b[i - a.length];
-        }
+        System.arraycopy(a, 0, concat, 0, a.length);
+        System.arraycopy(b, 0, concat, a.length, b.length);
 
         return concat;
     }
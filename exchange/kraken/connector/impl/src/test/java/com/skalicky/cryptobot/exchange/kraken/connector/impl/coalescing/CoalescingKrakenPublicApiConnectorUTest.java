@@ -0,0 +1,255 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.coalescing;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenDepthDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenOhlcDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenResponseDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenTradesDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenPublicApiConnector;
+import edu.self.kraken.api.KrakenApi;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CoalescingKrakenPublicApiConnectorUTest {
+
+    private static final int CALLER_COUNT = 16;
+
+    @Nonnull
+    private final CountingKrakenPublicApiConnector delegate = new CountingKrakenPublicApiConnector();
+    @Nonnull
+    private final AtomicLong nanoTime = new AtomicLong();
+    @Nonnull
+    private final CoalescingKrakenPublicApiConnector connector = new CoalescingKrakenPublicApiConnector(delegate,
+            ImmutableMap.of(KrakenApi.Method.TICKER, Duration.ofSeconds(1)), nanoTime::get);
+    @Nonnull
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLER_COUNT);
+
+    @AfterEach
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void test_tickerAsync_when_concurrentIdenticalRequests_then_oneUpstreamCall() throws Exception {
+        final var barrier = new CyclicBarrier(CALLER_COUNT);
+        final var callers = new ArrayList<Callable<CompletableFuture<KrakenResponseDto<Map<String, Map<String, Object>>>>>>();
+        for (int i = 0; i < CALLER_COUNT; i++) {
+            callers.add(() -> {
+                barrier.await();
+                return connector.tickerAsync(ImmutableList.of("XXBTZEUR"));
+            });
+        }
+        final var futures = new ArrayList<CompletableFuture<KrakenResponseDto<Map<String, Map<String, Object>>>>>();
+        for (final Future<CompletableFuture<KrakenResponseDto<Map<String, Map<String, Object>>>>> result : executor.invokeAll(callers)) {
+            futures.add(result.get());
+        }
+
+        final var response = new KrakenResponseDto<Map<String, Map<String, Object>>>();
+        delegate.pendingResponse.complete(response);
+
+        assertThat(delegate.tickerAsyncCallCount.get()).isEqualTo(1);
+        for (final var future : futures) {
+            assertThat(future.get(1, TimeUnit.SECONDS)).isSameAs(response);
+        }
+    }
+
+    @Test
+    public void test_ticker_when_identicalRequestInFlight_then_responseOfInFlightRequestReturned() throws Exception {
+        final var inFlight = connector.tickerAsync(ImmutableList.of("XXBTZEUR"));
+        final var callers = new ArrayList<Callable<KrakenResponseDto<Map<String, Map<String, Object>>>>>();
+        for (int i = 0; i < CALLER_COUNT; i++) {
+            callers.add(() -> connector.ticker(ImmutableList.of("XXBTZEUR")));
+        }
+        final var results = new ArrayList<Future<KrakenResponseDto<Map<String, Map<String, Object>>>>>();
+        for (final var caller : callers) {
+            results.add(executor.submit(caller));
+        }
+
+        final var response = new KrakenResponseDto<Map<String, Map<String, Object>>>();
+        delegate.pendingResponse.complete(response);
+
+        for (final var result : results) {
+            assertThat(result.get(1, TimeUnit.SECONDS)).isSameAs(response);
+        }
+        assertThat(inFlight.get(1, TimeUnit.SECONDS)).isSameAs(response);
+        assertThat(delegate.tickerAsyncCallCount.get()).isEqualTo(1);
+        assertThat(delegate.tickerCallCount.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void test_ticker_when_differentMarketNames_then_separateUpstreamCalls() {
+        connector.ticker(ImmutableList.of("XXBTZEUR"));
+        connector.ticker(ImmutableList.of("XETHZEUR"));
+
+        assertThat(delegate.tickerCallCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void test_ticker_when_responseWithinMaxStaleness_then_responseReused() {
+        final var first = connector.ticker(ImmutableList.of("XXBTZEUR"));
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        final var second = connector.ticker(ImmutableList.of("XXBTZEUR"));
+
+        assertThat(second).isSameAs(first);
+        assertThat(delegate.tickerCallCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void test_ticker_when_responseOlderThanMaxStaleness_then_newUpstreamCall() {
+        final var first = connector.ticker(ImmutableList.of("XXBTZEUR"));
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1001));
+        final var second = connector.ticker(ImmutableList.of("XXBTZEUR"));
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(delegate.tickerCallCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void test_ticker_when_responsesOlderThanMaxStaleness_then_removedOnNextUpstreamCall() {
+        connector.ticker(ImmutableList.of("XXBTZEUR"));
+        connector.ticker(ImmutableList.of("XETHZEUR"));
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1001));
+
+        connector.ticker(ImmutableList.of("XLTCZEUR"));
+
+        assertThat(connector.getSharedResponseCount()).isEqualTo(1);
+        assertThat(delegate.tickerCallCount.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void test_ticker_when_noMaxStalenessOfMethod_then_completedResponseNotReused() {
+        final var connectorWithoutStaleness = new CoalescingKrakenPublicApiConnector(delegate, ImmutableMap.of(),
+                nanoTime::get);
+
+        connectorWithoutStaleness.ticker(ImmutableList.of("XXBTZEUR"));
+        connectorWithoutStaleness.ticker(ImmutableList.of("XXBTZEUR"));
+
+        assertThat(delegate.tickerCallCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void test_ticker_when_upstreamCallFailed_then_exceptionRethrown_and_failureNotReused() {
+        delegate.failure = new IllegalStateException("connection reset");
+
+        assertThatThrownBy(() -> connector.ticker(ImmutableList.of("XXBTZEUR")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("connection reset");
+
+        delegate.failure = null;
+        connector.ticker(ImmutableList.of("XXBTZEUR"));
+
+        assertThat(delegate.tickerCallCount.get()).isEqualTo(2);
+    }
+
+    private static final class CountingKrakenPublicApiConnector implements KrakenPublicApiConnector {
+        @Nonnull
+        private final AtomicInteger tickerCallCount = new AtomicInteger();
+        @Nonnull
+        private final AtomicInteger tickerAsyncCallCount = new AtomicInteger();
+        @Nonnull
+        private final CompletableFuture<KrakenResponseDto<Map<String, Map<String, Object>>>> pendingResponse =
+                new CompletableFuture<>();
+        private volatile RuntimeException failure;
+
+        @Override
+        @Nonnull
+        public KrakenResponseDto<Map<String, Map<String, Object>>> ticker(@Nonnull final ImmutableList<String> marketNames) {
+            tickerCallCount.incrementAndGet();
+            if (failure != null) {
+                throw failure;
+            }
+            return new KrakenResponseDto<>();
+        }
+
+        @Override
+        @Nonnull
+        public CompletableFuture<KrakenResponseDto<Map<String, Map<String, Object>>>> tickerAsync(@Nonnull final ImmutableList<String> marketNames) {
+            tickerAsyncCallCount.incrementAndGet();
+            return pendingResponse;
+        }
+
+        @Override
+        @Nonnull
+        public KrakenResponseDto<KrakenDepthDto> depth(@Nonnull final String marketName,
+                                                       final int count,
+                                                       final int priceScale,
+                                                       final int volumeScale) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        @Nonnull
+        public CompletableFuture<KrakenResponseDto<KrakenDepthDto>> depthAsync(@Nonnull final String marketName,
+                                                                               final int count,
+                                                                               final int priceScale,
+                                                                               final int volumeScale) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        @Nonnull
+        public KrakenResponseDto<KrakenOhlcDto> ohlc(@Nonnull final String marketName,
+                                                     final int intervalInMinutes,
+                                                     @Nullable final Long since,
+                                                     final int priceScale,
+                                                     final int volumeScale) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        @Nonnull
+        public CompletableFuture<KrakenResponseDto<KrakenOhlcDto>> ohlcAsync(@Nonnull final String marketName,
+                                                                             final int intervalInMinutes,
+                                                                             @Nullable final Long since,
+                                                                             final int priceScale,
+                                                                             final int volumeScale) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        @Nonnull
+        public KrakenResponseDto<KrakenTradesDto> trades(@Nonnull final String marketName,
+                                                         @Nullable final String since,
+                                                         final int priceScale,
+                                                         final int volumeScale) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
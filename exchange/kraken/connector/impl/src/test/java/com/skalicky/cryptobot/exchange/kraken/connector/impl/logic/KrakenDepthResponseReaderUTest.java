@@ -0,0 +1,88 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.logic;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class KrakenDepthResponseReaderUTest {
+
+    @Nonnull
+    private final KrakenDepthResponseReader krakenDepthResponseReader =
+            new KrakenDepthResponseReader(new ObjectMapper().getFactory());
+
+    @Test
+    public void test_read_when_moreLevelsThanExpected_then_allLevelsReturned() throws Exception {
+        final var response = krakenDepthResponseReader.read(asStream("{\"error\":[],\"result\":{\"XXBTZEUR\":{" +
+                "\"asks\":[[\"1.0\",\"1\",1],[\"2.0\",\"2\",2],[\"3.0\",\"3\",3]],\"bids\":[]}}}"), 1, 1, 0);
+
+        assertThat(response.getResult()).isNotNull();
+        assertThat(response.getResult().getAskPrices()).containsExactly(10L, 20L, 30L);
+        assertThat(response.getResult().getAskVolumes()).containsExactly(1L, 2L, 3L);
+        assertThat(response.getResult().getBidPrices()).isEmpty();
+    }
+
+    @Test
+    public void test_read_when_fewerDecimalPlacesOrNumbersOrUnknownFields_then_scaledAndUnknownFieldsSkipped() throws Exception {
+        final var response = krakenDepthResponseReader.read(asStream("{\"error\":[],\"result\":{\"XXBTZEUR\":{" +
+                "\"spread\":{\"a\":[1]},\"bids\":[[8902,0.5,1580000000,{\"x\":[]}]]}},\"extra\":[1,2]}"), 10, 1, 8);
+
+        assertThat(response.getResult()).isNotNull();
+        assertThat(response.getResult().getBidPrices()).containsExactly(89020L);
+        assertThat(response.getResult().getBidVolumes()).containsExactly(50000000L);
+        assertThat(response.getResult().getAskPrices()).isEmpty();
+    }
+
+    @Test
+    public void test_read_when_nonZeroDigitBeyondScale_then_exception() {
+        assertThatThrownBy(() -> krakenDepthResponseReader.read(asStream("{\"result\":{\"XXBTZEUR\":{" +
+                "\"bids\":[[\"8902.45000\",\"0.5\",1]]}}}"), 10, 1, 8))
+                .isInstanceOf(JsonParseException.class);
+    }
+
+    @Test
+    public void test_read_when_invalidDecimal_then_exception() {
+        assertThatThrownBy(() -> krakenDepthResponseReader.read(asStream("{\"result\":{\"XXBTZEUR\":{" +
+                "\"bids\":[[\"-8902.4\",\"0.5\",1]]}}}"), 10, 1, 8))
+                .isInstanceOf(JsonParseException.class);
+    }
+
+    @Test
+    public void test_read_when_errorOnly_then_errorsReturned_and_noResult() throws Exception {
+        final var response = krakenDepthResponseReader.read(asStream("{\"error\":[\"EGeneral:Invalid arguments\"]}"),
+                10, 1, 8);
+
+        assertThat(response.getError()).containsExactly("EGeneral:Invalid arguments");
+        assertThat(response.getResult()).isNull();
+    }
+
+    @Nonnull
+    private static InputStream asStream(@Nonnull final String response) {
+        return new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8));
+    }
+}
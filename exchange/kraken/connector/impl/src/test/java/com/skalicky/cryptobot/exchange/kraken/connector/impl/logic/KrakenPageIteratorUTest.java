@@ -0,0 +1,105 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.logic;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class KrakenPageIteratorUTest {
+
+    @Test
+    public void test_next_when_severalPages_then_entriesOfAllPagesInOrder() {
+        final var iterator = new KrakenPageIterator<>(offset -> retrievePage(offset, 7), () -> 10, 4);
+
+        final var entries = new ArrayList<Integer>();
+        iterator.forEachRemaining(entries::add);
+
+        assertThat(entries).containsExactly(0, 1, 2, 3, 4, 5, 6);
+    }
+
+    @Test
+    public void test_hasNext_when_notCalled_then_nothingRetrieved() {
+        final var offsets = new ArrayList<Integer>();
+
+        new KrakenPageIterator<>(offset -> {
+            offsets.add(offset);
+            return retrievePage(offset, 7);
+        }, () -> 10, 4);
+
+        assertThat(offsets).isEmpty();
+    }
+
+    @Test
+    public void test_hasNext_when_firstPageRead_then_atMostMaxPagesRetrievedAhead() {
+        final var offsets = new ArrayList<Integer>();
+        final var iterator = new KrakenPageIterator<>(offset -> {
+            offsets.add(offset);
+            return retrievePage(offset, 20);
+        }, () -> 10, 2);
+
+        iterator.next();
+
+        assertThat(offsets).containsExactly(0, 2, 4);
+    }
+
+    @Test
+    public void test_hasNext_when_noBudgetAvailable_then_onlyOnePageRetrievedAhead() {
+        final var offsets = new ArrayList<Integer>();
+        final var iterator = new KrakenPageIterator<>(offset -> {
+            offsets.add(offset);
+            return retrievePage(offset, 20);
+        }, () -> 0, 4);
+
+        iterator.next();
+
+        assertThat(offsets).containsExactly(0, 2);
+    }
+
+    @Test
+    public void test_next_when_pageFailed_then_exceptionOfPage() {
+        final var iterator = new KrakenPageIterator<Integer>(offset -> offset == 0 ? retrievePage(0, 4)
+                : CompletableFuture.failedFuture(new IllegalStateException("[EAPI:Invalid nonce]")), () -> 10, 4);
+        iterator.next();
+        iterator.next();
+
+        assertThatThrownBy(iterator::next)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("[EAPI:Invalid nonce]");
+    }
+
+    /**
+     * Retrieves a page of 2 entries with values equal to their offsets.
+     */
+    @Nonnull
+    private static CompletableFuture<KrakenPageIterator.Page<Integer>> retrievePage(final int offset,
+                                                                                   final int count) {
+        final List<Integer> entries = new ArrayList<>();
+        IntStream.range(offset, Math.min(offset + 2, count)).forEach(entries::add);
+        return CompletableFuture.completedFuture(new KrakenPageIterator.Page<>(ImmutableList.copyOf(entries), count));
+    }
+}
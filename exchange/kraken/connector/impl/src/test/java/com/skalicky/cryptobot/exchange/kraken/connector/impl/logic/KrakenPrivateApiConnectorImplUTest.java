@@ -21,17 +21,25 @@ package com.skalicky.cryptobot.exchange.kraken.connector.impl.logic;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
 import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenAddOrderResultDescriptionDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.ratelimit.KrakenAccountTier;
+import com.skalicky.cryptobot.exchange.kraken.connector.impl.ratelimit.KrakenRateLimitGovernor;
 import edu.self.kraken.api.KrakenApi;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -39,8 +47,10 @@ public class KrakenPrivateApiConnectorImplUTest {
     @Nonnull
     private final KrakenApi krakenApi = Mockito.mock(KrakenApi.class);
     @Nonnull
+    private final KrakenRateLimitGovernor krakenRateLimitGovernor = new KrakenRateLimitGovernor(KrakenAccountTier.PRO);
+    @Nonnull
     private final KrakenPrivateApiConnectorImpl krakenPrivateApiConnectorImpl = new KrakenPrivateApiConnectorImpl(
-            krakenApi, new ObjectMapper());
+            krakenApi, new ObjectMapper(), krakenRateLimitGovernor);
 
     @AfterEach
     public void assertAndCleanMocks() {
@@ -61,11 +71,11 @@ public class KrakenPrivateApiConnectorImplUTest {
                 "    }" +
                 "}";
         // @formatter:on
-        when(krakenApi.queryPrivate(KrakenApi.Method.BALANCE)).thenReturn(krakenApiResponse);
+        when(krakenApi.queryPrivateAsStream(eq(KrakenApi.Method.BALANCE), anyMap())).thenReturn(asStream(krakenApiResponse));
 
         final var connectorResponse = krakenPrivateApiConnectorImpl.balance();
 
-        verify(krakenApi).queryPrivate(KrakenApi.Method.BALANCE);
+        verify(krakenApi).queryPrivateAsStream(eq(KrakenApi.Method.BALANCE), anyMap());
 
         assertThat(connectorResponse.getError()).isEmpty();
         assertThat(connectorResponse.getResult()).hasSize(3);
@@ -76,6 +86,50 @@ public class KrakenPrivateApiConnectorImplUTest {
         assertThat(connectorResponse.getResult().get("BCH")).isEqualTo(new BigDecimal("0.0000000000"));
     }
 
+    @Test
+    public void test_balanceAsync_when_dataForPairInResponseFile_then_balancesReturned() {
+
+        // @formatter:off
+        final var krakenApiResponse = "{" +
+                "    \"error\": []," +
+                "    \"result\": {" +
+                "        \"ZEUR\": \"100.7896\"," +
+                "        \"XXBT\": \"0.0000000030\"" +
+                "    }" +
+                "}";
+        // @formatter:on
+        when(krakenApi.queryPrivateAsStreamAsync(eq(KrakenApi.Method.BALANCE), anyMap()))
+                .thenReturn(CompletableFuture.completedFuture(asStream(krakenApiResponse)));
+
+        final var connectorResponse = krakenPrivateApiConnectorImpl.balanceAsync().join();
+
+        verify(krakenApi).queryPrivateAsStreamAsync(eq(KrakenApi.Method.BALANCE), anyMap());
+
+        assertThat(connectorResponse.getError()).isEmpty();
+        // Asserts to avoid warnings caused by presence of @Nullable.
+        assertThat(connectorResponse.getResult()).isNotNull();
+        assertThat(connectorResponse.getResult().get("ZEUR")).isEqualTo(new BigDecimal("100.7896"));
+        assertThat(connectorResponse.getResult().get("XXBT")).isEqualTo(new BigDecimal("0.0000000030"));
+    }
+
+    @Test
+    public void test_balance_when_rateLimitExceeded_then_errorReturned_and_rateLimitBudgetExhausted() throws Exception {
+
+        // @formatter:off
+        final var krakenApiResponse = "{" +
+                "    \"error\": [\"EAPI:Rate limit exceeded\"]" +
+                "}";
+        // @formatter:on
+        when(krakenApi.queryPrivateAsStream(eq(KrakenApi.Method.BALANCE), anyMap())).thenReturn(asStream(krakenApiResponse));
+
+        final var connectorResponse = krakenPrivateApiConnectorImpl.balance();
+
+        verify(krakenApi).queryPrivateAsStream(eq(KrakenApi.Method.BALANCE), anyMap());
+
+        assertThat(connectorResponse.getError()).containsExactly("EAPI:Rate limit exceeded");
+        assertThat(krakenRateLimitGovernor.getAvailableApiBudget()).isLessThanOrEqualTo(0.0);
+    }
+
     @Test
     public void test_addOrder_when_everythingOk_then_noError() throws Exception {
 
@@ -92,13 +146,13 @@ public class KrakenPrivateApiConnectorImplUTest {
                 "    }" +
                 "}";
         // @formatter:on
-        when(krakenApi.queryPrivate(eq(KrakenApi.Method.ADD_ORDER), anyMap())).thenReturn(krakenApiResponse);
+        when(krakenApi.queryPrivateAsStream(eq(KrakenApi.Method.ADD_ORDER), anyMap())).thenReturn(asStream(krakenApiResponse));
 
         final var connectorResponse = krakenPrivateApiConnectorImpl.addOrder(
                 "XBTEUR", "buy", "limit", new BigDecimal("6000.9"),
                 new BigDecimal("0.002"), ImmutableList.of("fciq"), 1);
 
-        verify(krakenApi).queryPrivate(eq(KrakenApi.Method.ADD_ORDER), anyMap());
+        verify(krakenApi).queryPrivateAsStream(eq(KrakenApi.Method.ADD_ORDER), anyMap());
 
         assertThat(connectorResponse.getError()).isEmpty();
         // Asserts to avoid warnings caused by presence of @Nullable.
@@ -122,13 +176,13 @@ public class KrakenPrivateApiConnectorImplUTest {
                 "    \"error\": [\"EGeneral:Permission denied\"]" +
                 "}";
         // @formatter:on
-        when(krakenApi.queryPrivate(eq(KrakenApi.Method.ADD_ORDER), anyMap())).thenReturn(krakenApiResponse);
+        when(krakenApi.queryPrivateAsStream(eq(KrakenApi.Method.ADD_ORDER), anyMap())).thenReturn(asStream(krakenApiResponse));
 
         final var connectorResponse = krakenPrivateApiConnectorImpl.addOrder(
                 "LTCEUR", "buy", "market", new BigDecimal(40),
                 BigDecimal.ONE, ImmutableList.<String>builder().build(), 1);
 
-        verify(krakenApi).queryPrivate(eq(KrakenApi.Method.ADD_ORDER), anyMap());
+        verify(krakenApi).queryPrivateAsStream(eq(KrakenApi.Method.ADD_ORDER), anyMap());
 
         // isNotNull() to avoid warnings caused by presence of @Nullable.
         assertThat(connectorResponse.getError()) //
@@ -177,12 +231,12 @@ public class KrakenPrivateApiConnectorImplUTest {
                 "    }" +
                 "}";
         // @formatter:on
-        when(krakenApi.queryPrivate(eq(KrakenApi.Method.OPEN_ORDERS), anyMap())).thenReturn(krakenApiResponse);
+        when(krakenApi.queryPrivateAsStream(eq(KrakenApi.Method.OPEN_ORDERS), anyMap())).thenReturn(asStream(krakenApiResponse));
 
         final var connectorResponse =
                 krakenPrivateApiConnectorImpl.openOrders(false);
 
-        verify(krakenApi).queryPrivate(eq(KrakenApi.Method.OPEN_ORDERS), anyMap());
+        verify(krakenApi).queryPrivateAsStream(eq(KrakenApi.Method.OPEN_ORDERS), anyMap());
 
         assertThat(connectorResponse.getError()).isEmpty();
         // Asserts to avoid warnings caused by presence of @Nullable.
@@ -250,12 +304,12 @@ public class KrakenPrivateApiConnectorImplUTest {
                 "    }" +
                 "}";
         // @formatter:on
-        when(krakenApi.queryPrivate(eq(KrakenApi.Method.OPEN_ORDERS), anyMap())).thenReturn(krakenApiResponse);
+        when(krakenApi.queryPrivateAsStream(eq(KrakenApi.Method.OPEN_ORDERS), anyMap())).thenReturn(asStream(krakenApiResponse));
 
         final var connectorResponse =
                 krakenPrivateApiConnectorImpl.openOrders(false);
 
-        verify(krakenApi).queryPrivate(eq(KrakenApi.Method.OPEN_ORDERS), anyMap());
+        verify(krakenApi).queryPrivateAsStream(eq(KrakenApi.Method.OPEN_ORDERS), anyMap());
 
         // Asserts to avoid warnings caused by presence of @Nullable.
         assertThat(connectorResponse.getResult()).isNotNull();
@@ -283,11 +337,11 @@ public class KrakenPrivateApiConnectorImplUTest {
                 "    }" +
                 "}";
         // @formatter:on
-        when(krakenApi.queryPrivate(eq(KrakenApi.Method.OPEN_ORDERS), anyMap())).thenReturn(krakenApiResponse);
+        when(krakenApi.queryPrivateAsStream(eq(KrakenApi.Method.OPEN_ORDERS), anyMap())).thenReturn(asStream(krakenApiResponse));
 
         final var connectorResponse = krakenPrivateApiConnectorImpl.openOrders(false);
 
-        verify(krakenApi).queryPrivate(eq(KrakenApi.Method.OPEN_ORDERS), anyMap());
+        verify(krakenApi).queryPrivateAsStream(eq(KrakenApi.Method.OPEN_ORDERS), anyMap());
 
         // Asserts to avoid warnings caused by presence of @Nullable.
         assertThat(connectorResponse.getResult()).isNotNull();
@@ -339,12 +393,12 @@ public class KrakenPrivateApiConnectorImplUTest {
                 "    }" +
                 "}";
         // @formatter:on
-        when(krakenApi.queryPrivate(eq(KrakenApi.Method.CLOSED_ORDERS), anyMap())).thenReturn(krakenApiResponse);
+        when(krakenApi.queryPrivateAsStream(eq(KrakenApi.Method.CLOSED_ORDERS), anyMap())).thenReturn(asStream(krakenApiResponse));
 
         final var connectorResponse =
                 krakenPrivateApiConnectorImpl.closedOrders(false, 1583703494L);
 
-        verify(krakenApi).queryPrivate(eq(KrakenApi.Method.CLOSED_ORDERS), anyMap());
+        verify(krakenApi).queryPrivateAsStream(eq(KrakenApi.Method.CLOSED_ORDERS), anyMap());
 
         assertThat(connectorResponse.getError()).isEmpty();
         // Asserts to avoid warnings caused by presence of @Nullable.
@@ -417,12 +471,12 @@ public class KrakenPrivateApiConnectorImplUTest {
                 "    }" +
                 "}";
         // @formatter:on
-        when(krakenApi.queryPrivate(eq(KrakenApi.Method.CLOSED_ORDERS), anyMap())).thenReturn(krakenApiResponse);
+        when(krakenApi.queryPrivateAsStream(eq(KrakenApi.Method.CLOSED_ORDERS), anyMap())).thenReturn(asStream(krakenApiResponse));
 
         final var connectorResponse =
                 krakenPrivateApiConnectorImpl.closedOrders(false, 1583703494L);
 
-        verify(krakenApi).queryPrivate(eq(KrakenApi.Method.CLOSED_ORDERS), anyMap());
+        verify(krakenApi).queryPrivateAsStream(eq(KrakenApi.Method.CLOSED_ORDERS), anyMap());
 
         // Asserts to avoid warnings caused by presence of @Nullable.
         assertThat(connectorResponse.getResult()).isNotNull();
@@ -451,12 +505,12 @@ public class KrakenPrivateApiConnectorImplUTest {
                 "    }" +
                 "}";
         // @formatter:on
-        when(krakenApi.queryPrivate(eq(KrakenApi.Method.CLOSED_ORDERS), anyMap())).thenReturn(krakenApiResponse);
+        when(krakenApi.queryPrivateAsStream(eq(KrakenApi.Method.CLOSED_ORDERS), anyMap())).thenReturn(asStream(krakenApiResponse));
 
         final var connectorResponse =
                 krakenPrivateApiConnectorImpl.closedOrders(false, 1583703494L);
 
-        verify(krakenApi).queryPrivate(eq(KrakenApi.Method.CLOSED_ORDERS), anyMap());
+        verify(krakenApi).queryPrivateAsStream(eq(KrakenApi.Method.CLOSED_ORDERS), anyMap());
 
         // Asserts to avoid warnings caused by presence of @Nullable.
         assertThat(connectorResponse.getResult()).isNotNull();
@@ -466,4 +520,128 @@ public class KrakenPrivateApiConnectorImplUTest {
                 .containsOnlyKeys("AAAAAA-YY7YY-4ZZZZZ", "BBBBBB-YY7YY-4ZZZZZ");
         assertThat(connectorResponse.getResult().getCount()).isEqualTo(2);
     }
+
+    @Test
+    public void test_closedOrders_when_countExceedsFirstPage_then_remainingPagesRetrieved_and_merged() throws Exception {
+
+        // @formatter:off
+        final var firstPage = "{" +
+                "    \"error\": []," +
+                "    \"result\": {" +
+                "        \"closed\": {" +
+                "            \"AAAAAA-YY7YY-4ZZZZZ\": {" +
+                "                \"status\": \"closed\"" +
+                "            }," +
+                "            \"BBBBBB-YY7YY-4ZZZZZ\": {" +
+                "                \"status\": \"canceled\"" +
+                "            }" +
+                "        }," +
+                "        \"count\": 3" +
+                "    }" +
+                "}";
+        final var secondPage = "{" +
+                "    \"error\": []," +
+                "    \"result\": {" +
+                "        \"closed\": {" +
+                "            \"CCCCCC-YY7YY-4ZZZZZ\": {" +
+                "                \"status\": \"expired\"" +
+                "            }" +
+                "        }," +
+                "        \"count\": 3" +
+                "    }" +
+                "}";
+        // @formatter:on
+        final var firstPageParameters = Map.of("trades", "false", "start", "1583703494");
+        final var secondPageParameters = Map.of("trades", "false", "start", "1583703494", "ofs", "2");
+        when(krakenApi.queryPrivateAsStream(KrakenApi.Method.CLOSED_ORDERS, firstPageParameters))
+                .thenReturn(asStream(firstPage));
+        when(krakenApi.queryPrivateAsStreamAsync(KrakenApi.Method.CLOSED_ORDERS, secondPageParameters))
+                .thenReturn(CompletableFuture.completedFuture(asStream(secondPage)));
+
+        final var connectorResponse =
+                krakenPrivateApiConnectorImpl.closedOrders(false, 1583703494L);
+
+        verify(krakenApi).queryPrivateAsStream(KrakenApi.Method.CLOSED_ORDERS, firstPageParameters);
+        verify(krakenApi).queryPrivateAsStreamAsync(KrakenApi.Method.CLOSED_ORDERS, secondPageParameters);
+
+        assertThat(connectorResponse.getError()).isEmpty();
+        // Asserts to avoid warnings caused by presence of @Nullable.
+        assertThat(connectorResponse.getResult()).isNotNull();
+        assertThat(connectorResponse.getResult().getClosed()) //
+                // Asserts to avoid warnings caused by presence of @Nullable.
+                .isNotNull() //
+                .containsOnlyKeys("AAAAAA-YY7YY-4ZZZZZ", "BBBBBB-YY7YY-4ZZZZZ", "CCCCCC-YY7YY-4ZZZZZ");
+        assertThat(connectorResponse.getResult().getCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void test_closedOrdersAsync_when_threePages_then_eachPageRequestedAfterPreviousResponse() {
+
+        // @formatter:off
+        final var firstPage = "{" +
+                "    \"error\": []," +
+                "    \"result\": {" +
+                "        \"closed\": {" +
+                "            \"AAAAAA-YY7YY-4ZZZZZ\": {" +
+                "                \"status\": \"closed\"" +
+                "            }" +
+                "        }," +
+                "        \"count\": 3" +
+                "    }" +
+                "}";
+        final var secondPage = "{" +
+                "    \"error\": []," +
+                "    \"result\": {" +
+                "        \"closed\": {" +
+                "            \"BBBBBB-YY7YY-4ZZZZZ\": {" +
+                "                \"status\": \"canceled\"" +
+                "            }" +
+                "        }," +
+                "        \"count\": 3" +
+                "    }" +
+                "}";
+        final var thirdPage = "{" +
+                "    \"error\": []," +
+                "    \"result\": {" +
+                "        \"closed\": {" +
+                "            \"CCCCCC-YY7YY-4ZZZZZ\": {" +
+                "                \"status\": \"expired\"" +
+                "            }" +
+                "        }," +
+                "        \"count\": 3" +
+                "    }" +
+                "}";
+        // @formatter:on
+        final var firstPageParameters = Map.of("trades", "false", "start", "1583703494");
+        final var secondPageParameters = Map.of("trades", "false", "start", "1583703494", "ofs", "1");
+        final var thirdPageParameters = Map.of("trades", "false", "start", "1583703494", "ofs", "2");
+        final var secondPageResponse = new CompletableFuture<InputStream>();
+        when(krakenApi.queryPrivateAsStreamAsync(KrakenApi.Method.CLOSED_ORDERS, firstPageParameters))
+                .thenReturn(CompletableFuture.completedFuture(asStream(firstPage)));
+        when(krakenApi.queryPrivateAsStreamAsync(KrakenApi.Method.CLOSED_ORDERS, secondPageParameters))
+                .thenReturn(secondPageResponse);
+        when(krakenApi.queryPrivateAsStreamAsync(KrakenApi.Method.CLOSED_ORDERS, thirdPageParameters))
+                .thenReturn(CompletableFuture.completedFuture(asStream(thirdPage)));
+
+        final var connectorResponse =
+                krakenPrivateApiConnectorImpl.closedOrdersAsync(false, 1583703494L);
+
+        verify(krakenApi).queryPrivateAsStreamAsync(KrakenApi.Method.CLOSED_ORDERS, firstPageParameters);
+        verify(krakenApi).queryPrivateAsStreamAsync(KrakenApi.Method.CLOSED_ORDERS, secondPageParameters);
+        verify(krakenApi, never()).queryPrivateAsStreamAsync(KrakenApi.Method.CLOSED_ORDERS, thirdPageParameters);
+
+        secondPageResponse.complete(asStream(secondPage));
+
+        verify(krakenApi).queryPrivateAsStreamAsync(KrakenApi.Method.CLOSED_ORDERS, thirdPageParameters);
+        assertThat(connectorResponse.join().getResult()).isNotNull();
+        assertThat(connectorResponse.join().getResult().getClosed()) //
+                // Asserts to avoid warnings caused by presence of @Nullable.
+                .isNotNull() //
+                .containsOnlyKeys("AAAAAA-YY7YY-4ZZZZZ", "BBBBBB-YY7YY-4ZZZZZ", "CCCCCC-YY7YY-4ZZZZZ");
+    }
+
+    @Nonnull
+    private static InputStream asStream(@Nonnull final String response) {
+        return new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8));
+    }
 }
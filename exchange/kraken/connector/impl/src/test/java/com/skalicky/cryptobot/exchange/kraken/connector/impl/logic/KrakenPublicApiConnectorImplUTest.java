@@ -26,8 +26,13 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.verify;
@@ -67,11 +72,11 @@ public class KrakenPublicApiConnectorImplUTest {
                 "}";
         // @formatter:on
         final var marketName = Collections.singletonMap("pair", "XBTEUR");
-        when(krakenApi.queryPublic(KrakenApi.Method.TICKER, marketName)).thenReturn(expectedResponse);
+        when(krakenApi.queryPublicAsStream(KrakenApi.Method.TICKER, marketName)).thenReturn(asStream(expectedResponse));
 
         final var response = krakenPublicApiConnectorImpl.ticker(ImmutableList.of("XBTEUR"));
 
-        verify(krakenApi).queryPublic(KrakenApi.Method.TICKER, marketName);
+        verify(krakenApi).queryPublicAsStream(KrakenApi.Method.TICKER, marketName);
 
         assertThat(response.getError()).isEmpty();
         assertThat(response.getResult()).hasSize(1);
@@ -83,4 +88,151 @@ public class KrakenPublicApiConnectorImplUTest {
         @SuppressWarnings("unchecked") final var actualBidData = (List<String>) response.getResult().get(tickerName).get("b");
         assertThat(actualBidData.get(0)).isEqualTo("8902.40000");
     }
+
+    @Test
+    public void test_tickerAsync_when_dataForPairInResponseFile_then_askPriceReturned() {
+
+        // @formatter:off
+        final var expectedResponse = "{" +
+                "    \"error\": []," +
+                "    \"result\": {" +
+                "        \"XXBTZEUR\": {" +
+                "            \"a\": [\"8903.30000\",   \"2\",            \"2.000\"]," +
+                "            \"b\": [\"8902.40000\",   \"1\",            \"1.000\"]" +
+                "        }" +
+                "    }" +
+                "}";
+        // @formatter:on
+        final var marketName = Collections.singletonMap("pair", "XBTEUR");
+        when(krakenApi.queryPublicAsStreamAsync(KrakenApi.Method.TICKER, marketName))
+                .thenReturn(CompletableFuture.completedFuture(asStream(expectedResponse)));
+
+        final var response = krakenPublicApiConnectorImpl.tickerAsync(ImmutableList.of("XBTEUR")).join();
+
+        verify(krakenApi).queryPublicAsStreamAsync(KrakenApi.Method.TICKER, marketName);
+
+        assertThat(response.getError()).isEmpty();
+        // Asserts to avoid warnings caused by presence of @Nullable.
+        assertThat(response.getResult()).isNotNull();
+        @SuppressWarnings("unchecked") final var actualAskData = (List<String>) response.getResult().get("XXBTZEUR").get("a");
+        assertThat(actualAskData.get(0)).isEqualTo("8903.30000");
+    }
+
+    @Test
+    public void test_depth_when_levelsInResponse_then_levelsReturnedAsFixedPointNumbers() throws Exception {
+
+        // @formatter:off
+        final var expectedResponse = "{" +
+                "    \"error\": []," +
+                "    \"result\": {" +
+                "        \"XXBTZEUR\": {" +
+                "            \"asks\": [[\"8903.30000\", \"1.250\", 1580000000], [\"8903.50000\", \"2.000\", 1580000001]]," +
+                "            \"bids\": [[\"8902.40000\", \"0.500\", 1580000002]]" +
+                "        }" +
+                "    }" +
+                "}";
+        // @formatter:on
+        final var parameters = Map.of("pair", "XBTEUR", "count", "2");
+        when(krakenApi.queryPublicAsStream(KrakenApi.Method.DEPTH, parameters)).thenReturn(asStream(expectedResponse));
+
+        final var response = krakenPublicApiConnectorImpl.depth("XBTEUR", 2, 1, 8);
+
+        verify(krakenApi).queryPublicAsStream(KrakenApi.Method.DEPTH, parameters);
+
+        assertThat(response.getError()).isEmpty();
+        // Asserts to avoid warnings caused by presence of @Nullable.
+        assertThat(response.getResult()).isNotNull();
+        assertThat(response.getResult().getMarketName()).isEqualTo("XXBTZEUR");
+        assertThat(response.getResult().getAskPrices()).containsExactly(89033L, 89035L);
+        assertThat(response.getResult().getAskVolumes()).containsExactly(125000000L, 200000000L);
+        assertThat(response.getResult().getBidPrices()).containsExactly(89024L);
+        assertThat(response.getResult().getBidVolumes()).containsExactly(50000000L);
+    }
+
+    @Test
+    public void test_depthAsync_when_errorInResponse_then_errorReturned_and_noResult() {
+        final var parameters = Map.of("pair", "XBTEUR", "count", "10");
+        when(krakenApi.queryPublicAsStreamAsync(KrakenApi.Method.DEPTH, parameters))
+                .thenReturn(CompletableFuture.completedFuture(asStream("{\"error\":[\"EQuery:Unknown asset pair\"]}")));
+
+        final var response = krakenPublicApiConnectorImpl.depthAsync("XBTEUR", 10, 1, 8).join();
+
+        verify(krakenApi).queryPublicAsStreamAsync(KrakenApi.Method.DEPTH, parameters);
+
+        assertThat(response.getError()).containsExactly("EQuery:Unknown asset pair");
+        assertThat(response.getResult()).isNull();
+    }
+
+    @Test
+    public void test_ohlc_when_sinceGiven_then_sinceSent_and_candlesReturnedAsFixedPointNumbers_and_lastReturned() throws Exception {
+
+        // @formatter:off
+        final var expectedResponse = "{" +
+                "    \"error\": []," +
+                "    \"result\": {" +
+                "        \"XXBTZEUR\": [" +
+                "            [1688671200, \"30306.1\", \"30306.2\", \"30305.7\", \"30305.7\", \"30306.13456\", \"3.39243896\", 23]," +
+                "            [1688671260, \"30305.7\", \"30307.0\", \"30305.7\", \"30306.9\", \"30306.5\", \"0.5\", 2]" +
+                "        ]," +
+                "        \"last\": 1688671200" +
+                "    }" +
+                "}";
+        // @formatter:on
+        final var parameters = Map.of("pair", "XBTEUR", "interval", "1", "since", "1688671140");
+        when(krakenApi.queryPublicAsStream(KrakenApi.Method.OHLC, parameters)).thenReturn(asStream(expectedResponse));
+
+        final var response = krakenPublicApiConnectorImpl.ohlc("XBTEUR", 1, 1688671140L, 1, 8);
+
+        verify(krakenApi).queryPublicAsStream(KrakenApi.Method.OHLC, parameters);
+
+        assertThat(response.getError()).isEmpty();
+        // Asserts to avoid warnings caused by presence of @Nullable.
+        assertThat(response.getResult()).isNotNull();
+        assertThat(response.getResult().getMarketName()).isEqualTo("XXBTZEUR");
+        assertThat(response.getResult().getTimes()).containsExactly(1688671200L, 1688671260L);
+        assertThat(response.getResult().getOpens()).containsExactly(303061L, 303057L);
+        assertThat(response.getResult().getHighs()).containsExactly(303062L, 303070L);
+        assertThat(response.getResult().getLows()).containsExactly(303057L, 303057L);
+        assertThat(response.getResult().getCloses()).containsExactly(303057L, 303069L);
+        assertThat(response.getResult().getVolumes()).containsExactly(339243896L, 50000000L);
+        assertThat(response.getResult().getLast()).isEqualTo(1688671200L);
+    }
+
+    @Test
+    public void test_trades_when_sinceGiven_then_sinceSent_and_tradesReturnedAsFixedPointNumbers_and_lastReturned() throws Exception {
+
+        // @formatter:off
+        final var expectedResponse = "{" +
+                "    \"error\": []," +
+                "    \"result\": {" +
+                "        \"XXBTZEUR\": [" +
+                "            [\"30306.10000\", \"0.01000000\", 1688671200.1234, \"b\", \"l\", \"\", 61275531]," +
+                "            [\"30305.70000\", \"0.50000000\", 1688671201, \"s\", \"m\", \"\", 61275532]" +
+                "        ]," +
+                "        \"last\": \"1688671201000000000\"" +
+                "    }" +
+                "}";
+        // @formatter:on
+        final var parameters = Map.of("pair", "XBTEUR", "since", "1688671140000000000");
+        when(krakenApi.queryPublicAsStream(KrakenApi.Method.TRADES, parameters)).thenReturn(asStream(expectedResponse));
+
+        final var response = krakenPublicApiConnectorImpl.trades("XBTEUR", "1688671140000000000", 1, 8);
+
+        verify(krakenApi).queryPublicAsStream(KrakenApi.Method.TRADES, parameters);
+
+        assertThat(response.getError()).isEmpty();
+        // Asserts to avoid warnings caused by presence of @Nullable.
+        assertThat(response.getResult()).isNotNull();
+        assertThat(response.getResult().getMarketName()).isEqualTo("XXBTZEUR");
+        assertThat(response.getResult().getTimes()).containsExactly(1688671200123400000L, 1688671201000000000L);
+        assertThat(response.getResult().getPrices()).containsExactly(303061L, 303057L);
+        assertThat(response.getResult().getVolumes()).containsExactly(1000000L, 50000000L);
+        assertThat(response.getResult().getBuys()).containsExactly(true, false);
+        assertThat(response.getResult().getLast()).isEqualTo("1688671201000000000");
+    }
+
+    @Nonnull
+    private static InputStream asStream(@Nonnull final String response) {
+        return new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8));
+    }
 }
@@ -0,0 +1,264 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.logic;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenWebSocketBookDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenWebSocketTickerDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenWebSocketBookListener;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenWebSocketTickerListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KrakenWebSocketPublicApiConnectorImplUTest {
+
+    @Nonnull
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Nonnull
+    private final StandInWebSocketServer server = new StandInWebSocketServer();
+    @Nonnull
+    private final KrakenWebSocketPublicApiConnectorImpl connector = new KrakenWebSocketPublicApiConnectorImpl(
+            HttpClient.newHttpClient(), server.getUri(), objectMapper, Duration.ofMillis(50));
+    @Nonnull
+    private final RecordingListener listener = new RecordingListener();
+
+    public KrakenWebSocketPublicApiConnectorImplUTest() throws Exception {
+    }
+
+    @AfterEach
+    public void closeConnectorAndServer() throws Exception {
+        connector.close();
+        server.close();
+    }
+
+    @Test
+    public void test_subscribeTickers_when_connected_then_tickerChannelSubscribedWithBboTrigger() throws Exception {
+        connector.subscribeTickers(ImmutableList.of("BTC/EUR", "ETH/EUR"), listener);
+
+        final var subscription = objectMapper.readTree(server.takeMessage(5, TimeUnit.SECONDS));
+
+        assertThat(subscription.path("method").asText()).isEqualTo("subscribe");
+        assertThat(subscription.path("params").path("channel").asText()).isEqualTo("ticker");
+        assertThat(subscription.path("params").path("event_trigger").asText()).isEqualTo("bbo");
+        assertThat(subscription.path("params").path("symbol").get(0).asText()).isEqualTo("BTC/EUR");
+        assertThat(subscription.path("params").path("symbol").get(1).asText()).isEqualTo("ETH/EUR");
+        assertThat(connector.isConnected()).isTrue();
+    }
+
+    @Test
+    public void test_subscribeTickers_when_tickerSnapshotPushed_then_exactPricesPassedToListener() throws Exception {
+        connector.subscribeTickers(ImmutableList.of("BTC/EUR"), listener);
+        server.takeMessage(5, TimeUnit.SECONDS);
+
+        // @formatter:off
+        server.send("{\"channel\":\"heartbeat\"}");
+        server.send("{" +
+                "\"channel\":\"ticker\"," +
+                "\"type\":\"snapshot\"," +
+                "\"data\":[{" +
+                "    \"symbol\":\"BTC/EUR\"," +
+                "    \"bid\":8902.40000001," +
+                "    \"bid_qty\":0.5," +
+                "    \"ask\":8903.3," +
+                "    \"ask_qty\":1.25," +
+                "    \"last\":8903.1" +
+                "}]" +
+                "}");
+        // @formatter:on
+
+        final var ticker = listener.tickers.poll(5, TimeUnit.SECONDS);
+
+        assertThat(ticker).isNotNull();
+        assertThat(ticker.getSymbol()).isEqualTo("BTC/EUR");
+        assertThat(ticker.getBid()).isEqualTo(new BigDecimal("8902.40000001"));
+        assertThat(ticker.getAsk()).isEqualTo(new BigDecimal("8903.3"));
+    }
+
+    @Test
+    public void test_subscribeTickers_when_connectionDropped_then_listenerNotified_and_reconnected_and_allSymbolsResubscribed() throws Exception {
+        connector.subscribeTickers(ImmutableList.of("BTC/EUR"), listener);
+        server.takeMessage(5, TimeUnit.SECONDS);
+        connector.subscribeTickers(ImmutableList.of("ETH/EUR"), listener);
+        server.takeMessage(5, TimeUnit.SECONDS);
+
+        server.dropConnection();
+
+        assertThat(listener.disconnected.await(5, TimeUnit.SECONDS)).isTrue();
+        final var resubscription = objectMapper.readTree(server.takeMessage(5, TimeUnit.SECONDS));
+        assertThat(resubscription.path("params").path("symbol").get(0).asText()).isEqualTo("BTC/EUR");
+        assertThat(resubscription.path("params").path("symbol").get(1).asText()).isEqualTo("ETH/EUR");
+        assertThat(server.getConnectionCount()).isEqualTo(2);
+        assertThat(connector.isConnected()).isTrue();
+    }
+
+    @Test
+    public void test_subscribeBooks_when_bookSnapshotPushed_then_levelsAndChecksumPassedToListener() throws Exception {
+        connector.subscribeBooks(ImmutableList.of("BTC/EUR"), 10, 1, 8, listener);
+
+        final var subscription = objectMapper.readTree(server.takeMessage(5, TimeUnit.SECONDS));
+        assertThat(subscription.path("params").path("channel").asText()).isEqualTo("book");
+        assertThat(subscription.path("params").path("depth").asInt()).isEqualTo(10);
+
+        // @formatter:off
+        server.send("{\"method\":\"subscribe\",\"success\":true,\"result\":{\"channel\":\"book\"}}");
+        server.send("{" +
+                "\"channel\":\"book\"," +
+                "\"type\":\"snapshot\"," +
+                "\"data\":[{" +
+                "    \"symbol\":\"BTC/EUR\"," +
+                "    \"bids\":[{\"price\":8902.4,\"qty\":0.50000000}]," +
+                "    \"asks\":[{\"price\":8903.3,\"qty\":1.25000000},{\"price\":8903.5,\"qty\":2.00000000}]," +
+                "    \"checksum\":2439117997" +
+                "}]" +
+                "}");
+        // @formatter:on
+
+        final var book = listener.books.poll(5, TimeUnit.SECONDS);
+
+        assertThat(book).isNotNull();
+        assertThat(book.getSymbol()).isEqualTo("BTC/EUR");
+        assertThat(book.isSnapshot()).isTrue();
+        assertThat(book.getChecksum()).isEqualTo(2439117997L);
+        assertThat(book.getBidPrices()).containsExactly(89024L);
+        assertThat(book.getBidQuantities()).containsExactly(50_000_000L);
+        assertThat(book.getAskPrices()).containsExactly(89033L, 89035L);
+        assertThat(book.getAskQuantities()).containsExactly(125_000_000L, 200_000_000L);
+    }
+
+    @Test
+    public void test_subscribeBooks_when_channelAfterData_then_levelsPassedToListener() throws Exception {
+        connector.subscribeBooks(ImmutableList.of("BTC/EUR"), 10, 1, 8, listener);
+        server.takeMessage(5, TimeUnit.SECONDS);
+
+        // @formatter:off
+        server.send("{" +
+                "\"data\":[{" +
+                "    \"symbol\":\"BTC/EUR\"," +
+                "    \"bids\":[{\"price\":8902.7,\"qty\":0}]," +
+                "    \"asks\":[]," +
+                "    \"checksum\":42," +
+                "    \"timestamp\":\"2023-10-06T17:35:55.440295Z\"" +
+                "}]," +
+                "\"channel\":\"book\"," +
+                "\"type\":\"update\"" +
+                "}");
+        // @formatter:on
+
+        final var book = listener.books.poll(5, TimeUnit.SECONDS);
+
+        assertThat(book).isNotNull();
+        assertThat(book.isSnapshot()).isFalse();
+        assertThat(book.getBidPrices()).containsExactly(89027L);
+        assertThat(book.getBidQuantities()).containsExactly(0L);
+        assertThat(book.getAskPrices()).isEmpty();
+        assertThat(book.getChecksum()).isEqualTo(42L);
+    }
+
+    @Test
+    public void test_subscribeBooks_when_moreDecimalPlacesThanSubscribed_then_listenerToldBookUnreadable() throws Exception {
+        connector.subscribeBooks(ImmutableList.of("BTC/EUR"), 10, 1, 8, listener);
+        server.takeMessage(5, TimeUnit.SECONDS);
+
+        // @formatter:off
+        server.send("{" +
+                "\"channel\":\"book\"," +
+                "\"type\":\"update\"," +
+                "\"data\":[{" +
+                "    \"symbol\":\"BTC/EUR\"," +
+                "    \"bids\":[{\"price\":8902.75,\"qty\":0.1}]," +
+                "    \"asks\":[]," +
+                "    \"checksum\":42" +
+                "}]" +
+                "}");
+        // @formatter:on
+
+        assertThat(listener.unreadableBookSymbols.poll(5, TimeUnit.SECONDS)).isEqualTo("BTC/EUR");
+        assertThat(listener.books).isEmpty();
+    }
+
+    @Test
+    public void test_resubscribeBook_when_connected_then_unsubscribedAndSubscribedAgain() throws Exception {
+        connector.subscribeBooks(ImmutableList.of("BTC/EUR"), 25, 1, 8, listener);
+        server.takeMessage(5, TimeUnit.SECONDS);
+
+        connector.resubscribeBook("BTC/EUR");
+
+        final var unsubscription = objectMapper.readTree(server.takeMessage(5, TimeUnit.SECONDS));
+        final var subscription = objectMapper.readTree(server.takeMessage(5, TimeUnit.SECONDS));
+        assertThat(unsubscription.path("method").asText()).isEqualTo("unsubscribe");
+        assertThat(subscription.path("method").asText()).isEqualTo("subscribe");
+        assertThat(subscription.path("params").path("symbol").get(0).asText()).isEqualTo("BTC/EUR");
+        assertThat(subscription.path("params").path("depth").asInt()).isEqualTo(25);
+    }
+
+    @Test
+    public void test_close_when_connected_then_notReconnected() throws Exception {
+        connector.subscribeTickers(ImmutableList.of("BTC/EUR"), listener);
+        server.takeMessage(5, TimeUnit.SECONDS);
+
+        connector.close();
+
+        assertThat(connector.isConnected()).isFalse();
+        assertThat(server.takeMessage(200, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(server.getConnectionCount()).isEqualTo(1);
+    }
+
+    private static final class RecordingListener implements KrakenWebSocketTickerListener, KrakenWebSocketBookListener {
+        @Nonnull
+        private final BlockingQueue<KrakenWebSocketTickerDto> tickers = new LinkedBlockingQueue<>();
+        @Nonnull
+        private final BlockingQueue<KrakenWebSocketBookDto> books = new LinkedBlockingQueue<>();
+        @Nonnull
+        private final BlockingQueue<String> unreadableBookSymbols = new LinkedBlockingQueue<>();
+        @Nonnull
+        private final CountDownLatch disconnected = new CountDownLatch(1);
+
+        @Override
+        public void onTicker(@Nonnull final KrakenWebSocketTickerDto ticker) {
+            tickers.add(ticker);
+        }
+
+        @Override
+        public void onBook(@Nonnull final KrakenWebSocketBookDto book) {
+            books.add(book);
+        }
+
+        @Override
+        public void onUnreadableBook(@Nonnull final String symbol) {
+            unreadableBookSymbols.add(symbol);
+        }
+
+        @Override
+        public void onDisconnected() {
+            disconnected.countDown();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.logic;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal RFC 6455 server standing in for the Kraken WebSocket API in tests. Serves one connection at a time, does
+ * not support extensions and fragmented messages from clients.
+ */
+final class StandInWebSocketServer implements AutoCloseable {
+
+    @Nonnull
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final int OPCODE_TEXT = 0x1;
+    private static final int OPCODE_CLOSE = 0x8;
+    private static final int OPCODE_PING = 0x9;
+    private static final int OPCODE_PONG = 0xA;
+
+    @Nonnull
+    private final ServerSocket serverSocket;
+    @Nonnull
+    private final BlockingQueue<String> receivedMessages = new LinkedBlockingQueue<>();
+    @Nonnull
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    @Nullable
+    private volatile Socket connection;
+
+    StandInWebSocketServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        final var acceptThread = new Thread(this::acceptConnections, "stand-in-websocket-server");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    @Nonnull
+    URI getUri() {
+        return URI.create("ws://localhost:" + serverSocket.getLocalPort() + "/v2");
+    }
+
+    int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * @return the next text message received from a client, null if none arrives within the given time
+     */
+    @Nullable
+    String takeMessage(final long timeout,
+                       @Nonnull final TimeUnit unit) throws InterruptedException {
+        return receivedMessages.poll(timeout, unit);
+    }
+
+    void send(@Nonnull final String text) throws IOException {
+        final var currentConnection = connection;
+        if (currentConnection == null) {
+            throw new IllegalStateException("No client connected");
+        }
+        writeFrame(currentConnection.getOutputStream(), OPCODE_TEXT, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Drops the current connection without a closing handshake as if the network failed.
+     */
+    void dropConnection() throws IOException {
+        final var currentConnection = connection;
+        if (currentConnection != null) {
+            currentConnection.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        dropConnection();
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try (final var socket = serverSocket.accept()) {
+                handshake(socket);
+                connection = socket;
+                connectionCount.incrementAndGet();
+                readFrames(socket);
+            } catch (final IOException exception) {
+                // Connection dropped or server closed, wait for the next connection.
+            } finally {
+                connection = null;
+            }
+        }
+    }
+
+    private static void handshake(@Nonnull final Socket socket) throws IOException {
+        final var input = socket.getInputStream();
+        String key = null;
+        String line;
+        while (!(line = readLine(input)).isEmpty()) {
+            final var separatorIndex = line.indexOf(':');
+            if (separatorIndex > 0 && line.substring(0, separatorIndex).trim().equalsIgnoreCase("Sec-WebSocket-Key")) {
+                key = line.substring(separatorIndex + 1).trim();
+            }
+        }
+        if (key == null) {
+            throw new IOException("Not a WebSocket handshake");
+        }
+        final var response = "HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + computeAccept(key) + "\r\n"
+                + "\r\n";
+        socket.getOutputStream().write(response.getBytes(StandardCharsets.US_ASCII));
+        socket.getOutputStream().flush();
+    }
+
+    @Nonnull
+    private static String readLine(@Nonnull final InputStream input) throws IOException {
+        final var line = new ByteArrayOutputStream();
+        int character;
+        while ((character = input.read()) != '\n') {
+            if (character == -1) {
+                throw new IOException("Connection closed during handshake");
+            }
+            if (character != '\r') {
+                line.write(character);
+            }
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    @Nonnull
+    private static String computeAccept(@Nonnull final String key) {
+        try {
+            final var sha1 = MessageDigest.getInstance("SHA-1")
+                    .digest((key + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(sha1);
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private void readFrames(@Nonnull final Socket socket) throws IOException {
+        final var input = new DataInputStream(socket.getInputStream());
+        while (true) {
+            final var opcode = input.readUnsignedByte() & 0x0F;
+            final var maskAndLength = input.readUnsignedByte();
+            long length = maskAndLength & 0x7F;
+            if (length == 126) {
+                length = input.readUnsignedShort();
+            } else if (length == 127) {
+                length = input.readLong();
+            }
+            final var mask = new byte[4];
+            if ((maskAndLength & 0x80) != 0) {
+                input.readFully(mask);
+            }
+            final var payload = new byte[(int) length];
+            input.readFully(payload);
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= mask[i % 4];
+            }
+            switch (opcode) {
+                case OPCODE_TEXT:
+                    receivedMessages.add(new String(payload, StandardCharsets.UTF_8));
+                    break;
+                case OPCODE_PING:
+                    writeFrame(socket.getOutputStream(), OPCODE_PONG, payload);
+                    break;
+                case OPCODE_CLOSE:
+                    writeFrame(socket.getOutputStream(), OPCODE_CLOSE, payload);
+                    return;
+                default:
+                    // Pongs and binary frames are not used by the tests.
+            }
+        }
+    }
+
+    private static synchronized void writeFrame(@Nonnull final OutputStream output,
+                                                final int opcode,
+                                                @Nonnull final byte[] payload) throws IOException {
+        final var frame = new ByteArrayOutputStream();
+        frame.write(0x80 | opcode);
+        if (payload.length < 126) {
+            frame.write(payload.length);
+        } else if (payload.length <= 0xFFFF) {
+            frame.write(126);
+            frame.write(payload.length >>> 8);
+            frame.write(payload.length & 0xFF);
+        } else {
+            frame.write(127);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                frame.write((int) ((long) payload.length >>> shift) & 0xFF);
+            }
+        }
+        frame.write(payload);
+        output.write(frame.toByteArray());
+        output.flush();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.nonce;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtomicKrakenNonceGeneratorUTest {
+
+    @Test
+    public void test_nextNonce_when_clockDoesNotMove_then_strictlyIncreasingNonces() {
+        final var clock = Clock.fixed(Instant.ofEpochMilli(1_588_000_000_000L), ZoneOffset.UTC);
+        final var generator = new AtomicKrakenNonceGenerator(clock);
+
+        assertThat(generator.nextNonce()).isEqualTo(1_588_000_000_000_000L);
+        assertThat(generator.nextNonce()).isEqualTo(1_588_000_000_000_001L);
+        assertThat(generator.nextNonce()).isEqualTo(1_588_000_000_000_002L);
+    }
+
+    @Test
+    public void test_nextNonce_when_clockGoesBackwards_then_stillIncreasingNonces() {
+        final var clock = new AdjustableClock(1_588_000_000_000L);
+        final var generator = new AtomicKrakenNonceGenerator(clock);
+        final var nonceBeforeClockAdjustment = generator.nextNonce();
+
+        clock.setMillis(1_587_999_999_000L);
+
+        assertThat(generator.nextNonce()).isEqualTo(nonceBeforeClockAdjustment + 1);
+    }
+
+    @Test
+    public void test_nextNonce_when_manyThreadsAtHighRate_then_noDuplicates() throws Exception {
+        final var generator = new AtomicKrakenNonceGenerator();
+        final var threadCount = 8;
+        final var noncesPerThread = 100_000;
+        final var executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            final var tasks = new ArrayList<Callable<long[]>>();
+            for (int i = 0; i < threadCount; i++) {
+                tasks.add(() -> {
+                    final var nonces = new long[noncesPerThread];
+                    for (int j = 0; j < noncesPerThread; j++) {
+                        nonces[j] = generator.nextNonce();
+                    }
+                    return nonces;
+                });
+            }
+            final var allNonces = new HashSet<Long>();
+            for (final Future<long[]> result : executor.invokeAll(tasks)) {
+                final var nonces = result.get();
+                for (int j = 0; j < nonces.length; j++) {
+                    assertThat(allNonces.add(nonces[j])).isTrue();
+                    if (j > 0) {
+                        assertThat(nonces[j]).isGreaterThan(nonces[j - 1]);
+                    }
+                }
+            }
+            assertThat(allNonces).hasSize(threadCount * noncesPerThread);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static final class AdjustableClock extends Clock {
+        private volatile long millis;
+
+        private AdjustableClock(final long millis) {
+            this.millis = millis;
+        }
+
+        private void setMillis(final long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.nonce;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MemoryMappedKrakenNonceGeneratorUTest {
+
+    private Path nonceFile;
+
+    @BeforeEach
+    public void createNonceFile() throws Exception {
+        nonceFile = Files.createTempFile("kraken-nonce", ".bin");
+    }
+
+    @AfterEach
+    public void deleteNonceFile() throws Exception {
+        Files.deleteIfExists(nonceFile);
+    }
+
+    @Test
+    public void test_nextNonce_when_twoGeneratorsShareFile_then_strictlyIncreasingNoncesAcrossGenerators() throws Exception {
+        final var clock = Clock.fixed(Instant.ofEpochMilli(1_588_000_000_000L), ZoneOffset.UTC);
+        final var firstGenerator = new MemoryMappedKrakenNonceGenerator(nonceFile, clock);
+        final var secondGenerator = new MemoryMappedKrakenNonceGenerator(nonceFile, clock);
+
+        assertThat(firstGenerator.nextNonce()).isEqualTo(1_588_000_000_000_000L);
+        assertThat(secondGenerator.nextNonce()).isEqualTo(1_588_000_000_000_001L);
+        assertThat(firstGenerator.nextNonce()).isEqualTo(1_588_000_000_000_002L);
+    }
+
+    @Test
+    public void test_nextNonce_when_manyThreadsOnSeparateMappings_then_noDuplicates() throws Exception {
+        final var threadCount = 4;
+        final var noncesPerThread = 50_000;
+        final var executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            final var tasks = new ArrayList<Callable<long[]>>();
+            for (int i = 0; i < threadCount; i++) {
+                // Every thread maps the file on its own like a separate process would.
+                final var generator = new MemoryMappedKrakenNonceGenerator(nonceFile);
+                tasks.add(() -> {
+                    final var nonces = new long[noncesPerThread];
+                    for (int j = 0; j < noncesPerThread; j++) {
+                        nonces[j] = generator.nextNonce();
+                    }
+                    return nonces;
+                });
+            }
+            final var allNonces = new HashSet<Long>();
+            for (final Future<long[]> result : executor.invokeAll(tasks)) {
+                for (final long nonce : result.get()) {
+                    assertThat(allNonces.add(nonce)).isTrue();
+                }
+            }
+            assertThat(allNonces).hasSize(threadCount * noncesPerThread);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.ratelimit;
+
+import com.google.common.collect.ImmutableList;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenResponseDto;
+import edu.self.kraken.api.KrakenApi;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+public class KrakenRateLimitGovernorUTest {
+
+    @Nonnull
+    private final AtomicLong nanoTime = new AtomicLong(1_000_000_000L);
+    @Nonnull
+    private final KrakenRateLimitGovernor governor = new KrakenRateLimitGovernor(KrakenAccountTier.STARTER,
+            nanoTime::get);
+
+    @Test
+    public void test_reserve_when_counterNotFull_then_noWait() {
+        for (int i = 0; i < 15; i++) {
+            assertThat(governor.reserve(KrakenApi.Method.BALANCE, null)).isZero();
+        }
+        assertThat(governor.getAvailableApiBudget()).isCloseTo(0.0, within(1e-9));
+    }
+
+    @Test
+    public void test_reserve_when_counterFull_then_waitUntilCounterDecreased() {
+        for (int i = 0; i < 15; i++) {
+            governor.reserve(KrakenApi.Method.BALANCE, null);
+        }
+
+        assertThat(governor.reserve(KrakenApi.Method.OPEN_ORDERS, null))
+                .isCloseTo(TimeUnit.SECONDS.toNanos(1) * 100 / 33, within(1_000L));
+        assertThat(governor.reserve(KrakenApi.Method.CLOSED_ORDERS, null))
+                .isCloseTo(TimeUnit.SECONDS.toNanos(2) * 100 / 33, within(1_000L));
+        assertThat(governor.getAvailableApiBudget()).isCloseTo(-2.0, within(1e-9));
+    }
+
+    @Test
+    public void test_reserve_when_timePassed_then_counterDecreased() {
+        for (int i = 0; i < 15; i++) {
+            governor.reserve(KrakenApi.Method.BALANCE, null);
+        }
+
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        assertThat(governor.getAvailableApiBudget()).isCloseTo(3.3, within(1e-9));
+        assertThat(governor.reserve(KrakenApi.Method.BALANCE, null)).isZero();
+    }
+
+    @Test
+    public void test_reserve_when_ledgers_then_costOfTwo() {
+        governor.reserve(KrakenApi.Method.LEDGERS, null);
+
+        assertThat(governor.getAvailableApiBudget()).isCloseTo(13.0, within(1e-9));
+    }
+
+    @Test
+    public void test_reserve_when_apiCounterFull_then_ordersNotDelayed() {
+        for (int i = 0; i < 20; i++) {
+            governor.reserve(KrakenApi.Method.BALANCE, null);
+        }
+
+        assertThat(governor.reserve(KrakenApi.Method.ADD_ORDER, "XXBTZEUR")).isZero();
+        assertThat(governor.getAvailableOrderBudget("XXBTZEUR")).isCloseTo(59.0, within(1e-9));
+    }
+
+    @Test
+    public void test_reserve_when_orderCounterOfOtherPairFull_then_orderNotDelayed() {
+        for (int i = 0; i < 60; i++) {
+            governor.reserve(KrakenApi.Method.ADD_ORDER, "XXBTZEUR");
+        }
+
+        assertThat(governor.reserve(KrakenApi.Method.ADD_ORDER, "XETHZEUR")).isZero();
+        assertThat(governor.reserve(KrakenApi.Method.ADD_ORDER, "XXBTZEUR")).isPositive();
+        assertThat(governor.getAvailableOrderBudgets())
+                .containsOnlyKeys("XXBTZEUR", "XETHZEUR")
+                .containsEntry("XETHZEUR", 59.0);
+        assertThat(governor.getAvailableOrderBudget("XXBTZEUR")).isCloseTo(-1.0, within(1e-9));
+    }
+
+    @Test
+    public void test_reserve_when_orderWithoutMarketName_then_exception() {
+        assertThatThrownBy(() -> governor.reserve(KrakenApi.Method.ADD_ORDER, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Market name is mandatory for ADD_ORDER");
+    }
+
+    @Test
+    public void test_getAvailableOrderBudget_when_noOrderOfPair_then_maxOrderCounter() {
+        assertThat(governor.getAvailableOrderBudget("XXBTZEUR")).isEqualTo(60.0);
+        assertThat(governor.getAvailableOrderBudgets()).isEmpty();
+    }
+
+    @Test
+    public void test_reserve_when_publicMethod_then_neverDelayed() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(governor.reserve(KrakenApi.Method.TICKER, null)).isZero();
+        }
+        assertThat(governor.getAvailableApiBudget()).isCloseTo(15.0, within(1e-9));
+    }
+
+    @Test
+    public void test_onResponse_when_rateLimitExceeded_then_counterFull() {
+        final var response = new KrakenResponseDto<Object>();
+        response.setError(ImmutableList.of("EAPI:Rate limit exceeded"));
+
+        governor.onResponse(KrakenApi.Method.BALANCE, null, response);
+
+        assertThat(governor.getAvailableApiBudget()).isCloseTo(0.0, within(1e-9));
+        assertThat(governor.reserve(KrakenApi.Method.BALANCE, null)).isPositive();
+        assertThat(governor.getAvailableOrderBudget("XXBTZEUR")).isCloseTo(60.0, within(1e-9));
+    }
+
+    @Test
+    public void test_onResponse_when_otherError_then_counterUnchanged() {
+        final var response = new KrakenResponseDto<Object>();
+        response.setError(ImmutableList.of("EGeneral:Invalid arguments"));
+
+        governor.onResponse(KrakenApi.Method.BALANCE, null, response);
+
+        assertThat(governor.getAvailableApiBudget()).isCloseTo(15.0, within(1e-9));
+    }
+
+    @Test
+    public void test_acquireAsync_when_counterNotFull_then_completedImmediately() {
+        assertThat(governor.acquireAsync(KrakenApi.Method.BALANCE, null)).isCompleted();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.signature;
+
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KrakenRequestSignerUTest {
+
+    @Nonnull
+    private static final String SECRET = Base64.getEncoder().encodeToString(
+            "kraken-api-secret-used-only-in-tests".getBytes(StandardCharsets.UTF_8));
+
+    @Nonnull
+    private final KrakenRequestSigner signer = new KrakenRequestSigner(SECRET);
+
+    public KrakenRequestSignerUTest() throws Exception {
+    }
+
+    @Test
+    public void test_sign_when_requestOfBalance_then_signatureOfKrakenSpecificationReturned() throws Exception {
+        final var nonce = "1588000000000000";
+        final var postData = "nonce=1588000000000000&";
+
+        assertThat(signer.sign("/0/private/Balance", nonce, postData))
+                .isEqualTo(signWithoutReuse("/0/private/Balance", nonce, postData));
+    }
+
+    @Test
+    public void test_sign_when_requestsOfDifferentLengths_then_buffersReusedWithoutLeftovers() throws Exception {
+        final var longPostData = "pair=XBTEUR&oflags=fciq&".repeat(50) + "nonce=1588000000000001&";
+        final var shortPostData = "nonce=1588000000000002&";
+
+        assertThat(signer.sign("/0/private/AddOrder", "1588000000000001", longPostData))
+                .isEqualTo(signWithoutReuse("/0/private/AddOrder", "1588000000000001", longPostData));
+        assertThat(signer.sign("/0/private/Balance", "1588000000000002", shortPostData))
+                .isEqualTo(signWithoutReuse("/0/private/Balance", "1588000000000002", shortPostData));
+    }
+
+    @Test
+    public void test_sign_when_nonAsciiPostData_then_utf8BytesSigned() throws Exception {
+        final var postData = "nonce=1588000000000003&description=\u20acuro&";
+
+        assertThat(signer.sign("/0/private/AddOrder", "1588000000000003", postData))
+                .isEqualTo(signWithoutReuse("/0/private/AddOrder", "1588000000000003", postData));
+    }
+
+    @Test
+    public void test_sign_when_severalThreads_then_everyThreadGetsCorrectSignatures() throws Exception {
+        final var executor = Executors.newFixedThreadPool(4);
+        try {
+            final var tasks = new ArrayList<Callable<Boolean>>();
+            for (int i = 0; i < 200; i++) {
+                final var nonce = String.valueOf(1588000000000000L + i);
+                final var postData = "trades=true&nonce=" + nonce + "&";
+                tasks.add(() -> signer.sign("/0/private/OpenOrders", nonce, postData)
+                        .equals(signWithoutReuse("/0/private/OpenOrders", nonce, postData)));
+            }
+            for (final Future<Boolean> result : executor.invokeAll(tasks)) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void test_sign_when_newThreadPerSignature_then_contextReused() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            final var nonce = String.valueOf(1588000000000100L + i);
+            final var thread = new Thread(() -> signer.sign("/0/private/Balance", nonce, "nonce=" + nonce + "&"));
+            thread.start();
+            thread.join();
+        }
+
+        assertThat(signer.getCreatedContextCount()).isEqualTo(1);
+    }
+
+    @Nonnull
+    private static String signWithoutReuse(@Nonnull final String path,
+                                           @Nonnull final String nonce,
+                                           @Nonnull final String postData) throws Exception {
+        final var sha256 = MessageDigest.getInstance("SHA-256")
+                .digest((nonce + postData).getBytes(StandardCharsets.UTF_8));
+        final var mac = Mac.getInstance("HmacSHA512");
+        mac.init(new SecretKeySpec(Base64.getDecoder().decode(SECRET), "HmacSHA512"));
+        mac.update(path.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(mac.doFinal(sha256));
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connector.impl.transport;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HttpClientKrakenTransportUTest {
+
+    @Nonnull
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    @Nonnull
+    private final List<String> receivedBodies = new CopyOnWriteArrayList<>();
+    @Nonnull
+    private final List<String> receivedApiKeys = new CopyOnWriteArrayList<>();
+    @Nonnull
+    private final List<String> receivedAcceptEncodings = new CopyOnWriteArrayList<>();
+    @Nonnull
+    private final HttpClientKrakenTransport transport = new HttpClientKrakenTransport(new KrakenTransportConfig(
+            2, Duration.ofSeconds(5), Duration.ofSeconds(5)));
+    private HttpServer server;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/0/public/Time", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            receivedBodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            receivedApiKeys.add(String.valueOf(exchange.getRequestHeaders().getFirst("API-Key")));
+            final var response = "{\"error\":[],\"result\":{\"unixtime\":1588000000}}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.createContext("/0/private/ClosedOrders", exchange -> {
+            final var response = "{\"error\":[],\"result\":{\"closed\":{},\"count\":0}}".getBytes(StandardCharsets.UTF_8);
+            final var acceptEncoding = String.valueOf(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            receivedAcceptEncodings.add(acceptEncoding);
+            if ("gzip".equals(acceptEncoding)) {
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(200, 0);
+                try (final var gzipOutputStream = new GZIPOutputStream(exchange.getResponseBody())) {
+                    gzipOutputStream.write(response);
+                }
+            } else {
+                exchange.sendResponseHeaders(200, response.length);
+                exchange.getResponseBody().write(response);
+            }
+            exchange.close();
+        });
+        server.createContext("/0/public/Missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void test_post_when_severalSequentialRequests_then_oneConnectionReused() throws Exception {
+        final var uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/0/public/Time");
+
+        for (int i = 0; i < 5; i++) {
+            final var response = transport.post(uri, Map.of("API-Key", "key" + i), "nonce=" + i);
+            assertThat(response).isEqualTo("{\"error\":[],\"result\":{\"unixtime\":1588000000}}");
+        }
+
+        assertThat(clientPorts).hasSize(1);
+        assertThat(receivedBodies).containsExactly("nonce=0", "nonce=1", "nonce=2", "nonce=3", "nonce=4");
+        assertThat(receivedApiKeys).containsExactly("key0", "key1", "key2", "key3", "key4");
+    }
+
+    @Test
+    public void test_postAsync_when_moreConcurrentRequestsThanMaxConcurrentRequests_then_allResponsesReceived() {
+        final var uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/0/public/Time");
+
+        final var responses = new ArrayList<CompletableFuture<String>>();
+        for (int i = 0; i < 6; i++) {
+            responses.add(transport.postAsync(uri, Map.of("API-Key", "key" + i), "nonce=" + i));
+        }
+        final var responseBodies = responses.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+
+        assertThat(responseBodies).hasSize(6)
+                .containsOnly("{\"error\":[],\"result\":{\"unixtime\":1588000000}}");
+        assertThat(receivedBodies).containsExactlyInAnyOrder(
+                "nonce=0", "nonce=1", "nonce=2", "nonce=3", "nonce=4", "nonce=5");
+        assertThat(clientPorts.size()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void test_postForStream_when_gzipNegotiated_and_moreRequestsThanMaxConcurrentRequests_then_decompressedBodiesReturned() throws Exception {
+        final var uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/0/private/ClosedOrders");
+
+        // Every closed stream gives its connection back, otherwise the third request would wait forever.
+        for (int i = 0; i < 3; i++) {
+            try (final var response = transport.postForStream(uri, Map.of(), "nonce=" + i)) {
+                assertThat(new String(response.readAllBytes(), StandardCharsets.UTF_8))
+                        .isEqualTo("{\"error\":[],\"result\":{\"closed\":{},\"count\":0}}");
+            }
+        }
+
+        assertThat(receivedAcceptEncodings).containsExactly("gzip", "gzip", "gzip");
+    }
+
+    @Test
+    public void test_postForStream_when_errorStatus_then_exception() {
+        final var uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/0/public/Missing");
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> transport.postForStream(uri, Map.of(), null))
+                    .isInstanceOf(IOException.class)
+                    .hasMessage("Unexpected response status [404] from " + uri);
+        }
+    }
+
+    @Test
+    public void test_post_when_errorStatus_then_exception() {
+        final var uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/0/public/Missing");
+
+        assertThatThrownBy(() -> transport.post(uri, Map.of(), null))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Unexpected response status [404] from " + uri);
+    }
+}
@@ -30,10 +30,13 @@ public class KrakenMarketNameToCurrencyPairBoEnumConverter
     @Override
     @Nonnull
     public CurrencyPairBo convert(@Nonnull final String krakenMarketName) {
-        if ("XBTEUR".equals(krakenMarketName)) {
-            return new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
-        } else {
-            throw new IllegalArgumentException("Unsupported Kraken market name [" + krakenMarketName + "]");
+        switch (krakenMarketName) {
+            // The former is used in requests and orders, the latter as keys of market data responses.
+            case "XBTEUR":
+            case "XXBTZEUR":
+                return new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+            default:
+                throw new IllegalArgumentException("Unsupported Kraken market name [" + krakenMarketName + "]");
         }
     }
 }
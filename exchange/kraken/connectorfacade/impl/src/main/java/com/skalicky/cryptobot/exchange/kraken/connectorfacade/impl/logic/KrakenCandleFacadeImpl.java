@@ -0,0 +1,176 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.logic;
+
+import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenPublicApiConnector;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.api.logic.KrakenCandleFacade;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.orderbook.KrakenPairPrecision;
+import com.skalicky.cryptobot.exchange.shared.connectorfacade.api.converter.NonnullConverter;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CandlesBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CandleIntervalBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.candle.CandleSeries;
+import org.apache.commons.collections4.CollectionUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the candles of every requested currency pair and interval in memory and retrieves only newer candles by the
+ * cursor Kraken returns with every response.
+ */
+public class KrakenCandleFacadeImpl implements KrakenCandleFacade {
+
+    @Nonnull
+    private final KrakenPublicApiConnector krakenPublicApiConnector;
+    @Nonnull
+    private final NonnullConverter<CurrencyPairBo, String> currencyPairBoEnumToKrakenMarketNameConverter;
+    @Nonnull
+    private final NonnullConverter<CurrencyPairBo, KrakenPairPrecision> currencyPairBoToKrakenPairPrecisionConverter;
+    @Nonnull
+    private final NonnullConverter<LocalDateTime, Long> localDateTimeToEpochSecondLongConverter;
+    private final int maxCandleCount;
+    @Nonnull
+    private final ConcurrentHashMap<SeriesKey, KnownCandles> knownCandlesBySeries = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxCandleCount maximum number of candles kept per currency pair and interval
+     */
+    public KrakenCandleFacadeImpl(@Nonnull final KrakenPublicApiConnector krakenPublicApiConnector,
+                                  @Nonnull final NonnullConverter<CurrencyPairBo, String> currencyPairBoEnumToKrakenMarketNameConverter,
+                                  @Nonnull final NonnullConverter<CurrencyPairBo, KrakenPairPrecision> currencyPairBoToKrakenPairPrecisionConverter,
+                                  @Nonnull final NonnullConverter<LocalDateTime, Long> localDateTimeToEpochSecondLongConverter,
+                                  final int maxCandleCount) {
+        this.krakenPublicApiConnector = krakenPublicApiConnector;
+        this.currencyPairBoEnumToKrakenMarketNameConverter = currencyPairBoEnumToKrakenMarketNameConverter;
+        this.currencyPairBoToKrakenPairPrecisionConverter = currencyPairBoToKrakenPairPrecisionConverter;
+        this.localDateTimeToEpochSecondLongConverter = localDateTimeToEpochSecondLongConverter;
+        this.maxCandleCount = maxCandleCount;
+    }
+
+    @Override
+    @Nonnull
+    public CandlesBo getCandles(@Nonnull final CurrencyPairBo currencyPair,
+                                @Nonnull final CandleIntervalBoEnum interval,
+                                @Nonnull final LocalDateTime from,
+                                @Nonnull final LocalDateTime to) {
+        final var knownCandles = knownCandlesBySeries.computeIfAbsent(new SeriesKey(currencyPair, interval),
+                key -> {
+                    final var precision = currencyPairBoToKrakenPairPrecisionConverter.convert(currencyPair);
+                    return new KnownCandles(new CandleSeries(maxCandleCount, precision.getPriceDecimals(),
+                            precision.getQuantityDecimals()));
+                });
+        // Serializes the retrievals of one series so that concurrent callers do not retrieve the same candles.
+        knownCandles.lock.lock();
+        try {
+            retrieveNewCandles(currencyPair, interval, knownCandles);
+            return knownCandles.series.toCandlesBo(currencyPair, interval,
+                    localDateTimeToEpochSecondLongConverter.convert(from),
+                    localDateTimeToEpochSecondLongConverter.convert(to));
+        } finally {
+            knownCandles.lock.unlock();
+        }
+    }
+
+    private void retrieveNewCandles(@Nonnull final CurrencyPairBo currencyPair,
+                                    @Nonnull final CandleIntervalBoEnum interval,
+                                    @Nonnull final KnownCandles knownCandles) {
+        final var series = knownCandles.series;
+        final var response = krakenPublicApiConnector.ohlc(
+                currencyPairBoEnumToKrakenMarketNameConverter.convert(currencyPair),
+                (int) interval.getDuration().toMinutes(), knownCandles.since, series.getPriceScale(),
+                series.getVolumeScale());
+        if (CollectionUtils.isNotEmpty(response.getError())) {
+            throw new IllegalStateException(response.getError().toString());
+        }
+        final var result = response.getResult();
+        if (result == null || result.getTimes() == null || result.getOpens() == null || result.getHighs() == null
+                || result.getLows() == null || result.getCloses() == null || result.getVolumes() == null) {
+            throw new IllegalStateException("No candles in the response for " + interval + " of "
+                    + currencyPair.getQuoteCurrency().getLabel() + currencyPair.getBaseCurrency().getLabel());
+        }
+
+        final var times = result.getTimes();
+        for (int i = 0; i < times.length; i++) {
+            // Candles older than the known ones are skipped, the newest known one is updated if still in progress.
+            if (times[i] >= series.getLastTime()) {
+                series.append(times[i], result.getOpens()[i], result.getHighs()[i], result.getLows()[i],
+                        result.getCloses()[i], result.getVolumes()[i]);
+            }
+        }
+        if (result.getLast() != null) {
+            knownCandles.since = result.getLast();
+        }
+    }
+
+    private static final class KnownCandles {
+        /**
+         * Held during the retrieval, a lock instead of a monitor so that a virtual thread waiting for the response
+         * does not pin its carrier thread.
+         */
+        @Nonnull
+        private final Lock lock = new ReentrantLock();
+        @Nonnull
+        private final CandleSeries series;
+        /**
+         * Null until the first retrieval.
+         */
+        @Nullable
+        private Long since;
+
+        private KnownCandles(@Nonnull final CandleSeries series) {
+            this.series = series;
+        }
+    }
+
+    private static final class SeriesKey {
+        @Nonnull
+        private final CurrencyPairBo currencyPair;
+        @Nonnull
+        private final CandleIntervalBoEnum interval;
+
+        private SeriesKey(@Nonnull final CurrencyPairBo currencyPair,
+                          @Nonnull final CandleIntervalBoEnum interval) {
+            this.currencyPair = currencyPair;
+            this.interval = interval;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (other == null || getClass() != other.getClass()) {
+                return false;
+            }
+            final var that = (SeriesKey) other;
+            return currencyPair.equals(that.currencyPair) && interval == that.interval;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(currencyPair, interval);
+        }
+    }
+}
@@ -20,8 +20,13 @@ package com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.logic;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenAddOrderResultDto;
 import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenClosedOrderDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenClosedOrderResultDto;
 import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenOpenOrderDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenOpenOrderResultDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenResponseDto;
 import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenPrivateApiConnector;
 import com.skalicky.cryptobot.exchange.kraken.connectorfacade.api.logic.KrakenPrivateApiFacade;
 import com.skalicky.cryptobot.exchange.shared.connectorfacade.api.converter.NonnullConverter;
@@ -39,7 +44,9 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 public class KrakenPrivateApiFacadeImpl implements KrakenPrivateApiFacade {
@@ -82,7 +89,19 @@ public class KrakenPrivateApiFacadeImpl implements KrakenPrivateApiFacade {
     @Override
     public ImmutableList<OpenOrderBo> getOpenOrders(final boolean includeTrades) {
         final var response = krakenPrivateApiConnector.openOrders(includeTrades);
+        return convertOpenOrdersResponse(response);
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<ImmutableList<OpenOrderBo>> getOpenOrdersAsync(final boolean includeTrades) {
+        return krakenPrivateApiConnector.openOrdersAsync(includeTrades)
+                .thenApply(this::convertOpenOrdersResponse);
+    }
 
+    @Nonnull
+    private ImmutableList<OpenOrderBo> convertOpenOrdersResponse(
+            @Nonnull final KrakenResponseDto<KrakenOpenOrderResultDto> response) {
         if (CollectionUtils.isNotEmpty(response.getError())) {
             throw new IllegalStateException(response.getError().toString());
         }
@@ -101,7 +120,30 @@ public class KrakenPrivateApiFacadeImpl implements KrakenPrivateApiFacade {
                                                         @Nonnull final LocalDateTime from) {
         final var fromInEpochSeconds = localDateTimeToEpochSecondLongConverter.convert(from);
         final var response = krakenPrivateApiConnector.closedOrders(includeTrades, fromInEpochSeconds);
+        return convertClosedOrdersResponse(response);
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<ImmutableList<ClosedOrderBo>> getClosedOrdersAsync(final boolean includeTrades,
+                                                                                @Nonnull final LocalDateTime from) {
+        final var fromInEpochSeconds = localDateTimeToEpochSecondLongConverter.convert(from);
+        return krakenPrivateApiConnector.closedOrdersAsync(includeTrades, fromInEpochSeconds)
+                .thenApply(this::convertClosedOrdersResponse);
+    }
 
+    @Nonnull
+    @Override
+    public Iterator<ClosedOrderBo> getClosedOrdersIterator(final boolean includeTrades,
+                                                           @Nonnull final LocalDateTime from) {
+        final var fromInEpochSeconds = localDateTimeToEpochSecondLongConverter.convert(from);
+        return Iterators.transform(krakenPrivateApiConnector.closedOrdersIterator(includeTrades, fromInEpochSeconds),
+                krakenMapEntryToClosedOrderBoConverter::convert);
+    }
+
+    @Nonnull
+    private ImmutableList<ClosedOrderBo> convertClosedOrdersResponse(
+            @Nonnull final KrakenResponseDto<KrakenClosedOrderResultDto> response) {
         if (CollectionUtils.isNotEmpty(response.getError())) {
             throw new IllegalStateException(response.getError().toString());
         }
@@ -118,7 +160,19 @@ public class KrakenPrivateApiFacadeImpl implements KrakenPrivateApiFacade {
     @Override
     public ImmutableMap<CurrencyBoEnum, BigDecimal> getAccountBalance() {
         final var response = krakenPrivateApiConnector.balance();
+        return convertBalanceResponse(response);
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<ImmutableMap<CurrencyBoEnum, BigDecimal>> getAccountBalanceAsync() {
+        return krakenPrivateApiConnector.balanceAsync()
+                .thenApply(this::convertBalanceResponse);
+    }
 
+    @Nonnull
+    private ImmutableMap<CurrencyBoEnum, BigDecimal> convertBalanceResponse(
+            @Nonnull final KrakenResponseDto<Map<String, BigDecimal>> response) {
         if (CollectionUtils.isNotEmpty(response.getError())) {
             throw new IllegalStateException(response.getError().toString());
         }
@@ -144,24 +198,61 @@ public class KrakenPrivateApiFacadeImpl implements KrakenPrivateApiFacade {
         final var krakenMarketName = currencyPairBoEnumToKrakenMarketNameConverter.convert(currencyPair);
         final var krakenOrderType = orderTypeBoEnumToKrakenOrderTypeConverter.convert(orderType);
         final var krakenPriceOrderType = priceOrderTypeBoEnumToKrakenOrderTypeConverter.convert(priceOrderType);
+        final var krakenOrderFlags = createKrakenOrderFlags(preferFeeInQuoteCurrency);
+        final var krakenPrice = createKrakenPrice(currencyPair, price);
+
+        final var response = krakenPrivateApiConnector.addOrder(krakenMarketName,
+                krakenOrderType, krakenPriceOrderType, krakenPrice, volumeInQuoteCurrency,
+                krakenOrderFlags, orderExpirationInSecondsFromNow);
+
+        checkAddOrderResponse(response);
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Void> placeOrderAsync(@Nonnull final OrderTypeBoEnum orderType,
+                                                   @Nonnull final PriceOrderTypeBoEnum priceOrderType,
+                                                   @Nonnull final CurrencyPairBo currencyPair,
+                                                   @Nonnull final BigDecimal volumeInQuoteCurrency,
+                                                   @Nonnull final BigDecimal price,
+                                                   final boolean preferFeeInQuoteCurrency,
+                                                   final long orderExpirationInSecondsFromNow) {
+
+        final var krakenMarketName = currencyPairBoEnumToKrakenMarketNameConverter.convert(currencyPair);
+        final var krakenOrderType = orderTypeBoEnumToKrakenOrderTypeConverter.convert(orderType);
+        final var krakenPriceOrderType = priceOrderTypeBoEnumToKrakenOrderTypeConverter.convert(priceOrderType);
+        final var krakenOrderFlags = createKrakenOrderFlags(preferFeeInQuoteCurrency);
+        final var krakenPrice = createKrakenPrice(currencyPair, price);
+
+        return krakenPrivateApiConnector.addOrderAsync(krakenMarketName,
+                krakenOrderType, krakenPriceOrderType, krakenPrice, volumeInQuoteCurrency,
+                krakenOrderFlags, orderExpirationInSecondsFromNow)
+                .thenAccept(this::checkAddOrderResponse);
+    }
+
+    @Nonnull
+    private ImmutableList<String> createKrakenOrderFlags(final boolean preferFeeInQuoteCurrency) {
         final var krakenOrderFlags = new ArrayList<String>();
         if (preferFeeInQuoteCurrency) {
             krakenOrderFlags.add("fciq");
         }
-        final BigDecimal krakenPrice;
+        return ImmutableList.copyOf(krakenOrderFlags);
+    }
+
+    @Nonnull
+    private BigDecimal createKrakenPrice(@Nonnull final CurrencyPairBo currencyPair,
+                                         @Nonnull final BigDecimal price) {
         if (currencyPair.getQuoteCurrency() == CurrencyBoEnum.BTC
                 && currencyPair.getBaseCurrency() == CurrencyBoEnum.EUR) {
             // Scale set to 1 due to Kraken constraint:
             // "EOrder:Invalid price:XXBTZEUR price can only be specified up to 1 decimals."
-            krakenPrice = price.setScale(1, RoundingMode.HALF_UP);
+            return price.setScale(1, RoundingMode.HALF_UP);
         } else {
-            krakenPrice = price;
+            return price;
         }
+    }
 
-        final var response = krakenPrivateApiConnector.addOrder(krakenMarketName,
-                krakenOrderType, krakenPriceOrderType, krakenPrice, volumeInQuoteCurrency,
-                ImmutableList.copyOf(krakenOrderFlags), orderExpirationInSecondsFromNow);
-
+    private void checkAddOrderResponse(@Nonnull final KrakenResponseDto<KrakenAddOrderResultDto> response) {
         if (CollectionUtils.isNotEmpty(response.getError())) {
             throw new IllegalStateException(response.getError().toString());
         }
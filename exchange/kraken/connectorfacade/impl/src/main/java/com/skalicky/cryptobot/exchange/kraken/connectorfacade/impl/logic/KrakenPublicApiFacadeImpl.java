@@ -19,31 +19,68 @@
 package com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.logic;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenResponseDto;
 import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenPublicApiConnector;
 import com.skalicky.cryptobot.exchange.kraken.connectorfacade.api.logic.KrakenPublicApiFacade;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.orderbook.KrakenPairPrecision;
 import com.skalicky.cryptobot.exchange.shared.connectorfacade.api.converter.NonnullConverter;
 import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.OrderBookBo;
 import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.TickerBo;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.MapUtils;
+import org.apache.commons.lang3.ArrayUtils;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class KrakenPublicApiFacadeImpl implements KrakenPublicApiFacade {
+    /**
+     * Keeps requests for many markets well below the URL and form length limits of common HTTP servers and proxies.
+     */
+    private static final int DEFAULT_MAX_MARKET_NAMES_LENGTH = 1024;
+
     @Nonnull
     private final KrakenPublicApiConnector krakenPublicApiConnector;
     @Nonnull
     private final NonnullConverter<CurrencyPairBo, String> currencyPairBoEnumToKrakenMarketNameConverter;
     @Nonnull
+    private final NonnullConverter<String, CurrencyPairBo> krakenMarketNameToCurrencyPairBoEnumConverter;
+    @Nonnull
     private final NonnullConverter<Map.Entry<String, Map<String, Object>>, TickerBo> krakenMapEntryToTickerBoConverter;
+    @Nonnull
+    private final NonnullConverter<CurrencyPairBo, KrakenPairPrecision> currencyPairBoToKrakenPairPrecisionConverter;
+    private final int maxMarketNamesLength;
 
     public KrakenPublicApiFacadeImpl(@Nonnull final KrakenPublicApiConnector krakenPublicApiConnector,
                                      @Nonnull final NonnullConverter<CurrencyPairBo, String> currencyPairBoEnumToKrakenMarketNameConverter,
-                                     @Nonnull final NonnullConverter<Map.Entry<String, Map<String, Object>>, TickerBo> krakenMapEntryToTickerBoConverter) {
+                                     @Nonnull final NonnullConverter<String, CurrencyPairBo> krakenMarketNameToCurrencyPairBoEnumConverter,
+                                     @Nonnull final NonnullConverter<Map.Entry<String, Map<String, Object>>, TickerBo> krakenMapEntryToTickerBoConverter,
+                                     @Nonnull final NonnullConverter<CurrencyPairBo, KrakenPairPrecision> currencyPairBoToKrakenPairPrecisionConverter) {
+        this(krakenPublicApiConnector, currencyPairBoEnumToKrakenMarketNameConverter,
+                krakenMarketNameToCurrencyPairBoEnumConverter, krakenMapEntryToTickerBoConverter,
+                currencyPairBoToKrakenPairPrecisionConverter, DEFAULT_MAX_MARKET_NAMES_LENGTH);
+    }
+
+    /**
+     * @param maxMarketNamesLength maximum length of the comma separated market names of one request
+     */
+    KrakenPublicApiFacadeImpl(@Nonnull final KrakenPublicApiConnector krakenPublicApiConnector,
+                              @Nonnull final NonnullConverter<CurrencyPairBo, String> currencyPairBoEnumToKrakenMarketNameConverter,
+                              @Nonnull final NonnullConverter<String, CurrencyPairBo> krakenMarketNameToCurrencyPairBoEnumConverter,
+                              @Nonnull final NonnullConverter<Map.Entry<String, Map<String, Object>>, TickerBo> krakenMapEntryToTickerBoConverter,
+                              @Nonnull final NonnullConverter<CurrencyPairBo, KrakenPairPrecision> currencyPairBoToKrakenPairPrecisionConverter,
+                              final int maxMarketNamesLength) {
         this.krakenPublicApiConnector = krakenPublicApiConnector;
         this.currencyPairBoEnumToKrakenMarketNameConverter = currencyPairBoEnumToKrakenMarketNameConverter;
+        this.krakenMarketNameToCurrencyPairBoEnumConverter = krakenMarketNameToCurrencyPairBoEnumConverter;
         this.krakenMapEntryToTickerBoConverter = krakenMapEntryToTickerBoConverter;
+        this.currencyPairBoToKrakenPairPrecisionConverter = currencyPairBoToKrakenPairPrecisionConverter;
+        this.maxMarketNamesLength = maxMarketNamesLength;
     }
 
     @Override
@@ -52,7 +89,123 @@ public class KrakenPublicApiFacadeImpl implements KrakenPublicApiFacade {
         final var marketName = currencyPairBoEnumToKrakenMarketNameConverter.convert(currencyPair);
         final var marketNames = ImmutableList.of(marketName);
         final var response = krakenPublicApiConnector.ticker(marketNames);
+        return convertTickerResponse(marketName, response);
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<TickerBo> getTickerAsync(@Nonnull final CurrencyPairBo currencyPair) {
+        final var marketName = currencyPairBoEnumToKrakenMarketNameConverter.convert(currencyPair);
+        final var marketNames = ImmutableList.of(marketName);
+        return krakenPublicApiConnector.tickerAsync(marketNames)
+                .thenApply(response -> convertTickerResponse(marketName, response));
+    }
+
+    @Override
+    @Nonnull
+    public ImmutableMap<CurrencyPairBo, TickerBo> getTickers(@Nonnull final Collection<CurrencyPairBo> currencyPairs) {
+        final var tickers = ImmutableMap.<CurrencyPairBo, TickerBo>builder();
+        for (final var marketNames : createMarketNameChunks(currencyPairs)) {
+            final var response = krakenPublicApiConnector.ticker(marketNames);
+            tickers.putAll(convertTickersResponse(marketNames, response));
+        }
+        return tickers.build();
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<ImmutableMap<CurrencyPairBo, TickerBo>> getTickersAsync(@Nonnull final Collection<CurrencyPairBo> currencyPairs) {
+        final var chunkFutures = createMarketNameChunks(currencyPairs).stream()
+                .map(marketNames -> krakenPublicApiConnector.tickerAsync(marketNames)
+                        .thenApply(response -> convertTickersResponse(marketNames, response)))
+                .collect(ImmutableList.toImmutableList());
+        return CompletableFuture.allOf(chunkFutures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    final var tickers = ImmutableMap.<CurrencyPairBo, TickerBo>builder();
+                    chunkFutures.forEach(chunkFuture -> tickers.putAll(chunkFuture.join()));
+                    return tickers.build();
+                });
+    }
+
+    @Override
+    @Nonnull
+    public OrderBookBo getOrderBook(@Nonnull final CurrencyPairBo currencyPair,
+                                    final int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth [" + depth + "] needs to be positive");
+        }
+        final var marketName = currencyPairBoEnumToKrakenMarketNameConverter.convert(currencyPair);
+        final var precision = currencyPairBoToKrakenPairPrecisionConverter.convert(currencyPair);
+        final var response = krakenPublicApiConnector.depth(marketName, depth, precision.getPriceDecimals(),
+                precision.getQuantityDecimals());
+        if (CollectionUtils.isNotEmpty(response.getError())) {
+            throw new IllegalStateException(response.getError().toString());
+        }
+        final var result = response.getResult();
+        if (result == null) {
+            throw new IllegalArgumentException("No result for the market name " + marketName);
+        }
+
+        final var bidPrices = ArrayUtils.nullToEmpty(result.getBidPrices());
+        final var bidVolumes = ArrayUtils.nullToEmpty(result.getBidVolumes());
+        final var askPrices = ArrayUtils.nullToEmpty(result.getAskPrices());
+        final var askVolumes = ArrayUtils.nullToEmpty(result.getAskVolumes());
+        // Taken over without copying as neither the order book nor anyone else modifies them.
+        return new OrderBookBo(currencyPair, precision.getPriceDecimals(), precision.getQuantityDecimals(),
+                bidPrices, bidVolumes, Math.min(depth, Math.min(bidPrices.length, bidVolumes.length)),
+                askPrices, askVolumes, Math.min(depth, Math.min(askPrices.length, askVolumes.length)));
+    }
+
+    /**
+     * Splits the market names of the given currency pairs so that the market names of one request do not exceed
+     * {@link #maxMarketNamesLength} when joined.
+     */
+    @Nonnull
+    private ImmutableList<ImmutableList<String>> createMarketNameChunks(@Nonnull final Collection<CurrencyPairBo> currencyPairs) {
+        final var chunks = ImmutableList.<ImmutableList<String>>builder();
+        var chunk = new ArrayList<String>();
+        var chunkLength = 0;
+        for (final var marketName : currencyPairs.stream()
+                .distinct()
+                .map(currencyPairBoEnumToKrakenMarketNameConverter::convert)
+                .collect(ImmutableList.toImmutableList())) {
+            final var lengthWithSeparator = chunk.isEmpty() ? marketName.length() : marketName.length() + 1;
+            if (!chunk.isEmpty() && chunkLength + lengthWithSeparator > maxMarketNamesLength) {
+                chunks.add(ImmutableList.copyOf(chunk));
+                chunk = new ArrayList<>();
+                chunkLength = marketName.length();
+            } else {
+                chunkLength += lengthWithSeparator;
+            }
+            chunk.add(marketName);
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(ImmutableList.copyOf(chunk));
+        }
+        return chunks.build();
+    }
+
+    @Nonnull
+    private ImmutableMap<CurrencyPairBo, TickerBo> convertTickersResponse(@Nonnull final ImmutableList<String> marketNames,
+                                                                           @Nonnull final KrakenResponseDto<Map<String, Map<String, Object>>> response) {
+        if (CollectionUtils.isNotEmpty(response.getError())) {
+            throw new IllegalStateException(response.getError().toString());
+        }
+        final var resultEntryCount = MapUtils.size(response.getResult());
+        if (resultEntryCount != marketNames.size()) {
+            throw new IllegalStateException("Unexpected number of result entries [" + resultEntryCount
+                    + "] for the markets " + marketNames);
+        }
 
+        return response.getResult().entrySet().stream()
+                .collect(ImmutableMap.toImmutableMap(
+                        entry -> krakenMarketNameToCurrencyPairBoEnumConverter.convert(entry.getKey()),
+                        krakenMapEntryToTickerBoConverter::convert));
+    }
+
+    @Nonnull
+    private TickerBo convertTickerResponse(@Nonnull final String marketName,
+                                           @Nonnull final KrakenResponseDto<Map<String, Map<String, Object>>> response) {
         if (CollectionUtils.isNotEmpty(response.getError())) {
             throw new IllegalStateException(response.getError().toString());
         }
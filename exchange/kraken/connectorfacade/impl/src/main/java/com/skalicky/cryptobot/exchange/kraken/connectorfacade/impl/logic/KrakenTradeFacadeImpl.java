@@ -0,0 +1,178 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.logic;
+
+import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenPublicApiConnector;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.api.logic.KrakenTradeFacade;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.orderbook.KrakenPairPrecision;
+import com.skalicky.cryptobot.exchange.shared.connectorfacade.api.converter.NonnullConverter;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.TradeFlowBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.TradesBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.logic.TradeListener;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.trade.TradeRingBuffer;
+import org.apache.commons.collections4.CollectionUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the latest trades of every requested currency pair in a ring buffer and retrieves only newer trades by the
+ * cursor Kraken returns with every response, hence the memory used does not grow in a long-running process.
+ */
+public class KrakenTradeFacadeImpl implements KrakenTradeFacade {
+
+    @Nonnull
+    private final KrakenPublicApiConnector krakenPublicApiConnector;
+    @Nonnull
+    private final NonnullConverter<CurrencyPairBo, String> currencyPairBoEnumToKrakenMarketNameConverter;
+    @Nonnull
+    private final NonnullConverter<CurrencyPairBo, KrakenPairPrecision> currencyPairBoToKrakenPairPrecisionConverter;
+    @Nonnull
+    private final NonnullConverter<LocalDateTime, Long> localDateTimeToEpochSecondLongConverter;
+    private final int maxTradeCount;
+    @Nonnull
+    private final ConcurrentHashMap<CurrencyPairBo, KnownTrades> knownTradesByCurrencyPair = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxTradeCount maximum number of trades kept per currency pair
+     */
+    public KrakenTradeFacadeImpl(@Nonnull final KrakenPublicApiConnector krakenPublicApiConnector,
+                                 @Nonnull final NonnullConverter<CurrencyPairBo, String> currencyPairBoEnumToKrakenMarketNameConverter,
+                                 @Nonnull final NonnullConverter<CurrencyPairBo, KrakenPairPrecision> currencyPairBoToKrakenPairPrecisionConverter,
+                                 @Nonnull final NonnullConverter<LocalDateTime, Long> localDateTimeToEpochSecondLongConverter,
+                                 final int maxTradeCount) {
+        this.krakenPublicApiConnector = krakenPublicApiConnector;
+        this.currencyPairBoEnumToKrakenMarketNameConverter = currencyPairBoEnumToKrakenMarketNameConverter;
+        this.currencyPairBoToKrakenPairPrecisionConverter = currencyPairBoToKrakenPairPrecisionConverter;
+        this.localDateTimeToEpochSecondLongConverter = localDateTimeToEpochSecondLongConverter;
+        this.maxTradeCount = maxTradeCount;
+    }
+
+    @Override
+    public void addTradeListener(@Nonnull final CurrencyPairBo currencyPair,
+                                 @Nonnull final TradeListener listener) {
+        getKnownTrades(currencyPair).listeners.add(listener);
+    }
+
+    @Override
+    public void removeTradeListener(@Nonnull final CurrencyPairBo currencyPair,
+                                    @Nonnull final TradeListener listener) {
+        getKnownTrades(currencyPair).listeners.remove(listener);
+    }
+
+    @Override
+    public void refreshTrades(@Nonnull final CurrencyPairBo currencyPair) {
+        final var knownTrades = getKnownTrades(currencyPair);
+        final TradesBo newTrades;
+        // Serializes the retrievals of one currency pair so that concurrent callers do not retrieve the same trades.
+        knownTrades.lock.lock();
+        try {
+            newTrades = retrieveNewTrades(currencyPair, knownTrades);
+        } finally {
+            knownTrades.lock.unlock();
+        }
+        // Listeners are called outside of the lock so that a slow listener does not block readers of the trade flow.
+        if (newTrades.getCount() > 0) {
+            knownTrades.listeners.forEach(listener -> listener.onTrades(newTrades));
+        }
+    }
+
+    @Override
+    @Nonnull
+    public TradeFlowBo getTradeFlow(@Nonnull final CurrencyPairBo currencyPair,
+                                    @Nonnull final LocalDateTime from) {
+        final var knownTrades = getKnownTrades(currencyPair);
+        final var fromTime = TimeUnit.SECONDS.toNanos(localDateTimeToEpochSecondLongConverter.convert(from));
+        knownTrades.lock.lock();
+        try {
+            return knownTrades.buffer.computeTradeFlow(fromTime);
+        } finally {
+            knownTrades.lock.unlock();
+        }
+    }
+
+    @Nonnull
+    private KnownTrades getKnownTrades(@Nonnull final CurrencyPairBo currencyPair) {
+        return knownTradesByCurrencyPair.computeIfAbsent(currencyPair, key -> {
+            final var precision = currencyPairBoToKrakenPairPrecisionConverter.convert(currencyPair);
+            return new KnownTrades(new TradeRingBuffer(maxTradeCount, precision.getPriceDecimals(),
+                    precision.getQuantityDecimals()));
+        });
+    }
+
+    @Nonnull
+    private TradesBo retrieveNewTrades(@Nonnull final CurrencyPairBo currencyPair,
+                                       @Nonnull final KnownTrades knownTrades) {
+        final var buffer = knownTrades.buffer;
+        final var response = krakenPublicApiConnector.trades(
+                currencyPairBoEnumToKrakenMarketNameConverter.convert(currencyPair), knownTrades.since,
+                buffer.getPriceScale(), buffer.getVolumeScale());
+        if (CollectionUtils.isNotEmpty(response.getError())) {
+            throw new IllegalStateException(response.getError().toString());
+        }
+        final var result = response.getResult();
+        if (result == null || result.getTimes() == null || result.getPrices() == null || result.getVolumes() == null
+                || result.getBuys() == null) {
+            throw new IllegalStateException("No trades in the response for "
+                    + currencyPair.getQuoteCurrency().getLabel() + currencyPair.getBaseCurrency().getLabel());
+        }
+
+        final var times = result.getTimes();
+        final var prices = result.getPrices();
+        final var volumes = result.getVolumes();
+        final var buys = result.getBuys();
+        for (int i = 0; i < times.length; i++) {
+            buffer.append(times[i], prices[i], volumes[i], buys[i]);
+        }
+        if (result.getLast() != null) {
+            knownTrades.since = result.getLast();
+        }
+        return new TradesBo(currencyPair, buffer.getPriceScale(), buffer.getVolumeScale(), times, prices, volumes,
+                buys, times.length);
+    }
+
+    private static final class KnownTrades {
+        /**
+         * Held during the retrieval and while reading the buffer, a lock instead of a monitor so that a virtual thread
+         * waiting for the response does not pin its carrier thread.
+         */
+        @Nonnull
+        private final Lock lock = new ReentrantLock();
+        @Nonnull
+        private final TradeRingBuffer buffer;
+        @Nonnull
+        private final CopyOnWriteArrayList<TradeListener> listeners = new CopyOnWriteArrayList<>();
+        /**
+         * Null until the first retrieval.
+         */
+        @Nullable
+        private String since;
+
+        private KnownTrades(@Nonnull final TradeRingBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+}
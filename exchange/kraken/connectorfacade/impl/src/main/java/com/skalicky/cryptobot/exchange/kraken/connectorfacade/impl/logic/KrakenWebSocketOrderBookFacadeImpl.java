@@ -0,0 +1,199 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.logic;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenWebSocketBookDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenWebSocketBookListener;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenWebSocketPublicApiConnector;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.api.logic.KrakenOrderBookFacade;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.orderbook.KrakenBookChecksum;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.orderbook.KrakenPairPrecision;
+import com.skalicky.cryptobot.exchange.shared.connectorfacade.api.converter.NonnullConverter;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.OrderBookBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.orderbook.L2OrderBook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains order books from the "book" channel of the Kraken WebSocket API. The order book of a currency pair gets
+ * subscribed when requested for the first time and is available once its snapshot has been received.
+ * <p>
+ * Every message is verified by its checksum. On a mismatch, or if the connector could not read a message of the book,
+ * the order book is discarded and subscribed again to get a new snapshot.
+ */
+public class KrakenWebSocketOrderBookFacadeImpl implements KrakenOrderBookFacade {
+
+    @Nonnull
+    private static final ImmutableSet<Integer> SUPPORTED_DEPTHS = ImmutableSet.of(10, 25, 100, 500, 1000);
+    @Nonnull
+    private static final Logger logger = LoggerFactory.getLogger(KrakenWebSocketOrderBookFacadeImpl.class);
+
+    @Nonnull
+    private final KrakenWebSocketPublicApiConnector krakenWebSocketPublicApiConnector;
+    @Nonnull
+    private final NonnullConverter<CurrencyPairBo, String> currencyPairBoToKrakenWebSocketSymbolConverter;
+    @Nonnull
+    private final NonnullConverter<CurrencyPairBo, KrakenPairPrecision> currencyPairBoToKrakenPairPrecisionConverter;
+    private final int subscribedDepth;
+    @Nonnull
+    private final ConcurrentHashMap<String, MaintainedOrderBook> orderBooksBySymbols = new ConcurrentHashMap<>();
+    @Nonnull
+    private final BookListener bookListener = new BookListener();
+
+    /**
+     * @param subscribedDepth number of levels per side maintained, one of 10, 25, 100, 500 and 1000
+     */
+    public KrakenWebSocketOrderBookFacadeImpl(@Nonnull final KrakenWebSocketPublicApiConnector krakenWebSocketPublicApiConnector,
+                                              @Nonnull final NonnullConverter<CurrencyPairBo, String> currencyPairBoToKrakenWebSocketSymbolConverter,
+                                              @Nonnull final NonnullConverter<CurrencyPairBo, KrakenPairPrecision> currencyPairBoToKrakenPairPrecisionConverter,
+                                              final int subscribedDepth) {
+        if (!SUPPORTED_DEPTHS.contains(subscribedDepth)) {
+            throw new IllegalArgumentException("Unsupported depth [" + subscribedDepth + "], supported are "
+                    + SUPPORTED_DEPTHS);
+        }
+        this.krakenWebSocketPublicApiConnector = krakenWebSocketPublicApiConnector;
+        this.currencyPairBoToKrakenWebSocketSymbolConverter = currencyPairBoToKrakenWebSocketSymbolConverter;
+        this.currencyPairBoToKrakenPairPrecisionConverter = currencyPairBoToKrakenPairPrecisionConverter;
+        this.subscribedDepth = subscribedDepth;
+    }
+
+    @Override
+    @Nonnull
+    public OrderBookBo getOrderBook(@Nonnull final CurrencyPairBo currencyPair,
+                                    final int depth) {
+        if (depth > subscribedDepth) {
+            throw new IllegalArgumentException("Depth [" + depth + "] exceeds the subscribed depth ["
+                    + subscribedDepth + "]");
+        }
+        final var symbol = currencyPairBoToKrakenWebSocketSymbolConverter.convert(currencyPair);
+        var orderBook = orderBooksBySymbols.get(symbol);
+        if (orderBook == null) {
+            final var precision = currencyPairBoToKrakenPairPrecisionConverter.convert(currencyPair);
+            final var newOrderBook = new MaintainedOrderBook(new L2OrderBook(subscribedDepth,
+                    precision.getPriceDecimals(), precision.getQuantityDecimals()));
+            orderBook = orderBooksBySymbols.putIfAbsent(symbol, newOrderBook);
+            if (orderBook == null) {
+                orderBook = newOrderBook;
+                krakenWebSocketPublicApiConnector.subscribeBooks(ImmutableList.of(symbol), subscribedDepth,
+                        precision.getPriceDecimals(), precision.getQuantityDecimals(), bookListener);
+            }
+        }
+        if (!orderBook.valid) {
+            throw new IllegalStateException("No valid order book of " + symbol + " at the moment");
+        }
+        return orderBook.book.toOrderBookBo(currencyPair, depth);
+    }
+
+    /**
+     * Order book updated only by the receiving thread of the connector.
+     */
+    private static final class MaintainedOrderBook {
+        @Nonnull
+        private static final long[] NO_LEVELS = new long[0];
+
+        @Nonnull
+        private final L2OrderBook book;
+        @Nonnull
+        private final KrakenBookChecksum checksum = new KrakenBookChecksum();
+        /**
+         * False until a snapshot has been received and after a checksum mismatch, an unreadable message or lost
+         * connection.
+         */
+        private volatile boolean valid;
+
+        private MaintainedOrderBook(@Nonnull final L2OrderBook book) {
+            this.book = book;
+        }
+
+        /**
+         * @return whether the book matches the checksum of the message after applying it
+         */
+        private boolean apply(@Nonnull final KrakenWebSocketBookDto message) {
+            final var bidPrices = orEmpty(message.getBidPrices());
+            final var bidQuantities = orEmpty(message.getBidQuantities());
+            final var askPrices = orEmpty(message.getAskPrices());
+            final var askQuantities = orEmpty(message.getAskQuantities());
+            if (message.isSnapshot()) {
+                book.applySnapshot(bidPrices, bidQuantities, bidPrices.length, askPrices, askQuantities,
+                        askPrices.length);
+            } else {
+                book.applyUpdate(bidPrices, bidQuantities, bidPrices.length, askPrices, askQuantities,
+                        askPrices.length);
+            }
+            return checksum.compute(book) == message.getChecksum();
+        }
+
+        @Nonnull
+        private static long[] orEmpty(@Nullable final long[] levels) {
+            return levels != null ? levels : NO_LEVELS;
+        }
+    }
+
+    private final class BookListener implements KrakenWebSocketBookListener {
+
+        @Override
+        public void onBook(@Nonnull final KrakenWebSocketBookDto message) {
+            final var symbol = message.getSymbol();
+            final var orderBook = symbol != null ? orderBooksBySymbols.get(symbol) : null;
+            if (orderBook == null || (!orderBook.valid && !message.isSnapshot())) {
+                // Updates before the snapshot, e.g. of a book being resubscribed, cannot be applied.
+                return;
+            }
+            if (orderBook.apply(message)) {
+                orderBook.valid = true;
+            } else {
+                logger.warn("Checksum mismatch of the order book of {}, subscribing it again", symbol);
+                invalidateAndResubscribe(symbol, orderBook);
+            }
+        }
+
+        @Override
+        public void onUnreadableBook(@Nonnull final String symbol) {
+            final var orderBook = orderBooksBySymbols.get(symbol);
+            if (orderBook == null || !orderBook.valid) {
+                // Waiting for a snapshot anyway. Resubscribing because of an unreadable snapshot would not end.
+                return;
+            }
+            logger.warn("Missed a message of the order book of {}, subscribing it again", symbol);
+            invalidateAndResubscribe(symbol, orderBook);
+        }
+
+        @Override
+        public void onDisconnected() {
+            orderBooksBySymbols.values().forEach(orderBook -> {
+                orderBook.valid = false;
+                orderBook.book.clear();
+            });
+        }
+
+        private void invalidateAndResubscribe(@Nonnull final String symbol,
+                                              @Nonnull final MaintainedOrderBook orderBook) {
+            orderBook.valid = false;
+            orderBook.book.clear();
+            krakenWebSocketPublicApiConnector.resubscribeBook(symbol);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.logic;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenWebSocketTickerDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenWebSocketPublicApiConnector;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenWebSocketTickerListener;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.api.logic.KrakenPublicApiFacade;
+import com.skalicky.cryptobot.exchange.shared.connectorfacade.api.converter.NonnullConverter;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.OrderBookBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.TickerBo;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves tickers from memory, kept up to date by the Kraken WebSocket API. A currency pair gets subscribed when its
+ * ticker is requested for the first time. Until its first ticker has been pushed, and while the connection is lost,
+ * the ticker is retrieved by the given REST facade instead.
+ */
+public class KrakenWebSocketPublicApiFacadeImpl implements KrakenPublicApiFacade {
+    @Nonnull
+    private final KrakenWebSocketPublicApiConnector krakenWebSocketPublicApiConnector;
+    @Nonnull
+    private final KrakenPublicApiFacade krakenRestPublicApiFacade;
+    @Nonnull
+    private final NonnullConverter<CurrencyPairBo, String> currencyPairBoToKrakenWebSocketSymbolConverter;
+    @Nonnull
+    private final ConcurrentHashMap<String, TickerBo> latestTickersBySymbols = new ConcurrentHashMap<>();
+    @Nonnull
+    private final Set<String> subscribedSymbols = ConcurrentHashMap.newKeySet();
+    @Nonnull
+    private final KrakenWebSocketTickerListener tickerListener = new TickerListener();
+
+    public KrakenWebSocketPublicApiFacadeImpl(@Nonnull final KrakenWebSocketPublicApiConnector krakenWebSocketPublicApiConnector,
+                                              @Nonnull final KrakenPublicApiFacade krakenRestPublicApiFacade,
+                                              @Nonnull final NonnullConverter<CurrencyPairBo, String> currencyPairBoToKrakenWebSocketSymbolConverter) {
+        this.krakenWebSocketPublicApiConnector = krakenWebSocketPublicApiConnector;
+        this.krakenRestPublicApiFacade = krakenRestPublicApiFacade;
+        this.currencyPairBoToKrakenWebSocketSymbolConverter = currencyPairBoToKrakenWebSocketSymbolConverter;
+    }
+
+    @Override
+    @Nonnull
+    public TickerBo getTicker(@Nonnull final CurrencyPairBo currencyPair) {
+        final var latestTicker = getLatestTickerOrSubscribe(currencyPair);
+        return latestTicker != null ? latestTicker : krakenRestPublicApiFacade.getTicker(currencyPair);
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<TickerBo> getTickerAsync(@Nonnull final CurrencyPairBo currencyPair) {
+        final var latestTicker = getLatestTickerOrSubscribe(currencyPair);
+        return latestTicker != null
+                ? CompletableFuture.completedFuture(latestTicker)
+                : krakenRestPublicApiFacade.getTickerAsync(currencyPair);
+    }
+
+    @Override
+    @Nonnull
+    public ImmutableMap<CurrencyPairBo, TickerBo> getTickers(@Nonnull final Collection<CurrencyPairBo> currencyPairs) {
+        final var tickers = new ConcurrentHashMap<CurrencyPairBo, TickerBo>();
+        final var missingCurrencyPairs = collectLatestTickers(currencyPairs, tickers);
+        if (!missingCurrencyPairs.isEmpty()) {
+            tickers.putAll(krakenRestPublicApiFacade.getTickers(missingCurrencyPairs));
+        }
+        return ImmutableMap.copyOf(tickers);
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<ImmutableMap<CurrencyPairBo, TickerBo>> getTickersAsync(@Nonnull final Collection<CurrencyPairBo> currencyPairs) {
+        final var tickers = new ConcurrentHashMap<CurrencyPairBo, TickerBo>();
+        final var missingCurrencyPairs = collectLatestTickers(currencyPairs, tickers);
+        if (missingCurrencyPairs.isEmpty()) {
+            return CompletableFuture.completedFuture(ImmutableMap.copyOf(tickers));
+        }
+        return krakenRestPublicApiFacade.getTickersAsync(missingCurrencyPairs)
+                .thenApply(restTickers -> {
+                    tickers.putAll(restTickers);
+                    return ImmutableMap.copyOf(tickers);
+                });
+    }
+
+    /**
+     * Retrieved by REST as only tickers are streamed by this facade.
+     */
+    @Override
+    @Nonnull
+    public OrderBookBo getOrderBook(@Nonnull final CurrencyPairBo currencyPair,
+                                    final int depth) {
+        return krakenRestPublicApiFacade.getOrderBook(currencyPair, depth);
+    }
+
+    /**
+     * Puts the latest tickers of the given currency pairs into the given map.
+     *
+     * @return the currency pairs without any ticker received yet
+     */
+    @Nonnull
+    private ImmutableList<CurrencyPairBo> collectLatestTickers(@Nonnull final Collection<CurrencyPairBo> currencyPairs,
+                                                               @Nonnull final ConcurrentHashMap<CurrencyPairBo, TickerBo> tickers) {
+        final var missingCurrencyPairs = new ArrayList<CurrencyPairBo>();
+        for (final var currencyPair : currencyPairs) {
+            final var latestTicker = getLatestTickerOrSubscribe(currencyPair);
+            if (latestTicker != null) {
+                tickers.put(currencyPair, latestTicker);
+            } else {
+                missingCurrencyPairs.add(currencyPair);
+            }
+        }
+        return ImmutableList.copyOf(missingCurrencyPairs);
+    }
+
+    @Nullable
+    private TickerBo getLatestTickerOrSubscribe(@Nonnull final CurrencyPairBo currencyPair) {
+        final var symbol = currencyPairBoToKrakenWebSocketSymbolConverter.convert(currencyPair);
+        final var latestTicker = latestTickersBySymbols.get(symbol);
+        if (latestTicker == null && subscribedSymbols.add(symbol)) {
+            krakenWebSocketPublicApiConnector.subscribeTickers(ImmutableList.of(symbol), tickerListener);
+        }
+        return latestTicker;
+    }
+
+    private final class TickerListener implements KrakenWebSocketTickerListener {
+
+        @Override
+        public void onTicker(@Nonnull final KrakenWebSocketTickerDto ticker) {
+            if (ticker.getSymbol() == null || ticker.getAsk() == null || ticker.getBid() == null) {
+                return;
+            }
+            latestTickersBySymbols.put(ticker.getSymbol(),
+                    new TickerBo(ticker.getSymbol(), ticker.getAsk(), ticker.getBid()));
+        }
+
+        @Override
+        public void onDisconnected() {
+            latestTickersBySymbols.clear();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.orderbook;
+
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.orderbook.L2OrderBook;
+
+import javax.annotation.Nonnull;
+import java.util.zip.CRC32;
+
+/**
+ * Computes the checksum by which Kraken lets clients verify their copy of an order book, i.e. CRC32 of the top 10
+ * asks from the lowest followed by the top 10 bids from the highest, each level formatted as its price followed by
+ * its quantity, both without the decimal point and without leading zeros.
+ * <p>
+ * Formatted with the decimal places of the pair, such a number without the decimal point and leading zeros is just
+ * the fixed-point value of {@link L2OrderBook}, hence no formatting of decimals is needed. Reuses its buffers, hence
+ * not thread-safe.
+ */
+public class KrakenBookChecksum implements L2OrderBook.LevelVisitor {
+
+    private static final int CHECKSUM_DEPTH = 10;
+
+    @Nonnull
+    private final CRC32 crc32 = new CRC32();
+    @Nonnull
+    private final byte[] digits = new byte[String.valueOf(Long.MAX_VALUE).length()];
+
+    /**
+     * @return the checksum as an unsigned 32-bit number
+     */
+    public long compute(@Nonnull final L2OrderBook orderBook) {
+        crc32.reset();
+        orderBook.visitAsks(CHECKSUM_DEPTH, this);
+        orderBook.visitBids(CHECKSUM_DEPTH, this);
+        return crc32.getValue();
+    }
+
+    @Override
+    public void visit(final long price,
+                      final long quantity) {
+        updateWithDigits(price);
+        updateWithDigits(quantity);
+    }
+
+    private void updateWithDigits(final long value) {
+        var remainder = value;
+        var position = digits.length;
+        do {
+            digits[--position] = (byte) ('0' + remainder % 10);
+            remainder /= 10;
+        } while (remainder != 0);
+        crc32.update(digits, position, digits.length - position);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.logic;
+
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenOhlcDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenResponseDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenPublicApiConnector;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.CurrencyPairBoToKrakenMarketNameConverter;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.CurrencyPairBoToKrakenPairPrecisionConverter;
+import com.skalicky.cryptobot.exchange.shared.connectorfacade.impl.converter.LocalDateTimeToEpochSecondLongConverter;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CandleIntervalBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class KrakenCandleFacadeImplUTest {
+    @Nonnull
+    private static final CurrencyPairBo BTC_EUR = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+    /**
+     * 2023-07-06T21:20:00 in Berlin.
+     */
+    private static final long FIRST_CANDLE_TIME = 1688671200L;
+    @Nonnull
+    private static final LocalDateTime FIRST_CANDLE_LOCAL_TIME = LocalDateTime.of(2023, 7, 6, 21, 20);
+
+    @Nonnull
+    private final KrakenPublicApiConnector krakenPublicApiConnector = mock(KrakenPublicApiConnector.class);
+    @Nonnull
+    private final KrakenCandleFacadeImpl krakenCandleFacadeImpl = new KrakenCandleFacadeImpl(krakenPublicApiConnector,
+            new CurrencyPairBoToKrakenMarketNameConverter(), new CurrencyPairBoToKrakenPairPrecisionConverter(),
+            new LocalDateTimeToEpochSecondLongConverter(), 720);
+
+    @AfterEach
+    public void assertAndCleanMocks() {
+        Mockito.verifyNoMoreInteractions(krakenPublicApiConnector);
+        Mockito.reset(krakenPublicApiConnector);
+    }
+
+    @Test
+    public void test_getCandles_when_calledAgain_then_onlyCandlesSinceLastCursorRetrieved_and_candleInProgressUpdated() {
+        when(krakenPublicApiConnector.ohlc(eq("XBTEUR"), eq(1), isNull(), eq(1), eq(8)))
+                .thenReturn(createOhlcResponse(new long[]{FIRST_CANDLE_TIME, FIRST_CANDLE_TIME + 60},
+                        new long[]{303061, 303057}, FIRST_CANDLE_TIME));
+        when(krakenPublicApiConnector.ohlc("XBTEUR", 1, FIRST_CANDLE_TIME, 1, 8))
+                .thenReturn(createOhlcResponse(new long[]{FIRST_CANDLE_TIME + 60, FIRST_CANDLE_TIME + 120},
+                        new long[]{303069, 303070}, FIRST_CANDLE_TIME + 60));
+
+        krakenCandleFacadeImpl.getCandles(BTC_EUR, CandleIntervalBoEnum.ONE_MINUTE, FIRST_CANDLE_LOCAL_TIME,
+                FIRST_CANDLE_LOCAL_TIME.plusHours(1));
+        final var candles = krakenCandleFacadeImpl.getCandles(BTC_EUR, CandleIntervalBoEnum.ONE_MINUTE,
+                FIRST_CANDLE_LOCAL_TIME.plusMinutes(1), FIRST_CANDLE_LOCAL_TIME.plusHours(1));
+
+        verify(krakenPublicApiConnector).ohlc(eq("XBTEUR"), eq(1), isNull(), eq(1), eq(8));
+        verify(krakenPublicApiConnector).ohlc("XBTEUR", 1, FIRST_CANDLE_TIME, 1, 8);
+
+        assertThat(candles.getCount()).isEqualTo(2);
+        assertThat(candles.getTimeInEpochSeconds(0)).isEqualTo(FIRST_CANDLE_TIME + 60);
+        assertThat(candles.getClose(0)).isEqualTo(new BigDecimal("30306.9"));
+        assertThat(candles.getTimeInEpochSeconds(1)).isEqualTo(FIRST_CANDLE_TIME + 120);
+        assertThat(candles.getVolume(1)).isEqualTo(new BigDecimal("1.00000000"));
+    }
+
+    @Test
+    public void test_getCandles_when_errorInResponse_then_exception() {
+        final var response = new KrakenResponseDto<KrakenOhlcDto>();
+        response.setError(List.of("EGeneral:Invalid arguments"));
+        when(krakenPublicApiConnector.ohlc(eq("XBTEUR"), eq(60), isNull(), eq(1), eq(8)))
+                .thenReturn(response);
+
+        assertThatThrownBy(() -> krakenCandleFacadeImpl.getCandles(BTC_EUR, CandleIntervalBoEnum.ONE_HOUR,
+                FIRST_CANDLE_LOCAL_TIME, FIRST_CANDLE_LOCAL_TIME.plusDays(1)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("[EGeneral:Invalid arguments]");
+
+        verify(krakenPublicApiConnector).ohlc(eq("XBTEUR"), eq(60), isNull(), eq(1), eq(8));
+    }
+
+    /**
+     * Creates candles with the given times and closes and with volumes of 1.
+     */
+    @Nonnull
+    private static KrakenResponseDto<KrakenOhlcDto> createOhlcResponse(@Nonnull final long[] times,
+                                                                       @Nonnull final long[] closes,
+                                                                       final long last) {
+        final var volumes = new long[times.length];
+        Arrays.fill(volumes, 100_000_000L);
+        final var ohlc = new KrakenOhlcDto();
+        ohlc.setMarketName("XXBTZEUR");
+        ohlc.setTimes(times);
+        ohlc.setOpens(closes);
+        ohlc.setHighs(closes);
+        ohlc.setLows(closes);
+        ohlc.setCloses(closes);
+        ohlc.setVolumes(volumes);
+        ohlc.setLast(last);
+        final var response = new KrakenResponseDto<KrakenOhlcDto>();
+        response.setResult(ohlc);
+        return response;
+    }
+}
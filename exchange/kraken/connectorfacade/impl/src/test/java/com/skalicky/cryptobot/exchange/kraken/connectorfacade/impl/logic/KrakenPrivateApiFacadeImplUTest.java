@@ -51,6 +51,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -105,6 +107,25 @@ public class KrakenPrivateApiFacadeImplUTest {
         verify(krakenPrivateApiConnector).openOrders(includeTrades);
     }
 
+    @Test
+    public void test_getOpenOrdersAsync_when_krakenResponseWithError_then_futureFailedWithException() {
+
+        final var krakenResponseDto = new KrakenResponseDto<KrakenOpenOrderResultDto>();
+        krakenResponseDto.setError(List.of("Error 12343"));
+        final var includeTrades = true;
+        when(krakenPrivateApiConnector.openOrdersAsync(includeTrades))
+                .thenReturn(CompletableFuture.completedFuture(krakenResponseDto));
+
+        final var response = krakenPrivateApiFacadeImpl.getOpenOrdersAsync(includeTrades);
+
+        verify(krakenPrivateApiConnector).openOrdersAsync(includeTrades);
+
+        assertThatThrownBy(response::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("[Error 12343]");
+    }
+
     @Test
     public void test_getOpenOrders_when_krakenResponseWithNullResult_then_emptyListIsReturned() {
 
@@ -253,6 +274,24 @@ public class KrakenPrivateApiFacadeImplUTest {
         assertThat(response.containsKey(CurrencyBoEnum.OTHERS)).isFalse();
     }
 
+    @Test
+    public void test_getAccountBalanceAsync_when_rawKrakenDataProvided_then_balancesReturned() {
+
+        final var balancesByCurrencies = Map.of("BCH", BigDecimal.ZERO,
+                "ZEUR", new BigDecimal("34"), "XXRP", new BigDecimal("32"));
+        final var krakenResponseDto = new KrakenResponseDto<Map<String, BigDecimal>>();
+        krakenResponseDto.setResult(balancesByCurrencies);
+        when(krakenPrivateApiConnector.balanceAsync()).thenReturn(CompletableFuture.completedFuture(krakenResponseDto));
+
+        final Map<CurrencyBoEnum, BigDecimal> response = krakenPrivateApiFacadeImpl.getAccountBalanceAsync().join();
+
+        verify(krakenPrivateApiConnector).balanceAsync();
+
+        assertThat(response.get(CurrencyBoEnum.EUR)).isEqualTo(new BigDecimal(34));
+        assertThat(response.containsKey(CurrencyBoEnum.BTC)).isFalse();
+        assertThat(response.containsKey(CurrencyBoEnum.OTHERS)).isFalse();
+    }
+
     @Test
     public void test_placeOrder_when_krakenResponseWithoutErrors_then_noException() {
 
@@ -357,4 +396,62 @@ public class KrakenPrivateApiFacadeImplUTest {
                 orderExpirationInSecondsFromNow);
     }
 
+    @Test
+    public void test_placeOrderAsync_when_priceHasMoreThanOneDecimalPlace_then_priceRoundedToOneDecimalPlace() {
+
+        final var krakenMarketName = "XBTEUR";
+        final var krakenOrderType = "buy";
+        final var krakenPriceOrderType = "market";
+        final var krakenPrice = new BigDecimal("7000.4");
+        final var volumeInQuoteCurrency = new BigDecimal("0.01");
+        final var orderFlags = ImmutableList.of("fciq");
+        final var orderExpirationInSecondsFromNow = 0L;
+        when(krakenPrivateApiConnector.addOrderAsync(krakenMarketName, krakenOrderType,
+                krakenPriceOrderType, krakenPrice, volumeInQuoteCurrency, orderFlags,
+                orderExpirationInSecondsFromNow))
+                .thenReturn(CompletableFuture.completedFuture(new KrakenResponseDto<>()));
+        final var currencyPair = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+
+        krakenPrivateApiFacadeImpl.placeOrderAsync(OrderTypeBoEnum.BUY,
+                PriceOrderTypeBoEnum.MARKET, currencyPair, volumeInQuoteCurrency,
+                new BigDecimal("7000.351"), true,
+                orderExpirationInSecondsFromNow).join();
+
+        verify(krakenPrivateApiConnector).addOrderAsync(krakenMarketName, krakenOrderType,
+                krakenPriceOrderType, krakenPrice, volumeInQuoteCurrency, orderFlags,
+                orderExpirationInSecondsFromNow);
+    }
+
+    @Test
+    public void test_placeOrderAsync_when_krakenResponseWithError_then_futureFailedWithException() {
+
+        final var krakenMarketName = "XBTEUR";
+        final var krakenOrderType = "buy";
+        final var krakenPriceOrderType = "market";
+        final var price = new BigDecimal("7000.3");
+        final var volumeInQuoteCurrency = new BigDecimal("0.01");
+        final var orderFlags = ImmutableList.<String>builder().build();
+        final var orderExpirationInSecondsFromNow = 0L;
+        final var krakenResponseDto = new KrakenResponseDto<KrakenAddOrderResultDto>();
+        krakenResponseDto.setError(List.of("Kraken error"));
+        when(krakenPrivateApiConnector.addOrderAsync(krakenMarketName, krakenOrderType,
+                krakenPriceOrderType, price, volumeInQuoteCurrency, orderFlags,
+                orderExpirationInSecondsFromNow)).thenReturn(CompletableFuture.completedFuture(krakenResponseDto));
+        final var currencyPair = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+
+        final var response = krakenPrivateApiFacadeImpl.placeOrderAsync(OrderTypeBoEnum.BUY,
+                PriceOrderTypeBoEnum.MARKET, currencyPair, volumeInQuoteCurrency,
+                price, false,
+                orderExpirationInSecondsFromNow);
+
+        verify(krakenPrivateApiConnector).addOrderAsync(krakenMarketName, krakenOrderType,
+                krakenPriceOrderType, price, volumeInQuoteCurrency, orderFlags,
+                orderExpirationInSecondsFromNow);
+
+        assertThatThrownBy(response::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("[Kraken error]");
+    }
+
 }
@@ -19,10 +19,14 @@
 package com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.logic;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenDepthDto;
 import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenResponseDto;
 import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenPublicApiConnector;
 import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.CurrencyPairBoToKrakenMarketNameConverter;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.CurrencyPairBoToKrakenPairPrecisionConverter;
 import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.KrakenMapEntryToTickerBoConverter;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.KrakenMarketNameToCurrencyPairBoEnumConverter;
 import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
 import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
 import org.junit.jupiter.api.AfterEach;
@@ -33,8 +37,10 @@ import javax.annotation.Nonnull;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -46,7 +52,9 @@ public class KrakenPublicApiFacadeImplUTest {
     private final KrakenPublicApiFacadeImpl krakenPublicApiFacadeImpl = new KrakenPublicApiFacadeImpl(
             krakenPublicApiConnector,
             new CurrencyPairBoToKrakenMarketNameConverter(),
-            new KrakenMapEntryToTickerBoConverter());
+            new KrakenMarketNameToCurrencyPairBoEnumConverter(),
+            new KrakenMapEntryToTickerBoConverter(),
+            new CurrencyPairBoToKrakenPairPrecisionConverter());
 
     @AfterEach
     public void assertAndCleanMocks() {
@@ -75,4 +83,168 @@ public class KrakenPublicApiFacadeImplUTest {
         assertThat(response.getAskPrice().stripTrailingZeros()).isEqualTo(new BigDecimal("8903.3").stripTrailingZeros());
         assertThat(response.getBidPrice().stripTrailingZeros()).isEqualTo(new BigDecimal("8902.4").stripTrailingZeros());
     }
+
+    @Test
+    public void test_getTickerAsync_when_rawKrakenDataProvided_then_askPriceReturned_and_bidPriceReturned() {
+
+        final Map<String, Object> pairData = Map.of("a", List.of("8903.300000"), "b", List.of("8902.400000"));
+        final var tickerName = "XXBTZEUR";
+        final var result = Map.of(tickerName, pairData);
+        final var expectedResponse = new KrakenResponseDto<Map<String, Map<String, Object>>>();
+        expectedResponse.setResult(result);
+        final var marketNames = ImmutableList.of("XBTEUR");
+        when(krakenPublicApiConnector.tickerAsync(marketNames)).thenReturn(CompletableFuture.completedFuture(expectedResponse));
+        final var currencyPair = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+
+        final var response = krakenPublicApiFacadeImpl.getTickerAsync(currencyPair).join();
+
+        verify(krakenPublicApiConnector).tickerAsync(marketNames);
+
+        assertThat(response.getTickerName()).isEqualTo(tickerName);
+        assertThat(response.getAskPrice().stripTrailingZeros()).isEqualTo(new BigDecimal("8903.3").stripTrailingZeros());
+        assertThat(response.getBidPrice().stripTrailingZeros()).isEqualTo(new BigDecimal("8902.4").stripTrailingZeros());
+    }
+
+    @Test
+    public void test_getTickers_when_rawKrakenDataProvided_then_tickersByCurrencyPairsReturned() {
+
+        final Map<String, Object> pairData = Map.of("a", List.of("8903.300000"), "b", List.of("8902.400000"));
+        final var expectedResponse = new KrakenResponseDto<Map<String, Map<String, Object>>>();
+        expectedResponse.setResult(Map.of("XXBTZEUR", pairData));
+        final var marketNames = ImmutableList.of("XBTEUR");
+        when(krakenPublicApiConnector.ticker(marketNames)).thenReturn(expectedResponse);
+        final var currencyPair = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+
+        final var response = krakenPublicApiFacadeImpl.getTickers(List.of(currencyPair, currencyPair));
+
+        verify(krakenPublicApiConnector).ticker(marketNames);
+
+        assertThat(response).containsOnlyKeys(currencyPair);
+        assertThat(response.get(currencyPair).getTickerName()).isEqualTo("XXBTZEUR");
+        assertThat(response.get(currencyPair).getAskPrice().stripTrailingZeros()).isEqualTo(new BigDecimal("8903.3").stripTrailingZeros());
+    }
+
+    @Test
+    public void test_getTickers_when_marketNamesTooLongForOneRequest_then_marketNamesSplitIntoSeveralRequests() {
+        final var facade = createFacadeWithThreeLetterCurrencyLabels(13);
+        final var btcEur = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+        final var eurBtc = new CurrencyPairBo(CurrencyBoEnum.EUR, CurrencyBoEnum.BTC);
+        final var btcBtc = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.BTC);
+        final var firstMarketNames = ImmutableList.of("BTCEUR", "EURBTC");
+        final var secondMarketNames = ImmutableList.of("BTCBTC");
+        when(krakenPublicApiConnector.ticker(firstMarketNames)).thenReturn(createTickerResponse(firstMarketNames));
+        when(krakenPublicApiConnector.ticker(secondMarketNames)).thenReturn(createTickerResponse(secondMarketNames));
+
+        final var response = facade.getTickers(List.of(btcEur, eurBtc, btcBtc));
+
+        verify(krakenPublicApiConnector).ticker(firstMarketNames);
+        verify(krakenPublicApiConnector).ticker(secondMarketNames);
+
+        assertThat(response).containsOnlyKeys(btcEur, eurBtc, btcBtc);
+        assertThat(response.get(eurBtc).getTickerName()).isEqualTo("EURBTC");
+        assertThat(response.get(btcBtc).getTickerName()).isEqualTo("BTCBTC");
+    }
+
+    @Test
+    public void test_getTickersAsync_when_marketNamesTooLongForOneRequest_then_resultsOfAllRequestsMerged() {
+        final var facade = createFacadeWithThreeLetterCurrencyLabels(6);
+        final var btcEur = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+        final var eurBtc = new CurrencyPairBo(CurrencyBoEnum.EUR, CurrencyBoEnum.BTC);
+        final var firstMarketNames = ImmutableList.of("BTCEUR");
+        final var secondMarketNames = ImmutableList.of("EURBTC");
+        when(krakenPublicApiConnector.tickerAsync(firstMarketNames))
+                .thenReturn(CompletableFuture.completedFuture(createTickerResponse(firstMarketNames)));
+        when(krakenPublicApiConnector.tickerAsync(secondMarketNames))
+                .thenReturn(CompletableFuture.completedFuture(createTickerResponse(secondMarketNames)));
+
+        final var response = facade.getTickersAsync(List.of(btcEur, eurBtc)).join();
+
+        verify(krakenPublicApiConnector).tickerAsync(firstMarketNames);
+        verify(krakenPublicApiConnector).tickerAsync(secondMarketNames);
+
+        assertThat(response).containsOnlyKeys(btcEur, eurBtc);
+        assertThat(response.get(btcEur).getTickerName()).isEqualTo("BTCEUR");
+    }
+
+    @Test
+    public void test_getTickers_when_resultForMarketMissing_then_exception() {
+        final var facade = createFacadeWithThreeLetterCurrencyLabels(100);
+        final var marketNames = ImmutableList.of("BTCEUR", "EURBTC");
+        when(krakenPublicApiConnector.ticker(marketNames)).thenReturn(createTickerResponse(ImmutableList.of("BTCEUR")));
+
+        assertThatThrownBy(() -> facade.getTickers(List.of(new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR),
+                new CurrencyPairBo(CurrencyBoEnum.EUR, CurrencyBoEnum.BTC))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Unexpected number of result entries [1] for the markets [BTCEUR, EURBTC]");
+
+        verify(krakenPublicApiConnector).ticker(marketNames);
+    }
+
+    @Test
+    public void test_getOrderBook_when_moreLevelsThanDepth_then_levelsScaledToPairDecimals_and_limitedToDepth() {
+        final var depth = new KrakenDepthDto();
+        depth.setMarketName("XXBTZEUR");
+        depth.setBidPrices(new long[]{89024, 89010});
+        depth.setBidVolumes(new long[]{50000000, 100000});
+        depth.setAskPrices(new long[]{89033, 89035, 89040});
+        depth.setAskVolumes(new long[]{125000000, 200000000, 1});
+        final var response = new KrakenResponseDto<KrakenDepthDto>();
+        response.setResult(depth);
+        when(krakenPublicApiConnector.depth("XBTEUR", 2, 1, 8)).thenReturn(response);
+
+        final var orderBook = krakenPublicApiFacadeImpl.getOrderBook(
+                new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR), 2);
+
+        verify(krakenPublicApiConnector).depth("XBTEUR", 2, 1, 8);
+
+        assertThat(orderBook.getBidCount()).isEqualTo(2);
+        assertThat(orderBook.getBidPrice(0)).isEqualTo(new BigDecimal("8902.4"));
+        assertThat(orderBook.getBidVolume(1)).isEqualTo(new BigDecimal("0.00100000"));
+        assertThat(orderBook.getAskCount()).isEqualTo(2);
+        assertThat(orderBook.getAskPrice(1)).isEqualTo(new BigDecimal("8903.5"));
+        assertThat(orderBook.getAskVolume(0)).isEqualTo(new BigDecimal("1.25000000"));
+    }
+
+    @Test
+    public void test_getOrderBook_when_errorInResponse_then_exception() {
+        final var response = new KrakenResponseDto<KrakenDepthDto>();
+        response.setError(List.of("EQuery:Unknown asset pair"));
+        when(krakenPublicApiConnector.depth("XBTEUR", 10, 1, 8)).thenReturn(response);
+
+        assertThatThrownBy(() -> krakenPublicApiFacadeImpl.getOrderBook(
+                new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR), 10))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("[EQuery:Unknown asset pair]");
+
+        verify(krakenPublicApiConnector).depth("XBTEUR", 10, 1, 8);
+    }
+
+    @Test
+    public void test_getOrderBook_when_depthNotPositive_then_exception() {
+        assertThatThrownBy(() -> krakenPublicApiFacadeImpl.getOrderBook(
+                new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR), 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Depth [0] needs to be positive");
+    }
+
+    @Nonnull
+    private KrakenPublicApiFacadeImpl createFacadeWithThreeLetterCurrencyLabels(final int maxMarketNamesLength) {
+        return new KrakenPublicApiFacadeImpl(
+                krakenPublicApiConnector,
+                currencyPair -> currencyPair.getQuoteCurrency().getLabel() + currencyPair.getBaseCurrency().getLabel(),
+                marketName -> new CurrencyPairBo(CurrencyBoEnum.getByLabel(marketName.substring(0, 3)),
+                        CurrencyBoEnum.getByLabel(marketName.substring(3))),
+                new KrakenMapEntryToTickerBoConverter(),
+                new CurrencyPairBoToKrakenPairPrecisionConverter(),
+                maxMarketNamesLength);
+    }
+
+    @Nonnull
+    private static KrakenResponseDto<Map<String, Map<String, Object>>> createTickerResponse(@Nonnull final ImmutableList<String> marketNames) {
+        final Map<String, Object> pairData = Map.of("a", List.of("2.0"), "b", List.of("1.0"));
+        final var response = new KrakenResponseDto<Map<String, Map<String, Object>>>();
+        response.setResult(marketNames.stream().collect(ImmutableMap.toImmutableMap(marketName -> marketName,
+                marketName -> pairData)));
+        return response;
+    }
 }
@@ -0,0 +1,134 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.logic;
+
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenResponseDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenTradesDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenPublicApiConnector;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.CurrencyPairBoToKrakenMarketNameConverter;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.CurrencyPairBoToKrakenPairPrecisionConverter;
+import com.skalicky.cryptobot.exchange.shared.connectorfacade.impl.converter.LocalDateTimeToEpochSecondLongConverter;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.TradesBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class KrakenTradeFacadeImplUTest {
+    @Nonnull
+    private static final CurrencyPairBo BTC_EUR = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+    /**
+     * 2023-07-06T21:20:00 in Berlin.
+     */
+    private static final long FIRST_TRADE_TIME = 1688671200_000000000L;
+    @Nonnull
+    private static final LocalDateTime FIRST_TRADE_LOCAL_TIME = LocalDateTime.of(2023, 7, 6, 21, 20);
+
+    @Nonnull
+    private final KrakenPublicApiConnector krakenPublicApiConnector = mock(KrakenPublicApiConnector.class);
+    @Nonnull
+    private final KrakenTradeFacadeImpl krakenTradeFacadeImpl = new KrakenTradeFacadeImpl(krakenPublicApiConnector,
+            new CurrencyPairBoToKrakenMarketNameConverter(), new CurrencyPairBoToKrakenPairPrecisionConverter(),
+            new LocalDateTimeToEpochSecondLongConverter(), 1000);
+
+    @AfterEach
+    public void assertAndCleanMocks() {
+        Mockito.verifyNoMoreInteractions(krakenPublicApiConnector);
+        Mockito.reset(krakenPublicApiConnector);
+    }
+
+    @Test
+    public void test_refreshTrades_when_calledAgain_then_onlyTradesSinceLastCursorRetrieved_and_listenerNotifiedOfNewTrades() {
+        when(krakenPublicApiConnector.trades(eq("XBTEUR"), isNull(), eq(1), eq(8)))
+                .thenReturn(createTradesResponse(new long[]{FIRST_TRADE_TIME}, new long[]{303061}, "1"));
+        when(krakenPublicApiConnector.trades("XBTEUR", "1", 1, 8))
+                .thenReturn(createTradesResponse(new long[]{FIRST_TRADE_TIME + 1_000_000_000L},
+                        new long[]{303069}, "2"));
+        final var notifiedTrades = new ArrayList<TradesBo>();
+        krakenTradeFacadeImpl.addTradeListener(BTC_EUR, notifiedTrades::add);
+
+        krakenTradeFacadeImpl.refreshTrades(BTC_EUR);
+        krakenTradeFacadeImpl.refreshTrades(BTC_EUR);
+
+        verify(krakenPublicApiConnector).trades(eq("XBTEUR"), isNull(), eq(1), eq(8));
+        verify(krakenPublicApiConnector).trades("XBTEUR", "1", 1, 8);
+
+        assertThat(notifiedTrades).hasSize(2);
+        assertThat(notifiedTrades.get(1).getCount()).isEqualTo(1);
+        assertThat(notifiedTrades.get(1).getPrice(0)).isEqualTo(new BigDecimal("30306.9"));
+        final var tradeFlow = krakenTradeFacadeImpl.getTradeFlow(BTC_EUR, FIRST_TRADE_LOCAL_TIME);
+        assertThat(tradeFlow.getTradeCount()).isEqualTo(2);
+        assertThat(tradeFlow.getVolumeWeightedAveragePrice()).isEqualTo(new BigDecimal("30306.5"));
+        assertThat(tradeFlow.getBuyVolume()).isEqualTo(new BigDecimal("2.00000000"));
+    }
+
+    @Test
+    public void test_refreshTrades_when_errorInResponse_then_exception() {
+        final var response = new KrakenResponseDto<KrakenTradesDto>();
+        response.setError(List.of("EGeneral:Invalid arguments"));
+        when(krakenPublicApiConnector.trades(eq("XBTEUR"), isNull(), eq(1), eq(8)))
+                .thenReturn(response);
+
+        assertThatThrownBy(() -> krakenTradeFacadeImpl.refreshTrades(BTC_EUR))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("[EGeneral:Invalid arguments]");
+
+        verify(krakenPublicApiConnector).trades(eq("XBTEUR"), isNull(), eq(1), eq(8));
+    }
+
+    /**
+     * Creates trades with the given times and prices, bought by the takers, and with volumes of 1.
+     */
+    @Nonnull
+    private static KrakenResponseDto<KrakenTradesDto> createTradesResponse(@Nonnull final long[] times,
+                                                                           @Nonnull final long[] prices,
+                                                                           @Nonnull final String last) {
+        final var volumes = new long[times.length];
+        final var buys = new boolean[times.length];
+        for (int i = 0; i < times.length; i++) {
+            volumes[i] = 100_000_000L;
+            buys[i] = true;
+        }
+        final var trades = new KrakenTradesDto();
+        trades.setMarketName("XXBTZEUR");
+        trades.setTimes(times);
+        trades.setPrices(prices);
+        trades.setVolumes(volumes);
+        trades.setBuys(buys);
+        trades.setLast(last);
+        final var response = new KrakenResponseDto<KrakenTradesDto>();
+        response.setResult(trades);
+        return response;
+    }
+}
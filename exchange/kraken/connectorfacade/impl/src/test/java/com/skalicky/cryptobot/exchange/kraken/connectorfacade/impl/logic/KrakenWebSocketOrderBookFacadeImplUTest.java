@@ -0,0 +1,179 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.logic;
+
+import com.google.common.collect.ImmutableList;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenWebSocketBookDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenWebSocketBookListener;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenWebSocketPublicApiConnector;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.CurrencyPairBoToKrakenPairPrecisionConverter;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.CurrencyPairBoToKrakenWebSocketSymbolConverter;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class KrakenWebSocketOrderBookFacadeImplUTest {
+    @Nonnull
+    private static final CurrencyPairBo BTC_EUR = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+
+    @Nonnull
+    private final KrakenWebSocketPublicApiConnector krakenWebSocketPublicApiConnector =
+            mock(KrakenWebSocketPublicApiConnector.class);
+    @Nonnull
+    private final KrakenWebSocketOrderBookFacadeImpl krakenWebSocketOrderBookFacadeImpl =
+            new KrakenWebSocketOrderBookFacadeImpl(krakenWebSocketPublicApiConnector,
+                    new CurrencyPairBoToKrakenWebSocketSymbolConverter(),
+                    new CurrencyPairBoToKrakenPairPrecisionConverter(), 10);
+
+    @AfterEach
+    public void assertAndCleanMocks() {
+        Mockito.verifyNoMoreInteractions(krakenWebSocketPublicApiConnector);
+        Mockito.reset(krakenWebSocketPublicApiConnector);
+    }
+
+    @Test
+    public void test_getOrderBook_when_noSnapshotReceivedYet_then_bookSubscribed_and_exception() {
+        assertThatThrownBy(() -> krakenWebSocketOrderBookFacadeImpl.getOrderBook(BTC_EUR, 10))
+                .isInstanceOf(IllegalStateException.class);
+
+        verify(krakenWebSocketPublicApiConnector).subscribeBooks(eq(ImmutableList.of("BTC/EUR")), eq(10), eq(1),
+                eq(8), any(KrakenWebSocketBookListener.class));
+    }
+
+    @Test
+    public void test_getOrderBook_when_snapshotAndUpdateWithMatchingChecksums_then_updatedBookReturned() {
+        final var listener = subscribeAndCaptureListener();
+
+        listener.onBook(createBookDto(true,
+                new long[]{89024L}, new long[]{50_000_000L},
+                new long[]{89033L}, new long[]{125_000_000L},
+                crc32("89033" + "125000000" + "89024" + "50000000")));
+        listener.onBook(createBookDto(false,
+                new long[]{89027L}, new long[]{10_000_000L},
+                new long[]{89033L}, new long[]{0L},
+                crc32("89027" + "10000000" + "89024" + "50000000")));
+        final var orderBook = krakenWebSocketOrderBookFacadeImpl.getOrderBook(BTC_EUR, 10);
+
+        assertThat(orderBook.getBids()).hasSize(2);
+        assertThat(orderBook.getBids().get(0).getPrice()).isEqualTo(new BigDecimal("8902.7"));
+        assertThat(orderBook.getBids().get(0).getVolume()).isEqualTo(new BigDecimal("0.10000000"));
+        assertThat(orderBook.getBids().get(1).getPrice()).isEqualTo(new BigDecimal("8902.4"));
+        assertThat(orderBook.getAsks()).isEmpty();
+    }
+
+    @Test
+    public void test_getOrderBook_when_checksumMismatch_then_bookResubscribed_and_exception() {
+        final var listener = subscribeAndCaptureListener();
+        listener.onBook(createBookDto(true,
+                new long[]{89024L}, new long[]{50_000_000L},
+                new long[]{89033L}, new long[]{125_000_000L},
+                crc32("89033" + "125000000" + "89024" + "50000000")));
+
+        listener.onBook(createBookDto(false, new long[]{89027L}, new long[]{10_000_000L}, new long[0], new long[0],
+                42));
+
+        verify(krakenWebSocketPublicApiConnector).resubscribeBook("BTC/EUR");
+        assertThatThrownBy(() -> krakenWebSocketOrderBookFacadeImpl.getOrderBook(BTC_EUR, 10))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void test_getOrderBook_when_messageUnreadable_then_bookResubscribed_and_exception() {
+        final var listener = subscribeAndCaptureListener();
+        listener.onBook(createBookDto(true, new long[]{89024L}, new long[]{50_000_000L}, new long[0], new long[0],
+                crc32("89024" + "50000000")));
+
+        listener.onUnreadableBook("BTC/EUR");
+
+        verify(krakenWebSocketPublicApiConnector).resubscribeBook("BTC/EUR");
+        assertThatThrownBy(() -> krakenWebSocketOrderBookFacadeImpl.getOrderBook(BTC_EUR, 10))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void test_getOrderBook_when_disconnected_then_exception() {
+        final var listener = subscribeAndCaptureListener();
+        listener.onBook(createBookDto(true, new long[]{89024L}, new long[]{50_000_000L}, new long[0], new long[0],
+                crc32("89024" + "50000000")));
+
+        listener.onDisconnected();
+
+        assertThatThrownBy(() -> krakenWebSocketOrderBookFacadeImpl.getOrderBook(BTC_EUR, 10))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void test_getOrderBook_when_depthExceedsSubscribedDepth_then_exception() {
+        assertThatThrownBy(() -> krakenWebSocketOrderBookFacadeImpl.getOrderBook(BTC_EUR, 11))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Subscribes BTC/EUR by a first request of its order book.
+     */
+    @Nonnull
+    private KrakenWebSocketBookListener subscribeAndCaptureListener() {
+        assertThatThrownBy(() -> krakenWebSocketOrderBookFacadeImpl.getOrderBook(BTC_EUR, 10))
+                .isInstanceOf(IllegalStateException.class);
+
+        final var listenerCaptor = ArgumentCaptor.forClass(KrakenWebSocketBookListener.class);
+        verify(krakenWebSocketPublicApiConnector).subscribeBooks(eq(ImmutableList.of("BTC/EUR")), eq(10), eq(1),
+                eq(8), listenerCaptor.capture());
+        return listenerCaptor.getValue();
+    }
+
+    @Nonnull
+    private static KrakenWebSocketBookDto createBookDto(final boolean snapshot,
+                                                        @Nonnull final long[] bidPrices,
+                                                        @Nonnull final long[] bidQuantities,
+                                                        @Nonnull final long[] askPrices,
+                                                        @Nonnull final long[] askQuantities,
+                                                        final long checksum) {
+        final var book = new KrakenWebSocketBookDto();
+        book.setSymbol("BTC/EUR");
+        book.setSnapshot(snapshot);
+        book.setBidPrices(bidPrices);
+        book.setBidQuantities(bidQuantities);
+        book.setAskPrices(askPrices);
+        book.setAskQuantities(askQuantities);
+        book.setChecksum(checksum);
+        return book;
+    }
+
+    private static long crc32(@Nonnull final String text) {
+        final var crc32 = new CRC32();
+        crc32.update(text.getBytes(StandardCharsets.US_ASCII));
+        return crc32.getValue();
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.logic;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.dto.KrakenWebSocketTickerDto;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenWebSocketPublicApiConnector;
+import com.skalicky.cryptobot.exchange.kraken.connector.api.logic.KrakenWebSocketTickerListener;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.api.logic.KrakenPublicApiFacade;
+import com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.converter.CurrencyPairBoToKrakenWebSocketSymbolConverter;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.TickerBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class KrakenWebSocketPublicApiFacadeImplUTest {
+    @Nonnull
+    private static final CurrencyPairBo BTC_EUR = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+    @Nonnull
+    private static final CurrencyPairBo EUR_BTC = new CurrencyPairBo(CurrencyBoEnum.EUR, CurrencyBoEnum.BTC);
+
+    @Nonnull
+    private final KrakenWebSocketPublicApiConnector krakenWebSocketPublicApiConnector =
+            mock(KrakenWebSocketPublicApiConnector.class);
+    @Nonnull
+    private final KrakenPublicApiFacade krakenRestPublicApiFacade = mock(KrakenPublicApiFacade.class);
+    @Nonnull
+    private final KrakenWebSocketPublicApiFacadeImpl krakenWebSocketPublicApiFacadeImpl =
+            new KrakenWebSocketPublicApiFacadeImpl(krakenWebSocketPublicApiConnector, krakenRestPublicApiFacade,
+                    new CurrencyPairBoToKrakenWebSocketSymbolConverter());
+
+    @AfterEach
+    public void assertAndCleanMocks() {
+        Mockito.verifyNoMoreInteractions(krakenWebSocketPublicApiConnector, krakenRestPublicApiFacade);
+        Mockito.reset(krakenWebSocketPublicApiConnector, krakenRestPublicApiFacade);
+    }
+
+    @Test
+    public void test_getTicker_when_noTickerPushedYet_then_pairSubscribed_and_tickerRetrievedByRest() {
+        final var restTicker = new TickerBo("XXBTZEUR", new BigDecimal("8903.3"), new BigDecimal("8902.4"));
+        when(krakenRestPublicApiFacade.getTicker(BTC_EUR)).thenReturn(restTicker);
+
+        final var ticker = krakenWebSocketPublicApiFacadeImpl.getTicker(BTC_EUR);
+
+        verify(krakenWebSocketPublicApiConnector).subscribeTickers(eq(ImmutableList.of("BTC/EUR")),
+                any(KrakenWebSocketTickerListener.class));
+        verify(krakenRestPublicApiFacade).getTicker(BTC_EUR);
+
+        assertThat(ticker).isSameAs(restTicker);
+    }
+
+    @Test
+    public void test_getTicker_when_tickerPushed_then_tickerServedFromMemory() {
+        final var listener = subscribeAndCaptureListener();
+
+        listener.onTicker(createTickerDto("BTC/EUR", "8903.3", "8902.40000001"));
+        final var ticker = krakenWebSocketPublicApiFacadeImpl.getTicker(BTC_EUR);
+        final var asyncTicker = krakenWebSocketPublicApiFacadeImpl.getTickerAsync(BTC_EUR).join();
+
+        assertThat(ticker.getTickerName()).isEqualTo("BTC/EUR");
+        assertThat(ticker.getAskPrice()).isEqualTo(new BigDecimal("8903.3"));
+        assertThat(ticker.getBidPrice()).isEqualTo(new BigDecimal("8902.40000001"));
+        assertThat(asyncTicker).isSameAs(ticker);
+    }
+
+    @Test
+    public void test_getTicker_when_disconnected_then_tickerRetrievedByRest_and_pairNotSubscribedAgain() {
+        final var listener = subscribeAndCaptureListener();
+        listener.onTicker(createTickerDto("BTC/EUR", "8903.3", "8902.4"));
+        final var restTicker = new TickerBo("XXBTZEUR", new BigDecimal("8910.1"), new BigDecimal("8909.9"));
+        when(krakenRestPublicApiFacade.getTickerAsync(BTC_EUR)).thenReturn(CompletableFuture.completedFuture(restTicker));
+
+        listener.onDisconnected();
+        final var ticker = krakenWebSocketPublicApiFacadeImpl.getTickerAsync(BTC_EUR).join();
+
+        verify(krakenRestPublicApiFacade).getTickerAsync(BTC_EUR);
+
+        assertThat(ticker).isSameAs(restTicker);
+    }
+
+    @Test
+    public void test_getTickers_when_tickerOfOnePairPushed_then_onlyOtherPairRetrievedByRest() {
+        final var listener = subscribeAndCaptureListener();
+        listener.onTicker(createTickerDto("BTC/EUR", "8903.3", "8902.4"));
+        final var restTicker = new TickerBo("EURBTC", new BigDecimal("0.00012"), new BigDecimal("0.00011"));
+        when(krakenRestPublicApiFacade.getTickers(ImmutableList.of(EUR_BTC))).thenReturn(ImmutableMap.of(EUR_BTC, restTicker));
+
+        final var tickers = krakenWebSocketPublicApiFacadeImpl.getTickers(List.of(BTC_EUR, EUR_BTC));
+
+        verify(krakenWebSocketPublicApiConnector).subscribeTickers(eq(ImmutableList.of("EUR/BTC")),
+                any(KrakenWebSocketTickerListener.class));
+        verify(krakenRestPublicApiFacade).getTickers(ImmutableList.of(EUR_BTC));
+
+        assertThat(tickers).containsOnlyKeys(BTC_EUR, EUR_BTC);
+        assertThat(tickers.get(BTC_EUR).getTickerName()).isEqualTo("BTC/EUR");
+        assertThat(tickers.get(EUR_BTC)).isSameAs(restTicker);
+    }
+
+    /**
+     * Subscribes BTC/EUR by a first request of its ticker.
+     */
+    @Nonnull
+    private KrakenWebSocketTickerListener subscribeAndCaptureListener() {
+        when(krakenRestPublicApiFacade.getTicker(BTC_EUR))
+                .thenReturn(new TickerBo("XXBTZEUR", BigDecimal.ONE, BigDecimal.ONE));
+        krakenWebSocketPublicApiFacadeImpl.getTicker(BTC_EUR);
+
+        final var listenerCaptor = ArgumentCaptor.forClass(KrakenWebSocketTickerListener.class);
+        verify(krakenWebSocketPublicApiConnector).subscribeTickers(eq(ImmutableList.of("BTC/EUR")), listenerCaptor.capture());
+        verify(krakenRestPublicApiFacade).getTicker(BTC_EUR);
+        return listenerCaptor.getValue();
+    }
+
+    @Nonnull
+    private static KrakenWebSocketTickerDto createTickerDto(@Nonnull final String symbol,
+                                                           @Nonnull final String ask,
+                                                           @Nonnull final String bid) {
+        final var ticker = new KrakenWebSocketTickerDto();
+        ticker.setSymbol(symbol);
+        ticker.setAsk(new BigDecimal(ask));
+        ticker.setBid(new BigDecimal(bid));
+        return ticker;
+    }
+}
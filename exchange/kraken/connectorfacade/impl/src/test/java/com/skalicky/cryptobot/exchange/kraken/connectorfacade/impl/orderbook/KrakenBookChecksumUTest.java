@@ -0,0 +1,77 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.kraken.connectorfacade.impl.orderbook;
+
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.orderbook.L2OrderBook;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KrakenBookChecksumUTest {
+
+    @Nonnull
+    private final KrakenBookChecksum krakenBookChecksum = new KrakenBookChecksum();
+
+    @Test
+    public void test_compute_when_levelsWithLeadingZeros_then_crc32OfAsksFollowedByBidsWithoutDecimalPointAndLeadingZeros() {
+        final var orderBook = new L2OrderBook(25, 1, 8);
+        orderBook.applySnapshot(new long[]{89024, 89010}, new long[]{50000000, 100000}, 2,
+                new long[]{89033}, new long[]{125000000}, 1);
+
+        // 8903.3 @ 1.25000000, 8902.4 @ 0.50000000, 8901.0 @ 0.00100000
+        assertThat(krakenBookChecksum.compute(orderBook))
+                .isEqualTo(crc32("89033" + "125000000" + "89024" + "50000000" + "89010" + "100000"));
+    }
+
+    @Test
+    public void test_compute_when_moreThanTenLevels_then_onlyTopTenPerSideIncluded() {
+        final var orderBook = new L2OrderBook(25, 0, 0);
+        final var prices = new long[12];
+        final var quantities = new long[12];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = 100 - i;
+            quantities[i] = 1;
+        }
+        orderBook.applySnapshot(prices, quantities, prices.length, new long[0], new long[0], 0);
+
+        final var expected = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            expected.append(100 - i).append(1);
+        }
+        assertThat(krakenBookChecksum.compute(orderBook)).isEqualTo(crc32(expected.toString()));
+    }
+
+    @Test
+    public void test_compute_when_calledRepeatedly_then_sameChecksum() {
+        final var orderBook = new L2OrderBook(10, 1, 8);
+        orderBook.applySnapshot(new long[]{89024}, new long[]{50000000}, 1, new long[]{89033}, new long[]{1}, 1);
+
+        assertThat(krakenBookChecksum.compute(orderBook)).isEqualTo(krakenBookChecksum.compute(orderBook));
+    }
+
+    private static long crc32(@Nonnull final String text) {
+        final var crc32 = new CRC32();
+        crc32.update(text.getBytes(StandardCharsets.US_ASCII));
+        return crc32.getValue();
+    }
+}
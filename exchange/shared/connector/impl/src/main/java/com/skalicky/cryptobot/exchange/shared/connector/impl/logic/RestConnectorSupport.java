@@ -18,23 +18,78 @@
 
 package com.skalicky.cryptobot.exchange.shared.connector.impl.logic;
 
+import com.skalicky.cryptobot.exchange.shared.connector.impl.metrics.LatencyHistogram;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
 import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.RequestEntityProcessing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class RestConnectorSupport {
+/**
+ * Sends requests over a pool of kept-alive connections per target. The latency of every request, from sending it
+ * until its response is read, is recorded in a histogram per target, i.e. per scheme, host and port. Paths are left
+ * out as they can contain secrets, e.g. of Slack webhooks. {@link #close()} logs the histograms.
+ */
+public class RestConnectorSupport implements Closeable {
 
     @Nonnull
     private static final Logger logger = LoggerFactory.getLogger(RestConnectorSupport.class);
+    private static final int MAX_LOGGED_RESPONSE_LENGTH = 512;
+
+    @Nonnull
+    private final RestTransportConfig config;
     @Nonnull
-    private static final Client client = ClientBuilder.newClient(new ClientConfig());
+    private final Client client;
+    @Nonnull
+    private final ConcurrentHashMap<String, LatencyHistogram> latencyHistogramsByTargets = new ConcurrentHashMap<>();
+
+    public RestConnectorSupport() {
+        this(RestTransportConfig.DEFAULT);
+    }
 
+    public RestConnectorSupport(@Nonnull final RestTransportConfig config) {
+        this.config = config;
+        final var connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(config.getPoolSize());
+        connectionManager.setDefaultMaxPerRoute(config.getPoolSize());
+        this.client = ClientBuilder.newClient(new ClientConfig()
+                .connectorProvider(new ApacheConnectorProvider())
+                .property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager)
+                .property(ClientProperties.CONNECT_TIMEOUT, Math.toIntExact(config.getConnectTimeout().toMillis()))
+                .property(ClientProperties.READ_TIMEOUT, Math.toIntExact(config.getReadTimeout().toMillis()))
+                // With a Content-Length as before with the default connector, not chunked.
+                .property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.BUFFERED));
+        logger.debug("Created with {}", config);
+    }
+
+    /**
+     * @throws RetryLaterException if the target answers 429 or 503
+     * @throws IllegalStateException if the target answers another status of 300 or higher
+     */
     public <T> void postJson(@Nonnull final T requestPayload,
                              @Nonnull final String targetUrl) {
         final var webTarget = client.target(targetUrl);
@@ -44,17 +99,92 @@ public class RestConnectorSupport {
 
         logger.debug("URI {} - Request: {}", targetUrl, requestEntity);
 
-        final var response = invocationBuilder.post(requestEntity);
+        final var startInNanos = System.nanoTime();
+        try {
+            final var response = invocationBuilder.post(requestEntity);
+            try {
+                handleResponse(response, targetUrl);
+            } finally {
+                // Returns the connection to the pool.
+                response.close();
+            }
+        } finally {
+            latencyHistogramsByTargets.computeIfAbsent(toTarget(webTarget.getUri()), target -> new LatencyHistogram())
+                    .record(System.nanoTime() - startInNanos);
+        }
+    }
+
+    /**
+     * @return latencies of the requests so far by their targets, e.g. https://hooks.slack.com:443
+     */
+    @Nonnull
+    public Map<String, LatencyHistogram> getLatencyHistograms() {
+        return Map.copyOf(latencyHistogramsByTargets);
+    }
+
+    /**
+     * Logs the latency histograms and closes the pooled connections.
+     */
+    @Override
+    public void close() {
+        latencyHistogramsByTargets.forEach((target, histogram) -> logger.info("Latency of {}: {}", target, histogram));
+        client.close();
+    }
 
-        final var responseString = response.readEntity(String.class);
-        final var maxLength = 512;
-        final var showDots = responseString.length() > maxLength;
-        logger.debug("URI {} - Raw Response: {}{}", targetUrl,
-                responseString.substring(0, Math.min(maxLength, responseString.length())), showDots ? "..." : "");
+    private void handleResponse(@Nonnull final Response response,
+                                @Nonnull final String targetUrl) {
+        if (config.isReadResponseBody() || response.getStatus() >= 300) {
+            final var responseString = response.readEntity(String.class);
+            final var showDots = responseString.length() > MAX_LOGGED_RESPONSE_LENGTH;
+            logger.debug("URI {} - Raw Response: {}{}", targetUrl,
+                    responseString.substring(0, Math.min(MAX_LOGGED_RESPONSE_LENGTH, responseString.length())),
+                    showDots ? "..." : "");
+        } else if (response.hasEntity()) {
+            // Consumed to keep the connection reusable.
+            try (final var body = response.readEntity(InputStream.class)) {
+                body.transferTo(OutputStream.nullOutputStream());
+            } catch (final IOException exception) {
+                throw new UncheckedIOException("Reading of the response from " + targetUrl + " failed", exception);
+            }
+        }
 
+        if (response.getStatus() == Response.Status.TOO_MANY_REQUESTS.getStatusCode()
+                || response.getStatus() == Response.Status.SERVICE_UNAVAILABLE.getStatusCode()) {
+            throw new RetryLaterException("Unexpected response status. Response: " + response,
+                    parseRetryAfter(response.getHeaderString(HttpHeaders.RETRY_AFTER)));
+        }
         if (response.getStatus() >= 300) {
             throw new IllegalStateException("Unexpected response status. Response: " + response);
         }
     }
 
+    @Nonnull
+    private static String toTarget(@Nonnull final URI uri) {
+        return uri.getScheme() + "://" + uri.getHost() + ":" + (uri.getPort() != -1 ? uri.getPort()
+                : "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80);
+    }
+
+    /**
+     * @param retryAfter either seconds or an HTTP date
+     * @return null if missing or malformed
+     */
+    @Nullable
+    static Duration parseRetryAfter(@Nullable final String retryAfter) {
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return null;
+        }
+        final var trimmed = retryAfter.trim();
+        try {
+            if (trimmed.chars().allMatch(Character::isDigit)) {
+                return Duration.ofSeconds(Long.parseLong(trimmed));
+            }
+            final var duration = Duration.between(ZonedDateTime.now(),
+                    ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME));
+            return duration.isNegative() ? Duration.ZERO : duration;
+        } catch (final NumberFormatException | DateTimeParseException exception) {
+            logger.debug("Malformed Retry-After {}", retryAfter, exception);
+            return null;
+        }
+    }
+
 }
@@ -0,0 +1,87 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.shared.connector.impl.logic;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+
+public final class RestTransportConfig {
+
+    @Nonnull
+    public static final RestTransportConfig DEFAULT = new RestTransportConfig(
+            8, Duration.ofSeconds(10), Duration.ofSeconds(30), true);
+
+    /**
+     * Maximum number of connections kept to one target, equal to the maximum number of requests in flight to it.
+     */
+    private final int poolSize;
+    @Nonnull
+    private final Duration connectTimeout;
+    /**
+     * How long to wait for the response of a sent request.
+     */
+    @Nonnull
+    private final Duration readTimeout;
+    /**
+     * False to discard bodies of successful responses without decoding and logging them. Bodies of failed responses
+     * are always read.
+     */
+    private final boolean readResponseBody;
+
+    public RestTransportConfig(final int poolSize,
+                               @Nonnull final Duration connectTimeout,
+                               @Nonnull final Duration readTimeout,
+                               final boolean readResponseBody) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Pool size needs to be positive [" + poolSize + "]");
+        }
+        this.poolSize = poolSize;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.readResponseBody = readResponseBody;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    @Nonnull
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    @Nonnull
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    public boolean isReadResponseBody() {
+        return readResponseBody;
+    }
+
+    @Override
+    public String toString() {
+        return "RestTransportConfig{" +
+                "poolSize=" + poolSize +
+                ", connectTimeout=" + connectTimeout +
+                ", readTimeout=" + readTimeout +
+                ", readResponseBody=" + readResponseBody +
+                '}';
+    }
+}
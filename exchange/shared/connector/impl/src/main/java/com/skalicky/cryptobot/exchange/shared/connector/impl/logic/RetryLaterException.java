@@ -0,0 +1,47 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.shared.connector.impl.logic;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+
+/**
+ * The target refused the request because of its load or of a rate limit, i.e. answered 429 or 503. The same request
+ * may succeed later.
+ */
+public class RetryLaterException extends IllegalStateException {
+
+    @Nullable
+    private final Duration retryAfter;
+
+    public RetryLaterException(@Nonnull final String message,
+                               @Nullable final Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return how long to wait according to the Retry-After header, null if the target did not tell
+     */
+    @Nullable
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
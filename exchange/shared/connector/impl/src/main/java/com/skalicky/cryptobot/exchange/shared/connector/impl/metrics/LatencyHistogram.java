@@ -0,0 +1,100 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.shared.connector.impl.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts latencies in buckets with upper bounds doubling from 1 ms to about 65 s, and one bucket for longer ones.
+ * Percentiles are known only up to the upper bound of their bucket, which is precise enough to tell a slow target
+ * from a fast one. Recording is thread safe and does not lock.
+ */
+public class LatencyHistogram {
+
+    private static final int BOUNDED_BUCKET_COUNT = 17;
+
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BOUNDED_BUCKET_COUNT + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalInNanos = new LongAdder();
+    private final AtomicLong maxInNanos = new AtomicLong();
+
+    public void record(final long durationInNanos) {
+        final var durationInMillis = TimeUnit.NANOSECONDS.toMillis(Math.max(0, durationInNanos));
+        // Index of the smallest power of two not below the duration.
+        final var bucket = durationInMillis <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(durationInMillis - 1);
+        bucketCounts.incrementAndGet(Math.min(bucket, BOUNDED_BUCKET_COUNT));
+        count.increment();
+        totalInNanos.add(durationInNanos);
+        maxInNanos.accumulateAndGet(durationInNanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMeanInMillis() {
+        final var currentCount = count.sum();
+        return currentCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalInNanos.sum() / currentCount);
+    }
+
+    public long getMaxInMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxInNanos.get());
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return upper bound of the bucket of the given percentile in milliseconds, {@link Long#MAX_VALUE} if above all
+     * bounds, 0 if nothing recorded
+     */
+    public long getPercentileUpperBoundInMillis(final double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile needs to be between 0 and 100 [" + percentile + "]");
+        }
+        final var currentCount = count.sum();
+        if (currentCount == 0) {
+            return 0;
+        }
+        final var rank = Math.max(1, (long) Math.ceil(currentCount * percentile / 100));
+        long cumulativeCount = 0;
+        for (int bucket = 0; bucket < BOUNDED_BUCKET_COUNT; bucket++) {
+            cumulativeCount += bucketCounts.get(bucket);
+            if (cumulativeCount >= rank) {
+                return 1L << bucket;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount()
+                + ", mean=" + getMeanInMillis() + " ms"
+                + ", p50<=" + toString(getPercentileUpperBoundInMillis(50))
+                + ", p90<=" + toString(getPercentileUpperBoundInMillis(90))
+                + ", p99<=" + toString(getPercentileUpperBoundInMillis(99))
+                + ", max=" + getMaxInMillis() + " ms";
+    }
+
+    private static String toString(final long upperBoundInMillis) {
+        return upperBoundInMillis == Long.MAX_VALUE ? "inf" : upperBoundInMillis + " ms";
+    }
+}
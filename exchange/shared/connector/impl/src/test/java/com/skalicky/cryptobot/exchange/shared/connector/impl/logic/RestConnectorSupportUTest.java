@@ -25,6 +25,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import javax.annotation.Nonnull;
+import javax.ws.rs.ProcessingException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
@@ -33,6 +36,7 @@ import static com.github.tomakehurst.wiremock.client.WireMock.post;
 import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class RestConnectorSupportUTest {
@@ -52,6 +56,7 @@ public class RestConnectorSupportUTest {
 
     @AfterEach
     public void teardown() {
+        restConnectorSupport.close();
         wireMockServer.stop();
     }
 
@@ -105,6 +110,92 @@ public class RestConnectorSupportUTest {
                         .withRequestBody(equalToJson(serializedRequest)));
     }
 
+    @Test
+    public void test_postJson_when_responseBodyNotRead_then_noException_and_latencyRecordedPerTarget() throws Exception {
+        restConnectorSupport.close();
+        restConnectorSupport = new RestConnectorSupport(new RestTransportConfig(2, Duration.ofSeconds(1),
+                Duration.ofSeconds(1), false));
+        final var testRequest = new TestRequest("Tomas Skalicky");
+        final var serializedRequest = objectMapper.writeValueAsString(testRequest);
+        final var endpoint = "/context-path/servlet-mapping/endpoint";
+        wireMockServer.stubFor(
+                post(urlEqualTo(endpoint))
+                        .withHeader("Content-Type", equalTo("application/json"))
+                        .withRequestBody(equalToJson(serializedRequest))
+                        .willReturn(aResponse()
+                                .withStatus(200)
+                                .withBody("ok")));
+        final var port = wireMockServer.port();
+
+        restConnectorSupport.postJson(testRequest, "http://localhost:" + port + endpoint);
+        restConnectorSupport.postJson(testRequest, "http://localhost:" + port + endpoint);
+
+        wireMockServer.verify(2,
+                postRequestedFor(urlEqualTo(endpoint))
+                        .withHeader("Content-Type", equalTo("application/json"))
+                        .withRequestBody(equalToJson(serializedRequest)));
+        assertThat(restConnectorSupport.getLatencyHistograms()).containsOnlyKeys("http://localhost:" + port);
+        assertThat(restConnectorSupport.getLatencyHistograms().get("http://localhost:" + port).getCount())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void test_postJson_when_readTimeoutExceeded_then_exception() throws Exception {
+        restConnectorSupport.close();
+        restConnectorSupport = new RestConnectorSupport(new RestTransportConfig(2, Duration.ofSeconds(1),
+                Duration.ofMillis(200), true));
+        final var testRequest = new TestRequest("Tomas Skalicky");
+        final var endpoint = "/context-path/servlet-mapping/endpoint";
+        wireMockServer.stubFor(
+                post(urlEqualTo(endpoint))
+                        .willReturn(aResponse()
+                                .withStatus(200)
+                                .withFixedDelay(2000)));
+        final var port = wireMockServer.port();
+
+        assertThatThrownBy(() -> restConnectorSupport.postJson(testRequest, "http://localhost:" + port + endpoint))
+                .isInstanceOf(ProcessingException.class)
+                .hasCauseInstanceOf(SocketTimeoutException.class);
+    }
+
+    @Test
+    public void test_postJson_when_tooManyRequests_then_retryLaterException_with_retryAfter() throws Exception {
+        final var testRequest = new TestRequest("Tomas Skalicky");
+        final var serializedRequest = objectMapper.writeValueAsString(testRequest);
+        final var endpoint = "/context-path/servlet-mapping/endpoint";
+        wireMockServer.stubFor(
+                post(urlEqualTo(endpoint))
+                        .withHeader("Content-Type", equalTo("application/json"))
+                        .withRequestBody(equalToJson(serializedRequest))
+                        .willReturn(aResponse()
+                                .withStatus(429)
+                                .withHeader("Retry-After", "30")
+                                .withBody("rate_limited")));
+        final var port = wireMockServer.port();
+
+        assertThatThrownBy(() -> restConnectorSupport.postJson(testRequest, "http://localhost:" + port + endpoint))
+                .isInstanceOf(RetryLaterException.class)
+                .hasMessageStartingWith("Unexpected response status. Response: ")
+                .extracting(exception -> ((RetryLaterException) exception).getRetryAfter())
+                .isEqualTo(Duration.ofSeconds(30));
+    }
+
+    @Test
+    public void test_parseRetryAfter_when_seconds_then_duration() {
+        assertThat(RestConnectorSupport.parseRetryAfter(" 120 ")).isEqualTo(Duration.ofSeconds(120));
+    }
+
+    @Test
+    public void test_parseRetryAfter_when_pastHttpDate_then_zero() {
+        assertThat(RestConnectorSupport.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT")).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    public void test_parseRetryAfter_when_missingOrMalformed_then_null() {
+        assertThat(RestConnectorSupport.parseRetryAfter(null)).isNull();
+        assertThat(RestConnectorSupport.parseRetryAfter("soon")).isNull();
+    }
+
     private static final class TestRequest {
         @Nonnull
         private final String name;
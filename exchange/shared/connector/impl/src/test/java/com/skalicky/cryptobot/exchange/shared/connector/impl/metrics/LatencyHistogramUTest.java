@@ -0,0 +1,70 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.shared.connector.impl.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LatencyHistogramUTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    public void test_getPercentileUpperBoundInMillis_when_nothingRecorded_then_zero() {
+        assertThat(histogram.getPercentileUpperBoundInMillis(99)).isEqualTo(0);
+        assertThat(histogram.getMeanInMillis()).isEqualTo(0);
+    }
+
+    @Test
+    public void test_getPercentileUpperBoundInMillis_when_recorded_then_upperBoundOfBucket() {
+        for (int i = 0; i < 90; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(700));
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(100);
+        assertThat(histogram.getPercentileUpperBoundInMillis(50)).isEqualTo(4);
+        assertThat(histogram.getPercentileUpperBoundInMillis(90)).isEqualTo(4);
+        assertThat(histogram.getPercentileUpperBoundInMillis(91)).isEqualTo(1024);
+        assertThat(histogram.getMeanInMillis()).isEqualTo(72);
+        assertThat(histogram.getMaxInMillis()).isEqualTo(700);
+    }
+
+    @Test
+    public void test_getPercentileUpperBoundInMillis_when_aboveAllBounds_then_maxValue() {
+        histogram.record(TimeUnit.MINUTES.toNanos(5));
+
+        assertThat(histogram.getPercentileUpperBoundInMillis(50)).isEqualTo(Long.MAX_VALUE);
+        assertThat(histogram.toString()).isEqualTo(
+                "count=1, mean=300000 ms, p50<=inf, p90<=inf, p99<=inf, max=300000 ms");
+    }
+
+    @Test
+    public void test_getPercentileUpperBoundInMillis_when_invalidPercentile_then_exception() {
+        assertThatThrownBy(() -> histogram.getPercentileUpperBoundInMillis(101))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Percentile needs to be between 0 and 100 [101.0]");
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.slack.connector.impl.batching;
+
+import com.skalicky.cryptobot.exchange.shared.connector.impl.logic.RetryLaterException;
+import com.skalicky.cryptobot.exchange.slack.connector.api.logic.SlackConnector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decorates a {@link SlackConnector} so that sending a message only enqueues it and never waits for Slack. A
+ * background thread sends the queued messages. It waits for the coalescing window after the first message, so that
+ * messages to the same webhook sent meanwhile are joined into one post, in the order they were sent.
+ * <p>
+ * A refused post is retried after the time requested by its Retry-After header, other failures after a time doubling
+ * with every attempt. A message is dropped if the queue is full or its post fails the maximum number of attempts.
+ * {@link #close()} sends the queued messages without waiting for the coalescing window.
+ */
+public class BatchingSlackConnector implements SlackConnector, Closeable {
+
+    @Nonnull
+    private static final Logger logger = LoggerFactory.getLogger(BatchingSlackConnector.class);
+    /**
+     * Wait before the second attempt if Slack does not tell how long.
+     */
+    @Nonnull
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+    /**
+     * Slack truncates longer messages, hence longer batches are split.
+     */
+    private static final int MAX_POST_LENGTH = 40_000;
+    /**
+     * How often the idle background thread checks whether the connector is closing.
+     */
+    private static final long CLOSING_CHECK_INTERVAL_IN_MILLIS = 100;
+
+    @Nonnull
+    private final SlackConnector delegate;
+    @Nonnull
+    private final BlockingQueue<Message> queue;
+    @Nonnull
+    private final Duration coalescingWindow;
+    private final int maxAttempts;
+    @Nonnull
+    private final Duration closeTimeout;
+    @Nonnull
+    private final Sleeper sleeper;
+    @Nonnull
+    private final CountDownLatch closing = new CountDownLatch(1);
+    @Nonnull
+    private final Thread sender;
+
+    /**
+     * Starts the background thread.
+     *
+     * @param closeTimeout how long {@link #close()} waits for the queued messages to be sent
+     */
+    public BatchingSlackConnector(@Nonnull final SlackConnector delegate,
+                                  final int queueCapacity,
+                                  @Nonnull final Duration coalescingWindow,
+                                  final int maxAttempts,
+                                  @Nonnull final Duration closeTimeout) {
+        this(delegate, queueCapacity, coalescingWindow, maxAttempts, closeTimeout,
+                duration -> Thread.sleep(duration.toMillis()));
+    }
+
+    BatchingSlackConnector(@Nonnull final SlackConnector delegate,
+                           final int queueCapacity,
+                           @Nonnull final Duration coalescingWindow,
+                           final int maxAttempts,
+                           @Nonnull final Duration closeTimeout,
+                           @Nonnull final Sleeper sleeper) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt needed, not " + maxAttempts);
+        }
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.coalescingWindow = coalescingWindow;
+        this.maxAttempts = maxAttempts;
+        this.closeTimeout = closeTimeout;
+        this.sleeper = sleeper;
+        this.sender = new Thread(this::sendQueuedMessages, "slack-sender");
+        this.sender.setDaemon(true);
+        this.sender.start();
+    }
+
+    @Override
+    public void sendMessage(@Nonnull final String text,
+                            @Nonnull final String webhookUrl) {
+        if (closing.getCount() == 0) {
+            logger.warn("Slack message to {} dropped as the connector is closed: {}", redact(webhookUrl), text);
+            return;
+        }
+        if (!queue.offer(new Message(text, webhookUrl))) {
+            logger.warn("Slack message to {} dropped as {} messages are queued: {}", redact(webhookUrl), queue.size(),
+                    text);
+        }
+    }
+
+    /**
+     * Sends the queued messages and stops the background thread, waiting at most the close timeout.
+     */
+    @Override
+    public void close() {
+        closing.countDown();
+        try {
+            sender.join(closeTimeout.toMillis());
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        if (sender.isAlive()) {
+            logger.warn("{} Slack messages not sent within {}", queue.size(), closeTimeout);
+        }
+    }
+
+    private void sendQueuedMessages() {
+        try {
+            while (true) {
+                final var first = queue.poll(CLOSING_CHECK_INTERVAL_IN_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closing.getCount() == 0) {
+                        return;
+                    }
+                    continue;
+                }
+                // Returns at once when closing.
+                closing.await(coalescingWindow.toMillis(), TimeUnit.MILLISECONDS);
+                final var messages = new ArrayList<Message>();
+                messages.add(first);
+                queue.drainTo(messages);
+                send(messages);
+            }
+        } catch (final InterruptedException exception) {
+            logger.warn("Sending of Slack messages interrupted with {} messages queued", queue.size());
+        }
+    }
+
+    private void send(@Nonnull final List<Message> messages) throws InterruptedException {
+        final var textsByWebhookUrls = new LinkedHashMap<String, List<String>>();
+        messages.forEach(message -> textsByWebhookUrls.computeIfAbsent(message.webhookUrl, url -> new ArrayList<>())
+                .add(message.text));
+        for (final var entry : textsByWebhookUrls.entrySet()) {
+            final var post = new StringBuilder();
+            for (final var text : entry.getValue()) {
+                if (post.length() > 0 && post.length() + 1 + text.length() > MAX_POST_LENGTH) {
+                    sendWithRetries(post.toString(), entry.getKey());
+                    post.setLength(0);
+                }
+                if (post.length() > 0) {
+                    post.append('\n');
+                }
+                post.append(text);
+            }
+            sendWithRetries(post.toString(), entry.getKey());
+        }
+    }
+
+    private void sendWithRetries(@Nonnull final String text,
+                                 @Nonnull final String webhookUrl) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                delegate.sendMessage(text, webhookUrl);
+                return;
+            } catch (final RuntimeException exception) {
+                if (attempt == maxAttempts) {
+                    logger.error("Slack message to {} dropped after {} attempts due to {}: {}", redact(webhookUrl),
+                            attempt, redact(exception, webhookUrl), text);
+                    return;
+                }
+                final var retryAfter = exception instanceof RetryLaterException
+                        && ((RetryLaterException) exception).getRetryAfter() != null
+                        ? ((RetryLaterException) exception).getRetryAfter()
+                        : DEFAULT_RETRY_AFTER.multipliedBy(1L << (attempt - 1));
+                logger.warn("Attempt {} to send a Slack message to {} failed due to {}, retrying in {}", attempt,
+                        redact(webhookUrl), redact(exception, webhookUrl), retryAfter);
+                sleeper.sleep(retryAfter);
+            }
+        }
+    }
+
+    /**
+     * The path of a webhook URL is its secret, hence only the scheme, host and port are logged, the same way as the
+     * latency histograms of the REST connector are keyed, followed by a hash telling webhooks of the same host apart.
+     */
+    @Nonnull
+    static String redact(@Nonnull final String webhookUrl) {
+        final var hash = "#" + Integer.toHexString(webhookUrl.hashCode());
+        try {
+            final var uri = new URI(webhookUrl);
+            if (uri.getHost() != null) {
+                return uri.getScheme() + "://" + uri.getHost() + ":" + (uri.getPort() != -1 ? uri.getPort()
+                        : "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80) + " " + hash;
+            }
+        } catch (final URISyntaxException exception) {
+            // Only the hash is logged.
+        }
+        return hash;
+    }
+
+    /**
+     * The message of a failure can contain the webhook URL, e.g. within the description of the response, hence it is
+     * logged redacted and without the stack trace.
+     */
+    @Nonnull
+    private static String redact(@Nonnull final RuntimeException exception,
+                                 @Nonnull final String webhookUrl) {
+        return exception.getClass().getName() + ": "
+                + String.valueOf(exception.getMessage()).replace(webhookUrl, redact(webhookUrl));
+    }
+
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(@Nonnull Duration duration) throws InterruptedException;
+    }
+
+    private static final class Message {
+        @Nonnull
+        private final String text;
+        @Nonnull
+        private final String webhookUrl;
+
+        private Message(@Nonnull final String text,
+                        @Nonnull final String webhookUrl) {
+            this.text = text;
+            this.webhookUrl = webhookUrl;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.slack.connector.impl.batching;
+
+import com.skalicky.cryptobot.exchange.shared.connector.impl.logic.RetryLaterException;
+import com.skalicky.cryptobot.exchange.slack.connector.api.logic.SlackConnector;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BatchingSlackConnectorUTest {
+
+    @Nonnull
+    private static final Duration LONG_WINDOW = Duration.ofMinutes(1);
+    @Nonnull
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(10);
+
+    @Nonnull
+    private final List<String> posts = Collections.synchronizedList(new ArrayList<>());
+    @Nonnull
+    private final List<Duration> sleeps = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void test_sendMessage_when_messagesWithinWindow_then_onePostPerWebhook_and_sentOnClose() {
+        final var connector = new BatchingSlackConnector((text, url) -> posts.add(url + ": " + text), 16,
+                LONG_WINDOW, 3, CLOSE_TIMEOUT, sleeps::add);
+
+        connector.sendMessage("a1", "A");
+        connector.sendMessage("b1", "B");
+        connector.sendMessage("a2", "A");
+        connector.close();
+
+        assertThat(posts).containsExactly("A: a1\na2", "B: b1");
+        assertThat(sleeps).isEmpty();
+    }
+
+    @Test
+    public void test_sendMessage_when_retryLater_then_retriedAfterRetryAfter() {
+        final var attempts = new AtomicInteger();
+        final SlackConnector delegate = (text, url) -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new RetryLaterException("Unexpected response status. Response: 429", Duration.ofSeconds(7));
+            }
+            posts.add(url + ": " + text);
+        };
+        final var connector = new BatchingSlackConnector(delegate, 16, LONG_WINDOW, 3, CLOSE_TIMEOUT, sleeps::add);
+
+        connector.sendMessage("a1", "A");
+        connector.close();
+
+        assertThat(posts).containsExactly("A: a1");
+        assertThat(sleeps).containsExactly(Duration.ofSeconds(7));
+    }
+
+    @Test
+    public void test_sendMessage_when_alwaysFailing_then_droppedAfterMaxAttempts_with_doublingWaits() {
+        final var attempts = new AtomicInteger();
+        final SlackConnector delegate = (text, url) -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("Unexpected response status. Response: 500");
+        };
+        final var connector = new BatchingSlackConnector(delegate, 16, LONG_WINDOW, 3, CLOSE_TIMEOUT, sleeps::add);
+
+        connector.sendMessage("a1", "A");
+        connector.close();
+
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(sleeps).containsExactly(Duration.ofSeconds(1), Duration.ofSeconds(2));
+    }
+
+    @Test
+    public void test_sendMessage_when_queueFull_then_droppedWithoutWaiting() throws InterruptedException {
+        final var postStarted = new CountDownLatch(1);
+        final var postAllowed = new CountDownLatch(1);
+        final SlackConnector delegate = (text, url) -> {
+            postStarted.countDown();
+            try {
+                postAllowed.await();
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            posts.add(url + ": " + text);
+        };
+        final var connector = new BatchingSlackConnector(delegate, 1, Duration.ZERO, 3, CLOSE_TIMEOUT,
+                sleeps::add);
+        connector.sendMessage("a1", "A");
+        assertThat(postStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+        connector.sendMessage("a2", "A");
+        connector.sendMessage("a3", "A");
+        postAllowed.countDown();
+        connector.close();
+
+        assertThat(posts).containsExactly("A: a1", "A: a2");
+    }
+
+    @Test
+    public void test_sendMessage_when_closed_then_dropped() {
+        final var connector = new BatchingSlackConnector((text, url) -> posts.add(url + ": " + text), 16,
+                LONG_WINDOW, 3, CLOSE_TIMEOUT, sleeps::add);
+        connector.close();
+
+        connector.sendMessage("a1", "A");
+
+        assertThat(posts).isEmpty();
+    }
+
+    @Test
+    public void test_redact_when_webhookUrl_then_onlySchemeHostPortAndHashKept() {
+        final var redacted = BatchingSlackConnector.redact("https://hooks.slack.com/services/T000/B000/XXXX");
+
+        assertThat(redacted).startsWith("https://hooks.slack.com:443 #").doesNotContain("services", "XXXX");
+        assertThat(BatchingSlackConnector.redact("https://hooks.slack.com/services/T000/B000/YYYY"))
+                .isNotEqualTo(redacted);
+    }
+}
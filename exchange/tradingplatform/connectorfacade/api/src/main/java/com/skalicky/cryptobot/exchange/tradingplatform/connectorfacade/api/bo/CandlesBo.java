@@ -0,0 +1,141 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo;
+
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CandleIntervalBoEnum;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Consecutive candles of one currency pair and interval, the oldest first.
+ * <p>
+ * Kept in columns, i.e. in parallel arrays of opening times in epoch seconds and of prices and volumes as fixed-point
+ * numbers scaled by the number of decimal places of the currency pair. Converted to {@link BigDecimal}s only when
+ * accessed, see {@link OrderBookBo}.
+ */
+public final class CandlesBo {
+    @Nonnull
+    private final CurrencyPairBo currencyPair;
+    @Nonnull
+    private final CandleIntervalBoEnum interval;
+    private final int priceScale;
+    private final int volumeScale;
+    @Nonnull
+    private final long[] times;
+    @Nonnull
+    private final long[] opens;
+    @Nonnull
+    private final long[] highs;
+    @Nonnull
+    private final long[] lows;
+    @Nonnull
+    private final long[] closes;
+    @Nonnull
+    private final long[] volumes;
+    private final int count;
+
+    /**
+     * Takes over the given arrays without copying them, hence they must not be modified afterwards.
+     *
+     * @param count number of valid candles at the beginning of the arrays
+     */
+    public CandlesBo(@Nonnull final CurrencyPairBo currencyPair,
+                     @Nonnull final CandleIntervalBoEnum interval,
+                     final int priceScale,
+                     final int volumeScale,
+                     @Nonnull final long[] times,
+                     @Nonnull final long[] opens,
+                     @Nonnull final long[] highs,
+                     @Nonnull final long[] lows,
+                     @Nonnull final long[] closes,
+                     @Nonnull final long[] volumes,
+                     final int count) {
+        if (count > times.length || count > opens.length || count > highs.length || count > lows.length
+                || count > closes.length || count > volumes.length) {
+            throw new IllegalArgumentException("Candle count exceeds the length of the candle arrays");
+        }
+        this.currencyPair = currencyPair;
+        this.interval = interval;
+        this.priceScale = priceScale;
+        this.volumeScale = volumeScale;
+        this.times = times;
+        this.opens = opens;
+        this.highs = highs;
+        this.lows = lows;
+        this.closes = closes;
+        this.volumes = volumes;
+        this.count = count;
+    }
+
+    @Nonnull
+    public CurrencyPairBo getCurrencyPair() {
+        return currencyPair;
+    }
+
+    @Nonnull
+    public CandleIntervalBoEnum getInterval() {
+        return interval;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @param index 0 for the oldest candle
+     */
+    public long getTimeInEpochSeconds(final int index) {
+        return times[Objects.checkIndex(index, count)];
+    }
+
+    @Nonnull
+    public BigDecimal getOpen(final int index) {
+        return BigDecimal.valueOf(opens[Objects.checkIndex(index, count)], priceScale);
+    }
+
+    @Nonnull
+    public BigDecimal getHigh(final int index) {
+        return BigDecimal.valueOf(highs[Objects.checkIndex(index, count)], priceScale);
+    }
+
+    @Nonnull
+    public BigDecimal getLow(final int index) {
+        return BigDecimal.valueOf(lows[Objects.checkIndex(index, count)], priceScale);
+    }
+
+    @Nonnull
+    public BigDecimal getClose(final int index) {
+        return BigDecimal.valueOf(closes[Objects.checkIndex(index, count)], priceScale);
+    }
+
+    @Nonnull
+    public BigDecimal getVolume(final int index) {
+        return BigDecimal.valueOf(volumes[Objects.checkIndex(index, count)], volumeScale);
+    }
+
+    @Override
+    public String toString() {
+        return "CandlesBo{" +
+                "interval=" + interval +
+                ", count=" + count +
+                '}';
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Top levels of an order book aggregated by price.
+ * <p>
+ * Prices and volumes are kept as fixed-point numbers, i.e. as longs scaled by the number of decimal places of the
+ * currency pair, in parallel arrays, so that even hundreds of levels take only a few allocations. They are converted
+ * to {@link BigDecimal}s only when accessed.
+ */
+public final class OrderBookBo {
+    @Nonnull
+    private final CurrencyPairBo currencyPair;
+    private final int priceScale;
+    private final int volumeScale;
+    /**
+     * Best, i.e. highest, bid first.
+     */
+    @Nonnull
+    private final long[] bidPrices;
+    @Nonnull
+    private final long[] bidVolumes;
+    private final int bidCount;
+    /**
+     * Best, i.e. lowest, ask first.
+     */
+    @Nonnull
+    private final long[] askPrices;
+    @Nonnull
+    private final long[] askVolumes;
+    private final int askCount;
+
+    /**
+     * Takes over the given arrays without copying them, hence they must not be modified afterwards.
+     *
+     * @param priceScale  number of decimal places of the scaled prices
+     * @param volumeScale number of decimal places of the scaled volumes
+     * @param bidCount    number of valid bids at the beginning of the bid arrays
+     * @param askCount    number of valid asks at the beginning of the ask arrays
+     */
+    public OrderBookBo(@Nonnull final CurrencyPairBo currencyPair,
+                       final int priceScale,
+                       final int volumeScale,
+                       @Nonnull final long[] bidPrices,
+                       @Nonnull final long[] bidVolumes,
+                       final int bidCount,
+                       @Nonnull final long[] askPrices,
+                       @Nonnull final long[] askVolumes,
+                       final int askCount) {
+        if (bidCount > Math.min(bidPrices.length, bidVolumes.length)
+                || askCount > Math.min(askPrices.length, askVolumes.length)) {
+            throw new IllegalArgumentException("Level count exceeds the length of the level arrays");
+        }
+        this.currencyPair = currencyPair;
+        this.priceScale = priceScale;
+        this.volumeScale = volumeScale;
+        this.bidPrices = bidPrices;
+        this.bidVolumes = bidVolumes;
+        this.bidCount = bidCount;
+        this.askPrices = askPrices;
+        this.askVolumes = askVolumes;
+        this.askCount = askCount;
+    }
+
+    @Nonnull
+    public CurrencyPairBo getCurrencyPair() {
+        return currencyPair;
+    }
+
+    public int getBidCount() {
+        return bidCount;
+    }
+
+    public int getAskCount() {
+        return askCount;
+    }
+
+    /**
+     * @param index 0 for the best bid
+     */
+    @Nonnull
+    public BigDecimal getBidPrice(final int index) {
+        return BigDecimal.valueOf(bidPrices[Objects.checkIndex(index, bidCount)], priceScale);
+    }
+
+    @Nonnull
+    public BigDecimal getBidVolume(final int index) {
+        return BigDecimal.valueOf(bidVolumes[Objects.checkIndex(index, bidCount)], volumeScale);
+    }
+
+    /**
+     * @param index 0 for the best ask
+     */
+    @Nonnull
+    public BigDecimal getAskPrice(final int index) {
+        return BigDecimal.valueOf(askPrices[Objects.checkIndex(index, askCount)], priceScale);
+    }
+
+    @Nonnull
+    public BigDecimal getAskVolume(final int index) {
+        return BigDecimal.valueOf(askVolumes[Objects.checkIndex(index, askCount)], volumeScale);
+    }
+
+    /**
+     * @return the bids, the best one first, created on every call
+     */
+    @Nonnull
+    public ImmutableList<OrderBookLevelBo> getBids() {
+        return toLevelBos(bidPrices, bidVolumes, bidCount);
+    }
+
+    /**
+     * @return the asks, the best one first, created on every call
+     */
+    @Nonnull
+    public ImmutableList<OrderBookLevelBo> getAsks() {
+        return toLevelBos(askPrices, askVolumes, askCount);
+    }
+
+    @Nonnull
+    private ImmutableList<OrderBookLevelBo> toLevelBos(@Nonnull final long[] prices,
+                                                       @Nonnull final long[] volumes,
+                                                       final int count) {
+        final var levels = ImmutableList.<OrderBookLevelBo>builderWithExpectedSize(count);
+        for (int i = 0; i < count; i++) {
+            levels.add(new OrderBookLevelBo(BigDecimal.valueOf(prices[i], priceScale),
+                    BigDecimal.valueOf(volumes[i], volumeScale)));
+        }
+        return levels.build();
+    }
+
+    @Override
+    public String toString() {
+        return "OrderBookBo{" +
+                "bids=" + getBids() +
+                ", asks=" + getAsks() +
+                '}';
+    }
+}
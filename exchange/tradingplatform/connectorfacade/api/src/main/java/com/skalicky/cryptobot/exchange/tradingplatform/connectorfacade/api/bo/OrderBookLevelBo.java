@@ -0,0 +1,53 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+
+public final class OrderBookLevelBo {
+    @Nonnull
+    private final BigDecimal price;
+    @Nonnull
+    private final BigDecimal volume;
+
+    public OrderBookLevelBo(@Nonnull final BigDecimal price,
+                            @Nonnull final BigDecimal volume) {
+        this.price = price;
+        this.volume = volume;
+    }
+
+    @Nonnull
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    @Nonnull
+    public BigDecimal getVolume() {
+        return volume;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderBookLevelBo{" +
+                "price=" + price +
+                ", volume=" + volume +
+                '}';
+    }
+}
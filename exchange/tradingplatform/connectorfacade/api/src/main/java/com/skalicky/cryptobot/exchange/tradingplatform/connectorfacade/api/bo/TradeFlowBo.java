@@ -0,0 +1,92 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+
+/**
+ * Aggregates of the public trades of one currency pair within a time range.
+ */
+public final class TradeFlowBo {
+    private final int tradeCount;
+    @Nullable
+    private final BigDecimal volumeWeightedAveragePrice;
+    @Nonnull
+    private final BigDecimal buyVolume;
+    @Nonnull
+    private final BigDecimal sellVolume;
+
+    public TradeFlowBo(final int tradeCount,
+                       @Nullable final BigDecimal volumeWeightedAveragePrice,
+                       @Nonnull final BigDecimal buyVolume,
+                       @Nonnull final BigDecimal sellVolume) {
+        this.tradeCount = tradeCount;
+        this.volumeWeightedAveragePrice = volumeWeightedAveragePrice;
+        this.buyVolume = buyVolume;
+        this.sellVolume = sellVolume;
+    }
+
+    public int getTradeCount() {
+        return tradeCount;
+    }
+
+    /**
+     * @return null if there is no trade with a non-zero volume
+     */
+    @Nullable
+    public BigDecimal getVolumeWeightedAveragePrice() {
+        return volumeWeightedAveragePrice;
+    }
+
+    /**
+     * @return volume of the trades where the taker bought
+     */
+    @Nonnull
+    public BigDecimal getBuyVolume() {
+        return buyVolume;
+    }
+
+    /**
+     * @return volume of the trades where the taker sold
+     */
+    @Nonnull
+    public BigDecimal getSellVolume() {
+        return sellVolume;
+    }
+
+    /**
+     * @return positive if takers bought more than they sold
+     */
+    @Nonnull
+    public BigDecimal getNetVolume() {
+        return buyVolume.subtract(sellVolume);
+    }
+
+    @Override
+    public String toString() {
+        return "TradeFlowBo{" +
+                "tradeCount=" + tradeCount +
+                ", volumeWeightedAveragePrice=" + volumeWeightedAveragePrice +
+                ", buyVolume=" + buyVolume +
+                ", sellVolume=" + sellVolume +
+                '}';
+    }
+}
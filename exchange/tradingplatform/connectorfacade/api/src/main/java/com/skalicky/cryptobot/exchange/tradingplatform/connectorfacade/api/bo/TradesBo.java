@@ -0,0 +1,112 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Consecutive public trades of one currency pair, the oldest first.
+ * <p>
+ * Kept in columns, i.e. in parallel arrays of times in epoch nanoseconds, of prices and volumes as fixed-point numbers
+ * scaled by the number of decimal places of the currency pair and of the sides of the takers, see {@link CandlesBo}.
+ */
+public final class TradesBo {
+    @Nonnull
+    private final CurrencyPairBo currencyPair;
+    private final int priceScale;
+    private final int volumeScale;
+    @Nonnull
+    private final long[] times;
+    @Nonnull
+    private final long[] prices;
+    @Nonnull
+    private final long[] volumes;
+    @Nonnull
+    private final boolean[] buys;
+    private final int count;
+
+    /**
+     * Takes over the given arrays without copying them, hence they must not be modified afterwards.
+     *
+     * @param buys  true for trades where the taker bought
+     * @param count number of valid trades at the beginning of the arrays
+     */
+    public TradesBo(@Nonnull final CurrencyPairBo currencyPair,
+                    final int priceScale,
+                    final int volumeScale,
+                    @Nonnull final long[] times,
+                    @Nonnull final long[] prices,
+                    @Nonnull final long[] volumes,
+                    @Nonnull final boolean[] buys,
+                    final int count) {
+        if (count > times.length || count > prices.length || count > volumes.length || count > buys.length) {
+            throw new IllegalArgumentException("Trade count exceeds the length of the trade arrays");
+        }
+        this.currencyPair = currencyPair;
+        this.priceScale = priceScale;
+        this.volumeScale = volumeScale;
+        this.times = times;
+        this.prices = prices;
+        this.volumes = volumes;
+        this.buys = buys;
+        this.count = count;
+    }
+
+    @Nonnull
+    public CurrencyPairBo getCurrencyPair() {
+        return currencyPair;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @param index 0 for the oldest trade
+     */
+    public long getTimeInEpochNanos(final int index) {
+        return times[Objects.checkIndex(index, count)];
+    }
+
+    @Nonnull
+    public BigDecimal getPrice(final int index) {
+        return BigDecimal.valueOf(prices[Objects.checkIndex(index, count)], priceScale);
+    }
+
+    @Nonnull
+    public BigDecimal getVolume(final int index) {
+        return BigDecimal.valueOf(volumes[Objects.checkIndex(index, count)], volumeScale);
+    }
+
+    /**
+     * @return true if the taker bought, false if the taker sold
+     */
+    public boolean isBuy(final int index) {
+        return buys[Objects.checkIndex(index, count)];
+    }
+
+    @Override
+    public String toString() {
+        return "TradesBo{" +
+                "count=" + count +
+                '}';
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+
+public enum CandleIntervalBoEnum {
+
+    // @formatter:off
+    ONE_MINUTE     (Duration.ofMinutes(1)),
+    FIVE_MINUTES   (Duration.ofMinutes(5)),
+    FIFTEEN_MINUTES(Duration.ofMinutes(15)),
+    THIRTY_MINUTES (Duration.ofMinutes(30)),
+    ONE_HOUR       (Duration.ofHours(1)),
+    FOUR_HOURS     (Duration.ofHours(4)),
+    ONE_DAY        (Duration.ofDays(1)),
+    ONE_WEEK       (Duration.ofDays(7)),
+    FIFTEEN_DAYS   (Duration.ofDays(15)),
+    ;
+    // @formatter:on
+
+    @Nonnull
+    private final Duration duration;
+
+    CandleIntervalBoEnum(@Nonnull final Duration duration) {
+        this.duration = duration;
+    }
+
+    @Nonnull
+    public Duration getDuration() {
+        return duration;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.logic;
+
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CandlesBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CandleIntervalBoEnum;
+
+import javax.annotation.Nonnull;
+import java.time.LocalDateTime;
+
+/**
+ * Serves candles kept locally, retrieving only the candles which are not known yet from the trading platform.
+ */
+public interface TradingPlatformCandleFacade extends TradingPlatformDesignated {
+
+    /**
+     * @param from inclusive opening time of the oldest candle
+     * @param to   exclusive opening time of the newest candle
+     * @return the known candles which open within the given range, the last one possibly still in progress
+     */
+    @Nonnull
+    CandlesBo getCandles(@Nonnull CurrencyPairBo currencyPair,
+                         @Nonnull CandleIntervalBoEnum interval,
+                         @Nonnull LocalDateTime from,
+                         @Nonnull LocalDateTime to);
+}
@@ -0,0 +1,39 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.logic;
+
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.OrderBookBo;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Serves order books maintained locally from a market data feed of the trading platform.
+ */
+public interface TradingPlatformOrderBookFacade extends TradingPlatformDesignated {
+
+    /**
+     * @param depth maximum number of levels per side
+     * @throws IllegalStateException if there is no valid order book of the given currency pair at the moment, e.g.
+     *                               because the feed is reconnecting
+     */
+    @Nonnull
+    OrderBookBo getOrderBook(@Nonnull CurrencyPairBo currencyPair,
+                             int depth);
+}
@@ -30,19 +30,40 @@ import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.en
 import javax.annotation.Nonnull;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
 
 public interface TradingPlatformPrivateApiFacade extends TradingPlatformDesignated {
 
     @Nonnull
     ImmutableList<OpenOrderBo> getOpenOrders(boolean includeTrades);
 
+    @Nonnull
+    CompletableFuture<ImmutableList<OpenOrderBo>> getOpenOrdersAsync(boolean includeTrades);
+
     @Nonnull
     ImmutableList<ClosedOrderBo> getClosedOrders(boolean includeTrades,
                                                  @Nonnull LocalDateTime from);
 
+    @Nonnull
+    CompletableFuture<ImmutableList<ClosedOrderBo>> getClosedOrdersAsync(boolean includeTrades,
+                                                                         @Nonnull LocalDateTime from);
+
+    /**
+     * Retrieves the closed orders lazily while iterating, hence suitable for long histories.
+     *
+     * @return the closed orders, the most recently closed first
+     */
+    @Nonnull
+    Iterator<ClosedOrderBo> getClosedOrdersIterator(boolean includeTrades,
+                                                    @Nonnull LocalDateTime from);
+
     @Nonnull
     ImmutableMap<CurrencyBoEnum, BigDecimal> getAccountBalance();
 
+    @Nonnull
+    CompletableFuture<ImmutableMap<CurrencyBoEnum, BigDecimal>> getAccountBalanceAsync();
+
     void placeOrder(@Nonnull OrderTypeBoEnum orderType,
                     @Nonnull PriceOrderTypeBoEnum priceOrderType,
                     @Nonnull CurrencyPairBo currencyPair,
@@ -50,4 +71,13 @@ public interface TradingPlatformPrivateApiFacade extends TradingPlatformDesignat
                     @Nonnull BigDecimal price,
                     boolean preferFeeInQuoteCurrency,
                     long orderExpirationInSecondsFromNow);
+
+    @Nonnull
+    CompletableFuture<Void> placeOrderAsync(@Nonnull OrderTypeBoEnum orderType,
+                                            @Nonnull PriceOrderTypeBoEnum priceOrderType,
+                                            @Nonnull CurrencyPairBo currencyPair,
+                                            @Nonnull BigDecimal volumeInQuoteCurrency,
+                                            @Nonnull BigDecimal price,
+                                            boolean preferFeeInQuoteCurrency,
+                                            long orderExpirationInSecondsFromNow);
 }
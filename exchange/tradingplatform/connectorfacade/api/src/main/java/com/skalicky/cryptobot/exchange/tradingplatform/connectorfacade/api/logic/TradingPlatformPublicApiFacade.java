@@ -18,13 +18,39 @@
 
 package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.logic;
 
+import com.google.common.collect.ImmutableMap;
 import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.OrderBookBo;
 import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.TickerBo;
 
 import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 public interface TradingPlatformPublicApiFacade extends TradingPlatformDesignated {
 
     @Nonnull
     TickerBo getTicker(@Nonnull CurrencyPairBo currencyPair);
+
+    @Nonnull
+    CompletableFuture<TickerBo> getTickerAsync(@Nonnull CurrencyPairBo currencyPair);
+
+    /**
+     * Retrieves the tickers of all given currency pairs in as few requests as possible.
+     */
+    @Nonnull
+    ImmutableMap<CurrencyPairBo, TickerBo> getTickers(@Nonnull Collection<CurrencyPairBo> currencyPairs);
+
+    @Nonnull
+    CompletableFuture<ImmutableMap<CurrencyPairBo, TickerBo>> getTickersAsync(@Nonnull Collection<CurrencyPairBo> currencyPairs);
+
+    /**
+     * Retrieves a snapshot of the order book of the given currency pair.
+     *
+     * @param depth maximum number of levels per side
+     * @throws IllegalArgumentException if the depth is not positive
+     */
+    @Nonnull
+    OrderBookBo getOrderBook(@Nonnull CurrencyPairBo currencyPair,
+                             int depth);
 }
@@ -0,0 +1,55 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.logic;
+
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.TradeFlowBo;
+
+import javax.annotation.Nonnull;
+import java.time.LocalDateTime;
+
+/**
+ * Keeps a bounded number of the latest public trades per currency pair locally, retrieving only the trades which are
+ * not known yet from the trading platform.
+ */
+public interface TradingPlatformTradeFacade extends TradingPlatformDesignated {
+
+    /**
+     * The listener is called by {@link #refreshTrades(CurrencyPairBo)} with the trades it retrieved.
+     */
+    void addTradeListener(@Nonnull CurrencyPairBo currencyPair,
+                          @Nonnull TradeListener listener);
+
+    void removeTradeListener(@Nonnull CurrencyPairBo currencyPair,
+                             @Nonnull TradeListener listener);
+
+    /**
+     * Retrieves the trades which are not known yet.
+     */
+    void refreshTrades(@Nonnull CurrencyPairBo currencyPair);
+
+    /**
+     * Does not retrieve any trades, hence covers only the trades known since the last refresh.
+     *
+     * @param from inclusive time of the oldest trade
+     */
+    @Nonnull
+    TradeFlowBo getTradeFlow(@Nonnull CurrencyPairBo currencyPair,
+                             @Nonnull LocalDateTime from);
+}
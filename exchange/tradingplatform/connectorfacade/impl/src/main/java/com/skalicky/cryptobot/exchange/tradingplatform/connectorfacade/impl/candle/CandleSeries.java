@@ -0,0 +1,195 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.candle;
+
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CandlesBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CandleIntervalBoEnum;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Candles of one currency pair and interval ordered by time, kept in columns, i.e. in a primitive array per field.
+ * Prices and volumes are fixed-point numbers scaled by the given numbers of decimal places.
+ * <p>
+ * Appending is amortized O(1): the arrays double until the maximum count is reached, then the older half of the
+ * candles is discarded at once. Ranges of time are looked up by binary search. Not thread-safe.
+ */
+public class CandleSeries {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int maxCount;
+    private final int priceScale;
+    private final int volumeScale;
+    @Nonnull
+    private long[] times;
+    @Nonnull
+    private long[] opens;
+    @Nonnull
+    private long[] highs;
+    @Nonnull
+    private long[] lows;
+    @Nonnull
+    private long[] closes;
+    @Nonnull
+    private long[] volumes;
+    private int count;
+
+    /**
+     * @param maxCount    maximum number of candles kept, the oldest ones are discarded when exceeded
+     * @param priceScale  number of decimal places of prices
+     * @param volumeScale number of decimal places of volumes
+     */
+    public CandleSeries(final int maxCount,
+                        final int priceScale,
+                        final int volumeScale) {
+        if (maxCount < 2) {
+            throw new IllegalArgumentException("Maximum count needs to be at least 2, but is " + maxCount);
+        }
+        this.maxCount = maxCount;
+        this.priceScale = priceScale;
+        this.volumeScale = volumeScale;
+        final var capacity = Math.min(INITIAL_CAPACITY, maxCount);
+        this.times = new long[capacity];
+        this.opens = new long[capacity];
+        this.highs = new long[capacity];
+        this.lows = new long[capacity];
+        this.closes = new long[capacity];
+        this.volumes = new long[capacity];
+    }
+
+    public int getPriceScale() {
+        return priceScale;
+    }
+
+    public int getVolumeScale() {
+        return volumeScale;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return opening time in epoch seconds of the newest candle, {@link Long#MIN_VALUE} if there is none
+     */
+    public long getLastTime() {
+        return count == 0 ? Long.MIN_VALUE : times[count - 1];
+    }
+
+    /**
+     * Appends a candle newer than all candles, or replaces the newest candle if it has the same time, i.e. if it has
+     * been still in progress.
+     *
+     * @param time opening time in epoch seconds
+     * @throws IllegalArgumentException if the candle is older than the newest candle
+     */
+    public void append(final long time,
+                       final long open,
+                       final long high,
+                       final long low,
+                       final long close,
+                       final long volume) {
+        final var lastTime = getLastTime();
+        if (time < lastTime) {
+            throw new IllegalArgumentException("Candle at " + time + " is older than the newest candle at "
+                    + lastTime);
+        }
+        final int index;
+        if (time == lastTime) {
+            index = count - 1;
+        } else {
+            ensureCapacityForOneMore();
+            index = count++;
+        }
+        times[index] = time;
+        opens[index] = open;
+        highs[index] = high;
+        lows[index] = low;
+        closes[index] = close;
+        volumes[index] = volume;
+    }
+
+    /**
+     * @return index of the oldest candle opening at or after the given time, {@link #getCount()} if there is none
+     */
+    public int indexOf(final long time) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            final var middle = (low + high) >>> 1;
+            if (times[middle] < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param fromTime inclusive opening time in epoch seconds of the oldest candle
+     * @param toTime   exclusive opening time in epoch seconds of the newest candle
+     * @return a copy of the candles opening within the given range
+     */
+    @Nonnull
+    public CandlesBo toCandlesBo(@Nonnull final CurrencyPairBo currencyPair,
+                                 @Nonnull final CandleIntervalBoEnum interval,
+                                 final long fromTime,
+                                 final long toTime) {
+        final var fromIndex = indexOf(fromTime);
+        final var toIndex = Math.max(fromIndex, indexOf(toTime));
+        return new CandlesBo(currencyPair, interval, priceScale, volumeScale,
+                Arrays.copyOfRange(times, fromIndex, toIndex),
+                Arrays.copyOfRange(opens, fromIndex, toIndex),
+                Arrays.copyOfRange(highs, fromIndex, toIndex),
+                Arrays.copyOfRange(lows, fromIndex, toIndex),
+                Arrays.copyOfRange(closes, fromIndex, toIndex),
+                Arrays.copyOfRange(volumes, fromIndex, toIndex),
+                toIndex - fromIndex);
+    }
+
+    private void ensureCapacityForOneMore() {
+        if (count < times.length) {
+            return;
+        }
+        if (times.length < maxCount) {
+            final var newCapacity = (int) Math.min((long) times.length * 2, maxCount);
+            times = Arrays.copyOf(times, newCapacity);
+            opens = Arrays.copyOf(opens, newCapacity);
+            highs = Arrays.copyOf(highs, newCapacity);
+            lows = Arrays.copyOf(lows, newCapacity);
+            closes = Arrays.copyOf(closes, newCapacity);
+            volumes = Arrays.copyOf(volumes, newCapacity);
+        } else {
+            // Discards the older half at once so that the shifting is amortized over as many appends.
+            final var discarded = count / 2;
+            final var kept = count - discarded;
+            System.arraycopy(times, discarded, times, 0, kept);
+            System.arraycopy(opens, discarded, opens, 0, kept);
+            System.arraycopy(highs, discarded, highs, 0, kept);
+            System.arraycopy(lows, discarded, lows, 0, kept);
+            System.arraycopy(closes, discarded, closes, 0, kept);
+            System.arraycopy(volumes, discarded, volumes, 0, kept);
+            count = kept;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.closedorder;
+
+import com.google.common.collect.ImmutableList;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.ClosedOrderBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.OrderStateBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.OrderTypeBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.PriceOrderTypeBoEnum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Closed orders of one account kept in memory and in an append-only file, so that they survive restarts and only
+ * orders closed after the newest known one need to be retrieved from the trading platform.
+ * <p>
+ * Every line of the file is either a closed order or the time since when the stored orders are complete, with
+ * tab-separated fields. A later line of the same order replaces the earlier one. A line is complete once its line
+ * separator is written. An incomplete last line, e.g. after a crash during writing, is skipped and cut off the file, so
+ * that lines appended later start on a line of their own.
+ */
+public class ClosedOrderStore {
+
+    @Nonnull
+    private static final Logger logger = LoggerFactory.getLogger(ClosedOrderStore.class);
+    @Nonnull
+    private static final String ORDER_RECORD = "O";
+    @Nonnull
+    private static final String COMPLETE_FROM_RECORD = "C";
+    private static final int ORDER_FIELD_COUNT = 16;
+    @Nonnull
+    private static final String FIELD_SEPARATOR = "\t";
+    @Nonnull
+    private static final String TRADE_ID_SEPARATOR = ",";
+
+    @Nonnull
+    private final Path file;
+    @Nonnull
+    private final Map<String, ClosedOrderBo> ordersById = new HashMap<>();
+    /**
+     * Null if nothing has been stored yet.
+     */
+    @Nullable
+    private LocalDateTime completeFrom;
+    @Nullable
+    private LocalDateTime newestCloseDateTime;
+
+    /**
+     * Loads the given file if it exists.
+     */
+    public ClosedOrderStore(@Nonnull final Path file) {
+        this.file = file;
+        if (Files.exists(file)) {
+            load();
+        }
+    }
+
+    /**
+     * @return the time from which orders need to be retrieved so that the store is complete since the given time
+     */
+    @Nonnull
+    public synchronized LocalDateTime getRetrievalFrom(@Nonnull final LocalDateTime from) {
+        if (completeFrom == null || from.isBefore(completeFrom)) {
+            return from;
+        }
+        // Orders closed in the same second as the newest known one are retrieved again and merged by their IDs.
+        return newestCloseDateTime == null ? completeFrom : newestCloseDateTime;
+    }
+
+    /**
+     * Stores the given orders, retrieved since the given time, and persists the ones which are new or changed.
+     */
+    public synchronized void add(@Nonnull final Collection<ClosedOrderBo> orders,
+                                 @Nonnull final LocalDateTime retrievedFrom) {
+        final var lines = new StringBuilder();
+        for (final var order : orders) {
+            final var storedOrder = ordersById.get(order.getOrderId());
+            if (storedOrder == null || !toLine(storedOrder).equals(toLine(order))) {
+                lines.append(toLine(order)).append(System.lineSeparator());
+                put(order);
+            }
+        }
+        if (completeFrom == null || retrievedFrom.isBefore(completeFrom)) {
+            completeFrom = retrievedFrom;
+            lines.append(COMPLETE_FROM_RECORD).append(FIELD_SEPARATOR).append(retrievedFrom)
+                    .append(System.lineSeparator());
+        }
+        if (lines.length() == 0) {
+            return;
+        }
+        try (final BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.append(lines);
+        } catch (final IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    /**
+     * @return the stored orders closed since the given time, the most recently closed first
+     */
+    @Nonnull
+    public synchronized ImmutableList<ClosedOrderBo> getClosedOrders(@Nonnull final LocalDateTime from) {
+        return ordersById.values().stream()
+                .filter(order -> !order.getCloseDateTime().isBefore(from))
+                .sorted(Comparator.comparing(ClosedOrderBo::getCloseDateTime).reversed())
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public synchronized int getSize() {
+        return ordersById.size();
+    }
+
+    private void load() {
+        final byte[] content;
+        try {
+            content = Files.readAllBytes(file);
+        } catch (final IOException exception) {
+            throw new RuntimeException(exception);
+        }
+        var completeLength = content.length;
+        while (completeLength > 0 && content[completeLength - 1] != '\n') {
+            completeLength--;
+        }
+        if (completeLength < content.length) {
+            logger.warn("Cutting off the incomplete last line of {}: {}", file,
+                    new String(content, completeLength, content.length - completeLength, StandardCharsets.UTF_8));
+            try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(completeLength);
+            } catch (final IOException exception) {
+                throw new RuntimeException(exception);
+            }
+        }
+        final var lines = new String(content, 0, completeLength, StandardCharsets.UTF_8).lines()
+                .collect(ImmutableList.toImmutableList());
+        for (int i = 0; i < lines.size(); i++) {
+            final var fields = lines.get(i).split(FIELD_SEPARATOR, -1);
+            try {
+                if (ORDER_RECORD.equals(fields[0])) {
+                    put(fromFields(fields));
+                } else if (COMPLETE_FROM_RECORD.equals(fields[0])) {
+                    final var recordedCompleteFrom = LocalDateTime.parse(fields[1]);
+                    if (completeFrom == null || recordedCompleteFrom.isBefore(completeFrom)) {
+                        completeFrom = recordedCompleteFrom;
+                    }
+                } else {
+                    throw new IllegalArgumentException("Unknown record " + fields[0]);
+                }
+            } catch (final RuntimeException exception) {
+                throw new IllegalStateException("Line " + (i + 1) + " of " + file + " is corrupt", exception);
+            }
+        }
+    }
+
+    private void put(@Nonnull final ClosedOrderBo order) {
+        ordersById.put(order.getOrderId(), order);
+        if (newestCloseDateTime == null || order.getCloseDateTime().isAfter(newestCloseDateTime)) {
+            newestCloseDateTime = order.getCloseDateTime();
+        }
+    }
+
+    @Nonnull
+    private static String toLine(@Nonnull final ClosedOrderBo order) {
+        final var desiredPrice = order.getDesiredPrice();
+        return String.join(FIELD_SEPARATOR,
+                ORDER_RECORD,
+                order.getOrderId(),
+                order.getOrderType().name(),
+                order.getPriceOrderType().name(),
+                order.getCurrencyPair().getQuoteCurrency().name(),
+                order.getCurrencyPair().getBaseCurrency().name(),
+                order.getDesiredVolumeInQuoteCurrency().toPlainString(),
+                desiredPrice == null ? "" : desiredPrice.toPlainString(),
+                order.getOpenDateTime().toString(),
+                order.getCloseDateTime().toString(),
+                order.getStatus().name(),
+                order.getTotalExecutedVolumeInQuoteCurrency().toPlainString(),
+                order.getAverageActualPrice().toPlainString(),
+                order.getActualFeeInQuoteCurrency().toPlainString(),
+                String.join(TRADE_ID_SEPARATOR, order.getTradeIds()),
+                // Marks the line as complete.
+                ORDER_RECORD);
+    }
+
+    @Nonnull
+    private static ClosedOrderBo fromFields(@Nonnull final String[] fields) {
+        if (fields.length != ORDER_FIELD_COUNT || !ORDER_RECORD.equals(fields[ORDER_FIELD_COUNT - 1])) {
+            throw new IllegalArgumentException("Expected " + ORDER_FIELD_COUNT + " fields, but got "
+                    + fields.length);
+        }
+        return new ClosedOrderBo(fields[1],
+                OrderTypeBoEnum.valueOf(fields[2]),
+                PriceOrderTypeBoEnum.valueOf(fields[3]),
+                new CurrencyPairBo(CurrencyBoEnum.valueOf(fields[4]), CurrencyBoEnum.valueOf(fields[5])),
+                new BigDecimal(fields[6]),
+                fields[7].isEmpty() ? null : new BigDecimal(fields[7]),
+                LocalDateTime.parse(fields[8]),
+                LocalDateTime.parse(fields[9]),
+                OrderStateBoEnum.valueOf(fields[10]),
+                new BigDecimal(fields[11]),
+                new BigDecimal(fields[12]),
+                new BigDecimal(fields[13]),
+                fields[14].isEmpty() ? ImmutableList.of()
+                        : ImmutableList.copyOf(fields[14].split(TRADE_ID_SEPARATOR)));
+    }
+}
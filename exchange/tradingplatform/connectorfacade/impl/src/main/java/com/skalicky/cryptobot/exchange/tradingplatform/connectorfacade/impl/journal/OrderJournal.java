@@ -0,0 +1,390 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.journal;
+
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.ClosedOrderBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.OpenOrderBo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the states of orders, kept in memory mapped segment files of a directory.
+ * <p>
+ * Only transitions are recorded, i.e. a state equal to the latest recorded state of the order is skipped. Every
+ * record consists of the length of its payload, the CRC32 of its payload and the payload encoded by {@link
+ * OrderJournalCodec}. The length is written last, hence a record is either complete or, after a crash, detected by
+ * its length or checksum and discarded together with everything after it when the journal is opened again. When a
+ * record does not fit into the current segment, a new segment is started.
+ * <p>
+ * The location of the latest record of every order is kept in memory, as is the location of every {@value
+ * #TIME_INDEX_INTERVAL}th record by the time of recording. Hence looking up an order reads one record and reading
+ * the records since some time skips the older segments. All methods are synchronized.
+ */
+public class OrderJournal implements Closeable {
+
+    @Nonnull
+    private static final Logger logger = LoggerFactory.getLogger(OrderJournal.class);
+    @Nonnull
+    private static final String SEGMENT_FILE_PREFIX = "orders-";
+    @Nonnull
+    private static final String SEGMENT_FILE_SUFFIX = ".journal";
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES + Integer.BYTES;
+    private static final int TIME_INDEX_INTERVAL = 64;
+    private static final int INITIAL_ENCODING_CAPACITY = 512;
+
+    @Nonnull
+    private final Path directory;
+    private final int segmentSize;
+    @Nonnull
+    private final Clock clock;
+    @Nonnull
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    /**
+     * Position after the last record of the last segment.
+     */
+    private int writePosition;
+    @Nonnull
+    private final Map<String, Long> latestLocationByOrderId = new HashMap<>();
+    @Nonnull
+    private long[] timeIndexTimes = new long[16];
+    @Nonnull
+    private long[] timeIndexLocations = new long[16];
+    private int timeIndexCount;
+    private long recordCount;
+    private long lastRecordedAtInEpochMillis = Long.MIN_VALUE;
+    @Nonnull
+    private ByteBuffer encodingBuffer = ByteBuffer.allocate(INITIAL_ENCODING_CAPACITY);
+    @Nonnull
+    private final CRC32 crc = new CRC32();
+
+    public OrderJournal(@Nonnull final Path directory,
+                        final int segmentSize) throws IOException {
+        this(directory, segmentSize, Clock.systemUTC());
+    }
+
+    /**
+     * Opens the segments in the given directory, discarding an incomplete record at the end of the last one, or
+     * creates the first segment.
+     *
+     * @param segmentSize size of new segment files in bytes
+     */
+    public OrderJournal(@Nonnull final Path directory,
+                        final int segmentSize,
+                        @Nonnull final Clock clock) throws IOException {
+        if (segmentSize < RECORD_HEADER_SIZE + INITIAL_ENCODING_CAPACITY) {
+            throw new IllegalArgumentException("Segment size needs to be at least "
+                    + (RECORD_HEADER_SIZE + INITIAL_ENCODING_CAPACITY) + " bytes, but is " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.clock = clock;
+        Files.createDirectories(directory);
+        final List<Path> segmentFiles;
+        try (final var files = Files.list(directory)) {
+            segmentFiles = files
+                    .filter(file -> file.getFileName().toString().startsWith(SEGMENT_FILE_PREFIX)
+                            && file.getFileName().toString().endsWith(SEGMENT_FILE_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (final var segmentFile : segmentFiles) {
+            segments.add(map(segmentFile, Files.size(segmentFile)));
+            recover(segments.size() - 1, segments.size() == segmentFiles.size());
+        }
+        if (segments.isEmpty()) {
+            startSegment();
+        }
+    }
+
+    /**
+     * @return false if the state equals the latest recorded state of the order, hence it was not recorded
+     */
+    public synchronized boolean append(@Nonnull final OpenOrderBo order) {
+        final var recordedAt = nextRecordedAt();
+        encode(buffer -> OrderJournalCodec.encode(order, recordedAt, buffer));
+        return write(order.getOrderId(), recordedAt);
+    }
+
+    /**
+     * @return false if the state equals the latest recorded state of the order, hence it was not recorded
+     */
+    public synchronized boolean append(@Nonnull final ClosedOrderBo order) {
+        final var recordedAt = nextRecordedAt();
+        encode(buffer -> OrderJournalCodec.encode(order, recordedAt, buffer));
+        return write(order.getOrderId(), recordedAt);
+    }
+
+    /**
+     * @return the latest recorded state of the given order, null if it has not been recorded
+     */
+    @Nullable
+    public synchronized OrderJournalEntry getLatest(@Nonnull final String orderId) {
+        final var location = latestLocationByOrderId.get(orderId);
+        return location == null ? null : read(location);
+    }
+
+    /**
+     * Passes the records recorded since the given time to the given consumer, in the order of recording.
+     */
+    public synchronized void forEachSince(final long fromInEpochMillis,
+                                          @Nonnull final Consumer<OrderJournalEntry> consumer) {
+        if (recordCount == 0) {
+            return;
+        }
+        // The last indexed record before the given time, all records before it are older.
+        var indexPosition = Arrays.binarySearch(timeIndexTimes, 0, timeIndexCount, fromInEpochMillis);
+        indexPosition = indexPosition >= 0 ? indexPosition : -indexPosition - 2;
+        var location = indexPosition < 0 ? 0L : timeIndexLocations[indexPosition];
+        while (location >= 0) {
+            final var segment = segments.get(segmentOf(location));
+            final var position = positionOf(location);
+            if (OrderJournalCodec.decodeRecordedAtInEpochMillis(segment, position + RECORD_HEADER_SIZE)
+                    >= fromInEpochMillis) {
+                consumer.accept(read(location));
+            }
+            location = nextLocation(location);
+        }
+    }
+
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Writes the records of the current segment to the storage device, hence they survive a crash of the machine,
+     * not only of the process.
+     */
+    public synchronized void force() {
+        segments.get(segments.size() - 1).force();
+    }
+
+    @Override
+    public synchronized void close() {
+        force();
+    }
+
+    private long nextRecordedAt() {
+        // Keeps the times of recording ascending for the time index even if the clock goes back.
+        lastRecordedAtInEpochMillis = Math.max(lastRecordedAtInEpochMillis, clock.millis());
+        return lastRecordedAtInEpochMillis;
+    }
+
+    private void encode(@Nonnull final Consumer<ByteBuffer> encoder) {
+        while (true) {
+            encodingBuffer.clear();
+            try {
+                encoder.accept(encodingBuffer);
+                encodingBuffer.flip();
+                return;
+            } catch (final BufferOverflowException exception) {
+                encodingBuffer = ByteBuffer.allocate(encodingBuffer.capacity() * 2);
+            }
+        }
+    }
+
+    private boolean write(@Nonnull final String orderId,
+                          final long recordedAtInEpochMillis) {
+        final var payloadLength = encodingBuffer.remaining();
+        final var latestLocation = latestLocationByOrderId.get(orderId);
+        if (latestLocation != null && isEqualToRecord(latestLocation)) {
+            return false;
+        }
+        if (RECORD_HEADER_SIZE + payloadLength > segmentSize) {
+            throw new IllegalArgumentException("Record of " + payloadLength + " bytes exceeds the segment size");
+        }
+        if (writePosition + RECORD_HEADER_SIZE + payloadLength > segments.get(segments.size() - 1).capacity()) {
+            force();
+            startSegment();
+        }
+        final var segment = segments.get(segments.size() - 1);
+        crc.reset();
+        crc.update(encodingBuffer.duplicate());
+        segment.duplicate().position(writePosition + RECORD_HEADER_SIZE).put(encodingBuffer);
+        segment.putInt(writePosition + Integer.BYTES, (int) crc.getValue());
+        // Written last as it marks the record as complete.
+        segment.putInt(writePosition, payloadLength);
+        index(orderId, recordedAtInEpochMillis, locationOf(segments.size() - 1, writePosition));
+        writePosition += RECORD_HEADER_SIZE + payloadLength;
+        return true;
+    }
+
+    /**
+     * @return true if the encoded payload equals the payload of the record at the given location, apart from the
+     * time of recording
+     */
+    private boolean isEqualToRecord(final long location) {
+        final var segment = segments.get(segmentOf(location));
+        final var position = positionOf(location);
+        final var payloadLength = encodingBuffer.remaining();
+        if (segment.getInt(position) != payloadLength) {
+            return false;
+        }
+        final var payloadPosition = position + RECORD_HEADER_SIZE;
+        if (segment.get(payloadPosition) != encodingBuffer.get(0)) {
+            return false;
+        }
+        final var stateOffset = Byte.BYTES + Long.BYTES;
+        return segment.duplicate().position(payloadPosition + stateOffset).limit(payloadPosition + payloadLength)
+                .equals(encodingBuffer.duplicate().position(stateOffset));
+    }
+
+    /**
+     * Indexes the valid records of the given segment and discards everything after them if it is the last segment.
+     */
+    private void recover(final int segmentIndex,
+                         final boolean lastSegment) {
+        final var segment = segments.get(segmentIndex);
+        var position = 0;
+        while (position + RECORD_HEADER_SIZE <= segment.capacity()) {
+            final var payloadLength = segment.getInt(position);
+            if (payloadLength == 0) {
+                break;
+            }
+            if (!isValidRecord(segment, position, payloadLength)) {
+                if (!lastSegment) {
+                    throw new IllegalStateException("Segment " + segmentIndex + " of " + directory
+                            + " is corrupt at position " + position);
+                }
+                logger.warn("Discarding the incomplete end of the journal {} from position {}", directory, position);
+                for (int i = position; i < segment.capacity(); i++) {
+                    segment.put(i, (byte) 0);
+                }
+                segment.force();
+                break;
+            }
+            final var payloadPosition = position + RECORD_HEADER_SIZE;
+            final var recordedAt = OrderJournalCodec.decodeRecordedAtInEpochMillis(segment, payloadPosition);
+            index(OrderJournalCodec.decodeOrderId(segment, payloadPosition), recordedAt,
+                    locationOf(segmentIndex, position));
+            lastRecordedAtInEpochMillis = Math.max(lastRecordedAtInEpochMillis, recordedAt);
+            position = payloadPosition + payloadLength;
+        }
+        writePosition = position;
+    }
+
+    private boolean isValidRecord(@Nonnull final ByteBuffer segment,
+                                  final int position,
+                                  final int payloadLength) {
+        if (payloadLength < 0 || payloadLength > segment.capacity() - position - RECORD_HEADER_SIZE) {
+            return false;
+        }
+        crc.reset();
+        crc.update(segment.duplicate().position(position + RECORD_HEADER_SIZE)
+                .limit(position + RECORD_HEADER_SIZE + payloadLength));
+        return (int) crc.getValue() == segment.getInt(position + Integer.BYTES);
+    }
+
+    private void index(@Nonnull final String orderId,
+                       final long recordedAtInEpochMillis,
+                       final long location) {
+        latestLocationByOrderId.put(orderId, location);
+        if (recordCount % TIME_INDEX_INTERVAL == 0) {
+            if (timeIndexCount == timeIndexTimes.length) {
+                timeIndexTimes = Arrays.copyOf(timeIndexTimes, timeIndexCount * 2);
+                timeIndexLocations = Arrays.copyOf(timeIndexLocations, timeIndexCount * 2);
+            }
+            timeIndexTimes[timeIndexCount] = recordedAtInEpochMillis;
+            timeIndexLocations[timeIndexCount] = location;
+            timeIndexCount++;
+        }
+        recordCount++;
+    }
+
+    @Nonnull
+    private OrderJournalEntry read(final long location) {
+        final var segment = segments.get(segmentOf(location));
+        return OrderJournalCodec.decode(segment.duplicate().position(positionOf(location) + RECORD_HEADER_SIZE));
+    }
+
+    /**
+     * @return the location of the record after the one at the given location, -1 if there is none
+     */
+    private long nextLocation(final long location) {
+        var segmentIndex = segmentOf(location);
+        final var segment = segments.get(segmentIndex);
+        var position = positionOf(location) + RECORD_HEADER_SIZE + segment.getInt(positionOf(location));
+        if (position + RECORD_HEADER_SIZE > segment.capacity() || segment.getInt(position) == 0) {
+            segmentIndex++;
+            position = 0;
+            if (segmentIndex == segments.size() || segments.get(segmentIndex).getInt(0) == 0) {
+                return -1;
+            }
+        }
+        return locationOf(segmentIndex, position);
+    }
+
+    private void startSegment() {
+        final var segmentFile = directory.resolve(String.format("%s%010d%s", SEGMENT_FILE_PREFIX, segments.size(),
+                SEGMENT_FILE_SUFFIX));
+        try {
+            segments.add(map(segmentFile, segmentSize));
+        } catch (final IOException exception) {
+            throw new RuntimeException(exception);
+        }
+        writePosition = 0;
+    }
+
+    @Nonnull
+    private static MappedByteBuffer map(@Nonnull final Path segmentFile,
+                                        final long size) throws IOException {
+        // The mapping stays valid after the channel is closed.
+        try (final var channel = FileChannel.open(segmentFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static long locationOf(final int segmentIndex,
+                                   final int position) {
+        return ((long) segmentIndex << Integer.SIZE) | position;
+    }
+
+    private static int segmentOf(final long location) {
+        return (int) (location >>> Integer.SIZE);
+    }
+
+    private static int positionOf(final long location) {
+        return (int) location;
+    }
+}
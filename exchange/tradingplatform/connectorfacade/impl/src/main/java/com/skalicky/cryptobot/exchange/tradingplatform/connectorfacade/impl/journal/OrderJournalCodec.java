@@ -0,0 +1,251 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.journal;
+
+import com.google.common.collect.ImmutableList;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.ClosedOrderBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.OpenOrderBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.OrderStateBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.OrderTypeBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.PriceOrderTypeBoEnum;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary encoding of the payloads of {@link OrderJournal} records.
+ * <p>
+ * A payload starts with its kind, the time of recording and the order ID, so that the journal can be indexed without
+ * decoding whole payloads. Enums are encoded by their ordinals, hence their constants may only be appended. Decimals
+ * are encoded as their scale and the bytes of their unscaled value, date times as seconds and nanoseconds since the
+ * epoch in UTC, i.e. without any time zone conversion.
+ */
+final class OrderJournalCodec {
+
+    static final byte OPEN_ORDER_KIND = 1;
+    static final byte CLOSED_ORDER_KIND = 2;
+
+    private static final long NULL_DATE_TIME = Long.MIN_VALUE;
+
+    private OrderJournalCodec() {
+    }
+
+    static void encode(@Nonnull final OpenOrderBo order,
+                       final long recordedAtInEpochMillis,
+                       @Nonnull final ByteBuffer buffer) {
+        buffer.put(OPEN_ORDER_KIND);
+        buffer.putLong(recordedAtInEpochMillis);
+        putString(order.getOrderId(), buffer);
+        buffer.put((byte) order.getOrderType().ordinal());
+        buffer.put((byte) order.getPriceOrderType().ordinal());
+        buffer.put((byte) order.getCurrencyPair().getQuoteCurrency().ordinal());
+        buffer.put((byte) order.getCurrencyPair().getBaseCurrency().ordinal());
+        putDecimal(order.getDesiredVolumeInQuoteCurrency(), buffer);
+        putDecimal(order.getDesiredPrice(), buffer);
+        putDateTime(order.getOpenDateTime(), buffer);
+        putDateTime(order.getExpirationDateTime(), buffer);
+        buffer.put((byte) order.getState().ordinal());
+        putDecimal(order.getAlreadyExecutedVolumeInQuoteCurrency(), buffer);
+        putDecimal(order.getAverageActualPrice(), buffer);
+        putDecimal(order.getActualFeeInQuoteCurrency(), buffer);
+        putStrings(order.getTradeIds(), buffer);
+    }
+
+    static void encode(@Nonnull final ClosedOrderBo order,
+                       final long recordedAtInEpochMillis,
+                       @Nonnull final ByteBuffer buffer) {
+        buffer.put(CLOSED_ORDER_KIND);
+        buffer.putLong(recordedAtInEpochMillis);
+        putString(order.getOrderId(), buffer);
+        buffer.put((byte) order.getOrderType().ordinal());
+        buffer.put((byte) order.getPriceOrderType().ordinal());
+        buffer.put((byte) order.getCurrencyPair().getQuoteCurrency().ordinal());
+        buffer.put((byte) order.getCurrencyPair().getBaseCurrency().ordinal());
+        putDecimal(order.getDesiredVolumeInQuoteCurrency(), buffer);
+        putDecimal(order.getDesiredPrice(), buffer);
+        putDateTime(order.getOpenDateTime(), buffer);
+        putDateTime(order.getCloseDateTime(), buffer);
+        buffer.put((byte) order.getStatus().ordinal());
+        putDecimal(order.getTotalExecutedVolumeInQuoteCurrency(), buffer);
+        putDecimal(order.getAverageActualPrice(), buffer);
+        putDecimal(order.getActualFeeInQuoteCurrency(), buffer);
+        putStrings(order.getTradeIds(), buffer);
+    }
+
+    /**
+     * Reads the payload starting at the position of the given buffer.
+     */
+    @Nonnull
+    static OrderJournalEntry decode(@Nonnull final ByteBuffer buffer) {
+        final var kind = buffer.get();
+        final var recordedAtInEpochMillis = buffer.getLong();
+        final var orderId = getString(buffer);
+        final var orderType = OrderTypeBoEnum.values()[buffer.get()];
+        final var priceOrderType = PriceOrderTypeBoEnum.values()[buffer.get()];
+        final var quoteCurrency = CurrencyBoEnum.values()[buffer.get()];
+        final var baseCurrency = CurrencyBoEnum.values()[buffer.get()];
+        final var currencyPair = new CurrencyPairBo(quoteCurrency, baseCurrency);
+        final var desiredVolumeInQuoteCurrency = getNonnullDecimal(buffer);
+        final var desiredPrice = getDecimal(buffer);
+        final var openDateTime = getNonnullDateTime(buffer);
+        switch (kind) {
+            case OPEN_ORDER_KIND:
+                final var expirationDateTime = getDateTime(buffer);
+                final var state = OrderStateBoEnum.values()[buffer.get()];
+                return new OrderJournalEntry(recordedAtInEpochMillis, new OpenOrderBo(orderId, orderType,
+                        priceOrderType, currencyPair, desiredVolumeInQuoteCurrency, desiredPrice, openDateTime,
+                        expirationDateTime, state, getNonnullDecimal(buffer), getDecimal(buffer), getDecimal(buffer),
+                        getStrings(buffer)), null);
+            case CLOSED_ORDER_KIND:
+                final var closeDateTime = getNonnullDateTime(buffer);
+                final var status = OrderStateBoEnum.values()[buffer.get()];
+                return new OrderJournalEntry(recordedAtInEpochMillis, null, new ClosedOrderBo(orderId, orderType,
+                        priceOrderType, currencyPair, desiredVolumeInQuoteCurrency, desiredPrice, openDateTime,
+                        closeDateTime, status, getNonnullDecimal(buffer), getNonnullDecimal(buffer),
+                        getNonnullDecimal(buffer), getStrings(buffer)));
+            default:
+                throw new IllegalStateException("Unknown kind of record " + kind);
+        }
+    }
+
+    static long decodeRecordedAtInEpochMillis(@Nonnull final ByteBuffer buffer,
+                                              final int payloadPosition) {
+        return buffer.getLong(payloadPosition + Byte.BYTES);
+    }
+
+    @Nonnull
+    static String decodeOrderId(@Nonnull final ByteBuffer buffer,
+                                final int payloadPosition) {
+        return getString(buffer.duplicate().position(payloadPosition + Byte.BYTES + Long.BYTES));
+    }
+
+    private static void putString(@Nonnull final String value,
+                                  @Nonnull final ByteBuffer buffer) {
+        final var bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("String of " + bytes.length + " bytes is too long");
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    @Nonnull
+    private static String getString(@Nonnull final ByteBuffer buffer) {
+        final var bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putStrings(@Nonnull final ImmutableList<String> values,
+                                   @Nonnull final ByteBuffer buffer) {
+        if (values.size() > 0xFFFF) {
+            throw new IllegalArgumentException(values.size() + " strings are too many");
+        }
+        buffer.putShort((short) values.size());
+        values.forEach(value -> putString(value, buffer));
+    }
+
+    @Nonnull
+    private static ImmutableList<String> getStrings(@Nonnull final ByteBuffer buffer) {
+        final var count = Short.toUnsignedInt(buffer.getShort());
+        final var values = ImmutableList.<String>builderWithExpectedSize(count);
+        for (int i = 0; i < count; i++) {
+            values.add(getString(buffer));
+        }
+        return values.build();
+    }
+
+    /**
+     * Null is encoded as an unscaled value of no bytes, which no decimal has.
+     */
+    private static void putDecimal(@Nullable final BigDecimal value,
+                                   @Nonnull final ByteBuffer buffer) {
+        if (value == null) {
+            buffer.put((byte) 0);
+            buffer.put((byte) 0);
+            return;
+        }
+        if (value.scale() < Byte.MIN_VALUE || value.scale() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Scale of " + value + " is out of range");
+        }
+        final var unscaledValue = value.unscaledValue().toByteArray();
+        if (unscaledValue.length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Unscaled value of " + value + " is too large");
+        }
+        buffer.put((byte) value.scale());
+        buffer.put((byte) unscaledValue.length);
+        buffer.put(unscaledValue);
+    }
+
+    @Nullable
+    private static BigDecimal getDecimal(@Nonnull final ByteBuffer buffer) {
+        final var scale = buffer.get();
+        final var unscaledValue = new byte[buffer.get()];
+        if (unscaledValue.length == 0) {
+            return null;
+        }
+        buffer.get(unscaledValue);
+        return new BigDecimal(new BigInteger(unscaledValue), scale);
+    }
+
+    @Nonnull
+    private static BigDecimal getNonnullDecimal(@Nonnull final ByteBuffer buffer) {
+        final var value = getDecimal(buffer);
+        if (value == null) {
+            throw new IllegalStateException("Mandatory decimal is missing");
+        }
+        return value;
+    }
+
+    private static void putDateTime(@Nullable final LocalDateTime value,
+                                    @Nonnull final ByteBuffer buffer) {
+        if (value == null) {
+            buffer.putLong(NULL_DATE_TIME);
+            return;
+        }
+        buffer.putLong(value.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(value.getNano());
+    }
+
+    @Nullable
+    private static LocalDateTime getDateTime(@Nonnull final ByteBuffer buffer) {
+        final var epochSecond = buffer.getLong();
+        if (epochSecond == NULL_DATE_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(epochSecond, buffer.getInt(), ZoneOffset.UTC);
+    }
+
+    @Nonnull
+    private static LocalDateTime getNonnullDateTime(@Nonnull final ByteBuffer buffer) {
+        final var value = getDateTime(buffer);
+        if (value == null) {
+            throw new IllegalStateException("Mandatory date time is missing");
+        }
+        return value;
+    }
+}
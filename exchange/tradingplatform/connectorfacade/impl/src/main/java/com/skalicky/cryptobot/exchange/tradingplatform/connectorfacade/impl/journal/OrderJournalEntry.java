@@ -0,0 +1,69 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.journal;
+
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.ClosedOrderBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.OpenOrderBo;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * State of one order as recorded in an {@link OrderJournal}, either open or closed.
+ */
+public final class OrderJournalEntry {
+    private final long recordedAtInEpochMillis;
+    @Nullable
+    private final OpenOrderBo openOrder;
+    @Nullable
+    private final ClosedOrderBo closedOrder;
+
+    OrderJournalEntry(final long recordedAtInEpochMillis,
+                      @Nullable final OpenOrderBo openOrder,
+                      @Nullable final ClosedOrderBo closedOrder) {
+        this.recordedAtInEpochMillis = recordedAtInEpochMillis;
+        this.openOrder = openOrder;
+        this.closedOrder = closedOrder;
+    }
+
+    public long getRecordedAtInEpochMillis() {
+        return recordedAtInEpochMillis;
+    }
+
+    /**
+     * @return null if the order was recorded as closed
+     */
+    @Nullable
+    public OpenOrderBo getOpenOrder() {
+        return openOrder;
+    }
+
+    /**
+     * @return null if the order was recorded as open
+     */
+    @Nullable
+    public ClosedOrderBo getClosedOrder() {
+        return closedOrder;
+    }
+
+    @Nonnull
+    public String getOrderId() {
+        return openOrder != null ? openOrder.getOrderId() : closedOrder.getOrderId();
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.logic;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.OrderBookBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.TickerBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.logic.TradingPlatformPublicApiFacade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Decorates a {@link TradingPlatformPublicApiFacade} with a cache of tickers. A ticker is answered from the cache
+ * until its time to live has elapsed since it was retrieved. The time to live is configurable per currency pair.
+ * <p>
+ * When the cache exceeds its maximum size, expired tickers are evicted first and then the least recently used ones.
+ * Optionally, tickers which have been used since their retrieval are refreshed in the background shortly before they
+ * expire, hence hot currency pairs do not wait for the network at all.
+ */
+public class CachingTradingPlatformPublicApiFacade implements TradingPlatformPublicApiFacade {
+
+    @Nonnull
+    private static final Logger logger = LoggerFactory.getLogger(CachingTradingPlatformPublicApiFacade.class);
+
+    @Nonnull
+    private final TradingPlatformPublicApiFacade delegate;
+    @Nonnull
+    private final Duration defaultTimeToLive;
+    @Nonnull
+    private final ImmutableMap<CurrencyPairBo, Duration> timeToLivePerCurrencyPair;
+    private final int maximumSize;
+    @Nonnull
+    private final LongSupplier nanoTime;
+    @Nonnull
+    private final ConcurrentHashMap<CurrencyPairBo, CacheEntry> entries = new ConcurrentHashMap<>();
+    @Nonnull
+    private final LongAdder hitCount = new LongAdder();
+    @Nonnull
+    private final LongAdder missCount = new LongAdder();
+    @Nonnull
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * @param timeToLivePerCurrencyPair overrides the default time to live for the given currency pairs
+     */
+    public CachingTradingPlatformPublicApiFacade(@Nonnull final TradingPlatformPublicApiFacade delegate,
+                                                 @Nonnull final Duration defaultTimeToLive,
+                                                 @Nonnull final ImmutableMap<CurrencyPairBo, Duration> timeToLivePerCurrencyPair,
+                                                 final int maximumSize) {
+        this(delegate, defaultTimeToLive, timeToLivePerCurrencyPair, maximumSize, System::nanoTime);
+    }
+
+    CachingTradingPlatformPublicApiFacade(@Nonnull final TradingPlatformPublicApiFacade delegate,
+                                          @Nonnull final Duration defaultTimeToLive,
+                                          @Nonnull final ImmutableMap<CurrencyPairBo, Duration> timeToLivePerCurrencyPair,
+                                          final int maximumSize,
+                                          @Nonnull final LongSupplier nanoTime) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size needs to be positive, but is " + maximumSize);
+        }
+        this.delegate = delegate;
+        this.defaultTimeToLive = defaultTimeToLive;
+        this.timeToLivePerCurrencyPair = timeToLivePerCurrencyPair;
+        this.maximumSize = maximumSize;
+        this.nanoTime = nanoTime;
+    }
+
+    @Override
+    @Nonnull
+    public String getTradingPlatform() {
+        return delegate.getTradingPlatform();
+    }
+
+    @Override
+    @Nonnull
+    public TickerBo getTicker(@Nonnull final CurrencyPairBo currencyPair) {
+        final var cachedTicker = getCachedTicker(currencyPair);
+        if (cachedTicker != null) {
+            return cachedTicker;
+        }
+        final var ticker = delegate.getTicker(currencyPair);
+        cache(currencyPair, ticker);
+        return ticker;
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<TickerBo> getTickerAsync(@Nonnull final CurrencyPairBo currencyPair) {
+        final var cachedTicker = getCachedTicker(currencyPair);
+        if (cachedTicker != null) {
+            return CompletableFuture.completedFuture(cachedTicker);
+        }
+        return delegate.getTickerAsync(currencyPair)
+                .thenApply(ticker -> {
+                    cache(currencyPair, ticker);
+                    return ticker;
+                });
+    }
+
+    @Override
+    @Nonnull
+    public ImmutableMap<CurrencyPairBo, TickerBo> getTickers(@Nonnull final Collection<CurrencyPairBo> currencyPairs) {
+        final var tickers = new HashMap<CurrencyPairBo, TickerBo>();
+        final var missingCurrencyPairs = collectCachedTickers(currencyPairs, tickers);
+        if (!missingCurrencyPairs.isEmpty()) {
+            final var retrievedTickers = delegate.getTickers(missingCurrencyPairs);
+            retrievedTickers.forEach(this::cache);
+            tickers.putAll(retrievedTickers);
+        }
+        return ImmutableMap.copyOf(tickers);
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<ImmutableMap<CurrencyPairBo, TickerBo>> getTickersAsync(@Nonnull final Collection<CurrencyPairBo> currencyPairs) {
+        final var tickers = new HashMap<CurrencyPairBo, TickerBo>();
+        final var missingCurrencyPairs = collectCachedTickers(currencyPairs, tickers);
+        if (missingCurrencyPairs.isEmpty()) {
+            return CompletableFuture.completedFuture(ImmutableMap.copyOf(tickers));
+        }
+        return delegate.getTickersAsync(missingCurrencyPairs)
+                .thenApply(retrievedTickers -> {
+                    retrievedTickers.forEach(this::cache);
+                    tickers.putAll(retrievedTickers);
+                    return ImmutableMap.copyOf(tickers);
+                });
+    }
+
+    /**
+     * Not cached as order books change much more often than tickers are reused.
+     */
+    @Override
+    @Nonnull
+    public OrderBookBo getOrderBook(@Nonnull final CurrencyPairBo currencyPair,
+                                    final int depth) {
+        return delegate.getOrderBook(currencyPair, depth);
+    }
+
+    /**
+     * Periodically refreshes the tickers which have been used since their retrieval and would expire before the
+     * next refresh.
+     *
+     * @return the scheduled refreshing, to be cancelled when the cache is not used anymore
+     */
+    @Nonnull
+    public ScheduledFuture<?> scheduleRefreshAhead(@Nonnull final ScheduledExecutorService scheduler,
+                                                   @Nonnull final Duration period) {
+        return scheduler.scheduleWithFixedDelay(() -> refreshAhead(period), period.toNanos(), period.toNanos(),
+                TimeUnit.NANOSECONDS);
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    void refreshAhead(@Nonnull final Duration period) {
+        final var now = nanoTime.getAsLong();
+        final var currencyPairsToRefresh = entries.entrySet().stream()
+                .filter(entry -> entry.getValue().usedSinceRetrieval)
+                .filter(entry -> entry.getValue().expiresAtInNanos - now <= period.toNanos())
+                .map(Map.Entry::getKey)
+                .collect(ImmutableList.toImmutableList());
+        if (currencyPairsToRefresh.isEmpty()) {
+            return;
+        }
+        try {
+            delegate.getTickers(currencyPairsToRefresh).forEach(this::cache);
+        } catch (final RuntimeException exception) {
+            // The tickers expire and get retrieved on demand.
+            logger.warn("Refreshing of tickers ahead of their expiration failed", exception);
+        }
+    }
+
+    @Nullable
+    private TickerBo getCachedTicker(@Nonnull final CurrencyPairBo currencyPair) {
+        final var entry = entries.get(currencyPair);
+        final var now = nanoTime.getAsLong();
+        if (entry == null || entry.isExpired(now)) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        entry.lastUsedAtInNanos = now;
+        entry.usedSinceRetrieval = true;
+        return entry.ticker;
+    }
+
+    /**
+     * @return the currency pairs which are not cached
+     */
+    @Nonnull
+    private ImmutableList<CurrencyPairBo> collectCachedTickers(@Nonnull final Collection<CurrencyPairBo> currencyPairs,
+                                                               @Nonnull final Map<CurrencyPairBo, TickerBo> tickers) {
+        final var missingCurrencyPairs = new ArrayList<CurrencyPairBo>();
+        for (final var currencyPair : currencyPairs) {
+            final var cachedTicker = getCachedTicker(currencyPair);
+            if (cachedTicker != null) {
+                tickers.put(currencyPair, cachedTicker);
+            } else {
+                missingCurrencyPairs.add(currencyPair);
+            }
+        }
+        return ImmutableList.copyOf(missingCurrencyPairs);
+    }
+
+    private void cache(@Nonnull final CurrencyPairBo currencyPair,
+                       @Nonnull final TickerBo ticker) {
+        final var now = nanoTime.getAsLong();
+        final var timeToLive = timeToLivePerCurrencyPair.getOrDefault(currencyPair, defaultTimeToLive);
+        entries.put(currencyPair, new CacheEntry(ticker, now + timeToLive.toNanos(), now));
+        if (entries.size() > maximumSize) {
+            evict(now);
+        }
+    }
+
+    /**
+     * Evicts expired entries, or the least recently used one if none has expired. Synchronized so that concurrent
+     * evictions do not evict more than needed.
+     */
+    private synchronized void evict(final long now) {
+        if (entries.size() <= maximumSize) {
+            return;
+        }
+        entries.forEach((currencyPair, entry) -> {
+            if (entry.isExpired(now) && entries.remove(currencyPair, entry)) {
+                evictionCount.increment();
+            }
+        });
+        while (entries.size() > maximumSize) {
+            entries.entrySet().stream()
+                    .min((first, second) -> Long.compare(first.getValue().lastUsedAtInNanos,
+                            second.getValue().lastUsedAtInNanos))
+                    .ifPresent(leastRecentlyUsed -> {
+                        if (entries.remove(leastRecentlyUsed.getKey(), leastRecentlyUsed.getValue())) {
+                            evictionCount.increment();
+                        }
+                    });
+        }
+    }
+
+    private static final class CacheEntry {
+        @Nonnull
+        private final TickerBo ticker;
+        private final long expiresAtInNanos;
+        private volatile long lastUsedAtInNanos;
+        private volatile boolean usedSinceRetrieval;
+
+        private CacheEntry(@Nonnull final TickerBo ticker,
+                           final long expiresAtInNanos,
+                           final long retrievedAtInNanos) {
+            this.ticker = ticker;
+            this.expiresAtInNanos = expiresAtInNanos;
+            this.lastUsedAtInNanos = retrievedAtInNanos;
+        }
+
+        private boolean isExpired(final long now) {
+            return now - expiresAtInNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.logic;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.ClosedOrderBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.OpenOrderBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.OrderTypeBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.PriceOrderTypeBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.logic.TradingPlatformPrivateApiFacade;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.journal.OrderJournal;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Decorates a {@link TradingPlatformPrivateApiFacade} by recording the states of all retrieved orders in an {@link
+ * OrderJournal}.
+ */
+public class JournalingTradingPlatformPrivateApiFacade implements TradingPlatformPrivateApiFacade {
+
+    @Nonnull
+    private final TradingPlatformPrivateApiFacade delegate;
+    @Nonnull
+    private final OrderJournal orderJournal;
+
+    public JournalingTradingPlatformPrivateApiFacade(@Nonnull final TradingPlatformPrivateApiFacade delegate,
+                                                     @Nonnull final OrderJournal orderJournal) {
+        this.delegate = delegate;
+        this.orderJournal = orderJournal;
+    }
+
+    @Override
+    @Nonnull
+    public String getTradingPlatform() {
+        return delegate.getTradingPlatform();
+    }
+
+    @Override
+    @Nonnull
+    public ImmutableList<OpenOrderBo> getOpenOrders(final boolean includeTrades) {
+        return recordOpenOrders(delegate.getOpenOrders(includeTrades));
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<ImmutableList<OpenOrderBo>> getOpenOrdersAsync(final boolean includeTrades) {
+        return delegate.getOpenOrdersAsync(includeTrades).thenApply(this::recordOpenOrders);
+    }
+
+    @Override
+    @Nonnull
+    public ImmutableList<ClosedOrderBo> getClosedOrders(final boolean includeTrades,
+                                                        @Nonnull final LocalDateTime from) {
+        return recordClosedOrders(delegate.getClosedOrders(includeTrades, from));
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<ImmutableList<ClosedOrderBo>> getClosedOrdersAsync(final boolean includeTrades,
+                                                                                @Nonnull final LocalDateTime from) {
+        return delegate.getClosedOrdersAsync(includeTrades, from).thenApply(this::recordClosedOrders);
+    }
+
+    @Override
+    @Nonnull
+    public Iterator<ClosedOrderBo> getClosedOrdersIterator(final boolean includeTrades,
+                                                           @Nonnull final LocalDateTime from) {
+        return Iterators.transform(delegate.getClosedOrdersIterator(includeTrades, from), order -> {
+            orderJournal.append(order);
+            return order;
+        });
+    }
+
+    @Override
+    @Nonnull
+    public ImmutableMap<CurrencyBoEnum, BigDecimal> getAccountBalance() {
+        return delegate.getAccountBalance();
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<ImmutableMap<CurrencyBoEnum, BigDecimal>> getAccountBalanceAsync() {
+        return delegate.getAccountBalanceAsync();
+    }
+
+    @Override
+    public void placeOrder(@Nonnull final OrderTypeBoEnum orderType,
+                           @Nonnull final PriceOrderTypeBoEnum priceOrderType,
+                           @Nonnull final CurrencyPairBo currencyPair,
+                           @Nonnull final BigDecimal volumeInQuoteCurrency,
+                           @Nonnull final BigDecimal price,
+                           final boolean preferFeeInQuoteCurrency,
+                           final long orderExpirationInSecondsFromNow) {
+        delegate.placeOrder(orderType, priceOrderType, currencyPair, volumeInQuoteCurrency, price,
+                preferFeeInQuoteCurrency, orderExpirationInSecondsFromNow);
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<Void> placeOrderAsync(@Nonnull final OrderTypeBoEnum orderType,
+                                                   @Nonnull final PriceOrderTypeBoEnum priceOrderType,
+                                                   @Nonnull final CurrencyPairBo currencyPair,
+                                                   @Nonnull final BigDecimal volumeInQuoteCurrency,
+                                                   @Nonnull final BigDecimal price,
+                                                   final boolean preferFeeInQuoteCurrency,
+                                                   final long orderExpirationInSecondsFromNow) {
+        return delegate.placeOrderAsync(orderType, priceOrderType, currencyPair, volumeInQuoteCurrency, price,
+                preferFeeInQuoteCurrency, orderExpirationInSecondsFromNow);
+    }
+
+    @Nonnull
+    private ImmutableList<OpenOrderBo> recordOpenOrders(@Nonnull final ImmutableList<OpenOrderBo> orders) {
+        orders.forEach(orderJournal::append);
+        return orders;
+    }
+
+    @Nonnull
+    private ImmutableList<ClosedOrderBo> recordClosedOrders(@Nonnull final ImmutableList<ClosedOrderBo> orders) {
+        orders.forEach(orderJournal::append);
+        return orders;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.logic;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.ClosedOrderBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.OpenOrderBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.OrderTypeBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.PriceOrderTypeBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.logic.TradingPlatformPrivateApiFacade;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.closedorder.ClosedOrderStore;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Decorates a {@link TradingPlatformPrivateApiFacade} with a {@link ClosedOrderStore}. Closed orders are answered
+ * from the store after retrieving only the orders closed since the newest stored one, instead of retrieving all orders
+ * of the requested time range again.
+ */
+public class StoringTradingPlatformPrivateApiFacade implements TradingPlatformPrivateApiFacade {
+
+    @Nonnull
+    private final TradingPlatformPrivateApiFacade delegate;
+    @Nonnull
+    private final ClosedOrderStore closedOrderStore;
+
+    public StoringTradingPlatformPrivateApiFacade(@Nonnull final TradingPlatformPrivateApiFacade delegate,
+                                                  @Nonnull final ClosedOrderStore closedOrderStore) {
+        this.delegate = delegate;
+        this.closedOrderStore = closedOrderStore;
+    }
+
+    @Override
+    @Nonnull
+    public String getTradingPlatform() {
+        return delegate.getTradingPlatform();
+    }
+
+    @Override
+    @Nonnull
+    public ImmutableList<OpenOrderBo> getOpenOrders(final boolean includeTrades) {
+        return delegate.getOpenOrders(includeTrades);
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<ImmutableList<OpenOrderBo>> getOpenOrdersAsync(final boolean includeTrades) {
+        return delegate.getOpenOrdersAsync(includeTrades);
+    }
+
+    /**
+     * Orders are always retrieved and stored with their trades so that the store can answer both kinds of calls.
+     */
+    @Override
+    @Nonnull
+    public ImmutableList<ClosedOrderBo> getClosedOrders(final boolean includeTrades,
+                                                        @Nonnull final LocalDateTime from) {
+        final var retrievalFrom = closedOrderStore.getRetrievalFrom(from);
+        closedOrderStore.add(delegate.getClosedOrders(true, retrievalFrom), retrievalFrom);
+        return getStoredClosedOrders(includeTrades, from);
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<ImmutableList<ClosedOrderBo>> getClosedOrdersAsync(final boolean includeTrades,
+                                                                                @Nonnull final LocalDateTime from) {
+        final var retrievalFrom = closedOrderStore.getRetrievalFrom(from);
+        return delegate.getClosedOrdersAsync(true, retrievalFrom)
+                .thenApply(orders -> {
+                    closedOrderStore.add(orders, retrievalFrom);
+                    return getStoredClosedOrders(includeTrades, from);
+                });
+    }
+
+    /**
+     * Not served from the store as iterators are meant for histories too long to be kept in memory.
+     */
+    @Override
+    @Nonnull
+    public Iterator<ClosedOrderBo> getClosedOrdersIterator(final boolean includeTrades,
+                                                           @Nonnull final LocalDateTime from) {
+        return delegate.getClosedOrdersIterator(includeTrades, from);
+    }
+
+    @Override
+    @Nonnull
+    public ImmutableMap<CurrencyBoEnum, BigDecimal> getAccountBalance() {
+        return delegate.getAccountBalance();
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<ImmutableMap<CurrencyBoEnum, BigDecimal>> getAccountBalanceAsync() {
+        return delegate.getAccountBalanceAsync();
+    }
+
+    @Override
+    public void placeOrder(@Nonnull final OrderTypeBoEnum orderType,
+                           @Nonnull final PriceOrderTypeBoEnum priceOrderType,
+                           @Nonnull final CurrencyPairBo currencyPair,
+                           @Nonnull final BigDecimal volumeInQuoteCurrency,
+                           @Nonnull final BigDecimal price,
+                           final boolean preferFeeInQuoteCurrency,
+                           final long orderExpirationInSecondsFromNow) {
+        delegate.placeOrder(orderType, priceOrderType, currencyPair, volumeInQuoteCurrency, price,
+                preferFeeInQuoteCurrency, orderExpirationInSecondsFromNow);
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<Void> placeOrderAsync(@Nonnull final OrderTypeBoEnum orderType,
+                                                   @Nonnull final PriceOrderTypeBoEnum priceOrderType,
+                                                   @Nonnull final CurrencyPairBo currencyPair,
+                                                   @Nonnull final BigDecimal volumeInQuoteCurrency,
+                                                   @Nonnull final BigDecimal price,
+                                                   final boolean preferFeeInQuoteCurrency,
+                                                   final long orderExpirationInSecondsFromNow) {
+        return delegate.placeOrderAsync(orderType, priceOrderType, currencyPair, volumeInQuoteCurrency, price,
+                preferFeeInQuoteCurrency, orderExpirationInSecondsFromNow);
+    }
+
+    @Nonnull
+    private ImmutableList<ClosedOrderBo> getStoredClosedOrders(final boolean includeTrades,
+                                                               @Nonnull final LocalDateTime from) {
+        final var orders = closedOrderStore.getClosedOrders(from);
+        if (includeTrades) {
+            return orders;
+        }
+        return orders.stream()
+                .map(order -> new ClosedOrderBo(order.getOrderId(), order.getOrderType(), order.getPriceOrderType(),
+                        order.getCurrencyPair(), order.getDesiredVolumeInQuoteCurrency(), order.getDesiredPrice(),
+                        order.getOpenDateTime(), order.getCloseDateTime(), order.getStatus(),
+                        order.getTotalExecutedVolumeInQuoteCurrency(), order.getAverageActualPrice(),
+                        order.getActualFeeInQuoteCurrency(), ImmutableList.of()))
+                .collect(ImmutableList.toImmutableList());
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.orderbook;
+
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.OrderBookBo;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Order book aggregated by price (level 2) maintained from snapshots and incremental updates of a market data feed.
+ * <p>
+ * Prices and quantities are kept as fixed-point numbers, i.e. as longs scaled by the given number of decimal places,
+ * in primitive arrays preallocated for the maximum depth. Hence applying updates does not allocate. One thread is
+ * expected to apply the feed while any number of threads read. Readers do not block the feed as long as it does not
+ * update the order book while they are reading.
+ */
+public class L2OrderBook {
+
+    @FunctionalInterface
+    public interface LevelVisitor {
+        void visit(long price,
+                   long quantity);
+    }
+
+    private final int priceScale;
+    private final int quantityScale;
+    @Nonnull
+    private final PriceLevels bids;
+    @Nonnull
+    private final PriceLevels asks;
+    @Nonnull
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * @param maxDepth      maximum number of levels per side, usually the depth subscribed from the feed
+     * @param priceScale    number of decimal places of prices
+     * @param quantityScale number of decimal places of quantities
+     */
+    public L2OrderBook(final int maxDepth,
+                       final int priceScale,
+                       final int quantityScale) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("Maximum depth needs to be positive, but is " + maxDepth);
+        }
+        this.priceScale = priceScale;
+        this.quantityScale = quantityScale;
+        this.bids = new PriceLevels(true, maxDepth);
+        this.asks = new PriceLevels(false, maxDepth);
+    }
+
+    public int getPriceScale() {
+        return priceScale;
+    }
+
+    public int getQuantityScale() {
+        return quantityScale;
+    }
+
+    /**
+     * Replaces the whole content by the given levels.
+     */
+    public void applySnapshot(@Nonnull final long[] bidPrices,
+                              @Nonnull final long[] bidQuantities,
+                              final int bidCount,
+                              @Nonnull final long[] askPrices,
+                              @Nonnull final long[] askQuantities,
+                              final int askCount) {
+        final var stamp = lock.writeLock();
+        try {
+            bids.clear();
+            asks.clear();
+            applyLevels(bids, bidPrices, bidQuantities, bidCount);
+            applyLevels(asks, askPrices, askQuantities, askCount);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Sets the quantities of the given price levels, a zero quantity removes its level.
+     */
+    public void applyUpdate(@Nonnull final long[] bidPrices,
+                            @Nonnull final long[] bidQuantities,
+                            final int bidCount,
+                            @Nonnull final long[] askPrices,
+                            @Nonnull final long[] askQuantities,
+                            final int askCount) {
+        final var stamp = lock.writeLock();
+        try {
+            applyLevels(bids, bidPrices, bidQuantities, bidCount);
+            applyLevels(asks, askPrices, askQuantities, askCount);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void clear() {
+        final var stamp = lock.writeLock();
+        try {
+            bids.clear();
+            asks.clear();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Visits up to the given number of the best bids, the best one first.
+     */
+    public void visitBids(final int depth,
+                          @Nonnull final LevelVisitor visitor) {
+        visitLevels(bids, depth, visitor);
+    }
+
+    /**
+     * Visits up to the given number of the best asks, the best one first.
+     */
+    public void visitAsks(final int depth,
+                          @Nonnull final LevelVisitor visitor) {
+        visitLevels(asks, depth, visitor);
+    }
+
+    /**
+     * @return a consistent copy of up to the given number of the best levels per side
+     */
+    @Nonnull
+    public OrderBookBo toOrderBookBo(@Nonnull final CurrencyPairBo currencyPair,
+                                     final int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth needs to be positive, but is " + depth);
+        }
+        final var copy = new TopLevelsCopy(depth);
+        // The arrays are never replaced, hence a concurrent update can make the copy inconsistent, but not fail.
+        var stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            copy.copyFrom(bids, asks);
+        }
+        if (stamp == 0 || !lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                copy.copyFrom(bids, asks);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return new OrderBookBo(currencyPair, priceScale, quantityScale,
+                copy.bidPrices, copy.bidQuantities, copy.bidCount,
+                copy.askPrices, copy.askQuantities, copy.askCount);
+    }
+
+    private static void applyLevels(@Nonnull final PriceLevels side,
+                                    @Nonnull final long[] prices,
+                                    @Nonnull final long[] quantities,
+                                    final int count) {
+        for (int i = 0; i < count; i++) {
+            side.update(prices[i], quantities[i]);
+        }
+    }
+
+    private void visitLevels(@Nonnull final PriceLevels side,
+                             final int depth,
+                             @Nonnull final LevelVisitor visitor) {
+        final var stamp = lock.readLock();
+        try {
+            final var count = Math.min(depth, side.getCount());
+            for (int i = 0; i < count; i++) {
+                visitor.visit(side.getPrice(i), side.getQuantity(i));
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static final class TopLevelsCopy {
+        @Nonnull
+        private final long[] bidPrices;
+        @Nonnull
+        private final long[] bidQuantities;
+        @Nonnull
+        private final long[] askPrices;
+        @Nonnull
+        private final long[] askQuantities;
+        private int bidCount;
+        private int askCount;
+
+        private TopLevelsCopy(final int depth) {
+            this.bidPrices = new long[depth];
+            this.bidQuantities = new long[depth];
+            this.askPrices = new long[depth];
+            this.askQuantities = new long[depth];
+        }
+
+        private void copyFrom(@Nonnull final PriceLevels bids,
+                              @Nonnull final PriceLevels asks) {
+            bidCount = copyFrom(bids, bidPrices, bidQuantities);
+            askCount = copyFrom(asks, askPrices, askQuantities);
+        }
+
+        private static int copyFrom(@Nonnull final PriceLevels side,
+                                    @Nonnull final long[] prices,
+                                    @Nonnull final long[] quantities) {
+            final var count = Math.min(prices.length, side.getCount());
+            for (int i = 0; i < count; i++) {
+                prices[i] = side.getPrice(i);
+                quantities[i] = side.getQuantity(i);
+            }
+            return count;
+        }
+    }
+}
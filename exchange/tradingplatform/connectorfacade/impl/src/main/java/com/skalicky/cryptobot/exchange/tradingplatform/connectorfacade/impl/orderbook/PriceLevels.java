@@ -0,0 +1,108 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.orderbook;
+
+/**
+ * One side of an order book, i.e. price levels sorted from the best price, limited to a maximum depth. Prices and
+ * quantities are fixed-point numbers with the scales of the order book. Not thread-safe.
+ */
+final class PriceLevels {
+
+    /**
+     * True for bids whose best price is the highest one.
+     */
+    private final boolean descending;
+    private final long[] prices;
+    private final long[] quantities;
+    private int count;
+
+    PriceLevels(final boolean descending,
+                final int maxDepth) {
+        this.descending = descending;
+        this.prices = new long[maxDepth];
+        this.quantities = new long[maxDepth];
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    long getPrice(final int level) {
+        return prices[level];
+    }
+
+    long getQuantity(final int level) {
+        return quantities[level];
+    }
+
+    void clear() {
+        count = 0;
+    }
+
+    /**
+     * Sets the quantity of the given price, inserting its level if not present yet. A zero quantity removes the
+     * level. Levels pushed beyond the maximum depth are dropped.
+     */
+    void update(final long price,
+                final long quantity) {
+        final var index = search(price);
+        if (index >= 0) {
+            if (quantity == 0) {
+                System.arraycopy(prices, index + 1, prices, index, count - index - 1);
+                System.arraycopy(quantities, index + 1, quantities, index, count - index - 1);
+                count--;
+            } else {
+                quantities[index] = quantity;
+            }
+            return;
+        }
+        final var insertionIndex = -index - 1;
+        if (quantity == 0 || insertionIndex >= prices.length) {
+            return;
+        }
+        final var movedCount = Math.min(count, prices.length - 1) - insertionIndex;
+        System.arraycopy(prices, insertionIndex, prices, insertionIndex + 1, movedCount);
+        System.arraycopy(quantities, insertionIndex, quantities, insertionIndex + 1, movedCount);
+        prices[insertionIndex] = price;
+        quantities[insertionIndex] = quantity;
+        count = Math.min(count + 1, prices.length);
+    }
+
+    /**
+     * @return index of the given price, or (-(insertion point) - 1) if not present, as
+     * {@link java.util.Arrays#binarySearch(long[], long)}
+     */
+    private int search(final long price) {
+        var low = 0;
+        var high = count - 1;
+        while (low <= high) {
+            final var middle = (low + high) >>> 1;
+            final var middlePrice = prices[middle];
+            if (middlePrice == price) {
+                return middle;
+            }
+            if (descending == (middlePrice > price)) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return -(low + 1);
+    }
+}
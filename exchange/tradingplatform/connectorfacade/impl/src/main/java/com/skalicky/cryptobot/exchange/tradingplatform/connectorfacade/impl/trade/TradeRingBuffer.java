@@ -0,0 +1,157 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.trade;
+
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.TradeFlowBo;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * The latest trades of one currency pair ordered by time, kept in a fixed-capacity ring of primitive arrays, one per
+ * field. Prices and volumes are fixed-point numbers scaled by the given numbers of decimal places.
+ * <p>
+ * Appending is O(1) and allocates nothing, the oldest trade is overwritten once the capacity is reached. Not
+ * thread-safe.
+ */
+public class TradeRingBuffer {
+
+    private final int priceScale;
+    private final int volumeScale;
+    @Nonnull
+    private final long[] times;
+    @Nonnull
+    private final long[] prices;
+    @Nonnull
+    private final long[] volumes;
+    @Nonnull
+    private final boolean[] buys;
+    /**
+     * Index of the oldest trade.
+     */
+    private int start;
+    private int count;
+
+    /**
+     * @param capacity    maximum number of trades kept, the oldest ones are overwritten when exceeded
+     * @param priceScale  number of decimal places of prices
+     * @param volumeScale number of decimal places of volumes
+     */
+    public TradeRingBuffer(final int capacity,
+                           final int priceScale,
+                           final int volumeScale) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity needs to be positive, but is " + capacity);
+        }
+        this.priceScale = priceScale;
+        this.volumeScale = volumeScale;
+        this.times = new long[capacity];
+        this.prices = new long[capacity];
+        this.volumes = new long[capacity];
+        this.buys = new boolean[capacity];
+    }
+
+    public int getPriceScale() {
+        return priceScale;
+    }
+
+    public int getVolumeScale() {
+        return volumeScale;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return time of the newest trade in epoch nanoseconds, {@link Long#MIN_VALUE} if there is none
+     */
+    public long getLastTime() {
+        return count == 0 ? Long.MIN_VALUE : times[physicalIndex(count - 1)];
+    }
+
+    /**
+     * @param time time in epoch nanoseconds, not older than the newest trade
+     * @param buy  true if the taker bought
+     */
+    public void append(final long time,
+                       final long price,
+                       final long volume,
+                       final boolean buy) {
+        if (time < getLastTime()) {
+            throw new IllegalArgumentException("Trade at " + time + " is older than the newest trade at "
+                    + getLastTime());
+        }
+        final int index;
+        if (count < times.length) {
+            index = physicalIndex(count);
+            count++;
+        } else {
+            index = start;
+            start = physicalIndex(1);
+        }
+        times[index] = time;
+        prices[index] = price;
+        volumes[index] = volume;
+        buys[index] = buy;
+    }
+
+    /**
+     * Walks from the newest trade back to the given time, hence the cost is proportional to the number of trades
+     * aggregated rather than to the capacity.
+     *
+     * @param fromTime inclusive time of the oldest aggregated trade in epoch nanoseconds
+     */
+    @Nonnull
+    public TradeFlowBo computeTradeFlow(final long fromTime) {
+        var tradeCount = 0;
+        // The product of a price and a volume may overflow a long, hence the notional is accumulated in a double.
+        var notional = 0.0;
+        var buyVolume = 0L;
+        var sellVolume = 0L;
+        for (int i = count - 1; i >= 0; i--) {
+            final var index = physicalIndex(i);
+            if (times[index] < fromTime) {
+                break;
+            }
+            tradeCount++;
+            notional += (double) prices[index] * volumes[index];
+            if (buys[index]) {
+                buyVolume += volumes[index];
+            } else {
+                sellVolume += volumes[index];
+            }
+        }
+        final var totalVolume = buyVolume + sellVolume;
+        final var volumeWeightedAveragePrice = totalVolume == 0 ? null
+                : BigDecimal.valueOf(notional / totalVolume).movePointLeft(priceScale)
+                .setScale(priceScale, RoundingMode.HALF_EVEN);
+        return new TradeFlowBo(tradeCount, volumeWeightedAveragePrice, BigDecimal.valueOf(buyVolume, volumeScale),
+                BigDecimal.valueOf(sellVolume, volumeScale));
+    }
+
+    /**
+     * @param logicalIndex 0 for the oldest trade
+     */
+    private int physicalIndex(final int logicalIndex) {
+        final var index = start + logicalIndex;
+        return index < times.length ? index : index - times.length;
+    }
+}
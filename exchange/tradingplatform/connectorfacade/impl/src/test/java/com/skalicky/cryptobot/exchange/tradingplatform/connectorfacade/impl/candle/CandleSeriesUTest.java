@@ -0,0 +1,105 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.candle;
+
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CandleIntervalBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CandleSeriesUTest {
+    @Nonnull
+    private static final CurrencyPairBo BTC_EUR = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+
+    @Test
+    public void test_append_when_sameTimeAsNewestCandle_then_newestCandleReplaced() {
+        final var series = new CandleSeries(10, 1, 8);
+        series.append(60, 10, 12, 9, 11, 100);
+
+        series.append(60, 10, 13, 9, 12, 150);
+
+        final var candles = series.toCandlesBo(BTC_EUR, CandleIntervalBoEnum.ONE_MINUTE, 0, 120);
+        assertThat(candles.getCount()).isEqualTo(1);
+        assertThat(candles.getHigh(0)).isEqualTo(new BigDecimal("1.3"));
+        assertThat(candles.getClose(0)).isEqualTo(new BigDecimal("1.2"));
+        assertThat(candles.getVolume(0)).isEqualTo(new BigDecimal("0.00000150"));
+    }
+
+    @Test
+    public void test_append_when_olderThanNewestCandle_then_exception() {
+        final var series = new CandleSeries(10, 1, 8);
+        series.append(120, 1, 1, 1, 1, 1);
+
+        assertThatThrownBy(() -> series.append(60, 1, 1, 1, 1, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void test_append_when_maxCountExceeded_then_olderHalfDiscarded() {
+        final var series = new CandleSeries(4, 0, 0);
+        for (int i = 1; i <= 5; i++) {
+            series.append(i * 60, i, i, i, i, i);
+        }
+
+        final var candles = series.toCandlesBo(BTC_EUR, CandleIntervalBoEnum.ONE_MINUTE, 0, Long.MAX_VALUE);
+        assertThat(candles.getCount()).isEqualTo(3);
+        assertThat(candles.getTimeInEpochSeconds(0)).isEqualTo(180L);
+        assertThat(candles.getTimeInEpochSeconds(2)).isEqualTo(300L);
+        assertThat(candles.getOpen(2)).isEqualTo(new BigDecimal("5"));
+    }
+
+    @Test
+    public void test_toCandlesBo_when_rangeBetweenCandles_then_candlesOpeningWithinRangeReturned() {
+        final var series = new CandleSeries(100, 0, 0);
+        for (int i = 0; i < 70; i++) {
+            series.append(i * 60, i, i, i, i, i);
+        }
+
+        final var candles = series.toCandlesBo(BTC_EUR, CandleIntervalBoEnum.ONE_MINUTE, 90, 300);
+
+        assertThat(candles.getCount()).isEqualTo(3);
+        assertThat(candles.getTimeInEpochSeconds(0)).isEqualTo(120L);
+        assertThat(candles.getTimeInEpochSeconds(2)).isEqualTo(240L);
+    }
+
+    @Test
+    public void test_toCandlesBo_when_rangeInverted_then_noCandles() {
+        final var series = new CandleSeries(10, 0, 0);
+        series.append(60, 1, 1, 1, 1, 1);
+
+        assertThat(series.toCandlesBo(BTC_EUR, CandleIntervalBoEnum.ONE_MINUTE, 120, 0).getCount()).isZero();
+    }
+
+    @Test
+    public void test_indexOf_when_timeAfterNewestCandle_then_count() {
+        final var series = new CandleSeries(10, 0, 0);
+        series.append(60, 1, 1, 1, 1, 1);
+        series.append(120, 1, 1, 1, 1, 1);
+
+        assertThat(series.indexOf(60)).isEqualTo(0);
+        assertThat(series.indexOf(61)).isEqualTo(1);
+        assertThat(series.indexOf(121)).isEqualTo(2);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.closedorder;
+
+import com.google.common.collect.ImmutableList;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.ClosedOrderBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.OrderStateBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.OrderTypeBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.PriceOrderTypeBoEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ClosedOrderStoreUTest {
+    @Nonnull
+    private static final LocalDateTime NOW = LocalDateTime.of(2020, 5, 10, 12, 0);
+
+    private Path storeFile;
+
+    @BeforeEach
+    public void createStoreFile() throws Exception {
+        storeFile = Files.createTempFile("closed-orders", ".tsv");
+    }
+
+    @AfterEach
+    public void deleteStoreFile() throws Exception {
+        Files.deleteIfExists(storeFile);
+    }
+
+    @Test
+    public void test_getRetrievalFrom_when_empty_then_requestedFrom() {
+        final var store = new ClosedOrderStore(storeFile);
+
+        assertThat(store.getRetrievalFrom(NOW.minusDays(3))).isEqualTo(NOW.minusDays(3));
+    }
+
+    @Test
+    public void test_getRetrievalFrom_when_completeSinceRequestedFrom_then_newestCloseDateTime() {
+        final var store = new ClosedOrderStore(storeFile);
+        store.add(List.of(createOrder("O1", NOW.minusDays(2), null), createOrder("O2", NOW.minusHours(1), null)),
+                NOW.minusDays(3));
+
+        assertThat(store.getRetrievalFrom(NOW.minusDays(3))).isEqualTo(NOW.minusHours(1));
+        assertThat(store.getRetrievalFrom(NOW.minusDays(4))).isEqualTo(NOW.minusDays(4));
+    }
+
+    @Test
+    public void test_constructor_when_storedBefore_then_ordersAndCompletenessLoaded() {
+        new ClosedOrderStore(storeFile).add(List.of(createOrder("O1", NOW.minusDays(2), new BigDecimal("8500.1")),
+                createOrder("O2", NOW.minusHours(1), null)), NOW.minusDays(3));
+
+        final var store = new ClosedOrderStore(storeFile);
+
+        assertThat(store.getSize()).isEqualTo(2);
+        assertThat(store.getRetrievalFrom(NOW.minusDays(3))).isEqualTo(NOW.minusHours(1));
+        final var orders = store.getClosedOrders(NOW.minusDays(3));
+        assertThat(orders).hasSize(2);
+        assertThat(orders.get(0).getOrderId()).isEqualTo("O2");
+        assertThat(orders.get(1).getOrderId()).isEqualTo("O1");
+        assertThat(orders.get(1).getDesiredPrice()).isEqualTo(new BigDecimal("8500.1"));
+        assertThat(orders.get(1).getTradeIds()).containsExactly("T1", "T2");
+        assertThat(orders.get(0).getDesiredPrice()).isNull();
+    }
+
+    @Test
+    public void test_add_when_orderRetrievedAgain_then_notDuplicated() throws Exception {
+        final var store = new ClosedOrderStore(storeFile);
+        store.add(List.of(createOrder("O1", NOW.minusHours(1), null)), NOW.minusDays(3));
+        final var sizeOfFile = Files.size(storeFile);
+
+        store.add(List.of(createOrder("O1", NOW.minusHours(1), null)), NOW.minusHours(1));
+
+        assertThat(store.getClosedOrders(NOW.minusDays(3))).hasSize(1);
+        assertThat(Files.size(storeFile)).isEqualTo(sizeOfFile);
+    }
+
+    @Test
+    public void test_constructor_when_lastLineTruncated_then_lineSkipped() throws Exception {
+        new ClosedOrderStore(storeFile).add(List.of(createOrder("O1", NOW.minusHours(1), null)), NOW.minusDays(3));
+        Files.writeString(storeFile, "O\tO2\tBUY\tLIMIT", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        final var store = new ClosedOrderStore(storeFile);
+
+        final var orders = store.getClosedOrders(NOW.minusDays(3));
+        assertThat(orders).hasSize(1);
+        assertThat(orders.get(0).getOrderId()).isEqualTo("O1");
+    }
+
+    @Test
+    public void test_add_when_lastLineTruncatedBeforeLoad_then_addedOrderLoadedAfterRestart() throws Exception {
+        new ClosedOrderStore(storeFile).add(List.of(createOrder("O1", NOW.minusHours(2), null)), NOW.minusDays(3));
+        Files.writeString(storeFile, "O\tO2\tBUY\tLIMIT", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        new ClosedOrderStore(storeFile).add(List.of(createOrder("O3", NOW.minusHours(1), null)), NOW.minusHours(2));
+
+        final var store = new ClosedOrderStore(storeFile);
+
+        final var orders = store.getClosedOrders(NOW.minusDays(3));
+        assertThat(orders).hasSize(2);
+        assertThat(orders.get(0).getOrderId()).isEqualTo("O3");
+        assertThat(orders.get(1).getOrderId()).isEqualTo("O1");
+    }
+
+    @Nonnull
+    private static ClosedOrderBo createOrder(@Nonnull final String orderId,
+                                             @Nonnull final LocalDateTime closeDateTime,
+                                             @Nullable final BigDecimal desiredPrice) {
+        return new ClosedOrderBo(orderId, OrderTypeBoEnum.BUY, desiredPrice == null ? PriceOrderTypeBoEnum.MARKET
+                : PriceOrderTypeBoEnum.LIMIT, new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR),
+                new BigDecimal("0.01000000"), desiredPrice, closeDateTime.minusMinutes(5), closeDateTime,
+                OrderStateBoEnum.FULLY_EXECUTED, new BigDecimal("0.01000000"), new BigDecimal("8500.0"),
+                new BigDecimal("0.00001600"), ImmutableList.of("T1", "T2"));
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.journal;
+
+import com.google.common.collect.ImmutableList;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.ClosedOrderBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.OpenOrderBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.OrderStateBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.OrderTypeBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.PriceOrderTypeBoEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrderJournalUTest {
+    private static final int SEGMENT_SIZE = 4096;
+    @Nonnull
+    private static final CurrencyPairBo BTC_EUR = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+    @Nonnull
+    private static final LocalDateTime OPEN_DATE_TIME = LocalDateTime.of(2020, 5, 10, 12, 0, 0, 123_000_000);
+
+    @Nonnull
+    private final MutableClock clock = new MutableClock();
+    private Path journalDirectory;
+
+    @BeforeEach
+    public void createJournalDirectory() throws Exception {
+        journalDirectory = Files.createTempDirectory("order-journal");
+    }
+
+    @AfterEach
+    public void deleteJournalDirectory() throws Exception {
+        try (final var files = Files.walk(journalDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    public void test_getLatest_when_openedThenClosed_then_closedOrderWithAllFields() throws Exception {
+        try (final var journal = new OrderJournal(journalDirectory, SEGMENT_SIZE, clock)) {
+            journal.append(createOpenOrder("O1"));
+            journal.append(createClosedOrder("O1"));
+
+            final var entry = journal.getLatest("O1");
+
+            // Asserts to avoid warnings caused by presence of @Nullable.
+            assertThat(entry).isNotNull();
+            assertThat(entry.getOpenOrder()).isNull();
+            final var closedOrder = entry.getClosedOrder();
+            assertThat(closedOrder).isNotNull();
+            assertThat(closedOrder.getOrderType()).isEqualTo(OrderTypeBoEnum.BUY);
+            assertThat(closedOrder.getPriceOrderType()).isEqualTo(PriceOrderTypeBoEnum.LIMIT);
+            assertThat(closedOrder.getCurrencyPair()).isEqualTo(BTC_EUR);
+            assertThat(closedOrder.getDesiredPrice()).isEqualTo(new BigDecimal("8500.1"));
+            assertThat(closedOrder.getOpenDateTime()).isEqualTo(OPEN_DATE_TIME);
+            assertThat(closedOrder.getCloseDateTime()).isEqualTo(OPEN_DATE_TIME.plusHours(1));
+            assertThat(closedOrder.getStatus()).isEqualTo(OrderStateBoEnum.FULLY_EXECUTED);
+            assertThat(closedOrder.getActualFeeInQuoteCurrency()).isEqualTo(new BigDecimal("0.00001600"));
+            assertThat(closedOrder.getTradeIds()).containsExactly("T1", "T2");
+        }
+    }
+
+    @Test
+    public void test_append_when_stateUnchanged_then_notRecorded() throws Exception {
+        try (final var journal = new OrderJournal(journalDirectory, SEGMENT_SIZE, clock)) {
+            assertThat(journal.append(createOpenOrder("O1"))).isTrue();
+            clock.millis = 1000;
+
+            assertThat(journal.append(createOpenOrder("O1"))).isFalse();
+            assertThat(journal.append(createClosedOrder("O1"))).isTrue();
+            assertThat(journal.getRecordCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void test_constructor_when_journalReopened_then_recordsRecovered_and_appendingContinues() throws Exception {
+        try (final var journal = new OrderJournal(journalDirectory, SEGMENT_SIZE, clock)) {
+            journal.append(createOpenOrder("O1"));
+        }
+
+        try (final var journal = new OrderJournal(journalDirectory, SEGMENT_SIZE, clock)) {
+            journal.append(createOpenOrder("O2"));
+
+            assertThat(journal.getRecordCount()).isEqualTo(2);
+            final var entry = journal.getLatest("O1");
+            assertThat(entry).isNotNull();
+            final var openOrder = entry.getOpenOrder();
+            assertThat(openOrder).isNotNull();
+            assertThat(openOrder.getExpirationDateTime()).isNull();
+            assertThat(openOrder.getAverageActualPrice()).isNull();
+            assertThat(journal.getLatest("O2")).isNotNull();
+        }
+    }
+
+    @Test
+    public void test_constructor_when_lastRecordIncomplete_then_recordDiscarded() throws Exception {
+        try (final var journal = new OrderJournal(journalDirectory, SEGMENT_SIZE, clock)) {
+            journal.append(createOpenOrder("O1"));
+            journal.append(createOpenOrder("O2"));
+        }
+        // Corrupts the payload of the second record as if the process crashed while writing it.
+        try (final var segmentFile = new RandomAccessFile(
+                journalDirectory.resolve("orders-0000000000.journal").toFile(), "rw")) {
+            final var secondRecordPosition = Integer.BYTES + Integer.BYTES + segmentFile.readInt();
+            segmentFile.seek(secondRecordPosition + 20);
+            segmentFile.writeLong(-1L);
+        }
+
+        try (final var journal = new OrderJournal(journalDirectory, SEGMENT_SIZE, clock)) {
+            assertThat(journal.getRecordCount()).isEqualTo(1);
+            assertThat(journal.getLatest("O2")).isNull();
+
+            journal.append(createOpenOrder("O3"));
+            assertThat(journal.getLatest("O3")).isNotNull();
+        }
+    }
+
+    @Test
+    public void test_forEachSince_when_severalSegments_then_recordsSinceTimeInOrder() throws Exception {
+        try (final var journal = new OrderJournal(journalDirectory, SEGMENT_SIZE, clock)) {
+            for (int i = 0; i < 200; i++) {
+                clock.millis = i;
+                journal.append(createOpenOrder("O" + i));
+            }
+            assertThat(journal.getSegmentCount()).isGreaterThan(1);
+        }
+
+        try (final var journal = new OrderJournal(journalDirectory, SEGMENT_SIZE, clock)) {
+            final var orderIds = new ArrayList<String>();
+            journal.forEachSince(150, entry -> orderIds.add(entry.getOrderId()));
+
+            assertThat(orderIds).hasSize(50);
+            assertThat(orderIds.get(0)).isEqualTo("O150");
+            assertThat(orderIds.get(49)).isEqualTo("O199");
+        }
+    }
+
+    @Nonnull
+    private static OpenOrderBo createOpenOrder(@Nonnull final String orderId) {
+        return new OpenOrderBo(orderId, OrderTypeBoEnum.BUY, PriceOrderTypeBoEnum.LIMIT, BTC_EUR,
+                new BigDecimal("0.01000000"), new BigDecimal("8500.1"), OPEN_DATE_TIME, null, OrderStateBoEnum.NEW,
+                new BigDecimal("0.00000000"), null, null, ImmutableList.of());
+    }
+
+    @Nonnull
+    private static ClosedOrderBo createClosedOrder(@Nonnull final String orderId) {
+        return new ClosedOrderBo(orderId, OrderTypeBoEnum.BUY, PriceOrderTypeBoEnum.LIMIT, BTC_EUR,
+                new BigDecimal("0.01000000"), new BigDecimal("8500.1"), OPEN_DATE_TIME, OPEN_DATE_TIME.plusHours(1),
+                OrderStateBoEnum.FULLY_EXECUTED, new BigDecimal("0.01000000"), new BigDecimal("8500.0"),
+                new BigDecimal("0.00001600"), ImmutableList.of("T1", "T2"));
+    }
+
+    private static final class MutableClock extends Clock {
+        private long millis;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.logic;
+
+import com.google.common.collect.ImmutableMap;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.OrderBookBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.TickerBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.logic.TradingPlatformPublicApiFacade;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CachingTradingPlatformPublicApiFacadeUTest {
+    @Nonnull
+    private static final CurrencyPairBo BTC_EUR = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+    @Nonnull
+    private static final CurrencyPairBo EUR_BTC = new CurrencyPairBo(CurrencyBoEnum.EUR, CurrencyBoEnum.BTC);
+    @Nonnull
+    private static final CurrencyPairBo BTC_BTC = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.BTC);
+
+    @Nonnull
+    private final CountingPublicApiFacade delegate = new CountingPublicApiFacade();
+    @Nonnull
+    private final AtomicLong nanoTime = new AtomicLong();
+    @Nonnull
+    private final CachingTradingPlatformPublicApiFacade cachingFacade = new CachingTradingPlatformPublicApiFacade(
+            delegate, Duration.ofSeconds(1), ImmutableMap.of(EUR_BTC, Duration.ofSeconds(10)), 2, nanoTime::get);
+
+    @Test
+    public void test_getTicker_when_withinTimeToLive_then_cachedTickerReturned_and_hitCounted() {
+        final var first = cachingFacade.getTicker(BTC_EUR);
+        advance(999);
+        final var second = cachingFacade.getTicker(BTC_EUR);
+
+        assertThat(second).isSameAs(first);
+        assertThat(delegate.requestedCurrencyPairs).containsExactly(BTC_EUR);
+        assertThat(cachingFacade.getHitCount()).isEqualTo(1L);
+        assertThat(cachingFacade.getMissCount()).isEqualTo(1L);
+    }
+
+    @Test
+    public void test_getTicker_when_timeToLiveElapsed_then_tickerRetrievedAgain() {
+        final var first = cachingFacade.getTicker(BTC_EUR);
+        advance(1000);
+        final var second = cachingFacade.getTicker(BTC_EUR);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(delegate.requestedCurrencyPairs).containsExactly(BTC_EUR, BTC_EUR);
+        assertThat(cachingFacade.getMissCount()).isEqualTo(2L);
+    }
+
+    @Test
+    public void test_getTicker_when_timeToLiveOfCurrencyPairConfigured_then_thatTimeToLiveApplied() {
+        cachingFacade.getTicker(EUR_BTC);
+        advance(9_999);
+        cachingFacade.getTicker(EUR_BTC);
+
+        assertThat(delegate.requestedCurrencyPairs).containsExactly(EUR_BTC);
+    }
+
+    @Test
+    public void test_getTicker_when_maximumSizeExceeded_then_leastRecentlyUsedEvicted() {
+        cachingFacade.getTicker(BTC_EUR);
+        advance(10);
+        cachingFacade.getTicker(EUR_BTC);
+        advance(10);
+        cachingFacade.getTicker(BTC_EUR);
+        advance(10);
+        cachingFacade.getTicker(BTC_BTC);
+
+        assertThat(cachingFacade.getSize()).isEqualTo(2);
+        assertThat(cachingFacade.getEvictionCount()).isEqualTo(1L);
+
+        cachingFacade.getTicker(BTC_EUR);
+        cachingFacade.getTicker(EUR_BTC);
+
+        assertThat(delegate.requestedCurrencyPairs).containsExactly(BTC_EUR, EUR_BTC, BTC_BTC, EUR_BTC);
+    }
+
+    @Test
+    public void test_getTickers_when_somePairsCached_then_onlyMissingPairsRetrieved() {
+        final var cachedTicker = cachingFacade.getTicker(BTC_EUR);
+
+        final var tickers = cachingFacade.getTickers(List.of(BTC_EUR, EUR_BTC));
+
+        assertThat(tickers.get(BTC_EUR)).isSameAs(cachedTicker);
+        assertThat(tickers).containsOnlyKeys(BTC_EUR, EUR_BTC);
+        assertThat(delegate.requestedCurrencyPairs).containsExactly(BTC_EUR, EUR_BTC);
+    }
+
+    @Test
+    public void test_getTickerAsync_when_retrieved_then_cachedForSynchronousCalls() {
+        final var first = cachingFacade.getTickerAsync(BTC_EUR).join();
+        final var second = cachingFacade.getTicker(BTC_EUR);
+
+        assertThat(second).isSameAs(first);
+        assertThat(delegate.requestedCurrencyPairs).containsExactly(BTC_EUR);
+    }
+
+    @Test
+    public void test_refreshAhead_when_usedTickerAboutToExpire_then_refreshed_and_unusedTickerNotRefreshed() {
+        cachingFacade.getTicker(BTC_EUR);
+        cachingFacade.getTicker(EUR_BTC);
+        cachingFacade.getTicker(BTC_EUR);
+        advance(800);
+
+        cachingFacade.refreshAhead(Duration.ofMillis(300));
+        advance(800);
+        final var refreshedTicker = cachingFacade.getTicker(BTC_EUR);
+
+        assertThat(delegate.requestedCurrencyPairs).containsExactly(BTC_EUR, EUR_BTC, BTC_EUR);
+        assertThat(refreshedTicker.getAskPrice()).isEqualTo(new BigDecimal("3"));
+    }
+
+    private void advance(final long millis) {
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * Returns tickers with the ask price equal to the number of the request.
+     */
+    private static final class CountingPublicApiFacade implements TradingPlatformPublicApiFacade {
+        @Nonnull
+        private final List<CurrencyPairBo> requestedCurrencyPairs = new ArrayList<>();
+
+        @Override
+        @Nonnull
+        public String getTradingPlatform() {
+            return "test";
+        }
+
+        @Override
+        @Nonnull
+        public TickerBo getTicker(@Nonnull final CurrencyPairBo currencyPair) {
+            requestedCurrencyPairs.add(currencyPair);
+            return new TickerBo(currencyPair.getQuoteCurrency().getLabel() + currencyPair.getBaseCurrency().getLabel(),
+                    BigDecimal.valueOf(requestedCurrencyPairs.size()), BigDecimal.ONE);
+        }
+
+        @Override
+        @Nonnull
+        public CompletableFuture<TickerBo> getTickerAsync(@Nonnull final CurrencyPairBo currencyPair) {
+            return CompletableFuture.completedFuture(getTicker(currencyPair));
+        }
+
+        @Override
+        @Nonnull
+        public ImmutableMap<CurrencyPairBo, TickerBo> getTickers(@Nonnull final Collection<CurrencyPairBo> currencyPairs) {
+            final var tickers = ImmutableMap.<CurrencyPairBo, TickerBo>builder();
+            currencyPairs.forEach(currencyPair -> tickers.put(currencyPair, getTicker(currencyPair)));
+            return tickers.build();
+        }
+
+        @Override
+        @Nonnull
+        public CompletableFuture<ImmutableMap<CurrencyPairBo, TickerBo>> getTickersAsync(@Nonnull final Collection<CurrencyPairBo> currencyPairs) {
+            return CompletableFuture.completedFuture(getTickers(currencyPairs));
+        }
+
+        @Override
+        @Nonnull
+        public OrderBookBo getOrderBook(@Nonnull final CurrencyPairBo currencyPair,
+                                        final int depth) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.orderbook;
+
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.CurrencyPairBo;
+import com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.api.bo.enums.CurrencyBoEnum;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class L2OrderBookUTest {
+    @Nonnull
+    private static final CurrencyPairBo BTC_EUR = new CurrencyPairBo(CurrencyBoEnum.BTC, CurrencyBoEnum.EUR);
+
+    @Nonnull
+    private final L2OrderBook orderBook = new L2OrderBook(3, 1, 8);
+
+    @Test
+    public void test_applySnapshot_when_levelsUnordered_then_bestLevelsFirst() {
+        orderBook.applySnapshot(new long[]{89010, 89024, 89000}, new long[]{1, 2, 3}, 3,
+                new long[]{89040, 89033}, new long[]{4, 5}, 2);
+
+        assertThat(prices(true)).containsExactly(89024L, 89010L, 89000L);
+        assertThat(prices(false)).containsExactly(89033L, 89040L);
+    }
+
+    @Test
+    public void test_applyUpdate_when_newLevelsAndZeroQuantities_then_levelsInsertedAndRemoved() {
+        orderBook.applySnapshot(new long[]{89024, 89010}, new long[]{1, 2}, 2,
+                new long[]{89033, 89040}, new long[]{4, 5}, 2);
+
+        orderBook.applyUpdate(new long[]{89020, 89010}, new long[]{7, 0}, 2,
+                new long[]{89033}, new long[]{9}, 1);
+
+        assertThat(prices(true)).containsExactly(89024L, 89020L);
+        assertThat(quantities(true)).containsExactly(1L, 7L);
+        assertThat(quantities(false)).containsExactly(9L, 5L);
+    }
+
+    @Test
+    public void test_applyUpdate_when_maxDepthExceeded_then_worstLevelDropped() {
+        orderBook.applySnapshot(new long[]{89024, 89020, 89010}, new long[]{1, 2, 3}, 3,
+                new long[0], new long[0], 0);
+
+        orderBook.applyUpdate(new long[]{89030, 89000}, new long[]{4, 5}, 2,
+                new long[0], new long[0], 0);
+
+        assertThat(prices(true)).containsExactly(89030L, 89024L, 89020L);
+    }
+
+    @Test
+    public void test_applySnapshot_when_bookNotEmpty_then_previousLevelsReplaced() {
+        orderBook.applySnapshot(new long[]{89024}, new long[]{1}, 1, new long[]{89033}, new long[]{2}, 1);
+
+        orderBook.applySnapshot(new long[]{88000}, new long[]{3}, 1, new long[0], new long[0], 0);
+
+        assertThat(prices(true)).containsExactly(88000L);
+        assertThat(prices(false)).isEmpty();
+    }
+
+    @Test
+    public void test_toOrderBookBo_when_depthLowerThanLevelCount_then_bestLevelsScaledToDecimals() {
+        orderBook.applySnapshot(new long[]{89024, 89010}, new long[]{50000000, 125000000}, 2,
+                new long[]{89033}, new long[]{1}, 1);
+
+        final var orderBookBo = orderBook.toOrderBookBo(BTC_EUR, 1);
+
+        assertThat(orderBookBo.getCurrencyPair()).isEqualTo(BTC_EUR);
+        assertThat(orderBookBo.getBids()).hasSize(1);
+        assertThat(orderBookBo.getBids().get(0).getPrice()).isEqualTo(new BigDecimal("8902.4"));
+        assertThat(orderBookBo.getBids().get(0).getVolume()).isEqualTo(new BigDecimal("0.50000000"));
+        assertThat(orderBookBo.getAsks()).hasSize(1);
+        assertThat(orderBookBo.getAsks().get(0).getPrice()).isEqualTo(new BigDecimal("8903.3"));
+        assertThat(orderBookBo.getAsks().get(0).getVolume()).isEqualTo(new BigDecimal("0.00000001"));
+    }
+
+    @Test
+    public void test_toOrderBookBo_when_depthNotPositive_then_exception() {
+        assertThatThrownBy(() -> orderBook.toOrderBookBo(BTC_EUR, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Nonnull
+    private List<Long> prices(final boolean bids) {
+        final var prices = new ArrayList<Long>();
+        visit(bids, (price, quantity) -> prices.add(price));
+        return prices;
+    }
+
+    @Nonnull
+    private List<Long> quantities(final boolean bids) {
+        final var quantities = new ArrayList<Long>();
+        visit(bids, (price, quantity) -> quantities.add(quantity));
+        return quantities;
+    }
+
+    private void visit(final boolean bids,
+                       @Nonnull final L2OrderBook.LevelVisitor visitor) {
+        if (bids) {
+            orderBook.visitBids(Integer.MAX_VALUE, visitor);
+        } else {
+            orderBook.visitAsks(Integer.MAX_VALUE, visitor);
+        }
+    }
+}
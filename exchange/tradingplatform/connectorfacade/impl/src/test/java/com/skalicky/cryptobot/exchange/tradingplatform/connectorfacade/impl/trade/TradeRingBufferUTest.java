@@ -0,0 +1,91 @@
+/*
+ * A program to automatically trade cryptocurrencies.
+ * Copyright (C) 2020 Tomas Skalicky
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.skalicky.cryptobot.exchange.tradingplatform.connectorfacade.impl.trade;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TradeRingBufferUTest {
+
+    @Test
+    public void test_computeTradeFlow_when_tradesWithinRange_then_volumeWeightedAndSplitBySide() {
+        final var buffer = new TradeRingBuffer(10, 1, 2);
+        buffer.append(100, 100, 100, true);
+        buffer.append(200, 200, 300, false);
+
+        final var tradeFlow = buffer.computeTradeFlow(100);
+
+        assertThat(tradeFlow.getTradeCount()).isEqualTo(2);
+        assertThat(tradeFlow.getVolumeWeightedAveragePrice()).isEqualTo(new BigDecimal("17.5"));
+        assertThat(tradeFlow.getBuyVolume()).isEqualTo(new BigDecimal("1.00"));
+        assertThat(tradeFlow.getSellVolume()).isEqualTo(new BigDecimal("3.00"));
+        assertThat(tradeFlow.getNetVolume()).isEqualTo(new BigDecimal("-2.00"));
+    }
+
+    @Test
+    public void test_computeTradeFlow_when_tradesOlderThanFrom_then_skipped() {
+        final var buffer = new TradeRingBuffer(10, 1, 2);
+        buffer.append(100, 500, 100, true);
+        buffer.append(200, 200, 100, true);
+
+        final var tradeFlow = buffer.computeTradeFlow(150);
+
+        assertThat(tradeFlow.getTradeCount()).isEqualTo(1);
+        assertThat(tradeFlow.getVolumeWeightedAveragePrice()).isEqualTo(new BigDecimal("20.0"));
+    }
+
+    @Test
+    public void test_computeTradeFlow_when_noTrades_then_noVolumeWeightedAveragePrice() {
+        final var buffer = new TradeRingBuffer(10, 1, 2);
+
+        final var tradeFlow = buffer.computeTradeFlow(0);
+
+        assertThat(tradeFlow.getTradeCount()).isEqualTo(0);
+        assertThat(tradeFlow.getVolumeWeightedAveragePrice()).isNull();
+        assertThat(tradeFlow.getBuyVolume()).isEqualTo(new BigDecimal("0.00"));
+    }
+
+    @Test
+    public void test_append_when_capacityExceeded_then_oldestTradesOverwritten() {
+        final var buffer = new TradeRingBuffer(2, 1, 2);
+        buffer.append(100, 100, 100, true);
+        buffer.append(200, 200, 100, true);
+
+        buffer.append(300, 300, 100, false);
+
+        assertThat(buffer.getCount()).isEqualTo(2);
+        assertThat(buffer.getLastTime()).isEqualTo(300);
+        final var tradeFlow = buffer.computeTradeFlow(0);
+        assertThat(tradeFlow.getTradeCount()).isEqualTo(2);
+        assertThat(tradeFlow.getVolumeWeightedAveragePrice()).isEqualTo(new BigDecimal("25.0"));
+    }
+
+    @Test
+    public void test_append_when_olderThanNewestTrade_then_exception() {
+        final var buffer = new TradeRingBuffer(2, 1, 2);
+        buffer.append(200, 1, 1, true);
+
+        assertThatThrownBy(() -> buffer.append(100, 1, 1, true))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}